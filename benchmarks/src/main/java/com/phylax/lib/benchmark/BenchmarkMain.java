@@ -0,0 +1,42 @@
+package com.phylax.lib.benchmark;
+
+import org.openjdk.jmh.Main;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+
+/**
+ * Runs the benchmarks with the GC profiler, so that every result reports the bytes
+ * allocated per operation ({@code gc.alloc.rate.norm}) next to its time.
+ * <p>
+ * Takes the usual JMH command line, e.g. {@code java -jar target/benchmarks.jar LRUCache -t 4};
+ * {@code -h} lists the options.
+ * </p>
+ */
+public final class BenchmarkMain {
+
+    private BenchmarkMain() {
+    }
+
+    public static void main(String[] args) throws IOException, RunnerException, CommandLineOptionException {
+        final CommandLineOptions options = new CommandLineOptions(args);
+
+        if (options.shouldHelp()) {
+            options.showHelp();
+            return;
+        }
+
+        if (options.shouldList() || options.shouldListWithParams() || options.shouldListProfilers()
+                || options.shouldListResultFormats()) {
+            // Listing is handled by the stock entry point.
+            Main.main(args);
+            return;
+        }
+        new Runner(new OptionsBuilder().parent(options).addProfiler(GCProfiler.class).build()).run();
+    }
+}
@@ -0,0 +1,64 @@
+package com.phylax.lib.benchmark;
+
+import com.phylax.lib.mapper.ExternalObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the JSON mapping the remote tiers use by default: encoding a value to a
+ * string and decoding it back, with the bytes allocated per operation reported by the
+ * GC profiler.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ExternalObjectMapperBenchmark {
+
+    /**
+     * A value shaped like the sessions and principals cached by the IAM services.
+     */
+    public record Session(String id, String subject, long issuedAt, long expiresAt, List<String> roles,
+                          Map<String, String> claims) {
+    }
+
+    private ExternalObjectMapper mapper;
+
+    private Session session;
+
+    private String json;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        this.mapper = new ExternalObjectMapper();
+        this.session = new Session("6f1c2b7e-4d0a-4a51-9a8e-3f2d1c0b9a87", "user-42", 1_700_000_000_000L,
+                1_700_003_600_000L, List.of("reader", "writer", "auditor"),
+                Map.of("tenant", "phylax", "mfa", "true", "locale", "en-GB"));
+        this.json = this.mapper.toJson(this.session);
+    }
+
+    @Benchmark
+    public String encode() {
+        return this.mapper.toJson(this.session);
+    }
+
+    @Benchmark
+    public Session decode() {
+        return this.mapper.fromJson(this.json, Session.class);
+    }
+}
@@ -0,0 +1,82 @@
+package com.phylax.lib.benchmark;
+
+import com.phylax.lib.config.InMemoryCacheConfig;
+import com.phylax.lib.connector.InMemoryCacheConnectionManager;
+import com.phylax.lib.local.InMemoryCache;
+import com.phylax.lib.stats.ConcurrentStatsCounter;
+import com.phylax.lib.stats.StatsCounter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency and allocation of {@link InMemoryCache} reads.
+ * <p>
+ * A read wraps the value in an {@link Optional}; run with {@code -prof gc}, which
+ * {@link BenchmarkMain} adds by default, and compare {@code gc.alloc.rate.norm} of the
+ * hit and miss paths to see what a read allocates on top of the {@code LRUCache} lookup.
+ * The {@code stats} parameter measures the cost of recording statistics.
+ * </p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class InMemoryCacheBenchmark {
+
+    private static final int KEY_COUNT = 1 << 16;
+
+    @Param({"false", "true"})
+    private boolean stats;
+
+    private InMemoryCache<String, String> cache;
+
+    private String[] hits;
+
+    private String[] misses;
+
+    private int position;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        final StatsCounter counter = this.stats ? new ConcurrentStatsCounter() : StatsCounter.disabled();
+        this.cache = new InMemoryCache<>(new InMemoryCacheConnectionManager<>(new InMemoryCacheConfig()), counter);
+        this.hits = new String[KEY_COUNT];
+        this.misses = new String[KEY_COUNT];
+
+        for (int i = 0; i < KEY_COUNT; i++) {
+            this.hits[i] = "user:" + i;
+            this.misses[i] = "absent:" + i;
+            this.cache.write(this.hits[i], "{\"id\":" + i + ",\"roles\":[\"reader\"]}");
+        }
+    }
+
+    @Benchmark
+    public Optional<String> readHit() {
+        return this.cache.read(this.hits[this.next()]);
+    }
+
+    @Benchmark
+    public Optional<String> readMiss() {
+        return this.cache.read(this.misses[this.next()]);
+    }
+
+    private int next() {
+        this.position = (this.position + 1) & (KEY_COUNT - 1);
+        return this.position;
+    }
+}
@@ -0,0 +1,67 @@
+package com.phylax.lib.benchmark;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Distribution of the keys a benchmark looks up.
+ * <p>
+ * Keys are drawn ahead of the measurement into a trace whose length is a power of two,
+ * so that the benchmark loop only masks an index and neither draws random numbers nor
+ * boxes keys while it is being timed.
+ * </p>
+ */
+public enum KeyDistribution {
+
+    /**
+     * Every key is equally likely.
+     */
+    UNIFORM,
+
+    /**
+     * A few keys receive most lookups, as in most production caches: the key of rank
+     * {@code r} is drawn with a probability proportional to {@code 1 / r^0.99}.
+     */
+    ZIPFIAN;
+
+    private static final double ZIPF_EXPONENT = 0.99;
+
+    /**
+     * Draws a trace of key indices.
+     *
+     * @param keyCount    the number of distinct keys, indexed from {@code 0}
+     * @param traceLength the length of the trace; must be a power of two
+     * @param seed        the seed, so that runs and threads are reproducible
+     * @return the key indices, the most popular keys first when Zipfian
+     */
+    public int[] trace(int keyCount, int traceLength, long seed) {
+
+        if (Integer.bitCount(traceLength) != 1) {
+            throw new IllegalArgumentException("The trace length must be a power of two");
+        }
+        final SplittableRandom random = new SplittableRandom(seed);
+        final int[] trace = new int[traceLength];
+
+        if (this == UNIFORM) {
+
+            for (int i = 0; i < traceLength; i++) {
+                trace[i] = random.nextInt(keyCount);
+            }
+            return trace;
+        }
+        // Inverse transform sampling over the cumulative distribution of the ranks.
+        final double[] cumulative = new double[keyCount];
+        double sum = 0.0;
+
+        for (int rank = 0; rank < keyCount; rank++) {
+            sum += 1.0 / Math.pow(rank + 1, ZIPF_EXPONENT);
+            cumulative[rank] = sum;
+        }
+
+        for (int i = 0; i < traceLength; i++) {
+            final int found = Arrays.binarySearch(cumulative, random.nextDouble() * sum);
+            trace[i] = Math.min((found >= 0) ? found : -found - 1, keyCount - 1);
+        }
+        return trace;
+    }
+}
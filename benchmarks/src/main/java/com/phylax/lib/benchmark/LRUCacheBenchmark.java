@@ -0,0 +1,121 @@
+package com.phylax.lib.benchmark;
+
+import com.phylax.lib.collection.EvictionPolicy;
+import com.phylax.lib.collection.LRUCache;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.ThreadParams;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of {@link LRUCache#get(Object)} and {@link LRUCache#put(Object, Object)}.
+ * <p>
+ * The cache holds half of the key space, so uniform lookups miss about half of the
+ * time while Zipfian lookups mostly hit the popular keys. The thread count defaults to
+ * one; run with {@code -t 2}, {@code -t 4}, ... or {@code -t max} to measure how the
+ * shards scale, and with {@code -p policy=W_TINY_LFU} to compare the eviction policies.
+ * </p>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(1)
+@State(Scope.Benchmark)
+public class LRUCacheBenchmark {
+
+    private static final int KEY_COUNT = 1 << 20;
+
+    private static final int TRACE_LENGTH = 1 << 20;
+
+    @Param({"UNIFORM", "ZIPFIAN"})
+    private KeyDistribution distribution;
+
+    @Param({"LRU", "W_TINY_LFU"})
+    private EvictionPolicy policy;
+
+    private LRUCache<Long, Long> cache;
+
+    private Long[] keys;
+
+    /**
+     * The keys looked up by one thread, offset per thread so threads do not move in step.
+     */
+    @State(Scope.Thread)
+    public static class Trace {
+
+        private int[] indices;
+
+        private int position;
+
+        @Setup(Level.Trial)
+        public void setUp(LRUCacheBenchmark benchmark, ThreadParams threads) {
+            this.indices = benchmark.distribution.trace(KEY_COUNT, TRACE_LENGTH, threads.getThreadIndex());
+        }
+
+        Long next(Long[] keys) {
+            final Long key = keys[this.indices[this.position]];
+            this.position = (this.position + 1) & (TRACE_LENGTH - 1);
+            return key;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        this.keys = new Long[KEY_COUNT];
+
+        for (int i = 0; i < KEY_COUNT; i++) {
+            this.keys[i] = (long) i;
+        }
+        this.cache = LRUCache.ofMaxWeight(KEY_COUNT / 2, Runtime.getRuntime().availableProcessors() * 4,
+                (key, value) -> 1L, this.policy);
+
+        for (int i = 0; i < KEY_COUNT / 2; i++) {
+            this.cache.put(this.keys[i], this.keys[i]);
+        }
+    }
+
+    @Benchmark
+    public Long get(Trace trace) {
+        return this.cache.get(trace.next(this.keys));
+    }
+
+    @Benchmark
+    public void put(Trace trace) {
+        final Long key = trace.next(this.keys);
+        this.cache.put(key, key);
+    }
+
+    /**
+     * Three readers per writer, the usual mix of a read-through cache.
+     */
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(3)
+    public Long mixedGet(Trace trace) {
+        return this.cache.get(trace.next(this.keys));
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(1)
+    public void mixedPut(Trace trace) {
+        final Long key = trace.next(this.keys);
+        this.cache.put(key, key);
+    }
+}
@@ -0,0 +1,53 @@
+package com.phylax.lib.benchmark;
+
+import com.phylax.lib.contract.CacheCodec;
+import com.phylax.lib.contract.RemoteCanCache;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * An in-process stand-in for a remote tier, so that the read paths of
+ * {@link com.phylax.lib.cache.SmartCache} can be measured without a network.
+ * <p>
+ * Values are stored encoded, so a remote read pays for decoding as it would against
+ * Redis or Memcached; only the round trip is missing. Times to live are ignored.
+ * </p>
+ */
+final class MapRemoteCache<K, V> implements RemoteCanCache<K, V> {
+
+    private final ConcurrentHashMap<K, byte[]> entries = new ConcurrentHashMap<>();
+
+    private final CacheCodec<V> valueCodec;
+
+    MapRemoteCache(CacheCodec<V> valueCodec) {
+        this.valueCodec = valueCodec;
+    }
+
+    @Override
+    public Optional<V> read(K key) {
+        final byte[] rawValue = this.entries.get(key);
+        return (rawValue != null) ? Optional.ofNullable(this.valueCodec.decode(rawValue)) : Optional.empty();
+    }
+
+    @Override
+    public void write(K key, V value) {
+        this.entries.put(key, this.valueCodec.encode(value));
+    }
+
+    @Override
+    public void write(K key, V value, Duration ttl) {
+        this.write(key, value);
+    }
+
+    @Override
+    public void delete(K key) {
+        this.entries.remove(key);
+    }
+
+    @Override
+    public void clear() {
+        this.entries.clear();
+    }
+}
@@ -0,0 +1,122 @@
+package com.phylax.lib.benchmark;
+
+import com.phylax.lib.cache.SmartCache;
+import com.phylax.lib.codec.StringCodec;
+import com.phylax.lib.config.InMemoryCacheConfig;
+import com.phylax.lib.config.SmartCacheConfig;
+import com.phylax.lib.connector.InMemoryCacheConnectionManager;
+import com.phylax.lib.local.InMemoryCache;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * The read paths of {@link SmartCache} over an {@link InMemoryCache} and an in-process
+ * remote tier: a local hit, a local miss answered by the remote tier, a miss of both
+ * tiers, a miss remembered by negative caching and a read through a loader.
+ * <p>
+ * Without an invalidation bus remote hits are not copied into the local tier, so the
+ * remote hit path is measured on every invocation.
+ * </p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SmartCacheBenchmark {
+
+    private static final int KEY_COUNT = 1 << 14;
+
+    private SmartCache<String, String> cache;
+
+    private SmartCache<String, String> negativeCache;
+
+    private final Function<String, String> loader = key -> "loaded:" + key;
+
+    private String[] localKeys;
+
+    private String[] remoteKeys;
+
+    private String[] absentKeys;
+
+    private int position;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        this.localKeys = new String[KEY_COUNT];
+        this.remoteKeys = new String[KEY_COUNT];
+        this.absentKeys = new String[KEY_COUNT];
+        final MapRemoteCache<String, String> remote = new MapRemoteCache<>(StringCodec.INSTANCE);
+        final InMemoryCache<String, String> local = new InMemoryCache<>(new InMemoryCacheConnectionManager<>(new InMemoryCacheConfig()));
+
+        for (int i = 0; i < KEY_COUNT; i++) {
+            this.localKeys[i] = "local:" + i;
+            this.remoteKeys[i] = "remote:" + i;
+            this.absentKeys[i] = "absent:" + i;
+            local.write(this.localKeys[i], "{\"id\":" + i + "}");
+            remote.write(this.localKeys[i], "{\"id\":" + i + "}");
+            remote.write(this.remoteKeys[i], "{\"id\":" + i + "}");
+        }
+        this.cache = new SmartCache<>(local, remote, new SmartCacheConfig(), null, Executors.newVirtualThreadPerTaskExecutor());
+        this.negativeCache = new SmartCache<>(new InMemoryCache<>(new InMemoryCacheConnectionManager<>(new InMemoryCacheConfig())),
+                remote, new SmartCacheConfig(Duration.ZERO, 1, 1, 1, Duration.ofHours(1), KEY_COUNT), null,
+                Executors.newVirtualThreadPerTaskExecutor());
+
+        for (String key : this.absentKeys) {
+            this.negativeCache.read(key);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        this.cache.close();
+        this.negativeCache.close();
+    }
+
+    @Benchmark
+    public Optional<String> localHit() {
+        return this.cache.read(this.localKeys[this.next()]);
+    }
+
+    @Benchmark
+    public Optional<String> remoteHit() {
+        return this.cache.read(this.remoteKeys[this.next()]);
+    }
+
+    @Benchmark
+    public Optional<String> miss() {
+        return this.cache.read(this.absentKeys[this.next()]);
+    }
+
+    @Benchmark
+    public Optional<String> negativeHit() {
+        return this.negativeCache.read(this.absentKeys[this.next()]);
+    }
+
+    @Benchmark
+    public Optional<String> loaderHit() {
+        return this.cache.read(this.localKeys[this.next()], this.loader);
+    }
+
+    private int next() {
+        this.position = (this.position + 1) & (KEY_COUNT - 1);
+        return this.position;
+    }
+}
@@ -1,46 +1,794 @@
 package com.phylax.lib.cache;
 
+import com.phylax.lib.collection.LRUCache;
+import com.phylax.lib.config.SmartCacheConfig;
+import com.phylax.lib.contract.AsyncCanCache;
 import com.phylax.lib.contract.CanCacheService;
+import com.phylax.lib.contract.InvalidationBus;
 import com.phylax.lib.contract.LocalCanCache;
 import com.phylax.lib.contract.RemoteCanCache;
+import com.phylax.lib.exception.CacheLoadException;
+import com.phylax.lib.stats.CacheOperation;
+import com.phylax.lib.stats.CacheStats;
+import com.phylax.lib.stats.StatsCounter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Function;
 
-public class SmartCache<K, V> implements CanCacheService<K, V> {
+public class SmartCache<K, V> implements CanCacheService<K, V>, AsyncCanCache<K, V>, AutoCloseable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SmartCache.class);
+
+    private static final int VERSION_STRIPES = 1024;
 
     private final LocalCanCache<K, V> localCache;
 
     private final RemoteCanCache<K, V> remoteCache;
 
+    /**
+     * Loads currently running per key; concurrent misses wait on the same future.
+     */
+    private final ConcurrentHashMap<K, CompletableFuture<V>> inFlightLoads = new ConcurrentHashMap<>();
+
+    /**
+     * Age in nanoseconds after which a value read through a loader is reloaded; 0 if disabled.
+     */
+    private final long refreshAfterWriteNanos;
+
+    /**
+     * {@link System#nanoTime()} of the last write per key, bounded to the most recently written keys.
+     */
+    private final LRUCache<K, Long> writeTimes;
+
+    /**
+     * Keys with a background reload queued or running.
+     */
+    private final Set<K> refreshingKeys = ConcurrentHashMap.newKeySet();
+
+    private final ThreadPoolExecutor refreshExecutor;
+
+    /**
+     * Tombstones of confirmed misses: {@code true} if the loader found no value,
+     * {@code false} if only the remote tier did not.
+     */
+    private final LRUCache<K, Boolean> negativeEntries;
+
+    private final Duration negativeTtl;
+
+    /**
+     * Announces local changes to, and receives changes from, the other nodes; {@code null}
+     * unless the cache runs in coherence mode.
+     */
+    private final InvalidationBus<K> invalidationBus;
+
+    /**
+     * Change counters striped by key hash, incremented by every write, delete, clear and
+     * invalidation. A remote value is only backfilled into the local tier, and a background
+     * reload only stored, if no change to its stripe happened while it was being read.
+     */
+    private final AtomicLongArray versions = new AtomicLongArray(VERSION_STRIPES);
+
+    /**
+     * Runs the tier operations behind writes, deletes and clears, and the asynchronous API.
+     */
+    private final Executor asyncExecutor;
+
+    /**
+     * Buffers the remote writes and deletes; {@code null} if they go straight through.
+     */
+    private final WriteBehindQueue<K, V> writeBehind;
+
+    /**
+     * Records the hits and misses across both tiers, the latencies and the loads.
+     */
+    private final StatsCounter stats;
+
     public SmartCache(LocalCanCache<K, V> localCache, RemoteCanCache<K, V> remoteCache) {
+        this(localCache, remoteCache, new SmartCacheConfig());
+    }
+
+    public SmartCache(LocalCanCache<K, V> localCache, RemoteCanCache<K, V> remoteCache, SmartCacheConfig config) {
+        this(localCache, remoteCache, config, null);
+    }
+
+    /**
+     * Creates a cache in coherence mode.
+     * <p>
+     * Values found in the remote tier are copied into the local tier, every change made
+     * through this cache is announced on the bus once the remote tier has applied it, and
+     * local entries are evicted when another node announces a change. This keeps long-lived
+     * local entries consistent across nodes within the delivery latency of the bus.
+     * The caller remains responsible for closing the bus.
+     * </p>
+     *
+     * @param localCache      the local tier
+     * @param remoteCache     the remote tier shared by all nodes
+     * @param config          the refresh and negative caching settings
+     * @param invalidationBus the bus shared by all nodes, or {@code null} to disable coherence mode
+     */
+    public SmartCache(LocalCanCache<K, V> localCache, RemoteCanCache<K, V> remoteCache, SmartCacheConfig config,
+                      InvalidationBus<K> invalidationBus) {
+        this(localCache, remoteCache, config, invalidationBus, Executors.newVirtualThreadPerTaskExecutor());
+    }
+
+    /**
+     * Creates a cache running its tier operations on the given executor.
+     * <p>
+     * Remote tiers block on network calls, so the executor should not be a small shared
+     * pool such as the common {@link java.util.concurrent.ForkJoinPool}; by default every
+     * operation runs on its own virtual thread.
+     * </p>
+     *
+     * @param localCache      the local tier
+     * @param remoteCache     the remote tier shared by all nodes
+     * @param config          the refresh and negative caching settings
+     * @param invalidationBus the bus shared by all nodes, or {@code null} to disable coherence mode
+     * @param asyncExecutor   the executor running writes, deletes, clears and the asynchronous API
+     */
+    public SmartCache(LocalCanCache<K, V> localCache, RemoteCanCache<K, V> remoteCache, SmartCacheConfig config,
+                      InvalidationBus<K> invalidationBus, Executor asyncExecutor) {
+        this(localCache, remoteCache, config, invalidationBus, asyncExecutor, StatsCounter.disabled());
+    }
+
+    /**
+     * Creates a cache recording its statistics into the given counter.
+     * <p>
+     * A read is a hit if either tier holds the value; the tiers can be given counters of
+     * their own to tell local from remote hits. Loader calls are timed as
+     * {@link CacheOperation#LOAD}, and a loader that throws counts as a load error.
+     * </p>
+     *
+     * @param localCache      the local tier
+     * @param remoteCache     the remote tier shared by all nodes
+     * @param config          the refresh and negative caching settings
+     * @param invalidationBus the bus shared by all nodes, or {@code null} to disable coherence mode
+     * @param asyncExecutor   the executor running writes, deletes, clears and the asynchronous API
+     * @param stats           the counter, or {@link StatsCounter#disabled()}
+     */
+    public SmartCache(LocalCanCache<K, V> localCache, RemoteCanCache<K, V> remoteCache, SmartCacheConfig config,
+                      InvalidationBus<K> invalidationBus, Executor asyncExecutor, StatsCounter stats) {
         this.localCache = localCache;
         this.remoteCache = remoteCache;
+        this.invalidationBus = invalidationBus;
+        this.asyncExecutor = asyncExecutor;
+        this.stats = stats;
+
+        final Duration refreshAfterWrite = config.getRefreshAfterWrite();
+
+        if (refreshAfterWrite.isZero() || refreshAfterWrite.isNegative()) {
+            this.refreshAfterWriteNanos = 0L;
+            this.writeTimes = null;
+            this.refreshExecutor = null;
+        } else {
+            this.refreshAfterWriteNanos = refreshAfterWrite.toNanos();
+            this.writeTimes = LRUCache.ofMaxWeight(config.getMaxTrackedKeys(), Runtime.getRuntime().availableProcessors(),
+                    (key, time) -> 1L);
+            this.refreshExecutor = new ThreadPoolExecutor(config.getRefreshThreads(), config.getRefreshThreads(),
+                    0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(config.getRefreshQueueCapacity()),
+                    runnable -> {
+                        final Thread thread = new Thread(runnable, "smart-cache-refresh");
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+        }
+        this.negativeTtl = config.getNegativeTtl();
+        this.negativeEntries = (this.negativeTtl.isZero() || this.negativeTtl.isNegative())
+                ? null
+                : LRUCache.ofMaxWeight(config.getMaxNegativeEntries(), Runtime.getRuntime().availableProcessors(),
+                        (key, confirmed) -> 1L);
+        this.writeBehind = (config.getWriteBehindConfig() == null)
+                ? null
+                : new WriteBehindQueue<>(remoteCache, config.getWriteBehindConfig(), this::announce);
+
+        if (this.invalidationBus != null) {
+            this.invalidationBus.subscribe(this::onRemoteInvalidation, this::onRemoteClear);
+        }
+    }
+
+    /**
+     * Returns the statistics of this cache; see
+     * {@link #SmartCache(LocalCanCache, RemoteCanCache, SmartCacheConfig, InvalidationBus, Executor, StatsCounter)}.
+     */
+    public CacheStats stats() {
+        return this.stats.snapshot();
     }
 
     @Override
     public Optional<V> read(K key) {
+        final long start = this.stats.startNanos();
+        final Optional<V> data;
+
+        try {
+            data = this.lookup(key);
+        } catch (RuntimeException e) {
+            this.stats.recordError(CacheOperation.READ);
+            throw e;
+        }
+        this.stats.recordLatency(CacheOperation.READ, start);
+
+        if (data.isPresent()) {
+            this.stats.recordHits(1);
+        } else {
+            this.stats.recordMisses(1);
+        }
+        return data;
+    }
+
+    private Optional<V> lookup(K key) {
         final Optional<V> localData = this.localCache.read(key);
-        return localData.isEmpty()
-                ? this.remoteCache.read(key)
-                : localData;
+
+        if (localData.isPresent() || this.negativeEntry(key) != null) {
+            return localData;
+        }
+        final Optional<V> pendingData = (this.writeBehind != null) ? this.writeBehind.peek(key) : null;
+
+        if (pendingData != null) {
+            // Written or deleted here but not flushed yet; the remote tier still holds the previous value.
+            return pendingData;
+        }
+        final long version = this.version(key);
+        final Optional<V> remoteData = this.remoteCache.read(key);
+
+        if (remoteData.isEmpty()) {
+            this.recordMiss(key, false);
+        } else if (this.invalidationBus != null) {
+            this.backfill(key, remoteData.get(), version);
+        }
+        return remoteData;
+    }
+
+    @Override
+    public Optional<V> read(K key, Function<? super K, ? extends V> loader) {
+        final Optional<V> cachedData = this.read(key);
+
+        if (cachedData.isPresent()) {
+            this.refreshIfStale(key, loader);
+            return cachedData;
+        }
+
+        if (Boolean.TRUE.equals(this.negativeEntry(key))) {
+            return Optional.empty();
+        }
+        final CompletableFuture<V> load = new CompletableFuture<>();
+        final CompletableFuture<V> inFlightLoad = this.inFlightLoads.putIfAbsent(key, load);
+
+        if (inFlightLoad != null) {
+            return Optional.ofNullable(this.await(inFlightLoad));
+        }
+
+        try {
+            // A load that completed between the miss above and registering ours has filled the local tier.
+            final Optional<V> localData = this.localCache.read(key);
+            final V value = localData.isPresent() ? localData.get() : this.load(key, loader);
+
+            if (value != null && localData.isEmpty()) {
+                this.localCache.write(key, value);
+                this.reportFailure(this.remoteWrite(key, value), "write");
+                this.recordWrite(key);
+                this.clearMiss(key);
+            } else if (value == null) {
+                this.recordMiss(key, true);
+            }
+            load.complete(value);
+        } catch (RuntimeException | Error e) {
+            load.completeExceptionally(e);
+        } finally {
+            this.inFlightLoads.remove(key, load);
+        }
+        return Optional.ofNullable(this.await(load));
     }
 
+    /**
+     * Writes the value to both tiers without waiting; a failure is logged. Use
+     * {@link #writeAsync(Object, Object)} to find out when the write has landed.
+     */
     @Override
     public void write(K key, V value) {
-        CompletableFuture.runAsync(() -> this.remoteCache.write(key, value));
-        CompletableFuture.runAsync(() -> this.localCache.write(key, value));
+        this.reportFailure(this.writeAsync(key, value), "write");
     }
 
+    /**
+     * Deletes the value from both tiers without waiting; a failure is logged. Use
+     * {@link #deleteAsync(Object)} to find out when the delete has landed.
+     */
     @Override
     public void delete(K key) {
-        CompletableFuture.runAsync(() -> this.remoteCache.delete(key));
-        CompletableFuture.runAsync(() -> this.localCache.delete(key));
+        this.reportFailure(this.deleteAsync(key), "delete");
     }
 
+    @Override
+    public Executor asyncExecutor() {
+        return this.asyncExecutor;
+    }
+
+    /**
+     * Writes the value to both tiers. With write-behind, the local tier is written before
+     * returning and the remote write is buffered.
+     *
+     * @return a future completed once both tiers have applied the write, or completed
+     *         exceptionally with the failure of either tier
+     */
+    @Override
+    public CompletableFuture<Void> writeAsync(K key, V value) {
+        final long start = this.stats.startNanos();
+        this.recordChange(key);
+        this.recordWrite(key);
+        this.clearMiss(key);
+
+        if (this.writeBehind != null) {
+            this.localCache.write(key, value);
+            return this.timed(CacheOperation.WRITE, start, this.writeBehind.enqueue(key, value));
+        }
+        return this.timed(CacheOperation.WRITE, start, CompletableFuture.allOf(
+                this.remoteWrite(key, value),
+                this.runAsync(() -> this.localCache.write(key, value))));
+    }
+
+    /**
+     * Deletes the value from both tiers. With write-behind, the local tier is updated before
+     * returning and the remote delete is buffered.
+     *
+     * @return a future completed once both tiers have applied the delete, or completed
+     *         exceptionally with the failure of either tier
+     */
+    @Override
+    public CompletableFuture<Void> deleteAsync(K key) {
+        final long start = this.stats.startNanos();
+        this.recordChange(key);
+        this.forgetWrite(key);
+        this.clearMiss(key);
+
+        if (this.writeBehind != null) {
+            this.localCache.delete(key);
+            return this.timed(CacheOperation.DELETE, start, this.writeBehind.enqueue(key, null));
+        }
+        return this.timed(CacheOperation.DELETE, start, CompletableFuture.allOf(
+                this.runAsync(() -> this.remoteCache.delete(key)).thenRun(() -> this.announce(key)),
+                this.runAsync(() -> this.localCache.delete(key))));
+    }
+
+    /**
+     * Removes all entries from both tiers. Buffered remote writes and deletes are dropped.
+     *
+     * @return a future completed once both tiers are empty, or completed exceptionally
+     *         with the failure of either tier
+     */
+    @Override
+    public CompletableFuture<Void> clearAsync() {
+        this.recordClear();
+
+        if (this.writeBehind != null) {
+            this.writeBehind.discardPending();
+        }
+
+        if (this.writeTimes != null) {
+            this.writeTimes.clear();
+        }
+
+        if (this.negativeEntries != null) {
+            this.negativeEntries.clear();
+        }
+        return CompletableFuture.allOf(
+                this.clearRemote().thenRun(this::announceClear),
+                this.runAsync(this.localCache::clear));
+    }
+
+    /**
+     * Clears the remote tier through its asynchronous clear when it has one, since a
+     * blocking {@code clear()} may return before the keys are actually removed.
+     */
+    private CompletableFuture<Void> clearRemote() {
+
+        if (this.remoteCache instanceof AsyncCanCache<K, V> asyncRemoteCache) {
+            return asyncRemoteCache.clearAsync();
+        }
+        return this.runAsync(this.remoteCache::clear);
+    }
+
+    @Override
+    public Map<K, V> readAll(Collection<? extends K> keys) {
+        final long start = this.stats.startNanos();
+        final Map<K, V> values;
+
+        try {
+            values = this.lookupAll(keys);
+        } catch (RuntimeException e) {
+            this.stats.recordError(CacheOperation.READ);
+            throw e;
+        }
+        this.stats.recordLatency(CacheOperation.READ, start);
+        this.stats.recordHits(values.size());
+        this.stats.recordMisses(keys.size() - values.size());
+        return values;
+    }
+
+    private Map<K, V> lookupAll(Collection<? extends K> keys) {
+        final Map<K, V> localData = this.localCache.readAll(keys);
+
+        if (localData.size() == keys.size()) {
+            return localData;
+        }
+        final List<K> misses = new ArrayList<>();
+        final Map<K, Optional<V>> pendingData = new LinkedHashMap<>();
+
+        for (K key : keys) {
+
+            if (localData.containsKey(key) || this.negativeEntry(key) != null) {
+                continue;
+            }
+            final Optional<V> pending = (this.writeBehind != null) ? this.writeBehind.peek(key) : null;
+
+            if (pending != null) {
+                pendingData.put(key, pending);
+            } else {
+                misses.add(key);
+            }
+        }
+        final long[] versions = new long[misses.size()];
+
+        for (int i = 0; i < versions.length; i++) {
+            versions[i] = this.version(misses.get(i));
+        }
+        final Map<K, V> remoteData = misses.isEmpty() ? Map.of() : this.remoteCache.readAll(misses);
+
+        if (this.invalidationBus != null) {
+            // Same policy as read(key): remote hits are only copied locally when the bus can evict them again.
+            for (int i = 0; i < versions.length; i++) {
+                final V value = remoteData.get(misses.get(i));
+
+                if (value != null) {
+                    this.backfill(misses.get(i), value, versions[i]);
+                }
+            }
+        }
+
+        for (K key : misses) {
+
+            if (!remoteData.containsKey(key)) {
+                this.recordMiss(key, false);
+            }
+        }
+
+        final Map<K, V> values = new LinkedHashMap<>();
+
+        for (K key : keys) {
+            final V value = localData.containsKey(key) ? localData.get(key)
+                    : pendingData.containsKey(key) ? pendingData.get(key).orElse(null)
+                    : remoteData.get(key);
+
+            if (value != null) {
+                values.put(key, value);
+            }
+        }
+        return values;
+    }
+
+    @Override
+    public void writeAll(Map<? extends K, ? extends V> entries) {
+        entries.keySet().forEach(this::recordChange);
+        entries.keySet().forEach(this::recordWrite);
+        entries.keySet().forEach(this::clearMiss);
+
+        if (this.writeBehind != null) {
+            this.localCache.writeAll(entries);
+            entries.forEach(this.writeBehind::enqueue);
+            return;
+        }
+        this.reportFailure(CompletableFuture.allOf(
+                this.runAsync(() -> this.remoteCache.writeAll(entries)).thenRun(() -> entries.keySet().forEach(this::announce)),
+                this.runAsync(() -> this.localCache.writeAll(entries))), "writeAll");
+    }
+
+    @Override
+    public void deleteAll(Collection<? extends K> keys) {
+        keys.forEach(this::recordChange);
+        keys.forEach(this::forgetWrite);
+        keys.forEach(this::clearMiss);
+
+        if (this.writeBehind != null) {
+            this.localCache.deleteAll(keys);
+            keys.forEach(key -> this.writeBehind.enqueue(key, null));
+            return;
+        }
+        this.reportFailure(CompletableFuture.allOf(
+                this.runAsync(() -> this.remoteCache.deleteAll(keys)).thenRun(() -> keys.forEach(this::announce)),
+                this.runAsync(() -> this.localCache.deleteAll(keys))), "deleteAll");
+    }
+
+    /**
+     * Clears both tiers without waiting; a failure is logged. Use {@link #clearAsync()}
+     * to find out when the clear has landed.
+     */
     @Override
     public void clear() {
-        CompletableFuture.runAsync(this.remoteCache::clear);
-        CompletableFuture.runAsync(this.localCache::clear);
+        this.reportFailure(this.clearAsync(), "clear");
+    }
+
+    private V await(CompletableFuture<V> load) {
+
+        try {
+            return load.join();
+        } catch (CompletionException e) {
+            throw new CacheLoadException("Unable to load value", e.getCause());
+        }
+    }
+
+    /**
+     * Stops the background reloads and flushes buffered remote writes and deletes.
+     * Reloads already running are allowed to finish.
+     */
+    @Override
+    public void close() {
+
+        if (this.refreshExecutor != null) {
+            this.refreshExecutor.shutdown();
+        }
+
+        if (this.writeBehind != null) {
+            this.writeBehind.close();
+        }
+    }
+
+    /**
+     * Schedules a background reload if the value is older than the refresh threshold,
+     * unless one is already pending for the key. The caller keeps the current value.
+     * The version of the key is taken now, so that a reload overtaken by a write, delete
+     * or invalidation is dropped.
+     */
+    private void refreshIfStale(K key, Function<? super K, ? extends V> loader) {
+
+        if (this.refreshAfterWriteNanos == 0L) {
+            return;
+        }
+        final Long writeTime = this.writeTimes.getOrDefault(key, null);
+
+        if (writeTime == null) {
+            // Written by another node or before tracking began; start the clock now.
+            this.recordWrite(key);
+            return;
+        }
+
+        if (System.nanoTime() - writeTime < this.refreshAfterWriteNanos || !this.refreshingKeys.add(key)) {
+            return;
+        }
+
+        final long version = this.version(key);
+
+        try {
+            this.refreshExecutor.execute(() -> this.refresh(key, loader, version));
+        } catch (RejectedExecutionException e) {
+            this.refreshingKeys.remove(key);
+        }
+    }
+
+    private void refresh(K key, Function<? super K, ? extends V> loader, long version) {
+
+        try {
+            final V value = this.load(key, loader);
+
+            if (this.version(key) != version) {
+                LOGGER.debug("Dropping a background refresh overtaken by a change of its key");
+                return;
+            }
+
+            if (value != null) {
+                this.localCache.write(key, value);
+                this.recordWrite(key);
+                this.clearMiss(key);
+            } else {
+                this.forgetWrite(key);
+                this.recordMiss(key, true);
+                this.localCache.delete(key);
+            }
+
+            if (this.version(key) != version) {
+                // A change raced with the local write above; let the next read go to the remote tier.
+                this.localCache.delete(key);
+                return;
+            }
+
+            if (this.writeBehind != null) {
+                this.writeBehind.enqueue(key, value);
+                return;
+            }
+
+            if (value != null) {
+                this.remoteCache.write(key, value);
+            } else {
+                this.remoteCache.delete(key);
+            }
+            this.announce(key);
+        } catch (RuntimeException e) {
+            LOGGER.warn("Background refresh failed, keeping the current value", e);
+        } finally {
+            this.refreshingKeys.remove(key);
+        }
+    }
+
+    /**
+     * Calls the loader, recording its latency or its failure.
+     */
+    private V load(K key, Function<? super K, ? extends V> loader) {
+        final long start = this.stats.startNanos();
+        final V value;
+
+        try {
+            value = loader.apply(key);
+        } catch (RuntimeException | Error e) {
+            this.stats.recordError(CacheOperation.LOAD);
+            throw e;
+        }
+        this.stats.recordLatency(CacheOperation.LOAD, start);
+        return value;
+    }
+
+    /**
+     * Records the latency or the failure of an operation once both tiers have applied it.
+     */
+    private CompletableFuture<Void> timed(CacheOperation operation, long start, CompletableFuture<Void> reply) {
+
+        if (this.stats == StatsCounter.disabled()) {
+            return reply;
+        }
+        return reply.whenComplete((result, failure) -> {
+
+            if (failure != null) {
+                this.stats.recordError(operation);
+            } else {
+                this.stats.recordLatency(operation, start);
+            }
+        });
+    }
+
+    private void recordWrite(K key) {
+
+        if (this.writeTimes != null) {
+            this.writeTimes.put(key, System.nanoTime());
+        }
+    }
+
+    private void forgetWrite(K key) {
+
+        if (this.writeTimes != null) {
+            this.writeTimes.delete(key);
+        }
+    }
+
+    private Boolean negativeEntry(K key) {
+        return (this.negativeEntries != null) ? this.negativeEntries.get(key) : null;
+    }
+
+    /**
+     * Remembers a miss for the negative time to live. A miss confirmed by the loader is
+     * never downgraded to a remote-only miss.
+     */
+    private void recordMiss(K key, boolean confirmed) {
+
+        if (this.negativeEntries != null && (confirmed || this.negativeEntries.getOrDefault(key, null) == null)) {
+            this.negativeEntries.put(key, confirmed, this.negativeTtl);
+        }
+    }
+
+    private void clearMiss(K key) {
+
+        if (this.negativeEntries != null) {
+            this.negativeEntries.delete(key);
+        }
+    }
+
+    private long version(K key) {
+        return this.versions.get(this.stripe(key));
+    }
+
+    private void recordChange(K key) {
+        this.versions.incrementAndGet(this.stripe(key));
+    }
+
+    private void recordClear() {
+
+        for (int i = 0; i < VERSION_STRIPES; i++) {
+            this.versions.incrementAndGet(i);
+        }
+    }
+
+    private int stripe(K key) {
+        final int h = key.hashCode();
+        return (h ^ (h >>> 16)) & (VERSION_STRIPES - 1);
+    }
+
+    /**
+     * Copies a remote value into the local tier unless its stripe changed since the version
+     * was taken. A change landing between that check and the write is caught by checking
+     * again afterwards, and the possibly stale copy is removed.
+     */
+    private void backfill(K key, V value, long version) {
+
+        if (this.version(key) != version) {
+            return;
+        }
+        this.localCache.write(key, value);
+
+        if (this.version(key) != version) {
+            // An invalidation may have deleted the key before the write above; do not keep what it evicted.
+            this.localCache.delete(key);
+        }
+    }
+
+    private void onRemoteInvalidation(K key) {
+        this.recordChange(key);
+        this.forgetWrite(key);
+        this.clearMiss(key);
+        this.localCache.delete(key);
+    }
+
+    private void onRemoteClear() {
+        this.recordClear();
+
+        if (this.writeTimes != null) {
+            this.writeTimes.clear();
+        }
+
+        if (this.negativeEntries != null) {
+            this.negativeEntries.clear();
+        }
+        this.localCache.clear();
+    }
+
+    private void announce(K key) {
+
+        if (this.invalidationBus != null) {
+            this.invalidationBus.publish(key);
+        }
+    }
+
+    private void announceClear() {
+
+        if (this.invalidationBus != null) {
+            this.invalidationBus.publishClear();
+        }
+    }
+
+    /**
+     * Writes the value to the remote tier, through the write-behind buffer if enabled, and
+     * announces the change once applied.
+     */
+    private CompletableFuture<Void> remoteWrite(K key, V value) {
+
+        if (this.writeBehind != null) {
+            return this.writeBehind.enqueue(key, value);
+        }
+        return this.runAsync(() -> this.remoteCache.write(key, value)).thenRun(() -> this.announce(key));
+    }
+
+    private CompletableFuture<Void> runAsync(Runnable operation) {
+        return CompletableFuture.runAsync(operation, this.asyncExecutor);
+    }
+
+    private void reportFailure(CompletableFuture<Void> operation, String name) {
+        operation.whenComplete((result, failure) -> {
+
+            if (failure != null) {
+                LOGGER.error("Cache {} failed", name, failure);
+            }
+        });
     }
 }
@@ -0,0 +1,393 @@
+package com.phylax.lib.cache;
+
+import com.phylax.lib.config.WriteBehindConfig;
+import com.phylax.lib.contract.RemoteCanCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * Buffers writes and deletes for a remote tier and applies them in batches.
+ * <p>
+ * Only the last operation per key is kept: a burst of writes to one key costs a single
+ * remote write. A background thread flushes the buffer once it holds a full batch or its
+ * oldest operation has waited for the flush interval, sending the writes of a batch with
+ * {@link RemoteCanCache#writeAll(Map)} and the deletes with
+ * {@link RemoteCanCache#deleteAll(java.util.Collection)}, which remote tiers implement as
+ * pipelined multi-key commands. Batches are applied one at a time, so operations on the
+ * same key land in the order they were made.
+ * </p>
+ * <p>
+ * Writers of a new key block while the buffer is at capacity. A failed batch is put back
+ * unless newer operations for its keys arrived in the meantime, and retried after the
+ * flush interval. {@link #close()} flushes everything still pending.
+ * </p>
+ *
+ * @param <K> the type of the key used to identify a persisted value
+ * @param <V> the type of the value being persisted
+ */
+final class WriteBehindQueue<K, V> implements AutoCloseable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(WriteBehindQueue.class);
+
+    private final RemoteCanCache<K, V> remoteCache;
+
+    /** Invoked with every key once its operation has reached the remote tier. */
+    private final Consumer<K> onFlushed;
+
+    private final long flushIntervalNanos;
+
+    private final int maxBatchSize;
+
+    private final int capacity;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /** Signalled when the buffer has room for another key. */
+    private final Condition notFull = this.lock.newCondition();
+
+    /** Signalled when the flusher may have work or should stop. */
+    private final Condition flushNeeded = this.lock.newCondition();
+
+    /** Signalled when the flusher finished applying a batch. */
+    private final Condition idle = this.lock.newCondition();
+
+    /** Last operation per key, in the order the keys were first buffered. */
+    private final LinkedHashMap<K, Operation<V>> pending = new LinkedHashMap<>();
+
+    /** Batch being applied by the flusher; {@code null} between flushes. */
+    private Map<K, Operation<V>> flushingBatch;
+
+    /** Number of {@link #discardPending()} calls, so a batch taken before one is not put back after it. */
+    private long discards;
+
+    /** Value of {@link #discards} when the batch being applied was taken. */
+    private long flushingDiscards;
+
+    private final Thread flusher;
+
+    /** {@link System#nanoTime()} at which the oldest pending operation was buffered. */
+    private long oldestNanos;
+
+    private boolean flushing;
+
+    private boolean closed;
+
+    WriteBehindQueue(RemoteCanCache<K, V> remoteCache, WriteBehindConfig config, Consumer<K> onFlushed) {
+        this.remoteCache = remoteCache;
+        this.onFlushed = onFlushed;
+        this.flushIntervalNanos = Math.max(1L, config.getFlushInterval().toNanos());
+        this.maxBatchSize = Math.max(1, config.getMaxBatchSize());
+        this.capacity = Math.max(this.maxBatchSize, config.getCapacity());
+        this.flusher = new Thread(this::flushLoop, "write-behind-flusher");
+        this.flusher.setDaemon(true);
+        this.flusher.start();
+    }
+
+    /**
+     * Buffers a write, or a delete if {@code value} is {@code null}, replacing any operation
+     * still pending for the key. Blocks while the buffer is full.
+     *
+     * @param key   the key of the operation
+     * @param value the value to write, or {@code null} to delete the key
+     * @return a future completed once this operation, or one that replaced it, has reached
+     *         the remote tier
+     */
+    CompletableFuture<Void> enqueue(K key, V value) {
+        this.lock.lock();
+
+        try {
+            Operation<V> operation = this.pending.get(key);
+
+            while (operation == null && this.pending.size() >= this.capacity && !this.closed) {
+                this.notFull.await();
+                operation = this.pending.get(key);
+            }
+
+            if (this.closed) {
+                return CompletableFuture.failedFuture(new IllegalStateException("Write-behind queue is closed"));
+            }
+
+            if (operation == null) {
+                operation = new Operation<>();
+                this.pending.put(key, operation);
+
+                if (this.pending.size() == 1) {
+                    this.oldestNanos = System.nanoTime();
+                    this.flushNeeded.signal();
+                } else if (this.pending.size() >= this.maxBatchSize) {
+                    this.flushNeeded.signal();
+                }
+            }
+            operation.value = value;
+            return operation.future;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return CompletableFuture.failedFuture(e);
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the operation of a key not yet applied to the remote tier, buffered or in the
+     * batch being flushed, so that reads observe their own writes until the flush lands.
+     *
+     * @param key the key to look up
+     * @return {@code null} if nothing is pending for the key, an empty optional if a delete
+     *         is, or the value of a pending write
+     */
+    Optional<V> peek(K key) {
+        this.lock.lock();
+
+        try {
+            Operation<V> operation = this.pending.get(key);
+
+            if (operation == null && this.flushingBatch != null) {
+                operation = this.flushingBatch.get(key);
+            }
+            return (operation != null) ? Optional.ofNullable(operation.value) : null;
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * Drops every pending operation and waits for a batch being applied to finish, so that
+     * nothing buffered before a clear can land after it. Futures of dropped operations
+     * complete normally.
+     */
+    void discardPending() {
+        this.lock.lock();
+
+        try {
+
+            for (Operation<V> operation : this.pending.values()) {
+                operation.future.complete(null);
+            }
+            this.pending.clear();
+            this.discards++;
+            this.notFull.signalAll();
+
+            while (this.flushing) {
+                this.idle.awaitUninterruptibly();
+            }
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * Stops accepting operations, flushes those still pending and stops the flusher.
+     */
+    @Override
+    public void close() {
+        this.lock.lock();
+
+        try {
+            this.closed = true;
+            this.flushNeeded.signalAll();
+            this.notFull.signalAll();
+        } finally {
+            this.lock.unlock();
+        }
+
+        try {
+            this.flusher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void flushLoop() {
+
+        while (true) {
+            final Map<K, Operation<V>> batch = this.nextBatch();
+
+            if (batch == null) {
+                return;
+            }
+            final boolean applied = this.apply(batch);
+            this.lock.lock();
+
+            try {
+                this.flushing = false;
+                this.flushingBatch = null;
+                this.idle.signalAll();
+            } finally {
+                this.lock.unlock();
+            }
+
+            if (!applied) {
+                this.pause();
+            }
+        }
+    }
+
+    /**
+     * Waits until a batch is due and takes it out of the buffer.
+     * @return the batch, or {@code null} once the queue is closed and empty
+     */
+    private Map<K, Operation<V>> nextBatch() {
+        this.lock.lock();
+
+        try {
+
+            while (true) {
+
+                if (this.pending.isEmpty()) {
+
+                    if (this.closed) {
+                        return null;
+                    }
+                    this.flushNeeded.awaitUninterruptibly();
+                    continue;
+                }
+                final long waited = System.nanoTime() - this.oldestNanos;
+
+                if (this.closed || this.pending.size() >= this.maxBatchSize || waited >= this.flushIntervalNanos) {
+                    break;
+                }
+                this.flushNeeded.awaitNanos(this.flushIntervalNanos - waited);
+            }
+            final Map<K, Operation<V>> batch = new LinkedHashMap<>();
+            final Iterator<Map.Entry<K, Operation<V>>> iterator = this.pending.entrySet().iterator();
+
+            while (iterator.hasNext() && batch.size() < this.maxBatchSize) {
+                final Map.Entry<K, Operation<V>> entry = iterator.next();
+                batch.put(entry.getKey(), entry.getValue());
+                iterator.remove();
+            }
+            this.oldestNanos = System.nanoTime();
+            this.flushing = true;
+            this.flushingBatch = batch;
+            this.flushingDiscards = this.discards;
+            this.notFull.signalAll();
+            return batch;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * Sends a batch to the remote tier.
+     * @return {@code false} if the batch failed and was put back for a retry
+     */
+    private boolean apply(Map<K, Operation<V>> batch) {
+        final Map<K, V> writes = new LinkedHashMap<>();
+        final List<K> deletes = new ArrayList<>();
+
+        for (Map.Entry<K, Operation<V>> entry : batch.entrySet()) {
+
+            if (entry.getValue().value != null) {
+                writes.put(entry.getKey(), entry.getValue().value);
+            } else {
+                deletes.add(entry.getKey());
+            }
+        }
+
+        try {
+
+            if (!writes.isEmpty()) {
+                this.remoteCache.writeAll(writes);
+            }
+
+            if (!deletes.isEmpty()) {
+                this.remoteCache.deleteAll(deletes);
+            }
+        } catch (RuntimeException e) {
+            this.retry(batch, e);
+            return false;
+        }
+
+        for (Map.Entry<K, Operation<V>> entry : batch.entrySet()) {
+
+            try {
+                this.onFlushed.accept(entry.getKey());
+            } catch (RuntimeException e) {
+                LOGGER.warn("Post-flush callback failed", e);
+            }
+            entry.getValue().future.complete(null);
+        }
+        return true;
+    }
+
+    /**
+     * Puts a failed batch back into the buffer. Operations superseded meanwhile complete
+     * with their successor; once closed, the batch fails instead. A batch taken before a
+     * call to {@link #discardPending()} is dropped, its futures completing normally.
+     */
+    private void retry(Map<K, Operation<V>> batch, RuntimeException failure) {
+        this.lock.lock();
+
+        try {
+
+            if (this.flushingDiscards != this.discards) {
+                LOGGER.debug("Dropping a failed write-behind batch of {} operations discarded meanwhile", batch.size());
+                batch.values().forEach(operation -> operation.future.complete(null));
+                return;
+            }
+
+            if (this.closed) {
+                LOGGER.error("Write-behind flush of {} operations failed during shutdown", batch.size(), failure);
+                batch.values().forEach(operation -> operation.future.completeExceptionally(failure));
+                return;
+            }
+            LOGGER.warn("Write-behind flush of {} operations failed, retrying", batch.size(), failure);
+
+            if (this.pending.isEmpty()) {
+                this.oldestNanos = System.nanoTime();
+            }
+
+            for (Map.Entry<K, Operation<V>> entry : batch.entrySet()) {
+                final Operation<V> successor = this.pending.putIfAbsent(entry.getKey(), entry.getValue());
+
+                if (successor != null) {
+                    final CompletableFuture<Void> future = entry.getValue().future;
+                    successor.future.whenComplete((result, error) -> {
+
+                        if (error != null) {
+                            future.completeExceptionally(error);
+                        } else {
+                            future.complete(null);
+                        }
+                    });
+                }
+            }
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    private void pause() {
+
+        try {
+            Thread.sleep(this.flushIntervalNanos / 1_000_000L, (int) (this.flushIntervalNanos % 1_000_000L));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Last buffered operation of a key; a {@code null} value is a delete.
+     */
+    private static final class Operation<V> {
+
+        private final CompletableFuture<Void> future = new CompletableFuture<>();
+
+        private V value;
+    }
+}
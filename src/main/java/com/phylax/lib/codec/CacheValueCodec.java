@@ -0,0 +1,69 @@
+package com.phylax.lib.codec;
+
+import com.phylax.lib.contract.CacheCodec;
+import com.phylax.lib.value.CacheValue;
+import com.phylax.lib.value.EncodedCacheValue;
+
+import java.util.function.Function;
+
+/**
+ * {@link CacheCodec} for {@link CacheValue}s that defers decoding to the caller.
+ * <p>
+ * Decoding only wraps the bytes in an {@link EncodedCacheValue}, which decodes them on
+ * the first {@link CacheValue#as(Class)}. Encoding an {@link EncodedCacheValue} returns
+ * its bytes unchanged, so a value read from one tier and written to another is never
+ * decoded or re-encoded on the way. Other values are encoded with the codec for their
+ * runtime class.
+ * </p>
+ * <p>
+ * All tiers sharing values must use the same codecs, since encoded bytes are passed
+ * between them as they are.
+ * </p>
+ */
+public final class CacheValueCodec implements CacheCodec<CacheValue> {
+
+    private final Function<Class<?>, ? extends CacheCodec<?>> codecs;
+
+    /**
+     * Creates a codec using the given codecs for the wrapped values.
+     *
+     * @param codecs returns the codec for a type, e.g. {@code JsonCodec::new}; called on
+     *               every encode and lazy decode, so it should be cheap
+     */
+    public CacheValueCodec(Function<Class<?>, ? extends CacheCodec<?>> codecs) {
+        this.codecs = codecs;
+    }
+
+    /**
+     * Returns the bytes of an {@link EncodedCacheValue}, or encodes the wrapped value of
+     * any other {@link CacheValue}.
+     *
+     * @param value the value to encode; must not be {@code null} nor wrap {@code null}
+     * @return the encoded bytes
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public byte[] encode(CacheValue value) {
+
+        if (value instanceof EncodedCacheValue encoded) {
+            return encoded.bytes();
+        }
+        final Object wrapped = value.as(Object.class);
+
+        if (wrapped == null) {
+            throw new IllegalArgumentException("Cannot encode a CacheValue wrapping null");
+        }
+        return ((CacheCodec<Object>) this.codecs.apply(wrapped.getClass())).encode(wrapped);
+    }
+
+    /**
+     * Wraps the bytes without decoding them.
+     *
+     * @param bytes the encoded value
+     * @return an {@link EncodedCacheValue} decoding the bytes on demand
+     */
+    @Override
+    public CacheValue decode(byte[] bytes) {
+        return new EncodedCacheValue(bytes, this.codecs);
+    }
+}
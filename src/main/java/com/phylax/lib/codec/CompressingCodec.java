@@ -0,0 +1,241 @@
+package com.phylax.lib.codec;
+
+import com.phylax.lib.contract.CacheCodec;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * {@link CacheCodec} compressing the output of another codec with DEFLATE.
+ * <p>
+ * Values whose encoding reaches the size threshold are compressed and prefixed with a
+ * header; smaller values, and values that would not shrink, are stored exactly as the
+ * wrapped codec encoded them. Decoding recognizes the header, so compressed entries,
+ * uncompressed entries and entries written before compression was enabled can all be
+ * read. The header starts with a zero byte, which neither JSON nor Smile output does.
+ * </p>
+ * <p>
+ * The header is 8 bytes: the magic {@code 0x00 'P' 'Z'}, a method byte ({@code 1} for
+ * DEFLATE, {@code 0} for stored) and the big-endian length of the uncompressed value.
+ * A stored value only gets a header if its own first bytes would read as one.
+ * </p>
+ * <p>
+ * To compress the values of a tier, wrap its value codec, e.g.
+ * {@code new RedisCache<>(manager, StringCodec.INSTANCE, new CompressingCodec<>(new JsonCodec<>(Policy.class)))};
+ * {@link #stats()} then reports the totals of that tier.
+ * </p>
+ *
+ * @param <T> the type of the objects converted by this codec
+ */
+public final class CompressingCodec<T> implements CacheCodec<T> {
+
+    private static final byte[] MAGIC = {0x00, 'P', 'Z'};
+
+    private static final byte STORED = 0;
+
+    private static final byte DEFLATED = 1;
+
+    private static final int HEADER_SIZE = 8;
+
+    /**
+     * Largest expansion DEFLATE can achieve, which bounds the length a compressed header may claim.
+     */
+    private static final int MAX_DEFLATE_RATIO = 1032;
+
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+    private static final boolean CPU_TIME = THREADS.isCurrentThreadCpuTimeSupported() && THREADS.isThreadCpuTimeEnabled();
+
+    private final CacheCodec<T> delegate;
+
+    private final int threshold;
+
+    private final int level;
+
+    private final CompressionStats stats = new CompressionStats();
+
+    /**
+     * Idle compressors; each holds native memory, so they are reused rather than created per value.
+     */
+    private final ConcurrentLinkedQueue<Deflater> deflaters = new ConcurrentLinkedQueue<>();
+
+    private final ConcurrentLinkedQueue<Inflater> inflaters = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Creates a codec compressing values of at least 1 KiB at the fastest level.
+     *
+     * @param delegate the codec producing the bytes to compress
+     */
+    public CompressingCodec(CacheCodec<T> delegate) {
+        this(delegate, 1024, Deflater.BEST_SPEED);
+    }
+
+    /**
+     * Creates a codec with the given threshold and level.
+     *
+     * @param delegate  the codec producing the bytes to compress
+     * @param threshold the encoded size in bytes from which values are compressed
+     * @param level     the DEFLATE level, from {@link Deflater#BEST_SPEED} to
+     *                  {@link Deflater#BEST_COMPRESSION}
+     */
+    public CompressingCodec(CacheCodec<T> delegate, int threshold, int level) {
+        this.delegate = delegate;
+        this.threshold = threshold;
+        this.level = level;
+    }
+
+    /**
+     * Returns the totals of this codec.
+     *
+     * @return the compression statistics
+     */
+    public CompressionStats stats() {
+        return this.stats;
+    }
+
+    /**
+     * Encodes the value with the wrapped codec and compresses the result if it reaches
+     * the threshold and shrinks.
+     *
+     * @param value the object to encode; must not be {@code null}
+     * @return the stored bytes
+     */
+    @Override
+    public byte[] encode(T value) {
+        final byte[] raw = this.delegate.encode(value);
+
+        if (raw.length < this.threshold) {
+            this.stats.recordUncompressed();
+            return hasHeader(raw) ? withHeader(raw) : raw;
+        }
+        final long start = now();
+        final byte[] compressed = new byte[HEADER_SIZE + raw.length];
+        Deflater deflater = this.deflaters.poll();
+
+        if (deflater == null) {
+            deflater = new Deflater(this.level);
+        }
+        int length = 0;
+
+        try {
+            deflater.setInput(raw);
+            deflater.finish();
+
+            while (!deflater.finished() && HEADER_SIZE + length < compressed.length) {
+                length += deflater.deflate(compressed, HEADER_SIZE + length, compressed.length - HEADER_SIZE - length);
+            }
+        } finally {
+            final boolean finished = deflater.finished();
+            deflater.reset();
+            this.deflaters.offer(deflater);
+
+            if (!finished) {
+                length = -1;
+            }
+        }
+
+        if (length < 0 || HEADER_SIZE + length >= raw.length) {
+            this.stats.recordUncompressed();
+            return hasHeader(raw) ? withHeader(raw) : raw;
+        }
+        writeHeader(compressed, DEFLATED, raw.length);
+        final byte[] stored = new byte[HEADER_SIZE + length];
+        System.arraycopy(compressed, 0, stored, 0, stored.length);
+        this.stats.recordCompression(raw.length, stored.length, now() - start);
+        return stored;
+    }
+
+    /**
+     * Decompresses the bytes if they carry a header and decodes the result with the
+     * wrapped codec.
+     *
+     * @param bytes the stored bytes
+     * @return the decoded object
+     * @throws IllegalArgumentException if the length in the header does not match the
+     *                                  payload, or the compressed data is corrupt
+     */
+    @Override
+    public T decode(byte[] bytes) {
+
+        if (!hasHeader(bytes)) {
+            return this.delegate.decode(bytes);
+        }
+        final int length = ByteBuffer.wrap(bytes, 4, 4).order(ByteOrder.BIG_ENDIAN).getInt();
+        final int payload = bytes.length - HEADER_SIZE;
+
+        if (bytes[3] == STORED) {
+
+            if (length != payload) {
+                throw new IllegalArgumentException("Stored value length " + length + " does not match its " + payload + " bytes");
+            }
+            final byte[] raw = new byte[length];
+            System.arraycopy(bytes, HEADER_SIZE, raw, 0, length);
+            return this.delegate.decode(raw);
+        }
+        if (length < 0 || length > (long) payload * MAX_DEFLATE_RATIO) {
+            throw new IllegalArgumentException("Compressed value length " + length + " out of range for " + payload + " bytes");
+        }
+        final long start = now();
+        final byte[] raw = new byte[length];
+        Inflater inflater = this.inflaters.poll();
+
+        if (inflater == null) {
+            inflater = new Inflater();
+        }
+
+        try {
+            inflater.setInput(bytes, HEADER_SIZE, bytes.length - HEADER_SIZE);
+            int read = 0;
+
+            while (read < length && !inflater.finished()) {
+                final int n = inflater.inflate(raw, read, length - read);
+
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new IllegalArgumentException("Truncated compressed value");
+                }
+                read += n;
+            }
+
+            if (read != length) {
+                throw new IllegalArgumentException("Compressed value ended after " + read + " of " + length + " bytes");
+            }
+        } catch (DataFormatException e) {
+            throw new IllegalArgumentException("Corrupt compressed value", e);
+        } finally {
+            inflater.reset();
+            this.inflaters.offer(inflater);
+        }
+        this.stats.recordDecompression(now() - start);
+        return this.delegate.decode(raw);
+    }
+
+    private static boolean hasHeader(byte[] bytes) {
+        return bytes.length >= HEADER_SIZE && bytes[0] == MAGIC[0] && bytes[1] == MAGIC[1] && bytes[2] == MAGIC[2]
+                && (bytes[3] == STORED || bytes[3] == DEFLATED);
+    }
+
+    private static byte[] withHeader(byte[] raw) {
+        final byte[] stored = new byte[HEADER_SIZE + raw.length];
+        writeHeader(stored, STORED, raw.length);
+        System.arraycopy(raw, 0, stored, HEADER_SIZE, raw.length);
+        return stored;
+    }
+
+    private static void writeHeader(byte[] target, byte method, int length) {
+        target[0] = MAGIC[0];
+        target[1] = MAGIC[1];
+        target[2] = MAGIC[2];
+        target[3] = method;
+        ByteBuffer.wrap(target, 4, 4).order(ByteOrder.BIG_ENDIAN).putInt(length);
+    }
+
+    private static long now() {
+        return CPU_TIME ? THREADS.getCurrentThreadCpuTime() : System.nanoTime();
+    }
+}
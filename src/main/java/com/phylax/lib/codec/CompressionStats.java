@@ -0,0 +1,119 @@
+package com.phylax.lib.codec;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Running totals of a {@link CompressingCodec}.
+ * <p>
+ * Each codec instance keeps its own totals, so wrapping the value codec of every tier
+ * in a separate {@link CompressingCodec} yields statistics per tier. Times are the CPU
+ * time of the calling thread where the JVM can measure it, wall-clock time otherwise.
+ * </p>
+ */
+public final class CompressionStats {
+
+    private final LongAdder compressedValues = new LongAdder();
+
+    private final LongAdder uncompressedValues = new LongAdder();
+
+    private final LongAdder bytesBeforeCompression = new LongAdder();
+
+    private final LongAdder bytesAfterCompression = new LongAdder();
+
+    private final LongAdder compressionNanos = new LongAdder();
+
+    private final LongAdder decompressedValues = new LongAdder();
+
+    private final LongAdder decompressionNanos = new LongAdder();
+
+    void recordCompression(int before, int after, long nanos) {
+        this.compressedValues.increment();
+        this.bytesBeforeCompression.add(before);
+        this.bytesAfterCompression.add(after);
+        this.compressionNanos.add(nanos);
+    }
+
+    void recordUncompressed() {
+        this.uncompressedValues.increment();
+    }
+
+    void recordDecompression(long nanos) {
+        this.decompressedValues.increment();
+        this.decompressionNanos.add(nanos);
+    }
+
+    /**
+     * Returns the number of values stored compressed.
+     *
+     * @return the compressed value count
+     */
+    public long getCompressedValues() {
+        return this.compressedValues.sum();
+    }
+
+    /**
+     * Returns the number of values stored as is, because they were below the threshold
+     * or did not shrink.
+     *
+     * @return the uncompressed value count
+     */
+    public long getUncompressedValues() {
+        return this.uncompressedValues.sum();
+    }
+
+    /**
+     * Returns the total size of the compressed values before compression.
+     *
+     * @return the number of bytes fed to the compressor
+     */
+    public long getBytesBeforeCompression() {
+        return this.bytesBeforeCompression.sum();
+    }
+
+    /**
+     * Returns the total size of the compressed values after compression, including headers.
+     *
+     * @return the number of bytes stored for compressed values
+     */
+    public long getBytesAfterCompression() {
+        return this.bytesAfterCompression.sum();
+    }
+
+    /**
+     * Returns how many times smaller the compressed values are than the originals.
+     *
+     * @return the ratio of bytes before to bytes after compression, or {@code 1.0} if
+     *         nothing was compressed yet
+     */
+    public double getCompressionRatio() {
+        final long after = this.bytesAfterCompression.sum();
+        return (after == 0L) ? 1.0 : (double) this.bytesBeforeCompression.sum() / after;
+    }
+
+    /**
+     * Returns the time spent compressing.
+     *
+     * @return the compression time in nanoseconds
+     */
+    public long getCompressionNanos() {
+        return this.compressionNanos.sum();
+    }
+
+    /**
+     * Returns the number of values decompressed.
+     *
+     * @return the decompressed value count
+     */
+    public long getDecompressedValues() {
+        return this.decompressedValues.sum();
+    }
+
+    /**
+     * Returns the time spent decompressing.
+     *
+     * @return the decompression time in nanoseconds
+     */
+    public long getDecompressionNanos() {
+        return this.decompressionNanos.sum();
+    }
+}
@@ -0,0 +1,77 @@
+package com.phylax.lib.codec;
+
+import com.phylax.lib.contract.CacheCodec;
+import tools.jackson.databind.ObjectMapper;
+
+import java.nio.ByteBuffer;
+
+/**
+ * {@link CacheCodec} encoding objects with a Jackson {@link ObjectMapper}.
+ * <p>
+ * The format is that of the mapper: a {@code JsonMapper} produces JSON, a
+ * {@code SmileMapper} or {@code CBORMapper} a binary encoding of the same data model.
+ * The mapper encodes straight to and from bytes, without an intermediate
+ * {@code String}. {@link JsonCodec} and {@link SmileCodec} provide shared default mappers.
+ * </p>
+ *
+ * @param <T> the type of the objects converted by this codec
+ */
+public class JacksonCodec<T> implements CacheCodec<T> {
+
+    private final ObjectMapper mapper;
+
+    private final Class<T> type;
+
+    /**
+     * Creates a codec for the given type.
+     *
+     * @param mapper the mapper defining the format; must be fully configured, as it is
+     *               shared by all threads using the codec
+     * @param type   the class objects are decoded to
+     */
+    public JacksonCodec(ObjectMapper mapper, Class<T> type) {
+        this.mapper = mapper;
+        this.type = type;
+    }
+
+    /**
+     * Encodes the object with the mapper.
+     *
+     * @param value the object to encode; must not be {@code null}
+     * @return the encoded bytes
+     */
+    @Override
+    public byte[] encode(T value) {
+        return this.mapper.writeValueAsBytes(value);
+    }
+
+    /**
+     * Decodes an object of the codec's type with the mapper.
+     *
+     * @param bytes bytes produced by {@link #encode(Object)}
+     * @return the decoded object
+     */
+    @Override
+    public T decode(byte[] bytes) {
+        return this.mapper.readValue(bytes, this.type);
+    }
+
+    /**
+     * Decodes an object from the remaining bytes of the buffer, reading array-backed
+     * buffers in place.
+     *
+     * @param buffer buffer whose remaining bytes were produced by {@link #encode(Object)}
+     * @return the decoded object
+     */
+    @Override
+    public T decode(ByteBuffer buffer) {
+
+        if (!buffer.hasArray()) {
+            return CacheCodec.super.decode(buffer);
+        }
+        final int length = buffer.remaining();
+        final T value = this.mapper.readValue(buffer.array(), buffer.arrayOffset() + buffer.position(), length, this.type);
+        buffer.position(buffer.limit());
+        return value;
+    }
+}
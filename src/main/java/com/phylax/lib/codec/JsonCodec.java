@@ -0,0 +1,37 @@
+package com.phylax.lib.codec;
+
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.json.JsonMapper;
+
+/**
+ * {@link JacksonCodec} producing UTF-8 JSON.
+ * <p>
+ * The encoding matches what the {@link com.phylax.lib.mapper.ExternalObjectMapper}
+ * produces, so entries written through it remain readable by this codec.
+ * </p>
+ *
+ * @param <T> the type of the objects converted by this codec
+ */
+public final class JsonCodec<T> extends JacksonCodec<T> {
+
+    private static final ObjectMapper MAPPER = JsonMapper.builder().build();
+
+    /**
+     * Creates a codec for the given type using a shared default {@link JsonMapper}.
+     *
+     * @param type the class objects are decoded to
+     */
+    public JsonCodec(Class<T> type) {
+        super(MAPPER, type);
+    }
+
+    /**
+     * Creates a codec for the given type using the given mapper.
+     *
+     * @param mapper the mapper to encode with
+     * @param type   the class objects are decoded to
+     */
+    public JsonCodec(JsonMapper mapper, Class<T> type) {
+        super(mapper, type);
+    }
+}
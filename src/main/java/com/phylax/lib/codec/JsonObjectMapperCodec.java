@@ -0,0 +1,70 @@
+package com.phylax.lib.codec;
+
+import com.phylax.lib.contract.CacheCodec;
+import redis.clients.jedis.json.JsonObjectMapper;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * {@link CacheCodec} adapting a {@link JsonObjectMapper}.
+ * <p>
+ * It backs the cache constructors taking a mapper, and produces the same bytes those
+ * caches stored before codecs were introduced. Since the mapper works on strings, every
+ * call goes through an intermediate {@code String}; prefer {@link JsonCodec} for new code.
+ * </p>
+ *
+ * @param <T> the type of the objects converted by this codec
+ */
+public final class JsonObjectMapperCodec<T> implements CacheCodec<T> {
+
+    private final JsonObjectMapper objectMapper;
+
+    private final Class<T> type;
+
+    /**
+     * Creates a codec that can only encode, as used for keys.
+     *
+     * @param objectMapper the mapper to encode with
+     */
+    public JsonObjectMapperCodec(JsonObjectMapper objectMapper) {
+        this(objectMapper, null);
+    }
+
+    /**
+     * Creates a codec for the given type.
+     *
+     * @param objectMapper the mapper to encode with
+     * @param type         the class objects are decoded to
+     */
+    public JsonObjectMapperCodec(JsonObjectMapper objectMapper, Class<T> type) {
+        this.objectMapper = objectMapper;
+        this.type = type;
+    }
+
+    /**
+     * Encodes the object as UTF-8 JSON.
+     *
+     * @param value the object to encode; must not be {@code null}
+     * @return the UTF-8 bytes of the JSON
+     */
+    @Override
+    public byte[] encode(T value) {
+        return this.objectMapper.toJson(value).getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Decodes an object from UTF-8 JSON.
+     *
+     * @param bytes the UTF-8 bytes of the JSON
+     * @return the decoded object
+     * @throws UnsupportedOperationException if the codec was created without a type
+     */
+    @Override
+    public T decode(byte[] bytes) {
+
+        if (this.type == null) {
+            throw new UnsupportedOperationException("Codec was created for encoding only");
+        }
+        return this.objectMapper.fromJson(new String(bytes, StandardCharsets.UTF_8), this.type);
+    }
+}
@@ -0,0 +1,38 @@
+package com.phylax.lib.codec;
+
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.dataformat.smile.SmileMapper;
+
+/**
+ * {@link JacksonCodec} producing Smile, Jackson's binary encoding of JSON.
+ * <p>
+ * Smile stores numbers in binary, and repeated property names as back-references. Its
+ * output is usually smaller than JSON and faster to decode, at the cost of not being
+ * human-readable in the tier.
+ * </p>
+ *
+ * @param <T> the type of the objects converted by this codec
+ */
+public final class SmileCodec<T> extends JacksonCodec<T> {
+
+    private static final ObjectMapper MAPPER = SmileMapper.builder().build();
+
+    /**
+     * Creates a codec for the given type using a shared default {@link SmileMapper}.
+     *
+     * @param type the class objects are decoded to
+     */
+    public SmileCodec(Class<T> type) {
+        super(MAPPER, type);
+    }
+
+    /**
+     * Creates a codec for the given type using the given mapper.
+     *
+     * @param mapper the mapper to encode with
+     * @param type   the class objects are decoded to
+     */
+    public SmileCodec(SmileMapper mapper, Class<T> type) {
+        super(mapper, type);
+    }
+}
@@ -0,0 +1,55 @@
+package com.phylax.lib.codec;
+
+import com.phylax.lib.contract.CacheCodec;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * {@link CacheCodec} storing strings as their raw UTF-8 bytes.
+ * <p>
+ * Unlike a JSON codec it neither quotes nor escapes, so a key {@code user:42} is stored
+ * as exactly those bytes and can be looked up by other clients under the same name.
+ * </p>
+ */
+public final class StringCodec implements CacheCodec<String> {
+
+    /**
+     * Shared instance; the codec holds no state.
+     */
+    public static final StringCodec INSTANCE = new StringCodec();
+
+    /**
+     * Encodes the string as UTF-8.
+     *
+     * @param value the string to encode; must not be {@code null}
+     * @return the UTF-8 bytes of the string
+     */
+    @Override
+    public byte[] encode(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Decodes a UTF-8 string.
+     *
+     * @param bytes the UTF-8 bytes of the string
+     * @return the decoded string
+     */
+    @Override
+    public String decode(byte[] bytes) {
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Decodes a UTF-8 string from the remaining bytes of the buffer without copying them
+     * first.
+     *
+     * @param buffer buffer holding the UTF-8 bytes of the string
+     * @return the decoded string
+     */
+    @Override
+    public String decode(ByteBuffer buffer) {
+        return StandardCharsets.UTF_8.decode(buffer).toString();
+    }
+}
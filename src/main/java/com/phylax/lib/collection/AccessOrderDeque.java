@@ -0,0 +1,165 @@
+package com.phylax.lib.collection;
+
+/**
+ * An intrusive, non thread-safe doubly linked list of {@link CacheNode}s ordered
+ * from least to most recently used.
+ * <p>
+ * Because the links live on the nodes themselves, moving an entry to the tail
+ * or unlinking it is an O(1) operation, unlike {@code LinkedBlockingDeque#remove(Object)}
+ * which has to scan the whole queue. All methods must be called while holding
+ * the lock of the owning shard.
+ * </p>
+ *
+ * @param <K> the type of keys held by the nodes
+ * @param <V> the type of values held by the nodes
+ */
+final class AccessOrderDeque<K, V> {
+
+    /** The least recently used node, or {@code null} if empty. */
+    private CacheNode<K, V> first;
+
+    /** The most recently used node, or {@code null} if empty. */
+    private CacheNode<K, V> last;
+
+    /** Number of linked nodes. */
+    private int size;
+
+    /**
+     * Returns whether the given node is currently linked into this deque.
+     *
+     * @param node the node to check
+     * @return {@code true} if the node is linked
+     */
+    boolean contains(CacheNode<K, V> node) {
+        return node.deque == this;
+    }
+
+    /**
+     * Links the node as the most recently used element.
+     *
+     * @param node an unlinked node
+     */
+    void addLast(CacheNode<K, V> node) {
+        final CacheNode<K, V> tail = this.last;
+        node.prev = tail;
+        node.next = null;
+        node.deque = this;
+        this.last = node;
+
+        if (tail == null) {
+            this.first = node;
+        } else {
+            tail.next = node;
+        }
+        this.size++;
+    }
+
+    /**
+     * Moves a linked node to the most recently used position.
+     *
+     * @param node a node that is linked into this deque
+     */
+    void moveToBack(CacheNode<K, V> node) {
+
+        if (node != this.last) {
+            this.unlink(node);
+            this.addLast(node);
+        }
+    }
+
+    /**
+     * Unlinks the node if it is part of this deque.
+     *
+     * @param node the node to remove
+     * @return {@code true} if the node was linked and has been removed
+     */
+    boolean remove(CacheNode<K, V> node) {
+
+        if (this.contains(node)) {
+            this.unlink(node);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Returns the most recently used node without removing it.
+     *
+     * @return the tail node, or {@code null} if empty
+     */
+    CacheNode<K, V> peekLast() {
+        return this.last;
+    }
+
+    /**
+     * Returns the least recently used node without removing it.
+     *
+     * @return the head node, or {@code null} if empty
+     */
+    CacheNode<K, V> peekFirst() {
+        return this.first;
+    }
+
+    /**
+     * Unlinks and returns the least recently used node.
+     *
+     * @return the removed head node, or {@code null} if empty
+     */
+    CacheNode<K, V> pollFirst() {
+        final CacheNode<K, V> head = this.first;
+
+        if (head != null) {
+            this.unlink(head);
+        }
+        return head;
+    }
+
+    /**
+     * Returns the number of linked nodes.
+     *
+     * @return the size of the deque
+     */
+    int size() {
+        return this.size;
+    }
+
+    /**
+     * Unlinks every node so that stale references held by read buffers are
+     * recognised as no longer being part of the deque.
+     */
+    void clear() {
+        CacheNode<K, V> node = this.first;
+
+        while (node != null) {
+            final CacheNode<K, V> next = node.next;
+            node.prev = null;
+            node.next = null;
+            node.deque = null;
+            node = next;
+        }
+        this.first = null;
+        this.last = null;
+        this.size = 0;
+    }
+
+    private void unlink(CacheNode<K, V> node) {
+        final CacheNode<K, V> prev = node.prev;
+        final CacheNode<K, V> next = node.next;
+
+        if (prev == null) {
+            this.first = next;
+        } else {
+            prev.next = next;
+        }
+
+        if (next == null) {
+            this.last = prev;
+        } else {
+            next.prev = prev;
+        }
+        node.prev = null;
+        node.next = null;
+        node.deque = null;
+        this.size--;
+    }
+}
@@ -0,0 +1,47 @@
+package com.phylax.lib.collection;
+
+import java.util.Arrays;
+
+/**
+ * Wraps an encoded key so that it can be used in hash-based collections by content
+ * rather than by array identity.
+ * <p>
+ * The array is not copied; callers must not modify it after wrapping.
+ * </p>
+ */
+final class ByteArrayKey {
+
+    private final byte[] bytes;
+
+    private final int hash;
+
+    ByteArrayKey(byte[] bytes) {
+        this.bytes = bytes;
+        this.hash = Arrays.hashCode(bytes);
+    }
+
+    /**
+     * Returns the wrapped bytes.
+     *
+     * @return the encoded key
+     */
+    byte[] bytes() {
+        return this.bytes;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+
+        if (this == other) {
+            return true;
+        }
+        return (other instanceof ByteArrayKey that)
+                && this.hash == that.hash
+                && Arrays.equals(this.bytes, that.bytes);
+    }
+
+    @Override
+    public int hashCode() {
+        return this.hash;
+    }
+}
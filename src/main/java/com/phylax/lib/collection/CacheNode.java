@@ -0,0 +1,67 @@
+package com.phylax.lib.collection;
+
+/**
+ * A single entry of an {@link LRUCache}.
+ * <p>
+ * The node is shared between the hash index of its shard, the intrusive
+ * {@link AccessOrderDeque} that tracks recency and, when it expires, a bucket of
+ * the shard's {@link TimerWheel}. The value is {@code volatile}
+ * so that readers can observe updates without acquiring the shard lock, while
+ * the {@link #prev} and {@link #next} links are only ever touched while the
+ * shard lock is held.
+ * </p>
+ *
+ * @param <K> the type of the key
+ * @param <V> the type of the value
+ */
+final class CacheNode<K, V> {
+
+    /** Deadline of entries that never expire. */
+    static final long NO_EXPIRY = Long.MAX_VALUE;
+
+    /** The key this node is mapped under. */
+    final K key;
+
+    /** The current value; written under the shard lock, read without it. */
+    volatile V value;
+
+    /** Weight of the entry as computed by the cache's weigher, guarded by the shard lock. */
+    long weight;
+
+    /**
+     * The {@link System#nanoTime()} at which the entry expires, or {@link #NO_EXPIRY}.
+     * Written under the shard lock on insert, and by readers when expiring after access.
+     */
+    volatile long expiresAt = NO_EXPIRY;
+
+    /** Time to live in nanoseconds used to extend {@link #expiresAt} on access; 0 if none. */
+    volatile long ttlNanos;
+
+    /** Previous node in the timer wheel bucket, guarded by the shard lock. */
+    CacheNode<K, V> timerPrev;
+
+    /** Next node in the timer wheel bucket, guarded by the shard lock. */
+    CacheNode<K, V> timerNext;
+
+    /** The deque this node is currently linked into, guarded by the shard lock. */
+    AccessOrderDeque<K, V> deque;
+
+    /** Previous node in access order, guarded by the shard lock. */
+    CacheNode<K, V> prev;
+
+    /** Next node in access order, guarded by the shard lock. */
+    CacheNode<K, V> next;
+
+    /**
+     * Creates a new, unlinked node.
+     *
+     * @param key    the key of the entry
+     * @param value  the value of the entry
+     * @param weight the weight of the entry
+     */
+    CacheNode(K key, V value, long weight) {
+        this.key = key;
+        this.value = value;
+        this.weight = weight;
+    }
+}
@@ -0,0 +1,57 @@
+package com.phylax.lib.collection;
+
+/**
+ * Eviction policy of a {@link CacheShard}.
+ * <p>
+ * The policy owns the ordering structures of the shard and decides which entry is
+ * removed when the shard exceeds its weight budget. Every method is invoked while the
+ * shard lock is held, so implementations need not be thread-safe.
+ * </p>
+ *
+ * @param <K> the type of keys
+ * @param <V> the type of values
+ */
+interface CachePolicy<K, V> {
+
+    /**
+     * Records a replayed read of a node that may have been removed since.
+     *
+     * @param node the node that was read
+     */
+    void onAccess(CacheNode<K, V> node);
+
+    /**
+     * Links a newly inserted node.
+     *
+     * @param node the inserted node
+     */
+    void onAdd(CacheNode<K, V> node);
+
+    /**
+     * Records an overwrite of a linked node whose weight changed by {@code weightDelta}.
+     *
+     * @param node        the updated node
+     * @param weightDelta the new weight minus the old weight
+     */
+    void onUpdate(CacheNode<K, V> node, long weightDelta);
+
+    /**
+     * Unlinks a node that has been removed explicitly.
+     *
+     * @param node the removed node
+     * @return {@code true} if the node was linked
+     */
+    boolean onRemove(CacheNode<K, V> node);
+
+    /**
+     * Selects, unlinks and returns the next entry to evict.
+     *
+     * @return the victim, or {@code null} if the policy holds no entries
+     */
+    CacheNode<K, V> evict();
+
+    /**
+     * Unlinks every node.
+     */
+    void clear();
+}
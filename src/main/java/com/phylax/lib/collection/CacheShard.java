@@ -0,0 +1,343 @@
+package com.phylax.lib.collection;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * One independently locked partition of an {@link LRUCache}.
+ * <p>
+ * Reads are served straight from the {@link ConcurrentHashMap} and only record the
+ * accessed node into a {@link StripedReadBuffer}; they never block. Writes, deletes
+ * and the batched replay of buffered reads against the {@link CachePolicy} are
+ * serialized by the shard lock, so every recency update is an O(1) pointer swap.
+ * </p>
+ * <p>
+ * Entries may carry a deadline. Expired entries are invisible to readers as soon as
+ * their deadline passes and are physically removed by the shard's {@link TimerWheel},
+ * which is advanced during maintenance (on writes, when a read buffer fills up and
+ * when a reader stumbles upon an expired entry).
+ * </p>
+ *
+ * @param <K> the type of keys maintained by this shard
+ * @param <V> the type of mapped values
+ */
+final class CacheShard<K, V> {
+
+    /** Maximum total weight of the entries this shard can hold. */
+    private final long maxWeight;
+
+    /** Computes the weight of each entry on write. */
+    private final Weigher<? super K, ? super V> weigher;
+
+    /** Running total weight of the linked entries, guarded by {@link #lock}. */
+    private long totalWeight;
+
+    /** Hash index of the shard's entries. */
+    private final ConcurrentHashMap<K, CacheNode<K, V>> data = new ConcurrentHashMap<>();
+
+    /** Ordering and victim selection of the shard's entries, guarded by {@link #lock}. */
+    private final CachePolicy<K, V> policy;
+
+    /** Lossy buffer of reads waiting to be replayed against {@link #policy}. */
+    private final StripedReadBuffer<CacheNode<K, V>> readBuffer;
+
+    /** Expiration schedule of entries with a deadline, guarded by {@link #lock}. */
+    private final TimerWheel<K, V> timerWheel = new TimerWheel<>(System.nanoTime());
+
+    /** Whether reads push the deadline of an entry forward by its time to live. */
+    private final boolean expireAfterAccess;
+
+    /** Time to live in nanoseconds applied by {@link #put(Object, Object)}; 0 if none. */
+    private final long defaultTtlNanos;
+
+    /** Number of entries removed by {@link #evict()}. */
+    private final LongAdder evictionCount = new LongAdder();
+
+    /** Guards {@link #policy}, {@link #timerWheel} and structural changes to {@link #data}. */
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /**
+     * Creates a new shard.
+     *
+     * @param maxWeight              the maximum total weight held by this shard
+     * @param weigher                the weigher applied to every written entry
+     * @param evictionPolicy         the strategy used to select victims
+     * @param expireAfterAccessNanos if positive, entries expire after not being read or
+     *                               written for this long; 0 disables expire-after-access
+     * @param bufferStripes          the number of read buffer stripes
+     */
+    CacheShard(long maxWeight, Weigher<? super K, ? super V> weigher, EvictionPolicy evictionPolicy,
+               long expireAfterAccessNanos, int bufferStripes) {
+        this.maxWeight = maxWeight;
+        this.weigher = weigher;
+        this.policy = evictionPolicy.create(maxWeight);
+        this.expireAfterAccess = expireAfterAccessNanos > 0;
+        this.defaultTtlNanos = Math.max(0, expireAfterAccessNanos);
+        this.readBuffer = new StripedReadBuffer<>(bufferStripes);
+    }
+
+    /**
+     * Returns the value for the key and records the access without locking.
+     * In expire-after-access mode the deadline of the entry is pushed forward.
+     *
+     * @param key the key to look up
+     * @return the value, or {@code null} if absent or expired
+     */
+    V get(K key) {
+        final CacheNode<K, V> node = this.data.get(key);
+
+        if (node == null) {
+            return null;
+        }
+        final long expiresAt = node.expiresAt;
+
+        if (expiresAt != CacheNode.NO_EXPIRY) {
+            final long now = System.nanoTime();
+
+            if (expiresAt - now <= 0) {
+                this.tryMaintenance();
+                return null;
+            }
+
+            if (this.expireAfterAccess) {
+                node.expiresAt = now + node.ttlNanos;
+            }
+        }
+        this.afterRead(node);
+        return node.value;
+    }
+
+    /**
+     * Returns the value for the key without recording the access.
+     *
+     * @param key the key to look up
+     * @return the value, or {@code null} if absent or expired
+     */
+    V getQuietly(K key) {
+        final CacheNode<K, V> node = this.data.get(key);
+
+        if (node == null) {
+            return null;
+        }
+        final long expiresAt = node.expiresAt;
+
+        if (expiresAt != CacheNode.NO_EXPIRY && expiresAt - System.nanoTime() <= 0) {
+            return null;
+        }
+        return node.value;
+    }
+
+    /**
+     * Inserts or replaces the value for the key, marking it as used and letting
+     * the policy evict entries while over the weight budget.
+     * The entry is weighed before the lock is acquired. In expire-after-access mode the
+     * entry expires once it has not been used for the configured duration, otherwise it
+     * never expires.
+     *
+     * @param key   the key to insert or update
+     * @param value the value associated with the key
+     */
+    void put(K key, V value) {
+        this.put(key, value, this.defaultTtlNanos);
+    }
+
+    /**
+     * Inserts or replaces the value for the key with a time to live. In expire-after-access
+     * mode every read extends the deadline by the same time to live.
+     *
+     * @param key      the key to insert or update
+     * @param value    the value associated with the key
+     * @param ttlNanos the time to live in nanoseconds; 0 means the entry never expires
+     */
+    void put(K key, V value, long ttlNanos) {
+        final long weight = Math.max(0, this.weigher.weigh(key, value));
+        this.lock.lock();
+
+        try {
+            final long now = System.nanoTime();
+            this.maintenance(now);
+            CacheNode<K, V> node = this.data.get(key);
+
+            if (node != null) {
+                final long delta = weight - node.weight;
+                this.totalWeight += delta;
+                node.weight = weight;
+                node.value = value;
+                this.policy.onUpdate(node, delta);
+            } else {
+                node = new CacheNode<>(key, value, weight);
+                this.data.put(key, node);
+                this.totalWeight += weight;
+                this.policy.onAdd(node);
+            }
+            node.ttlNanos = ttlNanos;
+            node.expiresAt = (ttlNanos > 0) ? now + ttlNanos : CacheNode.NO_EXPIRY;
+            this.timerWheel.schedule(node);
+            this.evict();
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * Removes the entry for the key, if present.
+     *
+     * @param key the key of the entry to remove
+     */
+    void delete(K key) {
+        this.lock.lock();
+
+        try {
+            final CacheNode<K, V> node = this.data.remove(key);
+
+            if (node != null) {
+                this.timerWheel.deschedule(node);
+
+                if (this.policy.onRemove(node)) {
+                    this.totalWeight -= node.weight;
+                }
+            }
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * Removes every entry of this shard.
+     */
+    void clear() {
+        this.lock.lock();
+
+        try {
+            this.drainReadBuffer();
+            this.data.clear();
+            this.policy.clear();
+            this.timerWheel.clear();
+            this.totalWeight = 0;
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the number of entries in this shard, including expired entries
+     * that have not been removed yet.
+     *
+     * @return the entry count
+     */
+    long size() {
+        return this.data.mappingCount();
+    }
+
+    /**
+     * Returns the number of entries removed to stay within the weight budget.
+     *
+     * @return the eviction count
+     */
+    long evictionCount() {
+        return this.evictionCount.sum();
+    }
+
+    /**
+     * Returns the total weight of the entries in this shard.
+     *
+     * @return the weighted size
+     */
+    long weightedSize() {
+        this.lock.lock();
+
+        try {
+            return this.totalWeight;
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * Replays buffered reads and removes expired entries.
+     */
+    void cleanUp() {
+        this.lock.lock();
+
+        try {
+            this.maintenance(System.nanoTime());
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * Records a read and, once a stripe fills up, runs maintenance if the lock
+     * is not already held by another thread.
+     */
+    private void afterRead(CacheNode<K, V> node) {
+
+        if (this.readBuffer.offer(node) == StripedReadBuffer.FULL) {
+            this.tryMaintenance();
+        }
+    }
+
+    /**
+     * Runs maintenance unless another thread currently holds the lock, in which
+     * case that thread will catch up on the pending work.
+     */
+    private void tryMaintenance() {
+
+        if (this.lock.tryLock()) {
+
+            try {
+                this.maintenance(System.nanoTime());
+            } finally {
+                this.lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Replays buffered reads and advances the timer wheel. Must be called with the lock held.
+     */
+    private void maintenance(long now) {
+        this.drainReadBuffer();
+        this.timerWheel.advance(now, this::expire);
+    }
+
+    /**
+     * Removes an entry whose deadline has passed. Must be called with the lock held.
+     */
+    private void expire(CacheNode<K, V> node) {
+
+        if (this.data.remove(node.key, node) && this.policy.onRemove(node)) {
+            this.totalWeight -= node.weight;
+        }
+    }
+
+    /**
+     * Applies buffered reads to the policy. Nodes that have been removed in the
+     * meantime are no longer linked and are skipped by the policy. Must be called
+     * with the lock held.
+     */
+    private void drainReadBuffer() {
+        this.readBuffer.drainTo(this.policy::onAccess);
+    }
+
+    /**
+     * Removes the entries chosen by the policy while the total weight exceeds the
+     * budget. An entry heavier than the whole budget is therefore evicted right away.
+     * Must be called with the lock held.
+     */
+    private void evict() {
+
+        while (this.totalWeight > this.maxWeight) {
+            final CacheNode<K, V> victim = this.policy.evict();
+
+            if (victim == null) {
+                break;
+            }
+            this.totalWeight -= victim.weight;
+            this.timerWheel.deschedule(victim);
+            this.data.remove(victim.key, victim);
+            this.evictionCount.increment();
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.phylax.lib.collection;
+
+/**
+ * The strategy an {@link LRUCache} uses to choose which entries to evict once its
+ * weight budget is exceeded.
+ */
+public enum EvictionPolicy {
+
+    /**
+     * Evicts the least recently used entry. Cheap and predictable, but a single scan
+     * over many distinct keys flushes the whole cache.
+     */
+    LRU,
+
+    /**
+     * Window TinyLFU: new entries pass through a small LRU window and are only admitted
+     * to the main region if they are accessed more often than the entry they would
+     * replace, as estimated by an aging count-min sketch. Keeps the hit ratio high under
+     * scan-heavy and skewed (Zipfian) workloads.
+     */
+    W_TINY_LFU;
+
+    /**
+     * Creates the policy instance for a single shard.
+     *
+     * @param maxWeight the weight budget of the shard
+     * @param <K>       the type of keys
+     * @param <V>       the type of values
+     * @return a new policy
+     */
+    <K, V> CachePolicy<K, V> create(long maxWeight) {
+
+        return switch (this) {
+            case LRU -> new LruPolicy<>();
+            case W_TINY_LFU -> new WindowTinyLfuPolicy<>(maxWeight);
+        };
+    }
+}
@@ -0,0 +1,133 @@
+package com.phylax.lib.collection;
+
+/**
+ * A compact count-min sketch estimating how often keys have been accessed.
+ * <p>
+ * Each {@code long} of the table holds sixteen 4-bit counters. A key is hashed onto
+ * four counters in one table slot (one per hash function) and its frequency is the
+ * minimum of them, so estimates can only overshoot, never undershoot. Counters saturate
+ * at 15, which is plenty to tell hot entries from one-off accesses.
+ * </p>
+ * <p>
+ * To keep the history fresh, all counters are halved once the number of recorded
+ * increments reaches ten times the table size. This aging step lets entries that were
+ * popular a long time ago lose their advantage over entries that are popular now.
+ * </p>
+ * <p>
+ * The sketch is not thread-safe; it is only used while holding a shard lock.
+ * </p>
+ */
+final class FrequencySketch {
+
+    private static final long[] SEEDS = {
+            0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L
+    };
+
+    /** Clears the high bit of every counter after the shift in {@link #reset()}. */
+    private static final long RESET_MASK = 0x7777777777777777L;
+
+    /** Selects the low bit of every counter. */
+    private static final long ONE_MASK = 0x1111111111111111L;
+
+    private long[] table = new long[1];
+
+    private int tableMask;
+
+    /** Number of increments after which the counters are aged. */
+    private int sampleSize = 10;
+
+    /** Number of increments since the last aging step. */
+    private int size;
+
+    /**
+     * Grows the table so that it can track roughly {@code expectedEntries} keys.
+     * Existing counts are discarded when the table grows.
+     *
+     * @param expectedEntries the number of distinct keys expected to be tracked
+     */
+    void ensureCapacity(long expectedEntries) {
+        final int maximum = (int) Math.min(Math.max(expectedEntries, 1), Integer.MAX_VALUE >>> 1);
+
+        if (this.table.length >= maximum) {
+            return;
+        }
+        this.table = new long[1 << -Integer.numberOfLeadingZeros(maximum - 1)];
+        this.tableMask = this.table.length - 1;
+        this.sampleSize = 10 * maximum;
+        this.size = 0;
+    }
+
+    /**
+     * Returns the estimated number of occurrences of the key, at most 15.
+     *
+     * @param key the key to look up
+     * @return the estimated frequency
+     */
+    int frequency(Object key) {
+        final int hash = spread(key.hashCode());
+        final int start = (hash & 3) << 2;
+        int frequency = Integer.MAX_VALUE;
+
+        for (int i = 0; i < 4; i++) {
+            final int index = this.indexOf(hash, i);
+            final int count = (int) ((this.table[index] >>> ((start + i) << 2)) & 0xfL);
+            frequency = Math.min(frequency, count);
+        }
+        return frequency;
+    }
+
+    /**
+     * Increments the popularity of the key, aging all counters when the sample is full.
+     *
+     * @param key the accessed key
+     */
+    void increment(Object key) {
+        final int hash = spread(key.hashCode());
+        final int start = (hash & 3) << 2;
+        boolean added = false;
+
+        for (int i = 0; i < 4; i++) {
+            added |= this.incrementAt(this.indexOf(hash, i), start + i);
+        }
+
+        if (added && ++this.size == this.sampleSize) {
+            this.reset();
+        }
+    }
+
+    private boolean incrementAt(int index, int counter) {
+        final int offset = counter << 2;
+        final long mask = 0xfL << offset;
+
+        if ((this.table[index] & mask) != mask) {
+            this.table[index] += 1L << offset;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Halves every counter and the sample size, accounting for odd counts lost to truncation.
+     */
+    private void reset() {
+        int odd = 0;
+
+        for (int i = 0; i < this.table.length; i++) {
+            odd += Long.bitCount(this.table[i] & ONE_MASK);
+            this.table[i] = (this.table[i] >>> 1) & RESET_MASK;
+        }
+        this.size = (this.size - (odd >>> 2)) >>> 1;
+    }
+
+    private int indexOf(int item, int i) {
+        long hash = (item + SEEDS[i]) * SEEDS[i];
+        hash += hash >>> 32;
+        return ((int) hash) & this.tableMask;
+    }
+
+    private static int spread(int x) {
+        x = ((x >>> 16) ^ x) * 0x45d9f3b;
+        x = ((x >>> 16) ^ x) * 0x45d9f3b;
+        return (x >>> 16) ^ x;
+    }
+}
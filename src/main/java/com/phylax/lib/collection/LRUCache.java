@@ -1,31 +1,52 @@
 package com.phylax.lib.collection;
 
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.LinkedBlockingDeque;
+import java.time.Duration;
 
 /**
  * A thread-safe Least Recently Used (LRU) cache implementation.
  * <p>
- * This cache maintains a fixed maximum capacity. When the number of entries exceeds
- * {@link #maxCapacity}, the least recently used entry is automatically evicted.
+ * This cache maintains a fixed maximum capacity, expressed as a total weight. Every
+ * entry is weighed by a {@link Weigher} when it is written, and the cache keeps a
+ * running total of those weights. When the total exceeds {@link #maxCapacity}, the
+ * least recently used entries are automatically evicted. With the default
+ * {@link ObjectSizeWeigher} the weight is an estimate of the retained heap size in
+ * bytes, which makes the capacity derived from the JVM heap an actual memory budget.
  * <p>
  * Accessing or inserting an entry updates its usage order, ensuring that frequently
  * accessed entries remain in the cache while older, less used entries are evicted first.
  * </p>
+ * <p>
+ * Entries are partitioned into independently locked shards selected by key hash.
+ * Reads never lock: they are served from a concurrent hash index and only record the
+ * access into striped, lossy buffers which are replayed against an intrusive access
+ * order list in batches. Every recency update is therefore O(1), and writers only
+ * contend with other writers of the same shard.
+ * </p>
+ * <p>
+ * Victim selection defaults to plain LRU. {@link EvictionPolicy#W_TINY_LFU} can be
+ * selected instead to protect frequently used entries from scans; frequency counting
+ * happens while replaying the read buffers, so reads stay lock-free either way.
+ * </p>
+ * <p>
+ * Entries can be given a time to live with {@link #put(Object, Object, Duration)}, and
+ * the cache can be configured to expire entries after a period without access.
+ * Expired entries are never returned and are removed by a hierarchical timer wheel
+ * during routine maintenance, so expiration costs amortized O(1) per entry.
+ * </p>
  *
  * @param <K> the type of keys maintained by this cache
  * @param <V> the type of mapped values
  */
 public class LRUCache<K, V> {
 
-    /** Maximum number of entries the cache can hold. */
+    /** Maximum total weight of the entries the cache can hold. */
     private final long maxCapacity;
 
-    /** Internal storage for cache entries. */
-    private final ConcurrentHashMap<K, V> cacheMap = new ConcurrentHashMap<>();
+    /** Independently locked partitions of the cache. */
+    private final CacheShard<K, V>[] shards;
 
-    /** Queue to track access order for LRU eviction. */
-    private final LinkedBlockingDeque<K> accessOrderQueue = new LinkedBlockingDeque<>();
+    /** Mask applied to the spread key hash to select a shard. */
+    private final int shardMask;
 
     /**
      * Constructs an LRUCache using a default capacity factor.
@@ -34,7 +55,7 @@ public class LRUCache<K, V> {
      * This constructor is useful when no custom capacity factor is specified.
      */
     public LRUCache() {
-        this.maxCapacity = (long) (0.20f * Runtime.getRuntime().maxMemory());
+        this(0.20f);
     }
 
     /**
@@ -48,47 +69,154 @@ public class LRUCache<K, V> {
      * </ul>
      * The maximum cache capacity is then calculated as:
      * <pre>{@code maxCapacity = capacityFactor * Runtime.getRuntime().maxMemory()}</pre>
+     * and entries are weighed by the {@link ObjectSizeWeigher}.
      *
      * @param capacityFactor the desired fraction of max JVM memory to use for the cache
      */
     public LRUCache(float capacityFactor) {
+        this(capacityFactor, Runtime.getRuntime().availableProcessors());
+    }
 
-        if(capacityFactor < 0.20f) {
-            capacityFactor = 0.20f;
-        } else if(capacityFactor > 0.50f) {
-            capacityFactor = 0.50f;
-        }
-        this.maxCapacity = (long) (capacityFactor * Runtime.getRuntime().maxMemory());
+    /**
+     * Constructs an LRUCache with a custom capacity factor and number of shards.
+     * <p>
+     * The capacity factor is bounded exactly as in {@link #LRUCache(float)}. The shard
+     * count is rounded up to the next power of two; each shard owns an equal part of
+     * the capacity and its own lock, so more shards means less write contention at the
+     * cost of a slightly less precise global LRU order.
+     * </p>
+     *
+     * @param capacityFactor the desired fraction of max JVM memory to use for the cache
+     * @param shardCount     the desired number of shards; values below 1 default to 1
+     */
+    public LRUCache(float capacityFactor, int shardCount) {
+        this(heapBudget(capacityFactor), shardCount, ObjectSizeWeigher.INSTANCE, EvictionPolicy.LRU, Duration.ZERO);
     }
 
     /**
-     * Removes the eldest entries if the cache exceeds its maximum capacity.
+     * Creates an LRUCache bounded by a fraction of the heap, with a custom number of
+     * shards and weigher.
      * <p>
-     * This method is called after every insertion to maintain the LRU property.
+     * The capacity factor is bounded exactly as in {@link #LRUCache(float)}, so the
+     * weigher is expected to return sizes in bytes.
      * </p>
+     *
+     * @param capacityFactor the desired fraction of max JVM memory to use for the cache
+     * @param shardCount     the desired number of shards; values below 1 default to 1
+     * @param weigher        estimates the size in bytes of each entry
+     * @return the new cache
      */
-    private void verifyAndEvict() {
-        while (this.accessOrderQueue.size() > this.maxCapacity) {
-            K eldest = this.accessOrderQueue.pollFirst();
-            if (eldest != null) {
-                this.cacheMap.remove(eldest);
-            }
-        }
+    public static <K, V> LRUCache<K, V> ofCapacityFactor(float capacityFactor, int shardCount,
+                                                         Weigher<? super K, ? super V> weigher) {
+        return ofCapacityFactor(capacityFactor, shardCount, weigher, EvictionPolicy.LRU);
+    }
+
+    /**
+     * Creates an LRUCache bounded by a fraction of the heap, with a custom number of
+     * shards, weigher and eviction policy.
+     *
+     * @param capacityFactor the desired fraction of max JVM memory to use for the cache
+     * @param shardCount     the desired number of shards; values below 1 default to 1
+     * @param weigher        estimates the size in bytes of each entry
+     * @param evictionPolicy the strategy used to select entries to evict
+     * @return the new cache
+     * @see #ofCapacityFactor(float, int, Weigher)
+     */
+    public static <K, V> LRUCache<K, V> ofCapacityFactor(float capacityFactor, int shardCount,
+                                                         Weigher<? super K, ? super V> weigher,
+                                                         EvictionPolicy evictionPolicy) {
+        return ofCapacityFactor(capacityFactor, shardCount, weigher, evictionPolicy, Duration.ZERO);
     }
 
     /**
-     * Updates the access order of the given key.
+     * Creates an LRUCache bounded by a fraction of the heap, with a custom number of
+     * shards, weigher, eviction policy and expire-after-access duration.
+     *
+     * @param capacityFactor    the desired fraction of max JVM memory to use for the cache
+     * @param shardCount        the desired number of shards; values below 1 default to 1
+     * @param weigher           estimates the size in bytes of each entry
+     * @param evictionPolicy    the strategy used to select entries to evict
+     * @param expireAfterAccess if positive, entries expire once they have not been read or
+     *                          written for this long; {@link Duration#ZERO} disables it
+     * @return the new cache
+     * @see #ofCapacityFactor(float, int, Weigher)
+     */
+    public static <K, V> LRUCache<K, V> ofCapacityFactor(float capacityFactor, int shardCount,
+                                                         Weigher<? super K, ? super V> weigher,
+                                                         EvictionPolicy evictionPolicy, Duration expireAfterAccess) {
+        return new LRUCache<>(heapBudget(capacityFactor), shardCount, weigher, evictionPolicy, expireAfterAccess);
+    }
+
+    /**
+     * Creates an LRUCache with an explicit maximum weight.
      * <p>
-     * If the key exists, it is moved to the end of the access order queue to mark it
-     * as recently used.
+     * The weight can be in any unit, e.g. {@code (key, value) -> 1} turns the cache
+     * into an entry-count bounded LRU.
      * </p>
      *
-     * @param key the key whose access order should be updated
+     * @param maxWeight  the maximum total weight of all entries
+     * @param shardCount the desired number of shards; values below 1 default to 1
+     * @param weigher    computes the weight of each entry
+     * @return the new cache
+     */
+    public static <K, V> LRUCache<K, V> ofMaxWeight(long maxWeight, int shardCount,
+                                                    Weigher<? super K, ? super V> weigher) {
+        return ofMaxWeight(maxWeight, shardCount, weigher, EvictionPolicy.LRU);
+    }
+
+    /**
+     * Creates an LRUCache with an explicit maximum weight and eviction policy.
+     *
+     * @param maxWeight      the maximum total weight of all entries
+     * @param shardCount     the desired number of shards; values below 1 default to 1
+     * @param weigher        computes the weight of each entry
+     * @param evictionPolicy the strategy used to select entries to evict
+     * @return the new cache
+     */
+    public static <K, V> LRUCache<K, V> ofMaxWeight(long maxWeight, int shardCount,
+                                                    Weigher<? super K, ? super V> weigher,
+                                                    EvictionPolicy evictionPolicy) {
+        return ofMaxWeight(maxWeight, shardCount, weigher, evictionPolicy, Duration.ZERO);
+    }
+
+    /**
+     * Creates an LRUCache with an explicit maximum weight, eviction policy and
+     * expire-after-access duration.
+     *
+     * @param maxWeight         the maximum total weight of all entries
+     * @param shardCount        the desired number of shards; values below 1 default to 1
+     * @param weigher           computes the weight of each entry
+     * @param evictionPolicy    the strategy used to select entries to evict
+     * @param expireAfterAccess if positive, entries expire once they have not been read or
+     *                          written for this long; {@link Duration#ZERO} disables it
+     * @return the new cache
+     */
+    public static <K, V> LRUCache<K, V> ofMaxWeight(long maxWeight, int shardCount,
+                                                    Weigher<? super K, ? super V> weigher,
+                                                    EvictionPolicy evictionPolicy, Duration expireAfterAccess) {
+        return new LRUCache<>(maxWeight, shardCount, weigher, evictionPolicy, expireAfterAccess);
+    }
+
+    /**
+     * Constructs an LRUCache with an explicit maximum weight, eviction policy and
+     * expire-after-access duration. Only reachable through the named factories, since
+     * a {@code long} weight and a {@code float} capacity factor cannot be told apart
+     * by overload resolution when called with an integer literal.
      */
-    private void reorder(K key) {
+    @SuppressWarnings("unchecked")
+    private LRUCache(long maxWeight, int shardCount, Weigher<? super K, ? super V> weigher,
+                    EvictionPolicy evictionPolicy, Duration expireAfterAccess) {
+        this.maxCapacity = maxWeight;
+
+        final int count = ceilingPowerOfTwo(Math.max(1, shardCount));
+        final long shardCapacity = Math.max(1, (this.maxCapacity + count - 1) / count);
+        final int bufferStripes = Runtime.getRuntime().availableProcessors();
 
-        if(this.accessOrderQueue.remove(key)) {
-            this.accessOrderQueue.addLast(key);
+        this.shards = new CacheShard[count];
+        this.shardMask = count - 1;
+
+        for (int i = 0; i < count; i++) {
+            this.shards[i] = new CacheShard<>(shardCapacity, weigher, evictionPolicy, expireAfterAccess.toNanos(), bufferStripes);
         }
     }
 
@@ -102,29 +230,43 @@ public class LRUCache<K, V> {
      * @param key   the key to insert or update
      * @param value the value associated with the key
      */
-    public synchronized void put(K key, V value) {
-        this.reorder(key);
-        this.cacheMap.put(key, value);
-        this.verifyAndEvict();
+    public void put(K key, V value) {
+        this.shardFor(key).put(key, value);
+    }
+
+    /**
+     * Inserts or updates the value for the given key with a time to live.
+     * <p>
+     * The entry is no longer returned once the time to live has elapsed. If the cache
+     * expires entries after access, each read extends the deadline by {@code ttl} again.
+     * </p>
+     *
+     * @param key   the key to insert or update
+     * @param value the value associated with the key
+     * @param ttl   the time to live of the entry; must be positive
+     * @throws IllegalArgumentException if {@code ttl} is zero or negative
+     */
+    public void put(K key, V value, Duration ttl) {
+
+        if (ttl.isZero() || ttl.isNegative()) {
+            throw new IllegalArgumentException("ttl must be positive");
+        }
+        this.shardFor(key).put(key, value, ttl.toNanos());
     }
 
     /**
      * Retrieves the value associated with the given key, updating its usage order.
      * <p>
      * If the key exists in the cache, it is marked as recently used.
-     * Returns {@code null} if the key is not present.
+     * Returns {@code null} if the key is not present or has expired. The usage update
+     * is recorded without locking and applied lazily.
      * </p>
      *
      * @param key the key whose value is to be retrieved
      * @return the value associated with the key, or {@code null} if not present
      */
-    public synchronized V get(K key) {
-
-        if (this.cacheMap.containsKey(key)) {
-            this.reorder(key);
-            return this.cacheMap.get(key);
-        }
-        return null;
+    public V get(K key) {
+        return this.shardFor(key).get(key);
     }
 
     /**
@@ -136,42 +278,130 @@ public class LRUCache<K, V> {
      *
      * @param key          the key whose value is to be retrieved
      * @param defaultValue the default value to return if the key is not present
-     * @return the value associated with the key, or {@code defaultValue} if not present
+     * @return the value associated with the key, or {@code defaultValue} if not present or expired
      */
-    public synchronized V getOrDefault(K key, V defaultValue) {
-        return this.cacheMap.getOrDefault(key, defaultValue);
+    public V getOrDefault(K key, V defaultValue) {
+        final V value = this.shardFor(key).getQuietly(key);
+        return (value != null) ? value : defaultValue;
     }
 
     /**
      * Removes the entry associated with the given key from the cache.
      * <p>
-     * This method is synchronized to ensure thread-safety when multiple threads
-     * attempt to modify the cache concurrently.
-     * If the key exists, it is removed from both the access order queue and the cache map.
+     * Only the shard owning the key is locked.
+     * If the key exists, it is removed from both the access order list and the hash index.
      * </p>
      *
      * @param key the key of the entry to remove; must not be {@code null}
      * @throws NullPointerException if the key is {@code null}
      */
-    public synchronized void delete(K key) {
-
-        if(this.cacheMap.containsKey(key)) {
-            this.accessOrderQueue.remove(key);
-            this.cacheMap.remove(key);
-        }
+    public void delete(K key) {
+        this.shardFor(key).delete(key);
     }
 
     /**
      * Clears the cache completely.
      * <p>
-     * This method removes all entries from the internal cache map as well as
-     * the access order queue. After calling this method, the cache will be empty.
-     * <p>
-     * This method is synchronized to ensure thread-safety when clearing the cache
-     * while other threads might be accessing or modifying it.
+     * This method removes all entries from every shard. Each shard is cleared under
+     * its own lock; concurrent writers may therefore repopulate a shard that has
+     * already been cleared while later shards are still being processed.
      */
-    public synchronized void clear() {
-        this.cacheMap.clear();
-        this.accessOrderQueue.clear();
+    public void clear() {
+
+        for (CacheShard<K, V> shard : this.shards) {
+            shard.clear();
+        }
+    }
+
+    /**
+     * Performs pending maintenance on every shard: buffered reads are applied and
+     * expired entries are removed. Maintenance also runs automatically as part of
+     * normal operation; calling this is only useful to reclaim memory of expired
+     * entries in an otherwise idle cache.
+     */
+    public void cleanUp() {
+
+        for (CacheShard<K, V> shard : this.shards) {
+            shard.cleanUp();
+        }
+    }
+
+    /**
+     * Returns the number of entries currently held by the cache, including expired
+     * entries that have not been removed yet.
+     *
+     * @return the entry count, summed over all shards
+     */
+    public long size() {
+        long size = 0;
+
+        for (CacheShard<K, V> shard : this.shards) {
+            size += shard.size();
+        }
+        return size;
+    }
+
+    /**
+     * Returns the number of entries removed to keep the cache within its capacity.
+     * Expired, deleted and replaced entries are not counted.
+     *
+     * @return the eviction count, summed over all shards
+     */
+    public long evictionCount() {
+        long evictions = 0;
+
+        for (CacheShard<K, V> shard : this.shards) {
+            evictions += shard.evictionCount();
+        }
+        return evictions;
+    }
+
+    /**
+     * Returns the running total weight of the entries held by the cache.
+     *
+     * @return the weighted size, summed over all shards
+     */
+    public long weightedSize() {
+        long weight = 0;
+
+        for (CacheShard<K, V> shard : this.shards) {
+            weight += shard.weightedSize();
+        }
+        return weight;
+    }
+
+    /**
+     * Returns the maximum total weight of the cache.
+     *
+     * @return the weight budget
+     */
+    public long maxCapacity() {
+        return this.maxCapacity;
+    }
+
+    /**
+     * Selects the shard owning the key. The hash is spread so that keys whose
+     * hash codes only differ in the upper bits still land on different shards.
+     */
+    private CacheShard<K, V> shardFor(K key) {
+        final int h = key.hashCode();
+        return this.shards[(h ^ (h >>> 16)) * 0x9E3779B9 >>> 16 & this.shardMask];
+    }
+
+    /**
+     * Bounds the capacity factor to [0.20, 0.50] and converts it into a byte budget.
+     */
+    private static long heapBudget(float capacityFactor) {
+
+        if(capacityFactor < 0.20f) {
+            capacityFactor = 0.20f;
+        } else if(capacityFactor > 0.50f) {
+            capacityFactor = 0.50f;
+        }
+        return (long) (capacityFactor * Runtime.getRuntime().maxMemory());
+    }
+
+    private static int ceilingPowerOfTwo(int x) {
+        return 1 << -Integer.numberOfLeadingZeros(x - 1);
     }
 }
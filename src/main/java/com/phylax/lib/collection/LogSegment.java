@@ -0,0 +1,254 @@
+package com.phylax.lib.collection;
+
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32;
+
+/**
+ * A fixed-size, append-only log file of a {@link MappedFileStore}, mapped into memory.
+ * <p>
+ * Records are laid out back to back as
+ * {@code [int crc][int keyLength][int valueLength][long expiresAt][key][value]}, where a
+ * {@code valueLength} of {@code -1} marks a tombstone and {@code expiresAt} is an epoch
+ * millisecond deadline (or {@link Long#MAX_VALUE}) so that it survives restarts. The CRC
+ * covers everything after itself; on recovery, scanning stops at the first record that is
+ * zero-filled or fails its checksum, which discards a write torn by a crash.
+ * </p>
+ * <p>
+ * The file is mapped through {@link FileChannel#map(FileChannel.MapMode, long, long, Arena)}
+ * with its own arena, so that a compacted segment can be unmapped and deleted eagerly.
+ * </p>
+ */
+final class LogSegment {
+
+    /** Size of the record header preceding key and value. */
+    static final int HEADER_SIZE = 20;
+
+    /** Value length marking a tombstone record. */
+    static final int TOMBSTONE = -1;
+
+    /** Header fields are big-endian, matching {@link ByteBuffer}, so files are portable. */
+    private static final ValueLayout.OfInt INT = ValueLayout.JAVA_INT_UNALIGNED.withOrder(ByteOrder.BIG_ENDIAN);
+
+    private static final ValueLayout.OfLong LONG = ValueLayout.JAVA_LONG_UNALIGNED.withOrder(ByteOrder.BIG_ENDIAN);
+
+    private static final int KEY_LENGTH_OFFSET = 4;
+
+    private static final int VALUE_LENGTH_OFFSET = 8;
+
+    private static final int EXPIRES_AT_OFFSET = 12;
+
+    /** Identifier of the segment; also encoded into its file name. */
+    final int id;
+
+    /** Bytes of records that are still referenced by the index. */
+    final AtomicLong liveBytes = new AtomicLong();
+
+    private final Path path;
+
+    private final FileChannel channel;
+
+    private final Arena arena;
+
+    private final MemorySegment memory;
+
+    /** End of the last appended record, guarded by the store's append lock. */
+    private volatile int writePosition;
+
+    private LogSegment(int id, Path path, FileChannel channel, Arena arena, MemorySegment memory) {
+        this.id = id;
+        this.path = path;
+        this.channel = channel;
+        this.arena = arena;
+        this.memory = memory;
+    }
+
+    /**
+     * Opens or creates the segment file and maps {@code size} bytes of it.
+     *
+     * @param path the segment file
+     * @param id   the segment identifier
+     * @param size the mapped size; the file is extended to it if shorter
+     * @return the mapped segment
+     * @throws IOException if the file cannot be opened or mapped
+     */
+    static LogSegment open(Path path, int id, long size) throws IOException {
+        final FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        final Arena arena = Arena.ofShared();
+
+        try {
+            final long mappedSize = Math.max(size, channel.size());
+            final MemorySegment memory = channel.map(FileChannel.MapMode.READ_WRITE, 0, mappedSize, arena);
+            return new LogSegment(id, path, channel, arena, memory);
+        } catch (IOException | RuntimeException e) {
+            arena.close();
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Encodes a record.
+     *
+     * @param key       the encoded key
+     * @param value     the encoded value, or {@code null} for a tombstone
+     * @param expiresAt the epoch millisecond deadline, or {@link Long#MAX_VALUE}
+     * @return the record bytes, checksum included
+     */
+    static byte[] record(byte[] key, byte[] value, long expiresAt) {
+        final int valueLength = (value == null) ? TOMBSTONE : value.length;
+        final ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + key.length + Math.max(0, valueLength));
+        buffer.putInt(0).putInt(key.length).putInt(valueLength).putLong(expiresAt).put(key);
+
+        if (value != null) {
+            buffer.put(value);
+        }
+        final CRC32 crc = new CRC32();
+        crc.update(buffer.array(), Integer.BYTES, buffer.capacity() - Integer.BYTES);
+        buffer.putInt(0, (int) crc.getValue());
+        return buffer.array();
+    }
+
+    /**
+     * Appends a record if it fits. Must be called under the store's append lock.
+     *
+     * @param record the encoded record
+     * @return the offset of the record, or -1 if the segment is full
+     */
+    int append(byte[] record) {
+        final int offset = this.writePosition;
+
+        if (offset + (long) record.length > this.memory.byteSize()) {
+            return -1;
+        }
+        MemorySegment.copy(record, 0, this.memory, ValueLayout.JAVA_BYTE, offset, record.length);
+        this.writePosition = offset + record.length;
+        return offset;
+    }
+
+    /**
+     * Validates the record at the offset and returns its size.
+     *
+     * @param offset the offset of the record
+     * @return the record size, or -1 if the bytes at the offset are not a valid record
+     */
+    int validRecordSize(int offset) {
+
+        if (offset + (long) HEADER_SIZE > this.memory.byteSize()) {
+            return -1;
+        }
+        final int keyLength = this.keyLength(offset);
+        final int valueLength = this.valueLength(offset);
+
+        if (keyLength <= 0 || valueLength < TOMBSTONE) {
+            return -1;
+        }
+        final long size = (long) HEADER_SIZE + keyLength + Math.max(0, valueLength);
+
+        if (offset + size > this.memory.byteSize()) {
+            return -1;
+        }
+        final byte[] body = new byte[(int) size - Integer.BYTES];
+        MemorySegment.copy(this.memory, ValueLayout.JAVA_BYTE, offset + Integer.BYTES, body, 0, body.length);
+        final CRC32 crc = new CRC32();
+        crc.update(body);
+        final int storedCrc = this.memory.get(INT, offset);
+        return ((int) crc.getValue() == storedCrc) ? (int) size : -1;
+    }
+
+    /**
+     * Returns the size of the record at the offset, which must be valid.
+     *
+     * @param offset the offset of the record
+     * @return the record size in bytes
+     */
+    int recordSize(int offset) {
+        return HEADER_SIZE + this.keyLength(offset) + Math.max(0, this.valueLength(offset));
+    }
+
+    int keyLength(int offset) {
+        return this.memory.get(INT, offset + KEY_LENGTH_OFFSET);
+    }
+
+    int valueLength(int offset) {
+        return this.memory.get(INT, offset + VALUE_LENGTH_OFFSET);
+    }
+
+    long expiresAt(int offset) {
+        return this.memory.get(LONG, offset + EXPIRES_AT_OFFSET);
+    }
+
+    byte[] key(int offset) {
+        final byte[] key = new byte[this.keyLength(offset)];
+        MemorySegment.copy(this.memory, ValueLayout.JAVA_BYTE, offset + HEADER_SIZE, key, 0, key.length);
+        return key;
+    }
+
+    byte[] value(int offset) {
+        final int keyLength = this.keyLength(offset);
+        final byte[] value = new byte[this.valueLength(offset)];
+        MemorySegment.copy(this.memory, ValueLayout.JAVA_BYTE, offset + HEADER_SIZE + keyLength, value, 0, value.length);
+        return value;
+    }
+
+    /**
+     * Returns a copy of the raw record at the offset, checksum included.
+     *
+     * @param offset the offset of the record
+     * @return the record bytes
+     */
+    byte[] rawRecord(int offset) {
+        final byte[] record = new byte[this.recordSize(offset)];
+        MemorySegment.copy(this.memory, ValueLayout.JAVA_BYTE, offset, record, 0, record.length);
+        return record;
+    }
+
+    int writePosition() {
+        return this.writePosition;
+    }
+
+    void writePosition(int writePosition) {
+        this.writePosition = writePosition;
+    }
+
+    long capacity() {
+        return this.memory.byteSize();
+    }
+
+    /**
+     * Flushes dirty pages to disk.
+     */
+    void force() {
+        this.memory.force();
+    }
+
+    /**
+     * Unmaps and closes the segment file.
+     *
+     * @throws IOException if the file cannot be closed
+     */
+    void close() throws IOException {
+        this.arena.close();
+        this.channel.close();
+    }
+
+    /**
+     * Unmaps, closes and deletes the segment file.
+     *
+     * @throws IOException if the file cannot be closed or deleted
+     */
+    void delete() throws IOException {
+        this.close();
+        Files.deleteIfExists(this.path);
+    }
+}
@@ -0,0 +1,179 @@
+package com.phylax.lib.collection;
+
+import java.time.Duration;
+
+/**
+ * A thread-safe, bounded cache specialized for primitive {@code long} keys.
+ * <p>
+ * Numeric identifiers such as principal or tenant ids would otherwise be boxed into a
+ * {@link Long} on every call and stored in a hash map node plus a list node per entry.
+ * This cache keeps keys, values, deadlines and recency links in flat primitive arrays
+ * sized once for the capacity, located through an open-addressing table. An entry costs
+ * a few dozen bytes spread over those arrays instead of several objects, and a cache hit
+ * allocates nothing. {@code int} keys can be passed as well; they are widened losslessly.
+ * </p>
+ * <p>
+ * The capacity is an entry count. When a shard is full, the least recently used entry is
+ * evicted, approximated with a second-chance sweep of the recency list: reads only set a
+ * reference byte, so they never take a lock unless a writer of the same shard interferes.
+ * </p>
+ * <p>
+ * Entries can be given a time to live with {@link #put(long, Object, Duration)}. Expired
+ * entries are never returned and are evicted before any live entry.
+ * </p>
+ *
+ * @param <V> the type of mapped values
+ */
+public class LongKeyLRUCache<V> {
+
+    /** Maximum number of entries the cache can hold. */
+    private final int maxCapacity;
+
+    /** Independently locked partitions of the cache. */
+    private final LongKeyShard<V>[] shards;
+
+    /** Mask applied to the upper hash bits to select a shard. */
+    private final int shardMask;
+
+    /**
+     * Constructs a cache holding at most {@code maxEntries} entries, sharded by the number
+     * of available processors.
+     *
+     * @param maxEntries the maximum number of entries
+     */
+    public LongKeyLRUCache(int maxEntries) {
+        this(maxEntries, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Constructs a cache holding at most {@code maxEntries} entries.
+     * <p>
+     * The arrays of every shard are allocated up front for its share of the capacity,
+     * rounded up, so the capacity should reflect the expected working set rather than an
+     * upper bound far beyond it.
+     * </p>
+     *
+     * @param maxEntries the maximum number of entries
+     * @param shardCount the desired number of shards; rounded up to a power of two
+     */
+    @SuppressWarnings("unchecked")
+    public LongKeyLRUCache(int maxEntries, int shardCount) {
+
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException("maxEntries must be positive");
+        }
+        final int count = 1 << -Integer.numberOfLeadingZeros(Math.max(1, shardCount) - 1);
+        final int shardCapacity = Math.max(1, (maxEntries + count - 1) / count);
+
+        this.maxCapacity = maxEntries;
+        this.shards = new LongKeyShard[count];
+        this.shardMask = count - 1;
+
+        for (int i = 0; i < count; i++) {
+            this.shards[i] = new LongKeyShard<>(shardCapacity);
+        }
+    }
+
+    /**
+     * Inserts or updates the value for the given key, marking it as most recently used.
+     *
+     * @param key   the key to insert or update
+     * @param value the value associated with the key; must not be {@code null}
+     */
+    public void put(long key, V value) {
+        final long hash = mix(key);
+        this.shardFor(hash).put(key, hash, value, Long.MAX_VALUE);
+    }
+
+    /**
+     * Inserts or updates the value for the given key with a time to live.
+     *
+     * @param key   the key to insert or update
+     * @param value the value associated with the key; must not be {@code null}
+     * @param ttl   the time to live of the entry; must be positive
+     * @throws IllegalArgumentException if {@code ttl} is zero or negative
+     */
+    public void put(long key, V value, Duration ttl) {
+
+        if (ttl.isZero() || ttl.isNegative()) {
+            throw new IllegalArgumentException("ttl must be positive");
+        }
+        final long hash = mix(key);
+        this.shardFor(hash).put(key, hash, value, System.nanoTime() + ttl.toNanos());
+    }
+
+    /**
+     * Retrieves the value associated with the given key and records the access.
+     * <p>
+     * This method neither boxes the key nor allocates on a hit.
+     * </p>
+     *
+     * @param key the key whose value is to be retrieved
+     * @return the value associated with the key, or {@code null} if not present or expired
+     */
+    public V get(long key) {
+        final long hash = mix(key);
+        return this.shardFor(hash).get(key, hash);
+    }
+
+    /**
+     * Removes the entry associated with the given key, if any.
+     *
+     * @param key the key of the entry to remove
+     */
+    public void delete(long key) {
+        final long hash = mix(key);
+        this.shardFor(hash).delete(key, hash);
+    }
+
+    /**
+     * Clears the cache completely, one shard at a time. The arrays stay allocated.
+     */
+    public void clear() {
+
+        for (LongKeyShard<V> shard : this.shards) {
+            shard.clear();
+        }
+    }
+
+    /**
+     * Returns the number of entries currently held by the cache, including expired
+     * entries that have not been evicted yet.
+     *
+     * @return the entry count, summed over all shards
+     */
+    public long size() {
+        long size = 0;
+
+        for (LongKeyShard<V> shard : this.shards) {
+            size += shard.size();
+        }
+        return size;
+    }
+
+    /**
+     * Returns the maximum number of entries of the cache.
+     *
+     * @return the entry budget
+     */
+    public int maxCapacity() {
+        return this.maxCapacity;
+    }
+
+    private LongKeyShard<V> shardFor(long hash) {
+        return this.shards[(int) (hash >>> 48) & this.shardMask];
+    }
+
+    /**
+     * Murmur3 finalizer, so that sequential ids spread over shards (upper bits) and
+     * table slots (lower bits) alike.
+     */
+    static long mix(long key) {
+        long h = key;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        return h ^ (h >>> 33);
+    }
+}
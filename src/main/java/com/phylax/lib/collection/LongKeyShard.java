@@ -0,0 +1,338 @@
+package com.phylax.lib.collection;
+
+import java.util.Arrays;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * One independently locked partition of a {@link LongKeyLRUCache}.
+ * <p>
+ * Entries live in parallel arrays indexed by an entry number: the primitive key, the
+ * value, the {@link System#nanoTime()} deadline and the {@code prev}/{@code next} entry
+ * numbers of the recency list. An open-addressing table (linear probing, backward-shift
+ * deletion) maps a key to its entry number plus one, zero marking an empty slot. All
+ * arrays are allocated once for the capacity of the shard, so neither lookups nor
+ * updates allocate, and no key is ever boxed.
+ * </p>
+ * <p>
+ * Reads run under an optimistic {@link StampedLock} stamp and only fall back to the read
+ * lock if a writer interfered. Instead of relinking the entry on every hit, which would
+ * need the write lock, a reader sets the entry's reference byte; when the eldest entry
+ * is about to be evicted with its byte set, it is moved to the young end instead (second
+ * chance). Expired entries are never returned and are evicted before referenced ones.
+ * </p>
+ *
+ * @param <V> the type of values
+ */
+final class LongKeyShard<V> {
+
+    /** Entry number marking the end of the recency list or of the free list. */
+    private static final int NIL = -1;
+
+    private static final long NO_EXPIRY = Long.MAX_VALUE;
+
+    private final StampedLock lock = new StampedLock();
+
+    /** Entry number plus one for every occupied slot; zero for an empty slot. */
+    private final int[] table;
+
+    private final int slotMask;
+
+    private final long[] keys;
+
+    private final Object[] values;
+
+    private final long[] expiresAt;
+
+    private final int[] prev;
+
+    /** Next younger entry in the recency list; next free entry for free entries. */
+    private final int[] next;
+
+    /** Reference bytes set by readers without locking. */
+    private final byte[] referenced;
+
+    /** Eldest entry of the recency list. */
+    private int head = NIL;
+
+    /** Youngest entry of the recency list. */
+    private int tail = NIL;
+
+    /** Head of the list of entry numbers released by removals. */
+    private int freeHead = NIL;
+
+    /** Entry numbers below this have been handed out at least once. */
+    private int allocated;
+
+    private int count;
+
+    /**
+     * Creates a shard holding at most {@code capacity} entries.
+     *
+     * @param capacity the maximum number of entries
+     */
+    LongKeyShard(int capacity) {
+        final int slots = 1 << -Integer.numberOfLeadingZeros(Math.max(2, capacity * 2) - 1);
+        this.table = new int[slots];
+        this.slotMask = slots - 1;
+        this.keys = new long[capacity];
+        this.values = new Object[capacity];
+        this.expiresAt = new long[capacity];
+        this.prev = new int[capacity];
+        this.next = new int[capacity];
+        this.referenced = new byte[capacity];
+    }
+
+    /**
+     * Returns the value of the key and marks the entry as referenced.
+     *
+     * @param key  the key
+     * @param hash the mixed hash of the key
+     * @return the value, or {@code null} if absent or expired
+     */
+    @SuppressWarnings("unchecked")
+    V get(long key, long hash) {
+        final long stamp = this.lock.tryOptimisticRead();
+        int entry = this.find(key, hash);
+        Object value = (entry != NIL) ? this.values[entry] : null;
+        long deadline = (entry != NIL) ? this.expiresAt[entry] : NO_EXPIRY;
+
+        if (!this.lock.validate(stamp)) {
+            final long readStamp = this.lock.readLock();
+
+            try {
+                entry = this.find(key, hash);
+                value = (entry != NIL) ? this.values[entry] : null;
+                deadline = (entry != NIL) ? this.expiresAt[entry] : NO_EXPIRY;
+            } finally {
+                this.lock.unlockRead(readStamp);
+            }
+        }
+
+        if (entry == NIL || (deadline != NO_EXPIRY && deadline - System.nanoTime() <= 0)) {
+            return null;
+        }
+        this.referenced[entry] = 1;
+        return (V) value;
+    }
+
+    /**
+     * Inserts or replaces the value of the key, evicting an entry if the shard is full.
+     *
+     * @param key       the key
+     * @param hash      the mixed hash of the key
+     * @param value     the value
+     * @param expiresAt the {@link System#nanoTime()} deadline, or {@link Long#MAX_VALUE}
+     */
+    void put(long key, long hash, V value, long expiresAt) {
+        final long stamp = this.lock.writeLock();
+
+        try {
+            int entry = this.find(key, hash);
+
+            if (entry != NIL) {
+                this.values[entry] = value;
+                this.expiresAt[entry] = expiresAt;
+                this.unlink(entry);
+                this.linkLast(entry);
+                return;
+            }
+
+            if (this.count == this.keys.length) {
+                this.evict();
+            }
+            entry = this.allocateEntry();
+            this.keys[entry] = key;
+            this.values[entry] = value;
+            this.expiresAt[entry] = expiresAt;
+            this.referenced[entry] = 0;
+            this.linkLast(entry);
+
+            int slot = (int) hash & this.slotMask;
+
+            while (this.table[slot] != 0) {
+                slot = (slot + 1) & this.slotMask;
+            }
+            this.table[slot] = entry + 1;
+            this.count++;
+        } finally {
+            this.lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Removes the key, if present.
+     *
+     * @param key  the key
+     * @param hash the mixed hash of the key
+     */
+    void delete(long key, long hash) {
+        final long stamp = this.lock.writeLock();
+
+        try {
+            final int slot = this.findSlot(key, hash);
+
+            if (slot != NIL) {
+                this.removeAt(slot);
+            }
+        } finally {
+            this.lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Removes every entry.
+     */
+    void clear() {
+        final long stamp = this.lock.writeLock();
+
+        try {
+            Arrays.fill(this.table, 0);
+            Arrays.fill(this.values, null);
+            this.head = NIL;
+            this.tail = NIL;
+            this.freeHead = NIL;
+            this.allocated = 0;
+            this.count = 0;
+        } finally {
+            this.lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Returns the number of entries, including expired entries not evicted yet.
+     *
+     * @return the entry count
+     */
+    int size() {
+        final long stamp = this.lock.readLock();
+
+        try {
+            return this.count;
+        } finally {
+            this.lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Returns the entry number of the key, or {@link #NIL}. The probe is bounded by the
+     * table length, so a read torn by a concurrent writer terminates as well.
+     */
+    private int find(long key, long hash) {
+        final int slot = this.findSlot(key, hash);
+        return (slot != NIL) ? this.table[slot] - 1 : NIL;
+    }
+
+    private int findSlot(long key, long hash) {
+        int slot = (int) hash & this.slotMask;
+
+        for (int probes = 0; probes <= this.slotMask; probes++) {
+            final int entry = this.table[slot] - 1;
+
+            if (entry < 0) {
+                return NIL;
+            }
+
+            if (this.keys[entry] == key) {
+                return slot;
+            }
+            slot = (slot + 1) & this.slotMask;
+        }
+        return NIL;
+    }
+
+    /**
+     * Removes one entry: the first expired or unreferenced one from the eldest end, giving
+     * referenced entries a second chance at the young end.
+     */
+    private void evict() {
+        final long now = System.nanoTime();
+
+        while (true) {
+            final int entry = this.head;
+            final long deadline = this.expiresAt[entry];
+            final boolean expired = deadline != NO_EXPIRY && deadline - now <= 0;
+
+            if (expired || this.referenced[entry] == 0) {
+                this.removeAt(this.findSlot(this.keys[entry], LongKeyLRUCache.mix(this.keys[entry])));
+                return;
+            }
+            this.referenced[entry] = 0;
+            this.unlink(entry);
+            this.linkLast(entry);
+        }
+    }
+
+    /**
+     * Releases the entry in the slot and closes the gap by shifting back later entries
+     * of the same probe run, so that no tombstones are needed.
+     */
+    private void removeAt(int slot) {
+        final int entry = this.table[slot] - 1;
+        this.unlink(entry);
+        this.values[entry] = null;
+        this.next[entry] = this.freeHead;
+        this.freeHead = entry;
+        this.count--;
+
+        int hole = slot;
+        int probe = slot;
+
+        while (true) {
+            probe = (probe + 1) & this.slotMask;
+            final int moved = this.table[probe] - 1;
+
+            if (moved < 0) {
+                break;
+            }
+            final int home = (int) LongKeyLRUCache.mix(this.keys[moved]) & this.slotMask;
+            final boolean movable = (probe > hole)
+                    ? (home <= hole || home > probe)
+                    : (home <= hole && home > probe);
+
+            if (movable) {
+                this.table[hole] = moved + 1;
+                hole = probe;
+            }
+        }
+        this.table[hole] = 0;
+    }
+
+    private int allocateEntry() {
+
+        if (this.freeHead != NIL) {
+            final int entry = this.freeHead;
+            this.freeHead = this.next[entry];
+            return entry;
+        }
+        return this.allocated++;
+    }
+
+    private void linkLast(int entry) {
+        this.prev[entry] = this.tail;
+        this.next[entry] = NIL;
+
+        if (this.tail == NIL) {
+            this.head = entry;
+        } else {
+            this.next[this.tail] = entry;
+        }
+        this.tail = entry;
+    }
+
+    private void unlink(int entry) {
+        final int before = this.prev[entry];
+        final int after = this.next[entry];
+
+        if (before == NIL) {
+            this.head = after;
+        } else {
+            this.next[before] = after;
+        }
+
+        if (after == NIL) {
+            this.tail = before;
+        } else {
+            this.prev[after] = before;
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.phylax.lib.collection;
+
+/**
+ * Plain least recently used policy backed by a single {@link AccessOrderDeque}.
+ *
+ * @param <K> the type of keys
+ * @param <V> the type of values
+ */
+final class LruPolicy<K, V> implements CachePolicy<K, V> {
+
+    /** Recency order of the shard's entries. */
+    private final AccessOrderDeque<K, V> accessOrder = new AccessOrderDeque<>();
+
+    @Override
+    public void onAccess(CacheNode<K, V> node) {
+
+        if (this.accessOrder.contains(node)) {
+            this.accessOrder.moveToBack(node);
+        }
+    }
+
+    @Override
+    public void onAdd(CacheNode<K, V> node) {
+        this.accessOrder.addLast(node);
+    }
+
+    @Override
+    public void onUpdate(CacheNode<K, V> node, long weightDelta) {
+        this.onAccess(node);
+    }
+
+    @Override
+    public boolean onRemove(CacheNode<K, V> node) {
+        return this.accessOrder.remove(node);
+    }
+
+    @Override
+    public CacheNode<K, V> evict() {
+        return this.accessOrder.pollFirst();
+    }
+
+    @Override
+    public void clear() {
+        this.accessOrder.clear();
+    }
+}
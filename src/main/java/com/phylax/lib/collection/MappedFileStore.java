@@ -0,0 +1,557 @@
+package com.phylax.lib.collection;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * A thread-safe, bounded key-value store for encoded entries persisted in memory-mapped
+ * log segments on disk.
+ * <p>
+ * Every write appends a record to the active {@link LogSegment}; the heap only holds an
+ * index from key to record location, so the working set can be far larger than the heap
+ * while reads are served straight from the page cache. Overwritten, deleted and expired
+ * records become garbage; segments whose live ratio drops below the compaction threshold
+ * are rewritten by a background thread, which re-appends their live records and deletes
+ * the file.
+ * </p>
+ * <p>
+ * When the segments on disk exceed the byte budget, the oldest segment is dropped
+ * together with the entries it holds, which makes eviction first-in, first-out at
+ * segment granularity.
+ * </p>
+ * <p>
+ * On construction, segments already present in the directory are reopened and replayed
+ * in order, so a restarted process starts with the entries of the previous one rather
+ * than an empty cache. Deadlines are stored as wall-clock time to stay meaningful across
+ * restarts. The directory must not be shared by two open stores.
+ * </p>
+ */
+public final class MappedFileStore implements AutoCloseable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(MappedFileStore.class);
+
+    private static final Pattern SEGMENT_NAME = Pattern.compile("segment-(\\d{8})\\.log");
+
+    private final Path directory;
+
+    private final long segmentSize;
+
+    private final long maxBytes;
+
+    private final double compactionThreshold;
+
+    /** Location of the latest record of every live key: {@code segmentId << 32 | offset}. */
+    private final ConcurrentHashMap<ByteArrayKey, Long> index = new ConcurrentHashMap<>();
+
+    private final ConcurrentSkipListMap<Integer, LogSegment> segments = new ConcurrentSkipListMap<>();
+
+    /**
+     * Guards the set of mapped segments: reads and appends hold the read lock, while
+     * rolling, dropping and deleting segments requires the write lock.
+     */
+    private final ReentrantReadWriteLock structureLock = new ReentrantReadWriteLock();
+
+    /** Serializes appends and the index updates that publish them. */
+    private final ReentrantLock appendLock = new ReentrantLock();
+
+    private final ScheduledExecutorService compactor;
+
+    private volatile LogSegment active;
+
+    private volatile boolean closed;
+
+    /**
+     * Opens a store in the given directory, recovering any segments it already contains.
+     *
+     * @param directory           the directory holding the segment files; created if missing
+     * @param segmentSize         the size of each segment file in bytes; also the largest
+     *                            record that can be stored
+     * @param maxBytes            the maximum number of bytes of segment files on disk
+     * @param compactionThreshold the live-to-written ratio under which a segment is compacted
+     * @param compactionInterval  the delay between background compaction runs; zero or
+     *                            negative disables background compaction
+     * @throws IOException if the directory or its segments cannot be opened
+     */
+    public MappedFileStore(Path directory, long segmentSize, long maxBytes, double compactionThreshold,
+                           Duration compactionInterval) throws IOException {
+
+        if (segmentSize <= LogSegment.HEADER_SIZE || segmentSize > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("segmentSize must be between " + LogSegment.HEADER_SIZE
+                    + " and " + Integer.MAX_VALUE + " bytes");
+        }
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.maxBytes = Math.max(maxBytes, segmentSize);
+        this.compactionThreshold = compactionThreshold;
+
+        Files.createDirectories(directory);
+        this.recover();
+
+        if (compactionInterval.isZero() || compactionInterval.isNegative()) {
+            this.compactor = null;
+        } else {
+            this.compactor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                final Thread thread = new Thread(runnable, "mapped-file-store-compactor");
+                thread.setDaemon(true);
+                return thread;
+            });
+            final long delay = compactionInterval.toMillis();
+            this.compactor.scheduleWithFixedDelay(this::compactQuietly, delay, delay, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Returns a heap copy of the value stored under the key.
+     *
+     * @param key the encoded key
+     * @return the encoded value, or {@code null} if absent or expired
+     */
+    public byte[] get(byte[] key) {
+        final ByteArrayKey indexKey = new ByteArrayKey(key);
+        this.structureLock.readLock().lock();
+
+        try {
+            this.ensureOpen();
+            final Long location = this.index.get(indexKey);
+
+            if (location == null) {
+                return null;
+            }
+            final LogSegment segment = this.segments.get(segmentOf(location));
+            final int offset = offsetOf(location);
+
+            if (segment.expiresAt(offset) <= System.currentTimeMillis()) {
+
+                if (this.index.remove(indexKey, location)) {
+                    segment.liveBytes.addAndGet(-segment.recordSize(offset));
+                }
+                return null;
+            }
+            return segment.value(offset);
+        } finally {
+            this.structureLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Stores the value under the key.
+     *
+     * @param key       the encoded key
+     * @param value     the encoded value
+     * @param ttlMillis the time to live in milliseconds; 0 means the entry never expires
+     * @return {@code false} if the record is larger than a segment and was not stored, in
+     *         which case any previous value of the key is removed
+     */
+    public boolean put(byte[] key, byte[] value, long ttlMillis) {
+        final long expiresAt = (ttlMillis > 0) ? System.currentTimeMillis() + ttlMillis : Long.MAX_VALUE;
+        final byte[] record = LogSegment.record(key, value, expiresAt);
+
+        if (record.length > this.segmentSize) {
+            this.delete(key);
+            return false;
+        }
+        this.append(new ByteArrayKey(key), record, null);
+        return true;
+    }
+
+    /**
+     * Removes the entry stored under the key, if any, by appending a tombstone so that the
+     * removal survives a restart.
+     *
+     * @param key the encoded key
+     */
+    public void delete(byte[] key) {
+        final ByteArrayKey indexKey = new ByteArrayKey(key);
+
+        if (this.index.containsKey(indexKey)) {
+            this.append(indexKey, LogSegment.record(key, null, Long.MAX_VALUE), null);
+        }
+    }
+
+    /**
+     * Removes every entry and deletes all segment files.
+     */
+    public void clear() {
+        this.structureLock.writeLock().lock();
+
+        try {
+            this.ensureOpen();
+            this.index.clear();
+
+            for (LogSegment segment : this.segments.values()) {
+                segment.delete();
+            }
+            this.segments.clear();
+            this.active = this.createSegment(0);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to clear " + this.directory, e);
+        } finally {
+            this.structureLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the number of entries, including expired entries not reclaimed yet.
+     *
+     * @return the entry count
+     */
+    public long size() {
+        return this.index.size();
+    }
+
+    /**
+     * Rewrites every segment, other than the active one, whose live ratio is below the
+     * compaction threshold. Called periodically in the background; exposed for callers
+     * that disable background compaction.
+     */
+    public void compact() {
+
+        for (LogSegment segment : this.segments.values()) {
+
+            if (this.closed) {
+                return;
+            }
+            final int written = segment.writePosition();
+
+            if (segment != this.active && written > 0
+                    && segment.liveBytes.get() < this.compactionThreshold * written) {
+                this.compact(segment);
+            }
+        }
+    }
+
+    /**
+     * Stops background compaction, flushes every segment to disk and unmaps it. The store
+     * must no longer be used afterwards; the files stay on disk for the next store opened
+     * on the directory.
+     */
+    @Override
+    public void close() {
+
+        if (this.compactor != null) {
+            this.compactor.shutdownNow();
+        }
+        this.structureLock.writeLock().lock();
+
+        try {
+
+            if (this.closed) {
+                return;
+            }
+            this.closed = true;
+
+            for (LogSegment segment : this.segments.values()) {
+                segment.force();
+                segment.close();
+            }
+            this.segments.clear();
+            this.index.clear();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to close " + this.directory, e);
+        } finally {
+            this.structureLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Appends a record and points the index at it. With {@code expected} set, the record
+     * is a live record being moved by compaction and is only published if the key still
+     * points at its old location.
+     */
+    private void append(ByteArrayKey key, byte[] record, Long expected) {
+
+        while (true) {
+            this.structureLock.readLock().lock();
+
+            try {
+                this.ensureOpen();
+                this.appendLock.lock();
+
+                try {
+
+                    if (expected != null && !expected.equals(this.index.get(key))) {
+                        return;
+                    }
+                    final LogSegment segment = this.active;
+                    final int offset = segment.append(record);
+
+                    if (offset >= 0) {
+                        this.publish(key, segment, offset, record.length);
+                        return;
+                    }
+                } finally {
+                    this.appendLock.unlock();
+                }
+            } finally {
+                this.structureLock.readLock().unlock();
+            }
+            this.roll();
+        }
+    }
+
+    /**
+     * Points the index at a freshly appended record, or removes the key for a tombstone,
+     * and moves the live byte count from the superseded record to the new one.
+     */
+    private void publish(ByteArrayKey key, LogSegment segment, int offset, int recordSize) {
+        final Long previous;
+
+        if (segment.valueLength(offset) == LogSegment.TOMBSTONE) {
+            previous = this.index.remove(key);
+        } else {
+            previous = this.index.put(key, location(segment.id, offset));
+            segment.liveBytes.addAndGet(recordSize);
+        }
+
+        if (previous != null) {
+            final LogSegment old = this.segments.get(segmentOf(previous));
+            old.liveBytes.addAndGet(-old.recordSize(offsetOf(previous)));
+        }
+    }
+
+    /**
+     * Starts a new active segment once the current one is full, then drops the oldest
+     * segments while the files on disk exceed the byte budget.
+     */
+    private void roll() {
+        final LogSegment full = this.active;
+        this.structureLock.writeLock().lock();
+
+        try {
+            this.ensureOpen();
+
+            if (this.active != full) {
+                return;
+            }
+            this.active = this.createSegment(full.id + 1);
+
+            while ((long) this.segments.size() * this.segmentSize > this.maxBytes) {
+                this.drop(this.segments.firstEntry().getValue());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to roll segment in " + this.directory, e);
+        } finally {
+            this.structureLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes a segment and every index entry pointing into it. Requires the write lock.
+     */
+    private void drop(LogSegment segment) throws IOException {
+        final int end = segment.writePosition();
+
+        for (int offset = 0; offset < end; offset += segment.recordSize(offset)) {
+            this.index.remove(new ByteArrayKey(segment.key(offset)), location(segment.id, offset));
+        }
+        this.segments.remove(segment.id);
+        segment.delete();
+    }
+
+    /**
+     * Moves the live records of a segment to the active segment, then deletes it.
+     */
+    private void compact(LogSegment segment) {
+        final boolean hasOlder = this.segments.lowerKey(segment.id) != null;
+        final long now = System.currentTimeMillis();
+        final int end = segment.writePosition();
+
+        for (int offset = 0; offset < end; ) {
+            final List<Move> batch = new ArrayList<>();
+            this.structureLock.readLock().lock();
+
+            try {
+
+                if (this.closed || !this.segments.containsKey(segment.id)) {
+                    return;
+                }
+
+                // Collect a bounded batch so that writers are not starved while moving it.
+                for (int i = 0; i < 256 && offset < end; i++) {
+                    final int size = segment.recordSize(offset);
+                    final ByteArrayKey key = new ByteArrayKey(segment.key(offset));
+                    final long location = location(segment.id, offset);
+
+                    if (segment.valueLength(offset) == LogSegment.TOMBSTONE) {
+
+                        // A tombstone only matters while an older segment may still hold the key.
+                        if (hasOlder && !this.index.containsKey(key)) {
+                            batch.add(new Move(key, segment.rawRecord(offset), null));
+                        }
+                    } else if (Long.valueOf(location).equals(this.index.get(key))) {
+
+                        if (segment.expiresAt(offset) <= now) {
+
+                            if (this.index.remove(key, location)) {
+                                segment.liveBytes.addAndGet(-size);
+                            }
+                        } else {
+                            batch.add(new Move(key, segment.rawRecord(offset), location));
+                        }
+                    }
+                    offset += size;
+                }
+            } finally {
+                this.structureLock.readLock().unlock();
+            }
+
+            for (Move move : batch) {
+
+                if (move.expected() == null) {
+                    this.appendTombstone(move.key(), move.record());
+                } else {
+                    this.append(move.key(), move.record(), move.expected());
+                }
+            }
+        }
+        this.structureLock.writeLock().lock();
+
+        try {
+
+            if (this.segments.remove(segment.id, segment)) {
+                segment.delete();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to delete compacted segment " + segment.id, e);
+        } finally {
+            this.structureLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Carries a tombstone over to the active segment unless the key was written meanwhile.
+     */
+    private void appendTombstone(ByteArrayKey key, byte[] record) {
+
+        while (true) {
+            this.structureLock.readLock().lock();
+
+            try {
+                this.ensureOpen();
+                this.appendLock.lock();
+
+                try {
+
+                    if (this.index.containsKey(key) || this.active.append(record) >= 0) {
+                        return;
+                    }
+                } finally {
+                    this.appendLock.unlock();
+                }
+            } finally {
+                this.structureLock.readLock().unlock();
+            }
+            this.roll();
+        }
+    }
+
+    private void compactQuietly() {
+
+        try {
+            this.compact();
+        } catch (RuntimeException e) {
+            LOGGER.warn("Compaction of {} failed", this.directory, e);
+        }
+    }
+
+    /**
+     * Reopens the segments found in the directory and replays them oldest first.
+     */
+    private void recover() throws IOException {
+        final ConcurrentNavigableMap<Integer, Path> files = new ConcurrentSkipListMap<>();
+
+        try (Stream<Path> listing = Files.list(this.directory)) {
+            listing.forEach(path -> {
+                final Matcher matcher = SEGMENT_NAME.matcher(path.getFileName().toString());
+
+                if (matcher.matches()) {
+                    files.put(Integer.parseInt(matcher.group(1)), path);
+                }
+            });
+        }
+        final long now = System.currentTimeMillis();
+
+        for (Map.Entry<Integer, Path> file : files.entrySet()) {
+            final LogSegment segment = LogSegment.open(file.getValue(), file.getKey(), this.segmentSize);
+            this.segments.put(segment.id, segment);
+            int offset = 0;
+            int size;
+
+            while ((size = segment.validRecordSize(offset)) > 0) {
+                final ByteArrayKey key = new ByteArrayKey(segment.key(offset));
+
+                if (segment.valueLength(offset) == LogSegment.TOMBSTONE || segment.expiresAt(offset) <= now) {
+                    this.index.remove(key);
+                } else {
+                    this.index.put(key, location(segment.id, offset));
+                }
+                offset += size;
+            }
+            segment.writePosition(offset);
+        }
+
+        for (Map.Entry<ByteArrayKey, Long> entry : this.index.entrySet()) {
+            final LogSegment segment = this.segments.get(segmentOf(entry.getValue()));
+            segment.liveBytes.addAndGet(segment.recordSize(offsetOf(entry.getValue())));
+        }
+        this.active = this.segments.isEmpty() ? this.createSegment(0) : this.segments.lastEntry().getValue();
+
+        while ((long) this.segments.size() * this.segmentSize > this.maxBytes) {
+            this.drop(this.segments.firstEntry().getValue());
+        }
+        LOGGER.debug("Recovered {} entries from {} segments in {}", this.index.size(), this.segments.size(), this.directory);
+    }
+
+    private LogSegment createSegment(int id) throws IOException {
+        final Path path = this.directory.resolve(String.format("segment-%08d.log", id));
+        final LogSegment segment = LogSegment.open(path, id, this.segmentSize);
+        this.segments.put(id, segment);
+        return segment;
+    }
+
+    private void ensureOpen() {
+
+        if (this.closed) {
+            throw new IllegalStateException("Store is closed");
+        }
+    }
+
+    private static long location(int segmentId, int offset) {
+        return ((long) segmentId << 32) | (offset & 0xffffffffL);
+    }
+
+    private static int segmentOf(long location) {
+        return (int) (location >>> 32);
+    }
+
+    private static int offsetOf(long location) {
+        return (int) location;
+    }
+
+    /**
+     * A record moved by compaction; {@code expected} is its old location, or {@code null}
+     * for a tombstone.
+     */
+    private record Move(ByteArrayKey key, byte[] record, Long expected) {
+    }
+}
@@ -0,0 +1,139 @@
+package com.phylax.lib.collection;
+
+import com.phylax.lib.value.EncodedCacheValue;
+import tools.jackson.core.JacksonException;
+import tools.jackson.databind.ObjectMapper;
+
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Default {@link Weigher} that approximates the retained heap size of an entry in bytes.
+ * <p>
+ * The estimate is exact enough to keep a heap-based budget meaningful without walking
+ * object graphs:
+ * <ul>
+ *     <li>{@link String}s are weighed by their length, assuming compact Latin-1 storage.</li>
+ *     <li>{@code byte[]} values are weighed by their length plus the array header.</li>
+ *     <li>{@link EncodedCacheValue}s are weighed by their encoded size; instances they
+ *     have decoded are not counted.</li>
+ *     <li>Boxed primitives, {@link UUID}s and enums have a small fixed weight.</li>
+ *     <li>Any other value is weighed as a multiple of its Jackson encoded size, which
+ *     tracks the size of the object graph closely enough for the plain data objects
+ *     typically cached. Serializing on every write would cost more than the cache saves,
+ *     so only the first values of each class and then a random sample of them are
+ *     serialized; the others are given the running average of their class.</li>
+ * </ul>
+ * Values that Jackson cannot serialize fall back to a fixed weight.
+ * </p>
+ */
+public final class ObjectSizeWeigher implements Weigher<Object, Object> {
+
+    /** Shared instance; the mapper and the per-class size estimates are thread-safe. */
+    public static final ObjectSizeWeigher INSTANCE = new ObjectSizeWeigher();
+
+    /** Per-entry overhead of the hash index, node and access order links. */
+    static final long ENTRY_OVERHEAD = 64;
+
+    /** Object header plus backing array header of a {@link String}. */
+    private static final long STRING_OVERHEAD = 40;
+
+    /** Header of a primitive array. */
+    private static final long ARRAY_OVERHEAD = 16;
+
+    /** Weight of a boxed primitive or other small fixed-size object. */
+    private static final long SMALL_OBJECT = 24;
+
+    /** Weight of objects that cannot be measured. */
+    private static final long UNKNOWN_OBJECT = 256;
+
+    /** Ratio between the in-heap size of an object graph and its JSON encoding. */
+    private static final long OBJECT_GRAPH_FACTOR = 2;
+
+    /** Values of a class always serialized before its average is trusted. */
+    private static final int WARMUP_SAMPLES = 16;
+
+    /** One in this many values of a class is serialized once its average is trusted. */
+    private static final int SAMPLE_INTERVAL = 64;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    private final ClassValue<SizeEstimate> estimates = new ClassValue<>() {
+        @Override
+        protected SizeEstimate computeValue(Class<?> type) {
+            return new SizeEstimate();
+        }
+    };
+
+    private ObjectSizeWeigher() {
+    }
+
+    @Override
+    public long weigh(Object key, Object value) {
+        return ENTRY_OVERHEAD + this.sizeOf(key) + this.sizeOf(value);
+    }
+
+    /**
+     * Estimates the retained size of a single object.
+     *
+     * @param object the object to measure; may be {@code null}
+     * @return the estimated size in bytes
+     */
+    long sizeOf(Object object) {
+
+        return switch (object) {
+            case null -> 0;
+            case String string -> STRING_OVERHEAD + string.length();
+            case byte[] bytes -> align(ARRAY_OVERHEAD + bytes.length);
+            case EncodedCacheValue encoded -> align(SMALL_OBJECT + ARRAY_OVERHEAD + encoded.size());
+            case Number ignored -> SMALL_OBJECT;
+            case Boolean ignored -> 0;
+            case Character ignored -> SMALL_OBJECT;
+            case UUID ignored -> 2 * SMALL_OBJECT;
+            case Enum<?> ignored -> 0;
+            default -> this.sampledSizeOf(object);
+        };
+    }
+
+    private long sampledSizeOf(Object object) {
+        final SizeEstimate estimate = this.estimates.get(object.getClass());
+
+        if (estimate.samples >= WARMUP_SAMPLES && ThreadLocalRandom.current().nextInt(SAMPLE_INTERVAL) != 0) {
+            return estimate.average;
+        }
+        final long size = this.serializedSizeOf(object);
+        estimate.record(size);
+        return size;
+    }
+
+    private long serializedSizeOf(Object object) {
+
+        try {
+            return align(OBJECT_GRAPH_FACTOR * this.mapper.writeValueAsBytes(object).length);
+        } catch (JacksonException e) {
+            return UNKNOWN_OBJECT;
+        }
+    }
+
+    private static long align(long size) {
+        return (size + 7) & ~7L;
+    }
+
+    /**
+     * Running average size of the values of one class. Updates racing with each other may
+     * lose a sample, which only makes the average slightly less current.
+     */
+    private static final class SizeEstimate {
+
+        private volatile int samples;
+
+        private volatile long average;
+
+        private void record(long size) {
+            final int count = this.samples;
+            // Plain mean over the warm-up, then an exponential average that follows drifting sizes.
+            this.average = (count == 0) ? size : this.average + (size - this.average) / Math.min(count + 1, WARMUP_SAMPLES);
+            this.samples = Math.min(count + 1, WARMUP_SAMPLES);
+        }
+    }
+}
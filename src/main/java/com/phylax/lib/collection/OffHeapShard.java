@@ -0,0 +1,426 @@
+package com.phylax.lib.collection;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * One independently locked partition of an {@link OffHeapStore}.
+ * <p>
+ * Entries are kept entirely outside the Java heap. Records are stored in blocks handed
+ * out by a {@link SlabAllocator} with the layout
+ * {@code [int keyLength][int valueLength][long expiresAt][key][value]}, and located
+ * through an open-addressing index (linear probing, backward-shift deletion) that also
+ * lives in off-heap memory as pairs of {@code [long hash][long handle]}.
+ * </p>
+ * <p>
+ * Reads run under an optimistic {@link StampedLock} stamp and only fall back to the read
+ * lock if a writer interfered; a torn read may observe garbage, which the bounds checks
+ * of {@link MemorySegment} turn into an exception that is discarded before the retry.
+ * Lengths read optimistically are checked against the block before anything is allocated
+ * on the heap, and the reference byte is only set once the stamp has been validated.
+ * Eviction is a CLOCK sweep over the index driven by one reference byte per slot that
+ * readers set without locking. Expired entries are skipped by readers and reclaimed first
+ * by the sweep. When a size class has no page left and none of its own entries to evict,
+ * a page of another class is emptied and handed over, so that the split of pages between
+ * classes follows the workload.
+ * </p>
+ */
+final class OffHeapShard {
+
+    private static final long NO_EXPIRY = Long.MAX_VALUE;
+
+    /** Size of the record header preceding key and value. */
+    private static final int HEADER_SIZE = 16;
+
+    private static final int KEY_LENGTH_OFFSET = 0;
+
+    private static final int VALUE_LENGTH_OFFSET = 4;
+
+    private static final int EXPIRES_AT_OFFSET = 8;
+
+    /** Size of an index slot: key hash followed by block handle. */
+    private static final int SLOT_SIZE = 16;
+
+    private final SlabAllocator allocator;
+
+    /** Index slots, {@link #SLOT_SIZE} bytes each. */
+    private final MemorySegment index;
+
+    /** One CLOCK reference byte per index slot. */
+    private final MemorySegment referenced;
+
+    private final int slotMask;
+
+    /** Maximum number of entries before the sweep evicts to make room in the index. */
+    private final int maxEntries;
+
+    private final StampedLock lock = new StampedLock();
+
+    private int count;
+
+    private int clockHand;
+
+    /**
+     * Creates a new shard.
+     *
+     * @param arena      the arena backing all memory of the shard
+     * @param pageShift  log2 of the slab page size
+     * @param maxPages   the maximum number of slab pages
+     * @param maxEntries the maximum number of entries
+     */
+    OffHeapShard(Arena arena, int pageShift, int maxPages, int maxEntries) {
+        final int slots = 1 << -Integer.numberOfLeadingZeros(Math.max(2, (int) (maxEntries / 0.75)) - 1);
+        this.allocator = new SlabAllocator(arena, pageShift, maxPages);
+        this.index = arena.allocate((long) slots * SLOT_SIZE, Long.BYTES);
+        this.referenced = arena.allocate(slots, 1);
+        this.slotMask = slots - 1;
+        this.maxEntries = Math.max(1, maxEntries);
+    }
+
+    /**
+     * Copies the value of the key onto the heap.
+     *
+     * @param key  the encoded key
+     * @param hash the hash of the key
+     * @return a copy of the value, or {@code null} if absent or expired
+     */
+    byte[] get(byte[] key, long hash) {
+        final long stamp = this.lock.tryOptimisticRead();
+
+        if (stamp != 0L) {
+
+            try {
+                final int slot = this.find(key, hash, System.nanoTime());
+                final byte[] value = (slot >= 0) ? this.valueAt(slot, key.length) : null;
+
+                if (this.lock.validate(stamp)) {
+                    this.markReferenced(slot);
+                    return value;
+                }
+            } catch (RuntimeException e) {
+                // A concurrent writer moved memory underneath us; retry under the read lock.
+            }
+        }
+        final long readStamp = this.lock.readLock();
+
+        try {
+            final int slot = this.find(key, hash, System.nanoTime());
+
+            if (slot < 0) {
+                return null;
+            }
+            this.markReferenced(slot);
+            return this.valueAt(slot, key.length);
+        } finally {
+            this.lock.unlockRead(readStamp);
+        }
+    }
+
+    /**
+     * Inserts or replaces the value of the key.
+     *
+     * @param key       the encoded key
+     * @param hash      the hash of the key
+     * @param value     the encoded value
+     * @param expiresAt the {@link System#nanoTime()} deadline, or {@link Long#MAX_VALUE}
+     * @return {@code false} if the record is larger than a page or no memory could be
+     *         reclaimed for it; any previous value of the key is removed in that case
+     */
+    boolean put(byte[] key, long hash, byte[] value, long expiresAt) {
+        final long stamp = this.lock.writeLock();
+
+        try {
+            final long now = System.nanoTime();
+            final int sizeClass = this.allocator.sizeClassOf(HEADER_SIZE + key.length + value.length);
+            int slot = this.findSlot(key, hash);
+
+            if (slot >= 0) {
+                final long handle = this.handleAt(slot);
+
+                if (this.allocator.sizeClassOf(handle) == sizeClass) {
+                    this.writeRecord(handle, key, value, expiresAt);
+                    this.referenced.set(ValueLayout.JAVA_BYTE, slot, (byte) 1);
+                    return true;
+                }
+                this.removeAt(slot);
+            }
+
+            if (sizeClass < 0) {
+                return false;
+            }
+
+            if (this.count >= this.maxEntries) {
+                this.evict(-1, now);
+            }
+            long handle = this.allocator.allocate(sizeClass);
+
+            while (handle == SlabAllocator.NULL_HANDLE && this.evict(sizeClass, now)) {
+                handle = this.allocator.allocate(sizeClass);
+            }
+
+            if (handle == SlabAllocator.NULL_HANDLE && this.reclaimPage(sizeClass)) {
+                handle = this.allocator.allocate(sizeClass);
+            }
+
+            if (handle == SlabAllocator.NULL_HANDLE) {
+                return false;
+            }
+            this.writeRecord(handle, key, value, expiresAt);
+
+            slot = (int) (hash & this.slotMask);
+
+            while (this.handleAt(slot) != SlabAllocator.NULL_HANDLE) {
+                slot = (slot + 1) & this.slotMask;
+            }
+            this.index.set(ValueLayout.JAVA_LONG_UNALIGNED, (long) slot * SLOT_SIZE, hash);
+            this.index.set(ValueLayout.JAVA_LONG_UNALIGNED, (long) slot * SLOT_SIZE + 8, handle);
+            this.referenced.set(ValueLayout.JAVA_BYTE, slot, (byte) 0);
+            this.count++;
+            return true;
+        } finally {
+            this.lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Removes the key if present.
+     *
+     * @param key  the encoded key
+     * @param hash the hash of the key
+     */
+    void delete(byte[] key, long hash) {
+        final long stamp = this.lock.writeLock();
+
+        try {
+            final int slot = this.findSlot(key, hash);
+
+            if (slot >= 0) {
+                this.removeAt(slot);
+            }
+        } finally {
+            this.lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Removes every entry. Off-heap pages are kept for reuse.
+     */
+    void clear() {
+        final long stamp = this.lock.writeLock();
+
+        try {
+            this.index.fill((byte) 0);
+            this.referenced.fill((byte) 0);
+            this.allocator.reset();
+            this.count = 0;
+            this.clockHand = 0;
+        } finally {
+            this.lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Returns the number of entries, including expired entries not reclaimed yet.
+     *
+     * @return the entry count
+     */
+    int size() {
+        final long stamp = this.lock.readLock();
+
+        try {
+            return this.count;
+        } finally {
+            this.lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Returns the slot of the key, unless absent or expired.
+     *
+     * @return the slot, or -1
+     */
+    private int find(byte[] key, long hash, long now) {
+        final int slot = this.findSlot(key, hash);
+
+        if (slot < 0) {
+            return -1;
+        }
+        final long handle = this.handleAt(slot);
+        final long expiresAt = this.allocator.segment(handle)
+                .get(ValueLayout.JAVA_LONG_UNALIGNED, SlabAllocator.offsetOf(handle) + EXPIRES_AT_OFFSET);
+        return (expiresAt != NO_EXPIRY && expiresAt - now <= 0) ? -1 : slot;
+    }
+
+    /**
+     * Copies the value of the record in the slot onto the heap.
+     *
+     * @throws IllegalStateException if the header is torn by a concurrent writer, so that
+     *                               a garbage length never reaches the allocation
+     */
+    private byte[] valueAt(int slot, int keyLength) {
+        final long handle = this.handleAt(slot);
+        final MemorySegment page = this.allocator.segment(handle);
+        final long offset = SlabAllocator.offsetOf(handle);
+        final int valueLength = page.get(ValueLayout.JAVA_INT_UNALIGNED, offset + VALUE_LENGTH_OFFSET);
+
+        if (valueLength < 0 || valueLength > this.allocator.blockSizeOf(handle) - HEADER_SIZE - keyLength) {
+            throw new IllegalStateException("Torn off-heap record header");
+        }
+        final byte[] value = new byte[valueLength];
+        MemorySegment.copy(page, ValueLayout.JAVA_BYTE, offset + HEADER_SIZE + keyLength, value, 0, valueLength);
+        return value;
+    }
+
+    private void markReferenced(int slot) {
+
+        if (slot >= 0) {
+            this.referenced.set(ValueLayout.JAVA_BYTE, slot, (byte) 1);
+        }
+    }
+
+    private int findSlot(byte[] key, long hash) {
+        int slot = (int) (hash & this.slotMask);
+
+        for (int probes = 0; probes <= this.slotMask; probes++) {
+            final long handle = this.handleAt(slot);
+
+            if (handle == SlabAllocator.NULL_HANDLE) {
+                return -1;
+            }
+
+            if (this.hashAt(slot) == hash && this.keyEquals(handle, key)) {
+                return slot;
+            }
+            slot = (slot + 1) & this.slotMask;
+        }
+        return -1;
+    }
+
+    /**
+     * Runs the CLOCK hand until an entry has been evicted. Expired entries are evicted
+     * regardless of their reference byte.
+     *
+     * @param sizeClass only consider entries of this size class, or -1 for any
+     * @return {@code true} if an entry was evicted
+     */
+    private boolean evict(int sizeClass, long now) {
+        final int slots = this.slotMask + 1;
+
+        for (int step = 0; step < 2 * slots; step++) {
+            final int slot = this.clockHand;
+            this.clockHand = (slot + 1) & this.slotMask;
+            final long handle = this.handleAt(slot);
+
+            if (handle == SlabAllocator.NULL_HANDLE
+                    || (sizeClass >= 0 && this.allocator.sizeClassOf(handle) != sizeClass)) {
+                continue;
+            }
+            final long expiresAt = this.allocator.segment(handle)
+                    .get(ValueLayout.JAVA_LONG_UNALIGNED, SlabAllocator.offsetOf(handle) + EXPIRES_AT_OFFSET);
+            final boolean expired = expiresAt != NO_EXPIRY && expiresAt - now <= 0;
+
+            if (!expired && this.referenced.get(ValueLayout.JAVA_BYTE, slot) != 0) {
+                this.referenced.set(ValueLayout.JAVA_BYTE, slot, (byte) 0);
+                continue;
+            }
+            this.removeAt(slot);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Empties a page of another size class and hands it back to the allocator, evicting
+     * every entry stored in it regardless of its reference byte.
+     *
+     * @param sizeClass the class in need of a page
+     * @return {@code true} if a page was released
+     */
+    private boolean reclaimPage(int sizeClass) {
+        final int page = this.allocator.victimPage(sizeClass);
+
+        if (page < 0) {
+            return false;
+        }
+        int slot = 0;
+
+        while (slot <= this.slotMask) {
+            final long handle = this.handleAt(slot);
+
+            if (handle != SlabAllocator.NULL_HANDLE && SlabAllocator.pageOf(handle) == page) {
+                // The backward shift may have moved an unvisited entry into this slot.
+                this.removeAt(slot);
+            } else {
+                slot++;
+            }
+        }
+        this.allocator.releasePage(page);
+        return true;
+    }
+
+    /**
+     * Frees the record in the slot and closes the gap by shifting back later entries
+     * of the same probe run, so that no tombstones are needed.
+     */
+    private void removeAt(int slot) {
+        this.allocator.free(this.handleAt(slot));
+        this.count--;
+
+        int hole = slot;
+        int next = slot;
+
+        while (true) {
+            next = (next + 1) & this.slotMask;
+            final long handle = this.handleAt(next);
+
+            if (handle == SlabAllocator.NULL_HANDLE) {
+                break;
+            }
+            final int home = (int) (this.hashAt(next) & this.slotMask);
+            final boolean movable = (next > hole)
+                    ? (home <= hole || home > next)
+                    : (home <= hole && home > next);
+
+            if (movable) {
+                this.index.set(ValueLayout.JAVA_LONG_UNALIGNED, (long) hole * SLOT_SIZE, this.hashAt(next));
+                this.index.set(ValueLayout.JAVA_LONG_UNALIGNED, (long) hole * SLOT_SIZE + 8, handle);
+                this.referenced.set(ValueLayout.JAVA_BYTE, hole, this.referenced.get(ValueLayout.JAVA_BYTE, next));
+                hole = next;
+            }
+        }
+        this.index.set(ValueLayout.JAVA_LONG_UNALIGNED, (long) hole * SLOT_SIZE, 0L);
+        this.index.set(ValueLayout.JAVA_LONG_UNALIGNED, (long) hole * SLOT_SIZE + 8, SlabAllocator.NULL_HANDLE);
+        this.referenced.set(ValueLayout.JAVA_BYTE, hole, (byte) 0);
+    }
+
+    private void writeRecord(long handle, byte[] key, byte[] value, long expiresAt) {
+        final MemorySegment page = this.allocator.segment(handle);
+        final long offset = SlabAllocator.offsetOf(handle);
+        page.set(ValueLayout.JAVA_INT_UNALIGNED, offset + KEY_LENGTH_OFFSET, key.length);
+        page.set(ValueLayout.JAVA_INT_UNALIGNED, offset + VALUE_LENGTH_OFFSET, value.length);
+        page.set(ValueLayout.JAVA_LONG_UNALIGNED, offset + EXPIRES_AT_OFFSET, expiresAt);
+        MemorySegment.copy(key, 0, page, ValueLayout.JAVA_BYTE, offset + HEADER_SIZE, key.length);
+        MemorySegment.copy(value, 0, page, ValueLayout.JAVA_BYTE, offset + HEADER_SIZE + key.length, value.length);
+    }
+
+    private boolean keyEquals(long handle, byte[] key) {
+        final MemorySegment page = this.allocator.segment(handle);
+        final long offset = SlabAllocator.offsetOf(handle);
+
+        if (page.get(ValueLayout.JAVA_INT_UNALIGNED, offset + KEY_LENGTH_OFFSET) != key.length) {
+            return false;
+        }
+        final long start = offset + HEADER_SIZE;
+        return MemorySegment.mismatch(page, start, start + key.length, MemorySegment.ofArray(key), 0, key.length) == -1;
+    }
+
+    private long hashAt(int slot) {
+        return this.index.get(ValueLayout.JAVA_LONG_UNALIGNED, (long) slot * SLOT_SIZE);
+    }
+
+    private long handleAt(int slot) {
+        return this.index.get(ValueLayout.JAVA_LONG_UNALIGNED, (long) slot * SLOT_SIZE + 8);
+    }
+}
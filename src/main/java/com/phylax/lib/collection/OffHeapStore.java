@@ -0,0 +1,164 @@
+package com.phylax.lib.collection;
+
+import java.lang.foreign.Arena;
+
+/**
+ * A thread-safe, bounded key-value store for encoded entries that lives outside the Java heap.
+ * <p>
+ * Keys and values are {@code byte[]}s copied into {@link java.lang.foreign.MemorySegment}s
+ * allocated from a shared {@link Arena}. Entries are partitioned by key hash into shards,
+ * each with its own slab allocator and open-addressing index, so the only heap objects per
+ * entry are the arrays handed in and out by the caller. This keeps millions of entries
+ * invisible to the garbage collector.
+ * </p>
+ * <p>
+ * When a shard runs out of memory or index capacity, entries are evicted with a CLOCK
+ * (second chance) sweep, which approximates LRU without any per-access bookkeeping beyond
+ * a reference byte. Records larger than a slab page are not stored.
+ * </p>
+ * <p>
+ * The store owns its native memory; {@link #close()} releases it, after which the store
+ * must no longer be used.
+ * </p>
+ */
+public final class OffHeapStore implements AutoCloseable {
+
+    /** Fewest slab pages per size class a shard is given before the shard count is reduced. */
+    private static final int MIN_PAGES_PER_CLASS = 2;
+
+    private final Arena arena = Arena.ofShared();
+
+    private final OffHeapShard[] shards;
+
+    private final int shardMask;
+
+    /**
+     * Constructs an off-heap store.
+     *
+     * @param capacityBytes the maximum number of bytes used by slab pages, over all shards
+     * @param maxEntries    the maximum number of entries, over all shards
+     * @param pageSize      the slab page size in bytes; rounded up to a power of two and
+     *                      also the largest record that can be stored
+     * @param shardCount    the desired number of shards; rounded up to a power of two, then
+     *                      halved while a shard would get fewer than two pages per size class
+     */
+    public OffHeapStore(long capacityBytes, long maxEntries, int pageSize, int shardCount) {
+        final int pageShift = Math.max(6, 32 - Integer.numberOfLeadingZeros(Math.max(64, pageSize) - 1));
+        final long minPagesPerShard = (long) MIN_PAGES_PER_CLASS * SlabAllocator.sizeClasses(pageShift);
+        int count = 1 << -Integer.numberOfLeadingZeros(Math.max(1, shardCount) - 1);
+
+        while (count > 1 && (capacityBytes >> pageShift) / count < minPagesPerShard) {
+            count >>= 1;
+        }
+        final int pagesPerShard = (int) Math.max(1, Math.min(Integer.MAX_VALUE, (capacityBytes >> pageShift) / count));
+        final int entriesPerShard = (int) Math.max(1, Math.min(Integer.MAX_VALUE >> 2, maxEntries / count));
+
+        this.shards = new OffHeapShard[count];
+        this.shardMask = count - 1;
+
+        for (int i = 0; i < count; i++) {
+            this.shards[i] = new OffHeapShard(this.arena, pageShift, pagesPerShard, entriesPerShard);
+        }
+    }
+
+    /**
+     * Returns a heap copy of the value stored under the key.
+     *
+     * @param key the encoded key
+     * @return the encoded value, or {@code null} if absent or expired
+     */
+    public byte[] get(byte[] key) {
+        final long hash = hash(key);
+        return this.shardFor(hash).get(key, hash);
+    }
+
+    /**
+     * Stores the value under the key without expiry.
+     *
+     * @param key   the encoded key
+     * @param value the encoded value
+     * @return {@code false} if the entry could not be stored
+     */
+    public boolean put(byte[] key, byte[] value) {
+        return this.put(key, value, 0L);
+    }
+
+    /**
+     * Stores the value under the key with a time to live.
+     *
+     * @param key      the encoded key
+     * @param value    the encoded value
+     * @param ttlNanos the time to live in nanoseconds; 0 means the entry never expires
+     * @return {@code false} if the entry is larger than a slab page or no memory could be
+     *         reclaimed for it, in which case any previous value of the key is removed
+     */
+    public boolean put(byte[] key, byte[] value, long ttlNanos) {
+        final long hash = hash(key);
+        final long expiresAt = (ttlNanos > 0) ? System.nanoTime() + ttlNanos : Long.MAX_VALUE;
+        return this.shardFor(hash).put(key, hash, value, expiresAt);
+    }
+
+    /**
+     * Removes the entry stored under the key, if any.
+     *
+     * @param key the encoded key
+     */
+    public void delete(byte[] key) {
+        final long hash = hash(key);
+        this.shardFor(hash).delete(key, hash);
+    }
+
+    /**
+     * Removes every entry. Native memory is retained for reuse.
+     */
+    public void clear() {
+
+        for (OffHeapShard shard : this.shards) {
+            shard.clear();
+        }
+    }
+
+    /**
+     * Returns the number of entries, including expired entries not reclaimed yet.
+     *
+     * @return the entry count
+     */
+    public long size() {
+        long size = 0;
+
+        for (OffHeapShard shard : this.shards) {
+            size += shard.size();
+        }
+        return size;
+    }
+
+    /**
+     * Releases all native memory held by the store.
+     */
+    @Override
+    public void close() {
+        this.arena.close();
+    }
+
+    private OffHeapShard shardFor(long hash) {
+        return this.shards[(int) (hash >>> 48) & this.shardMask];
+    }
+
+    /**
+     * 64-bit FNV-1a over the key followed by a murmur finalizer, so that both the low
+     * bits (index slot) and the high bits (shard) are well distributed.
+     */
+    private static long hash(byte[] key) {
+        long h = 0xcbf29ce484222325L;
+
+        for (byte b : key) {
+            h ^= b;
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        return h ^ (h >>> 33);
+    }
+}
@@ -0,0 +1,296 @@
+package com.phylax.lib.collection;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.util.Arrays;
+
+/**
+ * A size-class slab allocator carving fixed-size blocks out of off-heap pages.
+ * <p>
+ * Memory is requested from the {@link Arena} one page at a time. Each page is dedicated
+ * to a single power-of-two size class (64 bytes up to the page size) and is cut into
+ * blocks of that size. Freed blocks are pushed onto an intrusive free list of their
+ * class: the pointer to the next free block is stored in the first eight bytes of the
+ * freed block itself, so the allocator keeps no per-block state on the Java heap.
+ * </p>
+ * <p>
+ * A page keeps its class while any of its blocks is in use. So that the pages do not stay
+ * stuck with the classes of past workloads, {@link #victimPage(int)} picks a page of
+ * another class whose blocks the owner evicts, after which {@link #releasePage(int)} makes
+ * it available to any class again.
+ * </p>
+ * <p>
+ * Blocks are identified by a {@code long} handle encoding {@code (page + 1) << 32 | offset};
+ * {@code 0} is never a valid handle. The allocator is not thread-safe; it is only used
+ * while holding the write lock of its {@link OffHeapShard}.
+ * </p>
+ */
+final class SlabAllocator {
+
+    /** Handle value that never refers to a block. */
+    static final long NULL_HANDLE = 0L;
+
+    /** log2 of the smallest block size. */
+    private static final int MIN_BLOCK_SHIFT = 6;
+
+    private final Arena arena;
+
+    private final int pageShift;
+
+    /** Pages allocated so far, dedicated to {@link #pageClass}. */
+    private final MemorySegment[] pages;
+
+    /** Size class each allocated page is currently cut into; -1 if spare. */
+    private final int[] pageClass;
+
+    /** Number of blocks in use in each allocated page. */
+    private final int[] liveBlocks;
+
+    /** Pages handed back by {@link #reset()} or {@link #releasePage(int)} that can be reassigned to any class. */
+    private final int[] sparePages;
+
+    private int spareCount;
+
+    /** Number of pages allocated from the arena. */
+    private int pageCount;
+
+    /** Next page considered by {@link #victimPage(int)}. */
+    private int victimCursor;
+
+    /** Head handle of the free list of each class. */
+    private final long[] freeHeads;
+
+    /** Page currently being carved for each class, or -1. */
+    private final int[] carvePage;
+
+    /** Next unused offset within {@link #carvePage} for each class. */
+    private final int[] carveOffset;
+
+    /**
+     * Creates an allocator that will allocate at most {@code maxPages} pages.
+     *
+     * @param arena     the arena pages are allocated from
+     * @param pageShift log2 of the page size
+     * @param maxPages  the maximum number of pages
+     */
+    SlabAllocator(Arena arena, int pageShift, int maxPages) {
+        this.arena = arena;
+        this.pageShift = pageShift;
+        this.pages = new MemorySegment[maxPages];
+        this.pageClass = new int[maxPages];
+        this.liveBlocks = new int[maxPages];
+        this.sparePages = new int[maxPages];
+
+        final int classes = sizeClasses(pageShift);
+        this.freeHeads = new long[classes];
+        this.carvePage = new int[classes];
+        this.carveOffset = new int[classes];
+        Arrays.fill(this.carvePage, -1);
+    }
+
+    /**
+     * Returns the size class able to hold {@code size} bytes.
+     *
+     * @param size the requested size
+     * @return the size class, or -1 if the size exceeds the page size
+     */
+    int sizeClassOf(int size) {
+        final int shift = Math.max(MIN_BLOCK_SHIFT, 32 - Integer.numberOfLeadingZeros(size - 1));
+        return (shift > this.pageShift) ? -1 : shift - MIN_BLOCK_SHIFT;
+    }
+
+    /**
+     * Returns the size class of an allocated block.
+     *
+     * @param handle the block handle
+     * @return the size class
+     */
+    int sizeClassOf(long handle) {
+        return this.pageClass[pageOf(handle)];
+    }
+
+    /**
+     * Returns the size of an allocated block.
+     *
+     * @param handle the block handle
+     * @return the block size in bytes, or a negative value if the handle is not allocated
+     */
+    int blockSizeOf(long handle) {
+        final int sizeClass = this.sizeClassOf(handle);
+        return (sizeClass < 0) ? -1 : 1 << (sizeClass + MIN_BLOCK_SHIFT);
+    }
+
+    /**
+     * Returns the number of size classes.
+     *
+     * @param pageShift log2 of the page size
+     * @return the number of classes from the smallest block up to a whole page
+     */
+    static int sizeClasses(int pageShift) {
+        return pageShift - MIN_BLOCK_SHIFT + 1;
+    }
+
+    /**
+     * Allocates a block of the given size class.
+     *
+     * @param sizeClass the size class
+     * @return the handle of the block, or {@link #NULL_HANDLE} if no memory is left
+     */
+    long allocate(int sizeClass) {
+        final long head = this.freeHeads[sizeClass];
+
+        if (head != NULL_HANDLE) {
+            this.freeHeads[sizeClass] = this.segment(head).get(ValueLayout.JAVA_LONG_UNALIGNED, offsetOf(head));
+            this.liveBlocks[pageOf(head)]++;
+            return head;
+        }
+        final int blockSize = 1 << (sizeClass + MIN_BLOCK_SHIFT);
+        final int pageSize = 1 << this.pageShift;
+
+        if (this.carvePage[sizeClass] < 0 || this.carveOffset[sizeClass] + blockSize > pageSize) {
+            final int page = this.acquirePage(sizeClass);
+
+            if (page < 0) {
+                return NULL_HANDLE;
+            }
+            this.carvePage[sizeClass] = page;
+            this.carveOffset[sizeClass] = 0;
+        }
+        final int offset = this.carveOffset[sizeClass];
+        this.carveOffset[sizeClass] = offset + blockSize;
+        this.liveBlocks[this.carvePage[sizeClass]]++;
+        return ((long) (this.carvePage[sizeClass] + 1) << 32) | offset;
+    }
+
+    /**
+     * Returns a block to the free list of its size class.
+     *
+     * @param handle the handle of the block
+     */
+    void free(long handle) {
+        final int sizeClass = this.sizeClassOf(handle);
+        this.segment(handle).set(ValueLayout.JAVA_LONG_UNALIGNED, offsetOf(handle), this.freeHeads[sizeClass]);
+        this.freeHeads[sizeClass] = handle;
+        this.liveBlocks[pageOf(handle)]--;
+    }
+
+    /**
+     * Picks a page to take away from its size class so that another class can use it.
+     * Pages without blocks in use are preferred; otherwise pages are visited round-robin,
+     * which spreads the evictions over all classes.
+     *
+     * @param excludedClass the class that needs a page; its own pages are never picked
+     * @return the page, or -1 if every page belongs to the excluded class
+     */
+    int victimPage(int excludedClass) {
+
+        for (int page = 0; page < this.pageCount; page++) {
+
+            if (this.pageClass[page] >= 0 && this.pageClass[page] != excludedClass && this.liveBlocks[page] == 0) {
+                return page;
+            }
+        }
+
+        for (int i = 0; i < this.pageCount; i++) {
+            final int page = this.victimCursor;
+            this.victimCursor = (page + 1) % this.pageCount;
+
+            if (this.pageClass[page] >= 0 && this.pageClass[page] != excludedClass) {
+                return page;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Takes a page whose blocks are all free away from its size class, making it available
+     * to any class. The free list of the class is walked once to unlink the blocks of the page.
+     *
+     * @param page a page without blocks in use
+     */
+    void releasePage(int page) {
+        final int sizeClass = this.pageClass[page];
+        long previous = NULL_HANDLE;
+        long current = this.freeHeads[sizeClass];
+
+        while (current != NULL_HANDLE) {
+            final long next = this.segment(current).get(ValueLayout.JAVA_LONG_UNALIGNED, offsetOf(current));
+
+            if (pageOf(current) != page) {
+                previous = current;
+            } else if (previous == NULL_HANDLE) {
+                this.freeHeads[sizeClass] = next;
+            } else {
+                this.segment(previous).set(ValueLayout.JAVA_LONG_UNALIGNED, offsetOf(previous), next);
+            }
+            current = next;
+        }
+
+        if (this.carvePage[sizeClass] == page) {
+            this.carvePage[sizeClass] = -1;
+        }
+        this.pageClass[page] = -1;
+        this.sparePages[this.spareCount++] = page;
+    }
+
+    /**
+     * Forgets every allocation. Pages stay allocated and become available to any size class.
+     */
+    void reset() {
+        Arrays.fill(this.freeHeads, NULL_HANDLE);
+        Arrays.fill(this.carvePage, -1);
+        this.spareCount = 0;
+
+        for (int page = 0; page < this.pageCount; page++) {
+            this.pageClass[page] = -1;
+            this.liveBlocks[page] = 0;
+            this.sparePages[this.spareCount++] = page;
+        }
+    }
+
+    /**
+     * Returns the page a block lives in.
+     *
+     * @param handle the block handle
+     * @return the page segment
+     */
+    MemorySegment segment(long handle) {
+        return this.pages[pageOf(handle)];
+    }
+
+    /**
+     * Returns the offset of a block within its page.
+     *
+     * @param handle the block handle
+     * @return the byte offset
+     */
+    static long offsetOf(long handle) {
+        return handle & 0xffffffffL;
+    }
+
+    /**
+     * Returns the index of the page a block lives in.
+     *
+     * @param handle the block handle
+     * @return the page index
+     */
+    static int pageOf(long handle) {
+        return (int) (handle >>> 32) - 1;
+    }
+
+    private int acquirePage(int sizeClass) {
+        final int page;
+
+        if (this.spareCount > 0) {
+            page = this.sparePages[--this.spareCount];
+        } else if (this.pageCount < this.pages.length) {
+            page = this.pageCount++;
+            this.pages[page] = this.arena.allocate(1L << this.pageShift, Long.BYTES);
+        } else {
+            return -1;
+        }
+        this.pageClass[page] = sizeClass;
+        return page;
+    }
+}
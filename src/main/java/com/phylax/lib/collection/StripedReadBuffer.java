@@ -0,0 +1,121 @@
+package com.phylax.lib.collection;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+/**
+ * A striped, lossy, multiple-producer / single-consumer buffer used to record reads.
+ * <p>
+ * Readers pick a stripe based on their thread id and publish into a small ring
+ * without ever blocking. When the ring is full the element is simply dropped:
+ * recency information is a hint, and losing a few accesses under heavy load is
+ * far cheaper than serializing every reader on a lock. The consumer drains all
+ * stripes in a batch while holding the owning shard lock.
+ * </p>
+ *
+ * @param <E> the type of buffered elements
+ */
+final class StripedReadBuffer<E> {
+
+    /** Result of {@link #offer(Object)} when the element was recorded. */
+    static final int SUCCESS = 0;
+
+    /** Result of {@link #offer(Object)} when another thread won the slot. */
+    static final int FAILED = 1;
+
+    /** Result of {@link #offer(Object)} when the stripe is full and should be drained. */
+    static final int FULL = 2;
+
+    /** Number of slots per stripe; must be a power of two. */
+    private static final int RING_SIZE = 16;
+
+    private static final int RING_MASK = RING_SIZE - 1;
+
+    /** Spacing between counters so that stripes do not share a cache line. */
+    private static final int COUNTER_STRIDE = 16;
+
+    private final int stripeMask;
+
+    /** Ring slots of all stripes laid out back to back. */
+    private final AtomicReferenceArray<E> slots;
+
+    /** Producer counters, one per stripe at {@code stripe * COUNTER_STRIDE}. */
+    private final AtomicLongArray writeCounters;
+
+    /** Consumer counters, only advanced by the draining thread. */
+    private final AtomicLongArray readCounters;
+
+    /**
+     * Creates a buffer with at least the given number of stripes.
+     *
+     * @param stripes the desired number of stripes; rounded up to a power of two
+     */
+    StripedReadBuffer(int stripes) {
+        final int count = ceilingPowerOfTwo(Math.max(1, stripes));
+        this.stripeMask = count - 1;
+        this.slots = new AtomicReferenceArray<>(count * RING_SIZE);
+        this.writeCounters = new AtomicLongArray(count * COUNTER_STRIDE);
+        this.readCounters = new AtomicLongArray(count * COUNTER_STRIDE);
+    }
+
+    /**
+     * Records an element without blocking.
+     *
+     * @param element the element to record
+     * @return {@link #SUCCESS}, {@link #FAILED} or {@link #FULL}
+     */
+    int offer(E element) {
+        final int stripe = (int) mix(Thread.currentThread().threadId()) & this.stripeMask;
+        final int counterIndex = stripe * COUNTER_STRIDE;
+        final long head = this.readCounters.get(counterIndex);
+        final long tail = this.writeCounters.get(counterIndex);
+
+        if (tail - head >= RING_SIZE) {
+            return FULL;
+        }
+
+        if (!this.writeCounters.compareAndSet(counterIndex, tail, tail + 1)) {
+            return FAILED;
+        }
+        this.slots.lazySet(stripe * RING_SIZE + (int) (tail & RING_MASK), element);
+        return (tail + 1 - head >= RING_SIZE) ? FULL : SUCCESS;
+    }
+
+    /**
+     * Drains every stripe into the consumer. Must only be called by one thread at a time.
+     *
+     * @param consumer the action applied to each buffered element
+     */
+    void drainTo(Consumer<E> consumer) {
+
+        for (int stripe = 0; stripe <= this.stripeMask; stripe++) {
+            final int counterIndex = stripe * COUNTER_STRIDE;
+            final long tail = this.writeCounters.get(counterIndex);
+            long head = this.readCounters.get(counterIndex);
+
+            while (head < tail) {
+                final int index = stripe * RING_SIZE + (int) (head & RING_MASK);
+                final E element = this.slots.get(index);
+
+                if (element == null) {
+                    // The producer claimed the slot but has not published yet.
+                    break;
+                }
+                this.slots.lazySet(index, null);
+                consumer.accept(element);
+                head++;
+            }
+            this.readCounters.lazySet(counterIndex, head);
+        }
+    }
+
+    private static long mix(long x) {
+        x = (x ^ (x >>> 33)) * 0xff51afd7ed558ccdL;
+        return x ^ (x >>> 33);
+    }
+
+    private static int ceilingPowerOfTwo(int x) {
+        return 1 << -Integer.numberOfLeadingZeros(x - 1);
+    }
+}
@@ -0,0 +1,202 @@
+package com.phylax.lib.collection;
+
+import java.util.function.Consumer;
+
+/**
+ * A hierarchical timer wheel that expires {@link CacheNode}s in amortized O(1) time.
+ * <p>
+ * Each level of the wheel is a ring of buckets covering a power-of-two span of time:
+ * roughly a second, a minute, an hour and a day, plus an overflow bucket. A node is
+ * linked into the bucket of the coarsest level whose span still contains its deadline.
+ * Advancing the wheel only visits the buckets whose tick has passed; nodes found there
+ * are either expired or, if their deadline has moved (expire-after-access) or lies
+ * within a finer level, rescheduled into a closer bucket. The full map is never scanned.
+ * </p>
+ * <p>
+ * The wheel is not thread-safe; it is only used while holding a shard lock.
+ * </p>
+ *
+ * @param <K> the type of keys
+ * @param <V> the type of values
+ */
+final class TimerWheel<K, V> {
+
+    /** Number of buckets per level. */
+    private static final int[] BUCKETS = {64, 64, 32, 4, 1};
+
+    /** Duration covered by one bucket of each level, in nanoseconds. */
+    private static final long[] SPANS = {
+            1L << 30,   // 1.07s
+            1L << 36,   // 1.14m
+            1L << 42,   // 1.22h
+            1L << 46,   // 0.81d
+            1L << 47,   // 1.63d
+            1L << 47    // 1.63d
+    };
+
+    private static final long[] SHIFT = {
+            Long.numberOfTrailingZeros(SPANS[0]),
+            Long.numberOfTrailingZeros(SPANS[1]),
+            Long.numberOfTrailingZeros(SPANS[2]),
+            Long.numberOfTrailingZeros(SPANS[3]),
+            Long.numberOfTrailingZeros(SPANS[4])
+    };
+
+    /** Sentinel heads of the circular bucket lists, per level. */
+    private final CacheNode<K, V>[][] wheel;
+
+    /** The time the wheel was last advanced to. */
+    private long nanos;
+
+    /**
+     * Creates an empty wheel positioned at the given time.
+     *
+     * @param nanos the current {@link System#nanoTime()}
+     */
+    @SuppressWarnings("unchecked")
+    TimerWheel(long nanos) {
+        this.nanos = nanos;
+        this.wheel = new CacheNode[BUCKETS.length][];
+
+        for (int i = 0; i < BUCKETS.length; i++) {
+            this.wheel[i] = new CacheNode[BUCKETS[i]];
+
+            for (int j = 0; j < BUCKETS[i]; j++) {
+                final CacheNode<K, V> sentinel = new CacheNode<>(null, null, 0);
+                sentinel.timerPrev = sentinel;
+                sentinel.timerNext = sentinel;
+                this.wheel[i][j] = sentinel;
+            }
+        }
+    }
+
+    /**
+     * Advances the wheel to the given time, handing every expired node to the consumer.
+     *
+     * @param currentTimeNanos the current {@link System#nanoTime()}
+     * @param expirer          removes an expired node from the cache
+     */
+    void advance(long currentTimeNanos, Consumer<CacheNode<K, V>> expirer) {
+        final long previousTimeNanos = this.nanos;
+        this.nanos = currentTimeNanos;
+
+        for (int i = 0; i < SHIFT.length; i++) {
+            final long previousTicks = previousTimeNanos >>> SHIFT[i];
+            final long currentTicks = currentTimeNanos >>> SHIFT[i];
+            final long delta = currentTicks - previousTicks;
+
+            if (delta <= 0L) {
+                break;
+            }
+            this.expire(i, previousTicks, delta, expirer);
+        }
+    }
+
+    /**
+     * Links the node into the bucket matching its deadline, or unlinks it if it no longer expires.
+     *
+     * @param node the node to (re)schedule
+     */
+    void schedule(CacheNode<K, V> node) {
+        this.deschedule(node);
+
+        if (node.expiresAt != CacheNode.NO_EXPIRY) {
+            this.link(this.findBucket(node.expiresAt), node);
+        }
+    }
+
+    /**
+     * Unlinks the node if it is scheduled.
+     *
+     * @param node the node to remove from the wheel
+     */
+    void deschedule(CacheNode<K, V> node) {
+
+        if (node.timerNext != null) {
+            node.timerNext.timerPrev = node.timerPrev;
+            node.timerPrev.timerNext = node.timerNext;
+            node.timerNext = null;
+            node.timerPrev = null;
+        }
+    }
+
+    /**
+     * Unlinks every scheduled node.
+     */
+    void clear() {
+
+        for (CacheNode<K, V>[] level : this.wheel) {
+
+            for (CacheNode<K, V> sentinel : level) {
+                CacheNode<K, V> node = sentinel.timerNext;
+
+                while (node != sentinel) {
+                    final CacheNode<K, V> next = node.timerNext;
+                    node.timerPrev = null;
+                    node.timerNext = null;
+                    node = next;
+                }
+                sentinel.timerPrev = sentinel;
+                sentinel.timerNext = sentinel;
+            }
+        }
+    }
+
+    /**
+     * Visits the buckets of a level whose ticks elapsed and expires or reschedules their nodes.
+     */
+    private void expire(int index, long previousTicks, long delta, Consumer<CacheNode<K, V>> expirer) {
+        final CacheNode<K, V>[] level = this.wheel[index];
+        final int mask = level.length - 1;
+        final int steps = (int) Math.min(1 + delta, level.length);
+        final int start = (int) (previousTicks & mask);
+        final int end = start + steps;
+
+        for (int i = start; i < end; i++) {
+            final CacheNode<K, V> sentinel = level[i & mask];
+            CacheNode<K, V> node = sentinel.timerNext;
+            sentinel.timerPrev = sentinel;
+            sentinel.timerNext = sentinel;
+
+            while (node != sentinel) {
+                final CacheNode<K, V> next = node.timerNext;
+                node.timerPrev = null;
+                node.timerNext = null;
+
+                final long expiresAt = node.expiresAt;
+
+                if (expiresAt == CacheNode.NO_EXPIRY || expiresAt - this.nanos > 0) {
+                    this.schedule(node);
+                } else {
+                    expirer.accept(node);
+                }
+                node = next;
+            }
+        }
+    }
+
+    /**
+     * Returns the sentinel of the bucket a deadline belongs to.
+     */
+    private CacheNode<K, V> findBucket(long time) {
+        final long duration = time - this.nanos;
+        final int length = this.wheel.length - 1;
+
+        for (int i = 0; i < length; i++) {
+
+            if (duration < SPANS[i + 1]) {
+                final long ticks = time >>> SHIFT[i];
+                final int index = (int) (ticks & (this.wheel[i].length - 1));
+                return this.wheel[i][index];
+            }
+        }
+        return this.wheel[length][0];
+    }
+
+    private void link(CacheNode<K, V> sentinel, CacheNode<K, V> node) {
+        node.timerPrev = sentinel.timerPrev;
+        node.timerNext = sentinel;
+        sentinel.timerPrev.timerNext = node;
+        sentinel.timerPrev = node;
+    }
+}
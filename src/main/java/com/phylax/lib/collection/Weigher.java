@@ -0,0 +1,31 @@
+package com.phylax.lib.collection;
+
+/**
+ * Estimates the memory footprint of a cache entry.
+ * <p>
+ * The weight returned for an entry is added to the running total of the cache
+ * when the entry is inserted and subtracted when it is replaced or removed. The
+ * cache evicts least recently used entries while the total exceeds its maximum
+ * weight, so weights should be expressed in the same unit as that budget
+ * (bytes, for caches sized from the JVM heap).
+ * </p>
+ * <p>
+ * Implementations must be thread-safe and should be cheap, since they are invoked
+ * on every write.
+ * </p>
+ *
+ * @param <K> the type of keys
+ * @param <V> the type of values
+ */
+@FunctionalInterface
+public interface Weigher<K, V> {
+
+    /**
+     * Returns the weight of the entry.
+     *
+     * @param key   the key of the entry
+     * @param value the value of the entry
+     * @return a non-negative weight
+     */
+    long weigh(K key, V value);
+}
@@ -0,0 +1,220 @@
+package com.phylax.lib.collection;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Window TinyLFU policy: a small LRU admission window in front of a segmented LRU main
+ * region, guarded by a {@link FrequencySketch}.
+ * <p>
+ * New entries always enter the window, which holds about 1% of the weight budget and
+ * absorbs bursts of recency. When the shard is over budget the entry leaving the window
+ * (the candidate) competes with the least recently used entry of the main region (the
+ * victim); whichever has been accessed less often according to the sketch is evicted.
+ * A one-off scan therefore churns through the window without displacing entries with
+ * an established access history.
+ * </p>
+ * <p>
+ * The main region is split into a probation segment, where admitted entries start, and
+ * a protected segment (80% of the main region) that entries are promoted to on their
+ * next access. Entries demoted from protected fall back to probation rather than out of
+ * the cache.
+ * </p>
+ *
+ * @param <K> the type of keys
+ * @param <V> the type of values
+ */
+final class WindowTinyLfuPolicy<K, V> implements CachePolicy<K, V> {
+
+    /** Share of the weight budget given to the admission window. */
+    private static final double WINDOW_RATIO = 0.01;
+
+    /** Share of the main region reserved for protected entries. */
+    private static final double PROTECTED_RATIO = 0.80;
+
+    /**
+     * Candidates at least this popular are occasionally admitted even when they lose,
+     * so that an attacker cannot pin a victim by inflating its colliding counters.
+     */
+    private static final int ADMIT_HASHDOS_THRESHOLD = 6;
+
+    private final AccessOrderDeque<K, V> window = new AccessOrderDeque<>();
+
+    private final AccessOrderDeque<K, V> probation = new AccessOrderDeque<>();
+
+    private final AccessOrderDeque<K, V> protectedRegion = new AccessOrderDeque<>();
+
+    private final FrequencySketch sketch = new FrequencySketch();
+
+    private final long maxWindow;
+
+    private final long maxMain;
+
+    private final long maxProtected;
+
+    private long windowWeight;
+
+    private long probationWeight;
+
+    private long protectedWeight;
+
+    /**
+     * Creates a policy for a shard with the given weight budget.
+     *
+     * @param maxWeight the maximum total weight of the shard
+     */
+    WindowTinyLfuPolicy(long maxWeight) {
+        this.maxWindow = Math.max(1, (long) (maxWeight * WINDOW_RATIO));
+        this.maxMain = Math.max(0, maxWeight - this.maxWindow);
+        this.maxProtected = (long) (this.maxMain * PROTECTED_RATIO);
+    }
+
+    @Override
+    public void onAccess(CacheNode<K, V> node) {
+        final AccessOrderDeque<K, V> deque = node.deque;
+
+        if (deque == null) {
+            return;
+        }
+        this.sketch.increment(node.key);
+
+        if (deque == this.probation) {
+            this.probation.remove(node);
+            this.probationWeight -= node.weight;
+            this.protectedRegion.addLast(node);
+            this.protectedWeight += node.weight;
+            this.demoteProtected();
+        } else {
+            deque.moveToBack(node);
+        }
+    }
+
+    @Override
+    public void onAdd(CacheNode<K, V> node) {
+        this.sketch.ensureCapacity(this.window.size() + this.probation.size() + this.protectedRegion.size() + 1L);
+        this.sketch.increment(node.key);
+        this.window.addLast(node);
+        this.windowWeight += node.weight;
+
+        // While the main region has room, entries leave the window without a contest.
+        CacheNode<K, V> head = this.window.peekFirst();
+
+        while (this.windowWeight > this.maxWindow && head != null
+                && this.probationWeight + this.protectedWeight + head.weight <= this.maxMain) {
+            this.window.remove(head);
+            this.windowWeight -= head.weight;
+            this.probation.addLast(head);
+            this.probationWeight += head.weight;
+            head = this.window.peekFirst();
+        }
+    }
+
+    @Override
+    public void onUpdate(CacheNode<K, V> node, long weightDelta) {
+
+        if (node.deque == this.window) {
+            this.windowWeight += weightDelta;
+        } else if (node.deque == this.probation) {
+            this.probationWeight += weightDelta;
+        } else if (node.deque == this.protectedRegion) {
+            this.protectedWeight += weightDelta;
+        }
+        this.onAccess(node);
+    }
+
+    @Override
+    public boolean onRemove(CacheNode<K, V> node) {
+        final AccessOrderDeque<K, V> deque = node.deque;
+
+        if (deque == null) {
+            return false;
+        }
+        this.unlink(node);
+        return true;
+    }
+
+    @Override
+    public CacheNode<K, V> evict() {
+        final CacheNode<K, V> candidate = (this.windowWeight > this.maxWindow) ? this.window.peekFirst() : null;
+        CacheNode<K, V> victim = this.probation.peekFirst();
+
+        if (victim == null) {
+            victim = this.protectedRegion.peekFirst();
+        }
+
+        if (candidate == null) {
+            victim = (victim != null) ? victim : this.window.peekFirst();
+        } else if (victim == null || !this.admit(candidate, victim)) {
+            victim = candidate;
+        } else {
+            this.unlink(candidate);
+            this.probation.addLast(candidate);
+            this.probationWeight += candidate.weight;
+        }
+
+        if (victim != null) {
+            this.unlink(victim);
+        }
+        return victim;
+    }
+
+    @Override
+    public void clear() {
+        this.window.clear();
+        this.probation.clear();
+        this.protectedRegion.clear();
+        this.windowWeight = 0;
+        this.probationWeight = 0;
+        this.protectedWeight = 0;
+    }
+
+    /**
+     * Decides whether the candidate should replace the victim based on their frequencies.
+     */
+    private boolean admit(CacheNode<K, V> candidate, CacheNode<K, V> victim) {
+        final int candidateFrequency = this.sketch.frequency(candidate.key);
+        final int victimFrequency = this.sketch.frequency(victim.key);
+
+        if (candidateFrequency > victimFrequency) {
+            return true;
+        }
+        return candidateFrequency >= ADMIT_HASHDOS_THRESHOLD
+                && (ThreadLocalRandom.current().nextInt() & 127) == 0;
+    }
+
+    /**
+     * Moves the least recently used protected entries back to probation while the
+     * protected segment is over its share.
+     */
+    private void demoteProtected() {
+
+        while (this.protectedWeight > this.maxProtected) {
+            final CacheNode<K, V> demoted = this.protectedRegion.pollFirst();
+
+            if (demoted == null) {
+                return;
+            }
+            this.protectedWeight -= demoted.weight;
+            this.probation.addLast(demoted);
+            this.probationWeight += demoted.weight;
+        }
+    }
+
+    /**
+     * Unlinks the node from whichever segment holds it and adjusts that segment's weight.
+     */
+    private void unlink(CacheNode<K, V> node) {
+        final AccessOrderDeque<K, V> deque = node.deque;
+
+        if (deque == this.window) {
+            this.windowWeight -= node.weight;
+        } else if (deque == this.probation) {
+            this.probationWeight -= node.weight;
+        } else if (deque == this.protectedRegion) {
+            this.protectedWeight -= node.weight;
+        }
+
+        if (deque != null) {
+            deque.remove(node);
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.phylax.lib.config;
+
+/**
+ * How {@code clear()} removes the entries of a namespaced remote cache without touching
+ * the other namespaces of the server.
+ */
+public enum ClearStrategy {
+
+    /**
+     * Increments a generation number stored on the server and part of every key, so that
+     * all entries written before become unreachable at once. The old entries are left to
+     * expire or be evicted; Redis also unlinks them in the background once every process
+     * has had time to reread the generation.
+     */
+    GENERATION,
+
+    /**
+     * Iterates over the keys of the namespace with {@code SCAN} and removes them with
+     * {@code UNLINK}, one bounded batch at a time and in the background, so that neither
+     * the server nor the caller is blocked for long. Only supported by Redis.
+     */
+    SCAN
+}
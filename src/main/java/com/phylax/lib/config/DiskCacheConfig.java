@@ -0,0 +1,132 @@
+package com.phylax.lib.config;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Configuration class for disk-backed cache settings.
+ *
+ * <p>This class is immutable and holds the directory the cache keeps its segment
+ * files in, the size of each segment, the disk budget over all segments and the
+ * settings of the background compaction that reclaims overwritten entries.</p>
+ */
+public final class DiskCacheConfig {
+
+    /** Directory holding the segment files; reused across restarts. */
+    private final Path directory;
+
+    /** Size in bytes of each segment file; also the largest entry that can be stored. */
+    private final long segmentSize;
+
+    /** Maximum number of bytes of segment files kept on disk. */
+    private final long maxBytes;
+
+    /** Ratio of live to written bytes under which a segment is compacted. */
+    private final double compactionThreshold;
+
+    /** Delay between background compaction runs. */
+    private final Duration compactionInterval;
+
+    /**
+     * Constructs a new {@code DiskCacheConfig} with default settings in the given directory.
+     *
+     * <p>Default values:</p>
+     * <ul>
+     *     <li>{@code segmentSize} = 64 MiB</li>
+     *     <li>{@code maxBytes} = 1 GiB</li>
+     *     <li>{@code compactionThreshold} = 0.5</li>
+     *     <li>{@code compactionInterval} = 30 seconds</li>
+     * </ul>
+     *
+     * @param directory the directory holding the segment files
+     */
+    public DiskCacheConfig(Path directory) {
+        this.directory = directory;
+        this.segmentSize = 64L * 1024 * 1024;
+        this.maxBytes = 1024L * 1024 * 1024;
+        this.compactionThreshold = 0.5;
+        this.compactionInterval = Duration.ofSeconds(30);
+    }
+
+    /**
+     * Constructs a new {@code DiskCacheConfig} with a custom segment size and disk budget.
+     *
+     * @param directory   the directory holding the segment files
+     * @param segmentSize the size in bytes of each segment file
+     * @param maxBytes    the maximum number of bytes of segment files kept on disk
+     */
+    public DiskCacheConfig(Path directory, long segmentSize, long maxBytes) {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.maxBytes = maxBytes;
+        this.compactionThreshold = 0.5;
+        this.compactionInterval = Duration.ofSeconds(30);
+    }
+
+    /**
+     * Constructs a new {@code DiskCacheConfig} with every setting specified.
+     *
+     * @param directory           the directory holding the segment files
+     * @param segmentSize         the size in bytes of each segment file; entries larger
+     *                            than a segment are not cached
+     * @param maxBytes            the maximum number of bytes of segment files kept on disk;
+     *                            the oldest segment is dropped when exceeded
+     * @param compactionThreshold the ratio of live to written bytes under which a segment
+     *                            is compacted, between 0 and 1
+     * @param compactionInterval  the delay between background compaction runs;
+     *                            {@link Duration#ZERO} disables background compaction
+     */
+    public DiskCacheConfig(Path directory, long segmentSize, long maxBytes, double compactionThreshold,
+                           Duration compactionInterval) {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.maxBytes = maxBytes;
+        this.compactionThreshold = compactionThreshold;
+        this.compactionInterval = compactionInterval;
+    }
+
+    /**
+     * Returns the directory holding the segment files.
+     *
+     * @return the cache directory
+     */
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Returns the size of each segment file.
+     *
+     * @return the segment size in bytes
+     */
+    public long getSegmentSize() {
+        return segmentSize;
+    }
+
+    /**
+     * Returns the disk budget over all segment files.
+     *
+     * @return the maximum number of bytes on disk
+     */
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    /**
+     * Returns the live ratio under which a segment is compacted.
+     *
+     * @return the compaction threshold
+     */
+    public double getCompactionThreshold() {
+        return compactionThreshold;
+    }
+
+    /**
+     * Returns the delay between background compaction runs.
+     *
+     * @return the compaction interval
+     */
+    public Duration getCompactionInterval() {
+        return compactionInterval;
+    }
+}
@@ -0,0 +1,75 @@
+package com.phylax.lib.config;
+
+import java.time.Duration;
+
+/**
+ * Configuration class for the expiry of entries written to a remote cache tier.
+ *
+ * <p>This class is immutable and holds the default time to live of an entry and the
+ * jitter applied to it. With a jitter of {@code 0.1}, every write draws its time to live
+ * between 90% and 100% of the configured one, so that entries written together do not
+ * all expire, and get reloaded, at the same instant.</p>
+ */
+public final class ExpiryConfig {
+
+    /** Default time to live of an entry; {@link Duration#ZERO} if entries do not expire. */
+    private final Duration ttl;
+
+    /** Largest fraction of the time to live randomly taken off each write, in {@code [0, 1)}. */
+    private final double jitter;
+
+    /**
+     * Constructs a new {@code ExpiryConfig} under which entries do not expire.
+     */
+    public ExpiryConfig() {
+        this(Duration.ZERO, 0.0);
+    }
+
+    /**
+     * Constructs a new {@code ExpiryConfig} without jitter.
+     *
+     * @param ttl the default time to live, or {@link Duration#ZERO} if entries do not expire
+     */
+    public ExpiryConfig(Duration ttl) {
+        this(ttl, 0.0);
+    }
+
+    /**
+     * Constructs a new {@code ExpiryConfig} with the specified settings.
+     *
+     * @param ttl    the default time to live, or {@link Duration#ZERO} if entries do not expire
+     * @param jitter the largest fraction of the time to live randomly taken off each write,
+     *               in {@code [0, 1)}
+     * @throws IllegalArgumentException if {@code ttl} is negative or {@code jitter} is out of range
+     */
+    public ExpiryConfig(Duration ttl, double jitter) {
+
+        if (ttl.isNegative()) {
+            throw new IllegalArgumentException("ttl must not be negative");
+        }
+
+        if (!(jitter >= 0.0 && jitter < 1.0)) {
+            throw new IllegalArgumentException("jitter must be in [0, 1)");
+        }
+        this.ttl = ttl;
+        this.jitter = jitter;
+    }
+
+    /**
+     * Returns the default time to live of an entry.
+     *
+     * @return the time to live, or {@link Duration#ZERO} if entries do not expire
+     */
+    public Duration getTtl() {
+        return ttl;
+    }
+
+    /**
+     * Returns the largest fraction of the time to live randomly taken off each write.
+     *
+     * @return the jitter, in {@code [0, 1)}
+     */
+    public double getJitter() {
+        return jitter;
+    }
+}
@@ -1,26 +1,52 @@
 package com.phylax.lib.config;
 
+import com.phylax.lib.collection.EvictionPolicy;
+import com.phylax.lib.collection.ObjectSizeWeigher;
+import com.phylax.lib.collection.Weigher;
+
+import java.time.Duration;
 
 /**
  * Configuration class for in-memory cache settings.
  *
  * <p>This class is immutable and holds the configuration for the cache's
  * capacity factor, which determines the portion of the JVM heap memory
- * allocated for the cache.</p>
+ * allocated for the cache, the number of shards the cache is split into,
+ * the {@link Weigher} used to measure each entry against that budget and the
+ * {@link EvictionPolicy} deciding which entries leave once it is exceeded.
+ * Optionally, entries can be expired once they have not been accessed for a
+ * configured duration.</p>
  */
 public final class InMemoryCacheConfig {
 
     /** Fraction of JVM maximum memory to use for the in-memory cache. */
     private final float capacityFactor;
 
+    /** Number of independently locked shards the cache is partitioned into. */
+    private final int shardCount;
+
+    /** Estimates the size in bytes of each cache entry. */
+    private final Weigher<Object, Object> weigher;
+
+    /** Strategy used to select entries to evict. */
+    private final EvictionPolicy evictionPolicy;
+
+    /** Idle duration after which entries expire; {@link Duration#ZERO} if disabled. */
+    private final Duration expireAfterAccess;
+
     /**
      * Constructs a new {@code InMemoryCacheConfig} with the default capacity factor.
      *
      * <p>The default value is {@code 0.20}, meaning the cache will use up to
-     * 20% of the JVM's maximum memory.</p>
+     * 20% of the JVM's maximum memory. The cache is split into one shard per
+     * available processor.</p>
      */
     public InMemoryCacheConfig() {
         this.capacityFactor = 0.20f;
+        this.shardCount = Runtime.getRuntime().availableProcessors();
+        this.weigher = ObjectSizeWeigher.INSTANCE;
+        this.evictionPolicy = EvictionPolicy.LRU;
+        this.expireAfterAccess = Duration.ZERO;
     }
 
     /**
@@ -31,6 +57,84 @@ public final class InMemoryCacheConfig {
      */
     public InMemoryCacheConfig(float capacityFactor) {
         this.capacityFactor = capacityFactor;
+        this.shardCount = Runtime.getRuntime().availableProcessors();
+        this.weigher = ObjectSizeWeigher.INSTANCE;
+        this.evictionPolicy = EvictionPolicy.LRU;
+        this.expireAfterAccess = Duration.ZERO;
+    }
+
+    /**
+     * Constructs a new {@code InMemoryCacheConfig} with a custom capacity factor and shard count.
+     *
+     * @param capacityFactor the fraction of JVM maximum memory to allocate to the cache;
+     *                       must be a positive value (typically between 0 and 1)
+     * @param shardCount     the number of shards keys are distributed over by hash;
+     *                       rounded up to a power of two by the cache
+     */
+    public InMemoryCacheConfig(float capacityFactor, int shardCount) {
+        this.capacityFactor = capacityFactor;
+        this.shardCount = shardCount;
+        this.weigher = ObjectSizeWeigher.INSTANCE;
+        this.evictionPolicy = EvictionPolicy.LRU;
+        this.expireAfterAccess = Duration.ZERO;
+    }
+
+    /**
+     * Constructs a new {@code InMemoryCacheConfig} with a custom capacity factor, shard count and weigher.
+     *
+     * @param capacityFactor the fraction of JVM maximum memory to allocate to the cache;
+     *                       must be a positive value (typically between 0 and 1)
+     * @param shardCount     the number of shards keys are distributed over by hash;
+     *                       rounded up to a power of two by the cache
+     * @param weigher        estimates the size in bytes of each entry; the default is
+     *                       {@link ObjectSizeWeigher#INSTANCE}
+     */
+    public InMemoryCacheConfig(float capacityFactor, int shardCount, Weigher<Object, Object> weigher) {
+        this.capacityFactor = capacityFactor;
+        this.shardCount = shardCount;
+        this.weigher = weigher;
+        this.evictionPolicy = EvictionPolicy.LRU;
+        this.expireAfterAccess = Duration.ZERO;
+    }
+
+    /**
+     * Constructs a new {@code InMemoryCacheConfig} with a custom eviction policy.
+     *
+     * @param capacityFactor the fraction of JVM maximum memory to allocate to the cache;
+     *                       must be a positive value (typically between 0 and 1)
+     * @param shardCount     the number of shards keys are distributed over by hash;
+     *                       rounded up to a power of two by the cache
+     * @param weigher        estimates the size in bytes of each entry
+     * @param evictionPolicy the strategy used to select entries to evict; the default
+     *                       is {@link EvictionPolicy#LRU}
+     */
+    public InMemoryCacheConfig(float capacityFactor, int shardCount, Weigher<Object, Object> weigher, EvictionPolicy evictionPolicy) {
+        this.capacityFactor = capacityFactor;
+        this.shardCount = shardCount;
+        this.weigher = weigher;
+        this.evictionPolicy = evictionPolicy;
+        this.expireAfterAccess = Duration.ZERO;
+    }
+
+    /**
+     * Constructs a new {@code InMemoryCacheConfig} with every setting specified.
+     *
+     * @param capacityFactor    the fraction of JVM maximum memory to allocate to the cache;
+     *                          must be a positive value (typically between 0 and 1)
+     * @param shardCount        the number of shards keys are distributed over by hash;
+     *                          rounded up to a power of two by the cache
+     * @param weigher           estimates the size in bytes of each entry
+     * @param evictionPolicy    the strategy used to select entries to evict
+     * @param expireAfterAccess if positive, entries expire once they have not been read or
+     *                          written for this long; {@link Duration#ZERO} disables it
+     */
+    public InMemoryCacheConfig(float capacityFactor, int shardCount, Weigher<Object, Object> weigher,
+                               EvictionPolicy evictionPolicy, Duration expireAfterAccess) {
+        this.capacityFactor = capacityFactor;
+        this.shardCount = shardCount;
+        this.weigher = weigher;
+        this.evictionPolicy = evictionPolicy;
+        this.expireAfterAccess = expireAfterAccess;
     }
 
     /**
@@ -41,5 +145,40 @@ public final class InMemoryCacheConfig {
     public float getCapacityFactor() {
         return capacityFactor;
     }
-}
 
+    /**
+     * Returns the number of shards the cache is partitioned into.
+     *
+     * @return the shard count
+     */
+    public int getShardCount() {
+        return shardCount;
+    }
+
+    /**
+     * Returns the weigher used to measure cache entries.
+     *
+     * @return the entry weigher
+     */
+    public Weigher<Object, Object> getWeigher() {
+        return weigher;
+    }
+
+    /**
+     * Returns the eviction policy of the cache.
+     *
+     * @return the eviction policy
+     */
+    public EvictionPolicy getEvictionPolicy() {
+        return evictionPolicy;
+    }
+
+    /**
+     * Returns the idle duration after which entries expire.
+     *
+     * @return the expire-after-access duration, or {@link Duration#ZERO} if disabled
+     */
+    public Duration getExpireAfterAccess() {
+        return expireAfterAccess;
+    }
+}
@@ -0,0 +1,111 @@
+package com.phylax.lib.config;
+
+import java.time.Duration;
+
+/**
+ * Configuration class for the lifecycle of the connections of a remote cache tier.
+ *
+ * <p>This class is immutable and holds whether connections are opened at startup,
+ * how often their health is probed, how reconnection attempts back off while the
+ * server is unreachable, and how long closing waits for operations in flight.</p>
+ */
+public final class LifecycleConfig {
+
+    /** Whether the idle connections are opened when the manager is created rather than on first use. */
+    private final boolean warmup;
+
+    /** Time between health probes; {@link Duration#ZERO} disables probing. */
+    private final Duration healthCheckInterval;
+
+    /** Delay before the first reconnection attempt after a failed probe. */
+    private final Duration initialBackoff;
+
+    /** Upper bound of the delay between reconnection attempts, which doubles after each failure. */
+    private final Duration maxBackoff;
+
+    /** Longest time closing waits for operations in flight before closing the connections. */
+    private final Duration drainTimeout;
+
+    /**
+     * Constructs a new {@code LifecycleConfig} with default settings.
+     *
+     * <p>Default values:</p>
+     * <ul>
+     *     <li>{@code warmup} = {@code true}</li>
+     *     <li>{@code healthCheckInterval} = 10 seconds</li>
+     *     <li>{@code initialBackoff} = 100 milliseconds</li>
+     *     <li>{@code maxBackoff} = 30 seconds</li>
+     *     <li>{@code drainTimeout} = 5 seconds</li>
+     * </ul>
+     */
+    public LifecycleConfig() {
+        this.warmup = true;
+        this.healthCheckInterval = Duration.ofSeconds(10);
+        this.initialBackoff = Duration.ofMillis(100);
+        this.maxBackoff = Duration.ofSeconds(30);
+        this.drainTimeout = Duration.ofSeconds(5);
+    }
+
+    /**
+     * Constructs a new {@code LifecycleConfig} with the specified settings.
+     *
+     * @param warmup              whether the idle connections are opened at startup
+     * @param healthCheckInterval the time between health probes, or {@link Duration#ZERO} to disable them
+     * @param initialBackoff      the delay before the first reconnection attempt
+     * @param maxBackoff          the upper bound of the delay between reconnection attempts
+     * @param drainTimeout        the longest time closing waits for operations in flight
+     */
+    public LifecycleConfig(boolean warmup, Duration healthCheckInterval, Duration initialBackoff, Duration maxBackoff,
+                           Duration drainTimeout) {
+        this.warmup = warmup;
+        this.healthCheckInterval = healthCheckInterval;
+        this.initialBackoff = initialBackoff;
+        this.maxBackoff = maxBackoff;
+        this.drainTimeout = drainTimeout;
+    }
+
+    /**
+     * Returns whether the idle connections are opened at startup.
+     *
+     * @return {@code true} to warm the connections eagerly
+     */
+    public boolean isWarmup() {
+        return warmup;
+    }
+
+    /**
+     * Returns the time between health probes.
+     *
+     * @return the interval, or {@link Duration#ZERO} if probing is disabled
+     */
+    public Duration getHealthCheckInterval() {
+        return healthCheckInterval;
+    }
+
+    /**
+     * Returns the delay before the first reconnection attempt.
+     *
+     * @return the initial backoff
+     */
+    public Duration getInitialBackoff() {
+        return initialBackoff;
+    }
+
+    /**
+     * Returns the upper bound of the delay between reconnection attempts.
+     *
+     * @return the maximum backoff
+     */
+    public Duration getMaxBackoff() {
+        return maxBackoff;
+    }
+
+    /**
+     * Returns the longest time closing waits for operations in flight.
+     *
+     * @return the drain timeout
+     */
+    public Duration getDrainTimeout() {
+        return drainTimeout;
+    }
+}
@@ -0,0 +1,59 @@
+package com.phylax.lib.config;
+
+/**
+ * Configuration class for in-memory caches keyed by primitive {@code long} identifiers.
+ *
+ * <p>This class is immutable and holds the maximum number of entries of the cache
+ * and the number of shards it is split into. Unlike {@link InMemoryCacheConfig}, the
+ * capacity is an entry count: the cache allocates its arrays for it up front.</p>
+ */
+public final class LongKeyCacheConfig {
+
+    /** Maximum number of entries held by the cache. */
+    private final int maxEntries;
+
+    /** Number of independently locked shards the cache is partitioned into. */
+    private final int shardCount;
+
+    /**
+     * Constructs a new {@code LongKeyCacheConfig} with the given capacity.
+     *
+     * <p>The shard count defaults to the number of available processors.</p>
+     *
+     * @param maxEntries the maximum number of entries held by the cache
+     */
+    public LongKeyCacheConfig(int maxEntries) {
+        this.maxEntries = maxEntries;
+        this.shardCount = Runtime.getRuntime().availableProcessors();
+    }
+
+    /**
+     * Constructs a new {@code LongKeyCacheConfig} with every setting specified.
+     *
+     * @param maxEntries the maximum number of entries held by the cache
+     * @param shardCount the number of shards keys are distributed over by hash;
+     *                   rounded up to a power of two
+     */
+    public LongKeyCacheConfig(int maxEntries, int shardCount) {
+        this.maxEntries = maxEntries;
+        this.shardCount = shardCount;
+    }
+
+    /**
+     * Returns the maximum number of entries.
+     *
+     * @return the entry limit
+     */
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+
+    /**
+     * Returns the number of shards the cache is partitioned into.
+     *
+     * @return the shard count
+     */
+    public int getShardCount() {
+        return shardCount;
+    }
+}
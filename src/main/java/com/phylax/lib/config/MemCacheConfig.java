@@ -1,19 +1,22 @@
 package com.phylax.lib.config;
 
+import java.util.List;
+
 /**
- * Immutable configuration class for connecting to a Memcached server.
+ * Immutable configuration class for connecting to Memcached servers.
  * <p>
  * This class encapsulates all necessary information to establish a connection
- * to a Memcached server, including host, port, operation timeout, and connection pool size.
+ * to one or more Memcached servers, including their addresses and weights, operation
+ * timeout, connection pool size and protocol options.
  * All fields are {@code final}, making instances immutable and thread-safe.
+ * <p>
+ * Keys are spread over the servers by Ketama consistent hashing, so that adding or
+ * removing a server only remaps the keys of its share of the ring.
  */
 public final class MemCacheConfig {
 
-    /** The Memcached server hostname or IP address. */
-    private final String host;
-
-    /** The Memcached server port number. */
-    private final int port;
+    /** The Memcached servers, with their weights. */
+    private final List<MemCacheServer> servers;
 
     /** Operation timeout in milliseconds for Memcached operations. */
     private final long timeOut;
@@ -23,6 +26,12 @@ public final class MemCacheConfig {
 
     private final int ttl;
 
+    /** Whether the binary protocol is used instead of the text protocol. */
+    private final boolean binaryProtocol;
+
+    /** Whether writes and deletes are sent without waiting for a reply. */
+    private final boolean noReply;
+
     /**
      * Constructs a {@code MemCacheConfig} with default timeout and pool size.
      * <p>
@@ -32,11 +41,12 @@ public final class MemCacheConfig {
      * @param host the Memcached server hostname or IP address
      */
     public MemCacheConfig(int port, String host) {
-        this.port = port;
-        this.host = host;
+        this.servers = List.of(new MemCacheServer(host, port));
         this.timeOut = 2000;
         this.poolSize = 1;
         this.ttl = 300000;
+        this.binaryProtocol = false;
+        this.noReply = false;
     }
 
     /**
@@ -49,29 +59,62 @@ public final class MemCacheConfig {
      * @param ttl time to live in milliseconds
      */
     public MemCacheConfig(String host, int port, long timeOut, int poolSize, int ttl) {
-        this.host = host;
-        this.port = port;
+        this(List.of(new MemCacheServer(host, port)), timeOut, poolSize, ttl, false, false);
+    }
+
+    /**
+     * Constructs a {@code MemCacheConfig} for several servers.
+     * <p>
+     * With {@code noReply}, {@code write} and {@code delete} return as soon as the command
+     * is sent: failures on the server are not reported, and a read right after a write
+     * may still miss it on another connection.
+     *
+     * @param servers the Memcached servers, at least one
+     * @param timeOut the operation timeout in milliseconds
+     * @param poolSize the number of connections to each server
+     * @param ttl time to live in milliseconds
+     * @param binaryProtocol whether to use the binary protocol instead of the text protocol
+     * @param noReply whether to send writes and deletes without waiting for a reply
+     */
+    public MemCacheConfig(List<MemCacheServer> servers, long timeOut, int poolSize, int ttl,
+                          boolean binaryProtocol, boolean noReply) {
+
+        if (servers.isEmpty()) {
+            throw new IllegalArgumentException("At least one Memcached server is required");
+        }
+        this.servers = List.copyOf(servers);
         this.timeOut = timeOut;
         this.poolSize = poolSize;
         this.ttl = ttl;
+        this.binaryProtocol = binaryProtocol;
+        this.noReply = noReply;
     }
 
     /**
-     * Returns the Memcached server hostname.
+     * Returns the hostname of the first Memcached server.
      *
      * @return the host
      */
     public String getHost() {
-        return host;
+        return servers.get(0).getHost();
     }
 
     /**
-     * Returns the Memcached server port.
+     * Returns the port of the first Memcached server.
      *
      * @return the port
      */
     public int getPort() {
-        return port;
+        return servers.get(0).getPort();
+    }
+
+    /**
+     * Returns the Memcached servers.
+     *
+     * @return the servers, never empty
+     */
+    public List<MemCacheServer> getServers() {
+        return servers;
     }
 
     /**
@@ -101,5 +144,23 @@ public final class MemCacheConfig {
     public int getTTL() {
         return ttl;
     }
+
+    /**
+     * Returns whether the binary protocol is used.
+     *
+     * @return {@code true} for the binary protocol
+     */
+    public boolean isBinaryProtocol() {
+        return binaryProtocol;
+    }
+
+    /**
+     * Returns whether writes and deletes are sent without waiting for a reply.
+     *
+     * @return {@code true} for fire-and-forget writes
+     */
+    public boolean isNoReply() {
+        return noReply;
+    }
 }
 
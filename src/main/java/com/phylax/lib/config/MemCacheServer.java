@@ -0,0 +1,80 @@
+package com.phylax.lib.config;
+
+/**
+ * Immutable address and weight of a single Memcached server.
+ * <p>
+ * The weight sets the share of the keys the server receives relative to the other
+ * servers of a {@link MemCacheConfig}: a server of weight 2 gets twice as many points on
+ * the consistent hash ring, and so about twice as many keys, as a server of weight 1.
+ * </p>
+ */
+public final class MemCacheServer {
+
+    /** The Memcached server hostname or IP address. */
+    private final String host;
+
+    /** The Memcached server port number. */
+    private final int port;
+
+    /** Relative share of the keys; at least 1. */
+    private final int weight;
+
+    /**
+     * Constructs a {@code MemCacheServer} of weight 1.
+     *
+     * @param host the Memcached server hostname or IP address
+     * @param port the Memcached server port number
+     */
+    public MemCacheServer(String host, int port) {
+        this(host, port, 1);
+    }
+
+    /**
+     * Constructs a {@code MemCacheServer}.
+     *
+     * @param host the Memcached server hostname or IP address
+     * @param port the Memcached server port number
+     * @param weight the relative share of the keys, at least 1
+     */
+    public MemCacheServer(String host, int port, int weight) {
+
+        if (weight < 1) {
+            throw new IllegalArgumentException("weight must be at least 1");
+        }
+        this.host = host;
+        this.port = port;
+        this.weight = weight;
+    }
+
+    /**
+     * Returns the Memcached server hostname.
+     *
+     * @return the host
+     */
+    public String getHost() {
+        return host;
+    }
+
+    /**
+     * Returns the Memcached server port.
+     *
+     * @return the port
+     */
+    public int getPort() {
+        return port;
+    }
+
+    /**
+     * Returns the relative share of the keys.
+     *
+     * @return the weight
+     */
+    public int getWeight() {
+        return weight;
+    }
+
+    @Override
+    public String toString() {
+        return this.host + ":" + this.port;
+    }
+}
@@ -0,0 +1,98 @@
+package com.phylax.lib.config;
+
+import java.time.Duration;
+
+/**
+ * Configuration class for the key namespace of a remote cache.
+ *
+ * <p>This class is immutable and holds the name prefixed to every key of the cache,
+ * so that several caches can share a server, and how {@code clear()} removes the
+ * entries of the namespace instead of flushing the whole server.</p>
+ */
+public final class NamespaceConfig {
+
+    /** Prefix of every key of the cache; printable ASCII without spaces. */
+    private final String name;
+
+    /** How {@code clear()} removes the entries of the namespace. */
+    private final ClearStrategy clearStrategy;
+
+    /** Number of keys requested from each {@code SCAN} and removed by each {@code UNLINK}. */
+    private final int scanBatchSize;
+
+    /** How long a generation read from the server is used before it is read again. */
+    private final Duration generationRefresh;
+
+    /**
+     * Constructs a new {@code NamespaceConfig} with default settings.
+     *
+     * <p>Default values:</p>
+     * <ul>
+     *     <li>{@code clearStrategy} = {@link ClearStrategy#GENERATION}</li>
+     *     <li>{@code scanBatchSize} = 500</li>
+     *     <li>{@code generationRefresh} = 1 second</li>
+     * </ul>
+     *
+     * @param name the prefix of every key of the cache
+     */
+    public NamespaceConfig(String name) {
+        this(name, ClearStrategy.GENERATION, 500, Duration.ofSeconds(1));
+    }
+
+    /**
+     * Constructs a new {@code NamespaceConfig} with the specified settings.
+     *
+     * @param name              the prefix of every key of the cache; printable ASCII without spaces
+     * @param clearStrategy     how {@code clear()} removes the entries of the namespace
+     * @param scanBatchSize     the number of keys scanned and unlinked per batch
+     * @param generationRefresh how long a generation is used before it is read again, which
+     *                          bounds how long a clear by another process goes unnoticed
+     * @throws IllegalArgumentException if the name is empty or not printable ASCII
+     */
+    public NamespaceConfig(String name, ClearStrategy clearStrategy, int scanBatchSize, Duration generationRefresh) {
+
+        if (name.isEmpty() || !name.chars().allMatch(c -> c > ' ' && c < 0x7F)) {
+            throw new IllegalArgumentException("Namespace must be non-empty printable ASCII without spaces");
+        }
+        this.name = name;
+        this.clearStrategy = clearStrategy;
+        this.scanBatchSize = scanBatchSize;
+        this.generationRefresh = generationRefresh;
+    }
+
+    /**
+     * Returns the prefix of every key of the cache.
+     *
+     * @return the namespace name
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Returns how {@code clear()} removes the entries of the namespace.
+     *
+     * @return the clear strategy
+     */
+    public ClearStrategy getClearStrategy() {
+        return clearStrategy;
+    }
+
+    /**
+     * Returns the number of keys scanned and unlinked per batch.
+     *
+     * @return the batch size
+     */
+    public int getScanBatchSize() {
+        return scanBatchSize;
+    }
+
+    /**
+     * Returns how long a generation is used before it is read again.
+     *
+     * @return the refresh interval
+     */
+    public Duration getGenerationRefresh() {
+        return generationRefresh;
+    }
+}
@@ -0,0 +1,109 @@
+package com.phylax.lib.config;
+
+/**
+ * Configuration class for off-heap cache settings.
+ *
+ * <p>This class is immutable and holds the native memory budget of the cache,
+ * the maximum number of entries it indexes, the slab page size used to carve
+ * that memory into size classes and the number of shards it is split into.</p>
+ */
+public final class OffHeapCacheConfig {
+
+    private static final int DEFAULT_PAGE_SIZE = 256 * 1024;
+
+    /** Maximum number of bytes of native memory used for entries. */
+    private final long capacityBytes;
+
+    /** Maximum number of entries held by the cache. */
+    private final long maxEntries;
+
+    /** Size in bytes of each slab page; also the largest entry that can be stored. */
+    private final int pageSize;
+
+    /** Number of independently locked shards the cache is partitioned into. */
+    private final int shardCount;
+
+    /**
+     * Constructs a new {@code OffHeapCacheConfig} with default settings.
+     *
+     * <p>Default values:</p>
+     * <ul>
+     *     <li>{@code capacityBytes} = 256 MiB</li>
+     *     <li>{@code maxEntries} = 1,000,000</li>
+     *     <li>{@code pageSize} = 256 KiB, leaving each shard several pages per size class</li>
+     *     <li>{@code shardCount} = number of available processors</li>
+     * </ul>
+     */
+    public OffHeapCacheConfig() {
+        this.capacityBytes = 256L * 1024 * 1024;
+        this.maxEntries = 1_000_000L;
+        this.pageSize = DEFAULT_PAGE_SIZE;
+        this.shardCount = Runtime.getRuntime().availableProcessors();
+    }
+
+    /**
+     * Constructs a new {@code OffHeapCacheConfig} with a custom memory budget and entry limit.
+     *
+     * @param capacityBytes the maximum number of bytes of native memory used for entries
+     * @param maxEntries    the maximum number of entries held by the cache
+     */
+    public OffHeapCacheConfig(long capacityBytes, long maxEntries) {
+        this.capacityBytes = capacityBytes;
+        this.maxEntries = maxEntries;
+        this.pageSize = DEFAULT_PAGE_SIZE;
+        this.shardCount = Runtime.getRuntime().availableProcessors();
+    }
+
+    /**
+     * Constructs a new {@code OffHeapCacheConfig} with every setting specified.
+     *
+     * @param capacityBytes the maximum number of bytes of native memory used for entries
+     * @param maxEntries    the maximum number of entries held by the cache
+     * @param pageSize      the slab page size in bytes, rounded up to a power of two;
+     *                      entries larger than a page are not cached
+     * @param shardCount    the number of shards keys are distributed over by hash;
+     *                      rounded up to a power of two
+     */
+    public OffHeapCacheConfig(long capacityBytes, long maxEntries, int pageSize, int shardCount) {
+        this.capacityBytes = capacityBytes;
+        this.maxEntries = maxEntries;
+        this.pageSize = pageSize;
+        this.shardCount = shardCount;
+    }
+
+    /**
+     * Returns the native memory budget.
+     *
+     * @return the capacity in bytes
+     */
+    public long getCapacityBytes() {
+        return capacityBytes;
+    }
+
+    /**
+     * Returns the maximum number of entries.
+     *
+     * @return the entry limit
+     */
+    public long getMaxEntries() {
+        return maxEntries;
+    }
+
+    /**
+     * Returns the slab page size.
+     *
+     * @return the page size in bytes
+     */
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    /**
+     * Returns the number of shards the cache is partitioned into.
+     *
+     * @return the shard count
+     */
+    public int getShardCount() {
+        return shardCount;
+    }
+}
@@ -0,0 +1,80 @@
+package com.phylax.lib.config;
+
+import java.time.Duration;
+
+/**
+ * Configuration class for automatic pipelining of Redis commands.
+ *
+ * <p>This class is immutable and holds how many shared connections carry the
+ * pipelined commands, how many commands are sent in one pipeline, and how long a
+ * connection waits for more commands before sending what it has.</p>
+ */
+public final class PipelineConfig {
+
+    /** Number of shared connections, each taken from the pool for the lifetime of the cache. */
+    private final int connections;
+
+    /** Maximum number of commands sent in one pipeline. */
+    private final int maxBatchSize;
+
+    /** Time a connection waits for further commands once one is queued; {@link Duration#ZERO} to send at once. */
+    private final Duration lingerTime;
+
+    /**
+     * Constructs a new {@code PipelineConfig} with default settings.
+     *
+     * <p>Default values:</p>
+     * <ul>
+     *     <li>{@code connections} = 2</li>
+     *     <li>{@code maxBatchSize} = 256</li>
+     *     <li>{@code lingerTime} = {@link Duration#ZERO} (commands queued while a pipeline
+     *     is in flight form the next one)</li>
+     * </ul>
+     */
+    public PipelineConfig() {
+        this.connections = 2;
+        this.maxBatchSize = 256;
+        this.lingerTime = Duration.ZERO;
+    }
+
+    /**
+     * Constructs a new {@code PipelineConfig} with the specified settings.
+     *
+     * @param connections  the number of shared connections carrying the pipelines
+     * @param maxBatchSize the maximum number of commands sent in one pipeline
+     * @param lingerTime   the time a connection waits for further commands once one is queued;
+     *                     trades latency for larger pipelines at low concurrency
+     */
+    public PipelineConfig(int connections, int maxBatchSize, Duration lingerTime) {
+        this.connections = connections;
+        this.maxBatchSize = maxBatchSize;
+        this.lingerTime = lingerTime;
+    }
+
+    /**
+     * Returns the number of shared connections.
+     *
+     * @return the connection count
+     */
+    public int getConnections() {
+        return connections;
+    }
+
+    /**
+     * Returns the maximum number of commands sent in one pipeline.
+     *
+     * @return the maximum batch size
+     */
+    public int getMaxBatchSize() {
+        return maxBatchSize;
+    }
+
+    /**
+     * Returns the time a connection waits for further commands.
+     *
+     * @return the linger time, or {@link Duration#ZERO} if commands are sent at once
+     */
+    public Duration getLingerTime() {
+        return lingerTime;
+    }
+}
@@ -1,11 +1,17 @@
 package com.phylax.lib.config;
 
+import java.util.List;
+
 /**
  * Immutable configuration class for Redis connection settings.
  * <p>
  * This class encapsulates all necessary information to connect to a Redis server,
  * including host, port, timeout, database index, connection pool configuration,
  * and credentials. All fields are {@code final}, making instances immutable and thread-safe.
+ * <p>
+ * A configuration may list several endpoints, which the {@link RedisMode} turns into a
+ * Redis Cluster or a set of consistently hashed shards. {@link #getHost()} and
+ * {@link #getPort()} then describe the first endpoint.
  */
 public final class RedisConfig {
 
@@ -15,6 +21,12 @@ public final class RedisConfig {
     /** The Redis server port number. */
     private final int port;
 
+    /** All Redis servers, starting with {@link #host}:{@link #port}. */
+    private final List<RedisEndpoint> endpoints;
+
+    /** How keys are spread over the endpoints. */
+    private final RedisMode mode;
+
     /** The Redis server to use SSL or not. */
     private final boolean useSSL;
 
@@ -36,6 +48,7 @@ public final class RedisConfig {
      *
      * <p>Default values:</p>
      * <ul>
+     *     <li>{@code mode} = {@link RedisMode#STANDALONE}</li>
      *     <li>{@code timeOut} = 2000 milliseconds</li>
      *     <li>{@code dataBaseIndex} = 0</li>
      *     <li>{@code poolConfig} = {@code null}</li>
@@ -48,6 +61,8 @@ public final class RedisConfig {
     public RedisConfig(String host, int port, PoolConfig poolConfig, CredentialConfig credentialConfig) {
         this.host = host;
         this.port = port;
+        this.endpoints = List.of(new RedisEndpoint(host, port));
+        this.mode = RedisMode.STANDALONE;
         this.useSSL = false;
         this.timeOut = 2000;
         this.dataBaseIndex = 0;
@@ -69,6 +84,37 @@ public final class RedisConfig {
     public RedisConfig(String host, int port, boolean useSSL, long timeOut, int dataBaseIndex, PoolConfig poolConfig, CredentialConfig credentialConfig) {
         this.host = host;
         this.port = port;
+        this.endpoints = List.of(new RedisEndpoint(host, port));
+        this.mode = RedisMode.STANDALONE;
+        this.useSSL = useSSL;
+        this.timeOut = timeOut;
+        this.dataBaseIndex = dataBaseIndex;
+        this.poolConfig = poolConfig;
+        this.credentialConfig = credentialConfig;
+    }
+
+    /**
+     * Constructs a {@code RedisConfig} spanning several Redis servers.
+     *
+     * @param endpoints the Redis servers; in {@link RedisMode#CLUSTER} mode the seed nodes
+     *                  the cluster layout is discovered from
+     * @param mode how keys are spread over the endpoints
+     * @param useSSL the Redis servers use SSL or TLS
+     * @param timeOut the connection timeout in milliseconds
+     * @param dataBaseIndex the Redis database index to connect to; must be 0 in cluster mode
+     * @param poolConfig the connection pool configuration, applied to each server
+     * @param credentialConfig the credentials for authentication
+     */
+    public RedisConfig(List<RedisEndpoint> endpoints, RedisMode mode, boolean useSSL, long timeOut, int dataBaseIndex,
+                       PoolConfig poolConfig, CredentialConfig credentialConfig) {
+
+        if (endpoints.isEmpty()) {
+            throw new IllegalArgumentException("At least one endpoint is required");
+        }
+        this.host = endpoints.getFirst().getHost();
+        this.port = endpoints.getFirst().getPort();
+        this.endpoints = List.copyOf(endpoints);
+        this.mode = mode;
         this.useSSL = useSSL;
         this.timeOut = timeOut;
         this.dataBaseIndex = dataBaseIndex;
@@ -94,6 +140,24 @@ public final class RedisConfig {
         return port;
     }
 
+    /**
+     * Returns all configured Redis servers.
+     *
+     * @return the endpoints, starting with {@link #getHost()}:{@link #getPort()}
+     */
+    public List<RedisEndpoint> getEndpoints() {
+        return endpoints;
+    }
+
+    /**
+     * Returns how keys are spread over the endpoints.
+     *
+     * @return the mode
+     */
+    public RedisMode getMode() {
+        return mode;
+    }
+
     /**
      * Returns whether SSL/TLS is enabled for the Redis connection.
      *
@@ -0,0 +1,57 @@
+package com.phylax.lib.config;
+
+/**
+ * Immutable address of a single Redis server.
+ */
+public final class RedisEndpoint {
+
+    /** The Redis server hostname or IP address. */
+    private final String host;
+
+    /** The Redis server port number. */
+    private final int port;
+
+    /**
+     * Constructs a new {@code RedisEndpoint}.
+     *
+     * @param host the Redis server hostname or IP address
+     * @param port the Redis server port number
+     */
+    public RedisEndpoint(String host, int port) {
+        this.host = host;
+        this.port = port;
+    }
+
+    /**
+     * Returns the Redis server host.
+     *
+     * @return the host
+     */
+    public String getHost() {
+        return host;
+    }
+
+    /**
+     * Returns the Redis server port.
+     *
+     * @return the port
+     */
+    public int getPort() {
+        return port;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof RedisEndpoint endpoint && this.port == endpoint.port && this.host.equals(endpoint.host);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * this.host.hashCode() + this.port;
+    }
+
+    @Override
+    public String toString() {
+        return this.host + ":" + this.port;
+    }
+}
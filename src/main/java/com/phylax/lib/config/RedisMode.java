@@ -0,0 +1,26 @@
+package com.phylax.lib.config;
+
+/**
+ * How a {@link com.phylax.lib.connector.RedisConnectionManager} spreads keys over the
+ * endpoints of a {@link RedisConfig}.
+ */
+public enum RedisMode {
+
+    /**
+     * A single Redis server; only the first endpoint is used.
+     */
+    STANDALONE,
+
+    /**
+     * A Redis Cluster. The endpoints are seed nodes from which the slot map is read;
+     * every key is sent to the master owning its hash slot, and the map is refreshed
+     * when a node answers with a redirection.
+     */
+    CLUSTER,
+
+    /**
+     * Independent Redis servers sharing the keys by consistent hashing, so that adding
+     * or removing a server only moves the keys of its share of the ring.
+     */
+    SHARDED
+}
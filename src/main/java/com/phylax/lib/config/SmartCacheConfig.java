@@ -0,0 +1,205 @@
+package com.phylax.lib.config;
+
+import java.time.Duration;
+
+/**
+ * Configuration class for {@link com.phylax.lib.cache.SmartCache} settings.
+ *
+ * <p>This class is immutable and holds the refresh-ahead policy of the cache: the
+ * age after which a value read through a loader is reloaded in the background, the
+ * size of the bounded pool running those reloads, and how many keys the cache keeps
+ * write times for. It also holds the negative caching policy: how long and for how
+ * many keys a confirmed miss is remembered locally, and the optional
+ * {@link WriteBehindConfig} buffering writes to the remote tier.</p>
+ */
+public final class SmartCacheConfig {
+
+    /** Age after which a value is reloaded in the background; {@link Duration#ZERO} if disabled. */
+    private final Duration refreshAfterWrite;
+
+    /** Number of threads running background reloads. */
+    private final int refreshThreads;
+
+    /** Maximum number of reloads waiting for a thread; further reloads are skipped. */
+    private final int refreshQueueCapacity;
+
+    /** Maximum number of keys whose write time is tracked. */
+    private final int maxTrackedKeys;
+
+    /** Time a confirmed miss is remembered; {@link Duration#ZERO} if disabled. */
+    private final Duration negativeTtl;
+
+    /** Maximum number of misses remembered at once. */
+    private final int maxNegativeEntries;
+
+    /** Write-behind settings of the remote tier; {@code null} to write through. */
+    private final WriteBehindConfig writeBehindConfig;
+
+    /**
+     * Constructs a new {@code SmartCacheConfig} with default settings.
+     *
+     * <p>Default values:</p>
+     * <ul>
+     *     <li>{@code refreshAfterWrite} = {@link Duration#ZERO} (refresh-ahead disabled)</li>
+     *     <li>{@code refreshThreads} = 2</li>
+     *     <li>{@code refreshQueueCapacity} = 1,024</li>
+     *     <li>{@code maxTrackedKeys} = 100,000</li>
+     *     <li>{@code negativeTtl} = {@link Duration#ZERO} (negative caching disabled)</li>
+     *     <li>{@code maxNegativeEntries} = 10,000</li>
+     *     <li>{@code writeBehindConfig} = {@code null} (write-through)</li>
+     * </ul>
+     */
+    public SmartCacheConfig() {
+        this(Duration.ZERO);
+    }
+
+    /**
+     * Constructs a new {@code SmartCacheConfig} with refresh-ahead enabled after the given age.
+     *
+     * @param refreshAfterWrite the age after which a value is reloaded in the background;
+     *                          {@link Duration#ZERO} disables refresh-ahead
+     */
+    public SmartCacheConfig(Duration refreshAfterWrite) {
+        this.refreshAfterWrite = refreshAfterWrite;
+        this.refreshThreads = 2;
+        this.refreshQueueCapacity = 1024;
+        this.maxTrackedKeys = 100_000;
+        this.negativeTtl = Duration.ZERO;
+        this.maxNegativeEntries = 10_000;
+        this.writeBehindConfig = null;
+    }
+
+    /**
+     * Constructs a new {@code SmartCacheConfig} with every refresh setting specified.
+     *
+     * @param refreshAfterWrite    the age after which a value is reloaded in the background;
+     *                             should be shorter than the time to live of the tiers
+     * @param refreshThreads       the number of threads running background reloads
+     * @param refreshQueueCapacity the maximum number of reloads waiting for a thread;
+     *                             reloads beyond it are skipped and retried on a later read
+     * @param maxTrackedKeys       the maximum number of keys whose write time is tracked;
+     *                             the least recently used are forgotten first
+     */
+    public SmartCacheConfig(Duration refreshAfterWrite, int refreshThreads, int refreshQueueCapacity, int maxTrackedKeys) {
+        this.refreshAfterWrite = refreshAfterWrite;
+        this.refreshThreads = refreshThreads;
+        this.refreshQueueCapacity = refreshQueueCapacity;
+        this.maxTrackedKeys = maxTrackedKeys;
+        this.negativeTtl = Duration.ZERO;
+        this.maxNegativeEntries = 10_000;
+        this.writeBehindConfig = null;
+    }
+
+    /**
+     * Constructs a new {@code SmartCacheConfig} with every refresh and negative caching setting specified.
+     *
+     * @param refreshAfterWrite    the age after which a value is reloaded in the background;
+     *                             {@link Duration#ZERO} disables refresh-ahead
+     * @param refreshThreads       the number of threads running background reloads
+     * @param refreshQueueCapacity the maximum number of reloads waiting for a thread
+     * @param maxTrackedKeys       the maximum number of keys whose write time is tracked
+     * @param negativeTtl          the time a confirmed miss is remembered, during which reads
+     *                             of the key return empty without a network call;
+     *                             {@link Duration#ZERO} disables negative caching
+     * @param maxNegativeEntries   the maximum number of misses remembered at once;
+     *                             the least recently used are forgotten first
+     */
+    public SmartCacheConfig(Duration refreshAfterWrite, int refreshThreads, int refreshQueueCapacity, int maxTrackedKeys,
+                            Duration negativeTtl, int maxNegativeEntries) {
+        this.refreshAfterWrite = refreshAfterWrite;
+        this.refreshThreads = refreshThreads;
+        this.refreshQueueCapacity = refreshQueueCapacity;
+        this.maxTrackedKeys = maxTrackedKeys;
+        this.negativeTtl = negativeTtl;
+        this.maxNegativeEntries = maxNegativeEntries;
+        this.writeBehindConfig = null;
+    }
+
+    /**
+     * Constructs a new {@code SmartCacheConfig} with every setting specified.
+     *
+     * @param refreshAfterWrite    the age after which a value is reloaded in the background;
+     *                             {@link Duration#ZERO} disables refresh-ahead
+     * @param refreshThreads       the number of threads running background reloads
+     * @param refreshQueueCapacity the maximum number of reloads waiting for a thread
+     * @param maxTrackedKeys       the maximum number of keys whose write time is tracked
+     * @param negativeTtl          the time a confirmed miss is remembered;
+     *                             {@link Duration#ZERO} disables negative caching
+     * @param maxNegativeEntries   the maximum number of misses remembered at once
+     * @param writeBehindConfig    the write-behind settings of the remote tier, or
+     *                             {@code null} to write through
+     */
+    public SmartCacheConfig(Duration refreshAfterWrite, int refreshThreads, int refreshQueueCapacity, int maxTrackedKeys,
+                            Duration negativeTtl, int maxNegativeEntries, WriteBehindConfig writeBehindConfig) {
+        this.refreshAfterWrite = refreshAfterWrite;
+        this.refreshThreads = refreshThreads;
+        this.refreshQueueCapacity = refreshQueueCapacity;
+        this.maxTrackedKeys = maxTrackedKeys;
+        this.negativeTtl = negativeTtl;
+        this.maxNegativeEntries = maxNegativeEntries;
+        this.writeBehindConfig = writeBehindConfig;
+    }
+
+    /**
+     * Returns the age after which a value is reloaded in the background.
+     *
+     * @return the refresh threshold, or {@link Duration#ZERO} if disabled
+     */
+    public Duration getRefreshAfterWrite() {
+        return refreshAfterWrite;
+    }
+
+    /**
+     * Returns the number of threads running background reloads.
+     *
+     * @return the refresh pool size
+     */
+    public int getRefreshThreads() {
+        return refreshThreads;
+    }
+
+    /**
+     * Returns the maximum number of reloads waiting for a thread.
+     *
+     * @return the refresh queue capacity
+     */
+    public int getRefreshQueueCapacity() {
+        return refreshQueueCapacity;
+    }
+
+    /**
+     * Returns the maximum number of keys whose write time is tracked.
+     *
+     * @return the tracked key limit
+     */
+    public int getMaxTrackedKeys() {
+        return maxTrackedKeys;
+    }
+
+    /**
+     * Returns the time a confirmed miss is remembered.
+     *
+     * @return the negative time to live, or {@link Duration#ZERO} if disabled
+     */
+    public Duration getNegativeTtl() {
+        return negativeTtl;
+    }
+
+    /**
+     * Returns the maximum number of misses remembered at once.
+     *
+     * @return the negative entry limit
+     */
+    public int getMaxNegativeEntries() {
+        return maxNegativeEntries;
+    }
+
+    /**
+     * Returns the write-behind settings of the remote tier.
+     *
+     * @return the write-behind configuration, or {@code null} if writes go through
+     */
+    public WriteBehindConfig getWriteBehindConfig() {
+        return writeBehindConfig;
+    }
+}
@@ -0,0 +1,80 @@
+package com.phylax.lib.config;
+
+import java.time.Duration;
+
+/**
+ * Configuration class for write-behind of the remote tier.
+ *
+ * <p>This class is immutable and holds how long remote writes and deletes may be
+ * buffered before they are flushed, how many of them are sent in one batch, and
+ * how many keys may be pending before writers are made to wait.</p>
+ */
+public final class WriteBehindConfig {
+
+    /** Maximum time an operation waits in the buffer before it is flushed. */
+    private final Duration flushInterval;
+
+    /** Number of pending keys that triggers a flush, and the largest batch sent at once. */
+    private final int maxBatchSize;
+
+    /** Maximum number of pending keys; writers of further keys block until there is room. */
+    private final int capacity;
+
+    /**
+     * Constructs a new {@code WriteBehindConfig} with default settings.
+     *
+     * <p>Default values:</p>
+     * <ul>
+     *     <li>{@code flushInterval} = 100 milliseconds</li>
+     *     <li>{@code maxBatchSize} = 500</li>
+     *     <li>{@code capacity} = 10,000</li>
+     * </ul>
+     */
+    public WriteBehindConfig() {
+        this.flushInterval = Duration.ofMillis(100);
+        this.maxBatchSize = 500;
+        this.capacity = 10_000;
+    }
+
+    /**
+     * Constructs a new {@code WriteBehindConfig} with the specified settings.
+     *
+     * @param flushInterval the maximum time an operation waits in the buffer before it is flushed
+     * @param maxBatchSize  the number of pending keys that triggers a flush, and the largest
+     *                      batch sent at once
+     * @param capacity      the maximum number of pending keys; writers of further keys block
+     *                      until a flush makes room
+     */
+    public WriteBehindConfig(Duration flushInterval, int maxBatchSize, int capacity) {
+        this.flushInterval = flushInterval;
+        this.maxBatchSize = maxBatchSize;
+        this.capacity = capacity;
+    }
+
+    /**
+     * Returns the maximum time an operation waits in the buffer.
+     *
+     * @return the flush interval
+     */
+    public Duration getFlushInterval() {
+        return flushInterval;
+    }
+
+    /**
+     * Returns the number of pending keys that triggers a flush.
+     *
+     * @return the maximum batch size
+     */
+    public int getMaxBatchSize() {
+        return maxBatchSize;
+    }
+
+    /**
+     * Returns the maximum number of pending keys.
+     *
+     * @return the buffer capacity
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+}
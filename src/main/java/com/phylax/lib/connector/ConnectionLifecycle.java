@@ -0,0 +1,240 @@
+package com.phylax.lib.connector;
+
+import com.phylax.lib.config.LifecycleConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.IntSupplier;
+
+/**
+ * Lifecycle of the connections of a remote cache tier: warm-up, health probing,
+ * reconnection with backoff and drain on close.
+ * <p>
+ * At {@link #start()} the connections are opened eagerly, so that the first requests do
+ * not pay for connection setup. A daemon thread then probes the server at a fixed
+ * interval. After a failed probe it tries to reconnect, doubling the delay between
+ * attempts up to a maximum, with jitter so that many clients do not reconnect in step,
+ * until a probe succeeds again. {@link #close()} stops accepting operations, waits for
+ * the operations in flight up to the drain timeout and then closes the connections.
+ * </p>
+ */
+public final class ConnectionLifecycle implements AutoCloseable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ConnectionLifecycle.class);
+
+    private static final long DRAIN_POLL_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+    /**
+     * A step of the lifecycle that may fail, such as opening or probing connections.
+     */
+    @FunctionalInterface
+    interface Step {
+
+        void run() throws Exception;
+    }
+
+    /**
+     * An operation in flight, ended by {@link #close()}.
+     */
+    @FunctionalInterface
+    public interface Operation extends AutoCloseable {
+
+        @Override
+        void close();
+    }
+
+    private final String name;
+
+    private final LifecycleConfig config;
+
+    private final Step warmup;
+
+    private final Step probe;
+
+    private final Step reconnect;
+
+    private final IntSupplier busyConnections;
+
+    private final Runnable shutdown;
+
+    /**
+     * Runs the probes; {@code null} if probing is disabled.
+     */
+    private final ScheduledExecutorService scheduler;
+
+    private final AtomicInteger operations = new AtomicInteger();
+
+    private final Operation operation = this.operations::decrementAndGet;
+
+    private volatile boolean healthy = true;
+
+    private volatile boolean closed;
+
+    /**
+     * Delay before the next reconnection attempt; only used by the scheduler thread.
+     */
+    private long backoffNanos;
+
+    /**
+     * @param name            names the probing thread and the log messages
+     * @param warmup          opens the idle connections
+     * @param probe           fails if the server cannot be reached
+     * @param reconnect       replaces broken connections; may fail while the server is down
+     * @param busyConnections the number of connections currently borrowed, drained on close
+     * @param shutdown        closes all connections
+     */
+    ConnectionLifecycle(String name, LifecycleConfig config, Step warmup, Step probe, Step reconnect,
+                        IntSupplier busyConnections, Runnable shutdown) {
+        this.name = name;
+        this.config = config;
+        this.warmup = warmup;
+        this.probe = probe;
+        this.reconnect = reconnect;
+        this.busyConnections = busyConnections;
+        this.shutdown = shutdown;
+        this.backoffNanos = config.getInitialBackoff().toNanos();
+        this.scheduler = config.getHealthCheckInterval().isZero() ? null : Executors.newSingleThreadScheduledExecutor(task -> {
+            final Thread thread = new Thread(task, name + "-health");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Opens the connections if warm-up is enabled and starts probing. A failed warm-up is
+     * logged and treated as a failed probe, so the manager can be created while the server
+     * is down.
+     */
+    void start() {
+
+        if (this.config.isWarmup()) {
+
+            try {
+                this.warmup.run();
+            } catch (Exception e) {
+                LOGGER.warn("Unable to warm up {} connections", this.name, e);
+                this.healthy = false;
+            }
+        }
+
+        if (this.healthy) {
+            this.schedule(this.config.getHealthCheckInterval().toNanos());
+        } else {
+            this.schedule(0L);
+        }
+    }
+
+    /**
+     * Registers an operation, so that {@link #close()} waits for it.
+     *
+     * @return the operation, to be closed once it completed
+     * @throws IllegalStateException if the connections are closed
+     */
+    public Operation begin() {
+
+        if (!this.closed) {
+            this.operations.incrementAndGet();
+
+            if (!this.closed) {
+                return this.operation;
+            }
+            this.operations.decrementAndGet();
+        }
+        throw new IllegalStateException("The " + this.name + " connections are closed");
+    }
+
+    /**
+     * Whether the last probe reached the server.
+     *
+     * @return {@code false} while reconnecting
+     */
+    public boolean isHealthy() {
+        return this.healthy;
+    }
+
+    /**
+     * Stops probing, waits up to the drain timeout for operations in flight and closes
+     * the connections. Operations begun afterwards fail.
+     */
+    @Override
+    public void close() {
+
+        synchronized (this) {
+
+            if (this.closed) {
+                return;
+            }
+            this.closed = true;
+        }
+
+        if (this.scheduler != null) {
+            this.scheduler.shutdownNow();
+        }
+        final long deadline = System.nanoTime() + this.config.getDrainTimeout().toNanos();
+
+        while (this.operations.get() + this.busyConnections.getAsInt() > 0 && System.nanoTime() - deadline < 0) {
+            LockSupport.parkNanos(DRAIN_POLL_NANOS);
+        }
+        final int remaining = this.operations.get() + this.busyConnections.getAsInt();
+
+        if (remaining > 0) {
+            LOGGER.warn("Closing {} connections with {} operations still in flight", this.name, remaining);
+        }
+        this.shutdown.run();
+    }
+
+    private void check() {
+
+        if (this.closed) {
+            return;
+        }
+
+        try {
+            this.probe.run();
+
+            if (!this.healthy) {
+                LOGGER.info("Reconnected to {}", this.name);
+            }
+            this.healthy = true;
+            this.backoffNanos = this.config.getInitialBackoff().toNanos();
+            this.schedule(this.config.getHealthCheckInterval().toNanos());
+            return;
+
+        } catch (Exception e) {
+
+            if (this.healthy) {
+                LOGGER.warn("Health probe of {} failed, reconnecting", this.name, e);
+            }
+            this.healthy = false;
+        }
+
+        try {
+            this.reconnect.run();
+        } catch (Exception e) {
+            LOGGER.debug("Reconnection to {} failed", this.name, e);
+        }
+        final long delay = this.backoffNanos + ThreadLocalRandom.current().nextLong(this.backoffNanos / 2 + 1);
+        this.backoffNanos = Math.min(this.backoffNanos * 2, this.config.getMaxBackoff().toNanos());
+        this.schedule(delay);
+    }
+
+    private void schedule(long delayNanos) {
+
+        if (this.scheduler == null) {
+            return;
+        }
+
+        try {
+            this.scheduler.schedule(this::check, delayNanos, TimeUnit.NANOSECONDS);
+        } catch (RejectedExecutionException e) {
+            // Closed concurrently.
+        }
+    }
+}
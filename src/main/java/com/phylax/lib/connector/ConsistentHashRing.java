@@ -0,0 +1,99 @@
+package com.phylax.lib.connector;
+
+import com.phylax.lib.config.RedisEndpoint;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Maps keys to servers by consistent hashing.
+ * <p>
+ * Every server is placed on a 32-bit ring at 160 points derived from the MD5 of its
+ * address, as in Ketama; a key belongs to the server of the first point at or after the
+ * hash of the key. Removing a server only moves the keys that were on its points, and
+ * a server added at the end of the list only takes keys from the others.
+ * </p>
+ */
+final class ConsistentHashRing {
+
+    private static final int POINTS_PER_SERVER = 160;
+
+    /** Ring positions, ascending. */
+    private final long[] points;
+
+    /** Index of the server owning each position. */
+    private final int[] owners;
+
+    ConsistentHashRing(List<RedisEndpoint> endpoints) {
+        final long[][] entries = new long[endpoints.size() * POINTS_PER_SERVER][];
+        final MessageDigest md5 = md5();
+        int n = 0;
+
+        for (int server = 0; server < endpoints.size(); server++) {
+
+            for (int i = 0; i < POINTS_PER_SERVER / 4; i++) {
+                final byte[] digest = md5.digest((endpoints.get(server) + "-" + i).getBytes(StandardCharsets.UTF_8));
+
+                for (int h = 0; h < 4; h++) {
+                    final long point = ((long) (digest[3 + h * 4] & 0xFF) << 24)
+                            | ((long) (digest[2 + h * 4] & 0xFF) << 16)
+                            | ((long) (digest[1 + h * 4] & 0xFF) << 8)
+                            | (digest[h * 4] & 0xFF);
+                    entries[n++] = new long[] {point, server};
+                }
+            }
+        }
+        Arrays.sort(entries, (a, b) -> a[0] != b[0] ? Long.compare(a[0], b[0]) : Long.compare(a[1], b[1]));
+        this.points = new long[n];
+        this.owners = new int[n];
+
+        for (int i = 0; i < n; i++) {
+            this.points[i] = entries[i][0];
+            this.owners[i] = (int) entries[i][1];
+        }
+    }
+
+    /**
+     * Returns the index of the server owning the key.
+     *
+     * @param key the encoded key
+     * @return an index into the endpoint list the ring was built from
+     */
+    int serverFor(byte[] key) {
+        int i = Arrays.binarySearch(this.points, hash(key));
+
+        if (i < 0) {
+            i = -i - 1;
+        }
+        return this.owners[(i == this.points.length) ? 0 : i];
+    }
+
+    /**
+     * FNV-1a followed by the MurmurHash3 finalizer, spreading keys evenly over the ring.
+     */
+    private static long hash(byte[] key) {
+        int h = 0x811C9DC5;
+
+        for (byte b : key) {
+            h = (h ^ b) * 0x01000193;
+        }
+        h ^= h >>> 16;
+        h *= 0x85EBCA6B;
+        h ^= h >>> 13;
+        h *= 0xC2B2AE35;
+        h ^= h >>> 16;
+        return h & 0xFFFFFFFFL;
+    }
+
+    private static MessageDigest md5() {
+
+        try {
+            return MessageDigest.getInstance("MD5");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("MD5 is not available", e);
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.phylax.lib.connector;
+
+import com.phylax.lib.collection.MappedFileStore;
+import com.phylax.lib.config.DiskCacheConfig;
+import com.phylax.lib.contract.CanCacheManager;
+import com.phylax.lib.exception.DiskCacheException;
+
+import java.io.IOException;
+
+public class DiskCacheConnectionManager implements CanCacheManager<MappedFileStore> {
+
+    private final MappedFileStore mappedFileStore;
+
+    public DiskCacheConnectionManager(DiskCacheConfig config) {
+
+        try {
+            this.mappedFileStore = new MappedFileStore(
+                    config.getDirectory(),
+                    config.getSegmentSize(),
+                    config.getMaxBytes(),
+                    config.getCompactionThreshold(),
+                    config.getCompactionInterval()
+            );
+        } catch (IOException e) {
+            throw new DiskCacheException("Unable to open disk cache in " + config.getDirectory(), e);
+        }
+    }
+
+    @Override
+    public MappedFileStore getConnection() {
+        return this.mappedFileStore;
+    }
+
+    @Override
+    public void close() {
+        this.mappedFileStore.close();
+    }
+}
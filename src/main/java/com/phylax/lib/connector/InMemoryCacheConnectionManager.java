@@ -9,7 +9,8 @@ public class InMemoryCacheConnectionManager<K, V> implements CanCacheManager<LRU
     private final LRUCache<K, V> localCache;
 
     public InMemoryCacheConnectionManager(InMemoryCacheConfig config) {
-        this.localCache = new LRUCache<>(config.getCapacityFactor());
+        this.localCache = LRUCache.ofCapacityFactor(config.getCapacityFactor(), config.getShardCount(), config.getWeigher(),
+                config.getEvictionPolicy(), config.getExpireAfterAccess());
     }
 
     @Override
@@ -0,0 +1,19 @@
+package com.phylax.lib.connector;
+
+import com.phylax.lib.collection.LongKeyLRUCache;
+import com.phylax.lib.config.LongKeyCacheConfig;
+import com.phylax.lib.contract.CanCacheManager;
+
+public class LongKeyCacheConnectionManager<V> implements CanCacheManager<LongKeyLRUCache<V>> {
+
+    private final LongKeyLRUCache<V> localCache;
+
+    public LongKeyCacheConnectionManager(LongKeyCacheConfig config) {
+        this.localCache = new LongKeyLRUCache<>(config.getMaxEntries(), config.getShardCount());
+    }
+
+    @Override
+    public LongKeyLRUCache<V> getConnection() {
+        return this.localCache;
+    }
+}
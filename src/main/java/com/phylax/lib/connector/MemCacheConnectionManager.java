@@ -1,43 +1,145 @@
 package com.phylax.lib.connector;
 
+import com.phylax.lib.config.LifecycleConfig;
 import com.phylax.lib.config.MemCacheConfig;
+import com.phylax.lib.config.MemCacheServer;
 import com.phylax.lib.contract.CanCacheManager;
 import com.phylax.lib.exception.MemCacheException;
 import net.rubyeye.xmemcached.MemcachedClient;
 import net.rubyeye.xmemcached.MemcachedClientBuilder;
 import net.rubyeye.xmemcached.XMemcachedClientBuilder;
+import net.rubyeye.xmemcached.command.BinaryCommandFactory;
+import net.rubyeye.xmemcached.impl.KetamaMemcachedSessionLocator;
 
 import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 
+/**
+ * Owns the {@link MemcachedClient} of a Memcached tier.
+ * <p>
+ * The client opens its connections to every server when it is built; a
+ * {@link ConnectionLifecycle} then probes the servers in the background and adds back
+ * those whose connections were lost, with backoff. {@link #close()} waits for the
+ * operations begun through {@link #getLifecycle()} before shutting the client down.
+ * </p>
+ */
 public class MemCacheConnectionManager implements CanCacheManager<MemcachedClient> {
 
-    private MemcachedClient client = null;
+    private final MemcachedClient client;
+
+    private final boolean noReply;
+
+    private final List<MemCacheServer> servers;
+
+    private final List<InetSocketAddress> addresses;
+
+    private final ConnectionLifecycle lifecycle;
 
     public MemCacheConnectionManager(MemCacheConfig config) throws IOException {
+        this(config, new LifecycleConfig());
+    }
+
+    public MemCacheConnectionManager(MemCacheConfig config, LifecycleConfig lifecycleConfig) throws IOException {
+        this.noReply = config.isNoReply();
+        this.servers = config.getServers();
+        this.addresses = this.servers.stream()
+                .map(server -> new InetSocketAddress(server.getHost(), server.getPort()))
+                .toList();
 
         try {
-            final MemcachedClientBuilder builder = new XMemcachedClientBuilder(String.format("%s:%s", config.getHost(), config.getPort()));
+            final int[] weights = this.servers.stream().mapToInt(MemCacheServer::getWeight).toArray();
+            final MemcachedClientBuilder builder = new XMemcachedClientBuilder(this.addresses, weights);
+            // Ketama places each server on the ring in proportion to its weight, so a new
+            // server only takes over its own share of the keys.
+            builder.setSessionLocator(new KetamaMemcachedSessionLocator());
+
+            if (config.isBinaryProtocol()) {
+                builder.setCommandFactory(new BinaryCommandFactory());
+            }
             builder.setConnectionPoolSize(config.getPoolSize());
             builder.setOpTimeout(config.getTimeOut());
+            // Lost servers are added back by the lifecycle, with backoff instead of a fixed interval.
+            builder.setEnableHealSession(false);
             this.client = builder.build();
 
         } catch(IOException e) {
             throw new MemCacheException("Unable to connect to Mem");
-        } finally {
-
-            if(this.client != null) {
-
-                try {
-                    this.client.shutdown();
-                } catch (IOException e) {
-                    throw new MemCacheException(e);
-                }
-            }
         }
+        this.lifecycle = new ConnectionLifecycle("memcached", lifecycleConfig, this::probe, this::probe, this::reconnect,
+                () -> 0, this::shutdown);
+        this.lifecycle.start();
     }
 
     @Override
     public MemcachedClient getConnection() {
         return this.client;
     }
+
+    /**
+     * Whether writes and deletes should be sent without waiting for a reply.
+     */
+    public boolean isNoReply() {
+        return this.noReply;
+    }
+
+    /**
+     * Returns the lifecycle with which operations on the client register, so that
+     * {@link #close()} waits for them.
+     */
+    public ConnectionLifecycle getLifecycle() {
+        return this.lifecycle;
+    }
+
+    /**
+     * Whether the last health probe reached every server.
+     */
+    public boolean isHealthy() {
+        return this.lifecycle.isHealthy();
+    }
+
+    /**
+     * Waits for operations in flight, up to the drain timeout, and shuts the client down.
+     */
+    @Override
+    public void close() {
+        this.lifecycle.close();
+    }
+
+    /**
+     * Fails unless every server answers a {@code version} command.
+     */
+    private void probe() throws Exception {
+        final Map<InetSocketAddress, String> versions = this.client.getVersions();
+
+        if (versions.size() < this.addresses.size()) {
+            throw new MemCacheException(String.format("Only %d of %d Memcached servers answered",
+                    versions.size(), this.addresses.size()));
+        }
+    }
+
+    /**
+     * Opens new connections to the servers that have none left.
+     */
+    private void reconnect() throws IOException {
+        final Collection<InetSocketAddress> available = this.client.getAvailableServers();
+
+        for (int i = 0; i < this.addresses.size(); i++) {
+
+            if (!available.contains(this.addresses.get(i))) {
+                this.client.addServer(this.addresses.get(i), this.servers.get(i).getWeight());
+            }
+        }
+    }
+
+    private void shutdown() {
+
+        try {
+            this.client.shutdown();
+        } catch (IOException e) {
+            throw new MemCacheException(e);
+        }
+    }
 }
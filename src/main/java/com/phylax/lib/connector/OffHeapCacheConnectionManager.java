@@ -0,0 +1,29 @@
+package com.phylax.lib.connector;
+
+import com.phylax.lib.collection.OffHeapStore;
+import com.phylax.lib.config.OffHeapCacheConfig;
+import com.phylax.lib.contract.CanCacheManager;
+
+public class OffHeapCacheConnectionManager implements CanCacheManager<OffHeapStore> {
+
+    private final OffHeapStore offHeapStore;
+
+    public OffHeapCacheConnectionManager(OffHeapCacheConfig config) {
+        this.offHeapStore = new OffHeapStore(
+                config.getCapacityBytes(),
+                config.getMaxEntries(),
+                config.getPageSize(),
+                config.getShardCount()
+        );
+    }
+
+    @Override
+    public OffHeapStore getConnection() {
+        return this.offHeapStore;
+    }
+
+    @Override
+    public void close() {
+        this.offHeapStore.close();
+    }
+}
@@ -1,17 +1,109 @@
 package com.phylax.lib.connector;
 
+import com.phylax.lib.config.LifecycleConfig;
 import com.phylax.lib.config.PoolConfig;
 import com.phylax.lib.config.RedisConfig;
+import com.phylax.lib.config.RedisEndpoint;
+import com.phylax.lib.config.RedisMode;
 import com.phylax.lib.contract.CanCacheManager;
+import com.phylax.lib.exception.RedisException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import redis.clients.jedis.HostAndPort;
 import redis.clients.jedis.Jedis;
 import redis.clients.jedis.JedisPool;
 import redis.clients.jedis.JedisPoolConfig;
+import redis.clients.jedis.exceptions.JedisAskDataException;
+import redis.clients.jedis.exceptions.JedisMovedDataException;
+import redis.clients.jedis.exceptions.JedisRedirectionException;
+import redis.clients.jedis.util.JedisClusterCRC16;
 
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hands out connections to the Redis server owning a key.
+ * <p>
+ * Every server gets its own pool, identified by a shard index that stays valid for the
+ * lifetime of the manager. In {@link RedisMode#STANDALONE} mode there is a single shard
+ * and {@link #getConnection()} behaves as before. In {@link RedisMode#SHARDED} mode the
+ * shard of a key is chosen on a consistent hash ring. In {@link RedisMode#CLUSTER} mode
+ * it is the master owning the hash slot of the key according to the slot map, which is
+ * read from the cluster at startup and refreshed when a node answers {@code MOVED}.
+ * </p>
+ * <p>
+ * The pools are warmed to their minimum idle size at startup and probed in the
+ * background by a {@link ConnectionLifecycle}. {@link #close()} first closes the holders
+ * of long-lived connections registered with {@link #register(AutoCloseable)}, such as
+ * pipelines and pub/sub subscriptions, then waits for borrowed connections to be
+ * returned, up to the drain timeout, before closing the pools.
+ * </p>
+ */
 public final class RedisConnectionManager implements CanCacheManager<Jedis> {
 
-    private final JedisPool jedisPool;
+    private static final Logger LOGGER = LoggerFactory.getLogger(RedisConnectionManager.class);
+
+    private static final int SLOTS = 16384;
+
+    private static final long MIN_REFRESH_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private final RedisConfig redisConfig;
+
+    private final JedisPoolConfig poolConfig;
+
+    private final RedisMode mode;
+
+    /**
+     * Pool per known server, indexed by shard. Servers are only ever added, so that
+     * shard indices stay valid while the cluster layout changes.
+     */
+    private final List<JedisPool> pools = new CopyOnWriteArrayList<>();
+
+    /**
+     * Server of each pool, indexed by shard.
+     */
+    private final List<RedisEndpoint> endpoints = new CopyOnWriteArrayList<>();
+
+    private final Map<RedisEndpoint, Integer> shards = new ConcurrentHashMap<>();
+
+    /**
+     * Consistent hash ring of the endpoints; {@code null} unless sharded.
+     */
+    private final ConsistentHashRing ring;
+
+    /**
+     * Shard owning each hash slot; {@code null} unless in cluster mode.
+     */
+    private volatile int[] slotOwners;
+
+    private long lastRefreshNanos = System.nanoTime() - MIN_REFRESH_INTERVAL_NANOS;
+
+    private final boolean warmup;
+
+    private final ConnectionLifecycle lifecycle;
+
+    /**
+     * Shards the last health probe could not reach; only their pools are reconnected.
+     */
+    private volatile Set<Integer> unreachableShards = Set.of();
+
+    /**
+     * Holders of connections kept for their whole lifetime, closed before draining.
+     */
+    private final Set<AutoCloseable> holders = ConcurrentHashMap.newKeySet();
 
     public RedisConnectionManager(RedisConfig redisConfig) {
+        this(redisConfig, new LifecycleConfig());
+    }
+
+    public RedisConnectionManager(RedisConfig redisConfig, LifecycleConfig lifecycleConfig) {
         final PoolConfig redisPoolConfig = redisConfig.getPoolConfig();
 
         JedisPoolConfig poolConfig = new JedisPoolConfig();
@@ -20,19 +112,340 @@ public final class RedisConnectionManager implements CanCacheManager<Jedis> {
         poolConfig.setMinIdle(redisPoolConfig.getMinIdleConnections());
         poolConfig.setTestOnBorrow(redisPoolConfig.isTestOnBorrow());
 
-        this.jedisPool = new JedisPool(
-            poolConfig,
-            redisConfig.getHost(),
-            redisConfig.getPort(),
-                (int) redisConfig.getTimeOut(),
-                redisConfig.getCredentialConfig().getUserName(),
-                redisConfig.getCredentialConfig().getPassword(),
-                redisConfig.getUseSSL()
-        );
+        this.redisConfig = redisConfig;
+        this.poolConfig = poolConfig;
+        this.mode = redisConfig.getMode();
+        this.warmup = lifecycleConfig.isWarmup();
+
+        final List<RedisEndpoint> endpoints = (this.mode == RedisMode.STANDALONE)
+                ? redisConfig.getEndpoints().subList(0, 1)
+                : redisConfig.getEndpoints();
+        endpoints.forEach(this::shardOf);
+        this.ring = (this.mode == RedisMode.SHARDED) ? new ConsistentHashRing(endpoints) : null;
+
+        if (this.mode == RedisMode.CLUSTER) {
+            this.slotOwners = new int[SLOTS];
+            this.refreshTopology();
+        }
+        this.lifecycle = new ConnectionLifecycle("redis", lifecycleConfig, this::warm, this::ping, this::reconnect,
+                this::busyConnections, this::closePools);
+        this.lifecycle.start();
     }
 
+    /**
+     * Returns a connection to the first endpoint, the only one in standalone mode.
+     */
     @Override
     public Jedis getConnection() {
-        return jedisPool.getResource();
+        return this.getShardConnection(0);
+    }
+
+    /**
+     * Returns a connection to the server owning the key.
+     *
+     * @param key the encoded key
+     * @return a pooled connection; closing it returns it to the pool
+     */
+    public Jedis getConnection(byte[] key) {
+        return this.getShardConnection(this.getShard(key));
+    }
+
+    /**
+     * Returns the shard owning the key.
+     *
+     * @param key the encoded key
+     * @return the shard index
+     */
+    public int getShard(byte[] key) {
+
+        return switch (this.mode) {
+            case STANDALONE -> 0;
+            case SHARDED -> this.ring.serverFor(key);
+            case CLUSTER -> this.slotOwners[JedisClusterCRC16.getSlot(key)];
+        };
+    }
+
+    /**
+     * Returns a connection to the given shard.
+     *
+     * @param shard a shard index returned by this manager
+     * @return a pooled connection; closing it returns it to the pool
+     */
+    public Jedis getShardConnection(int shard) {
+        return this.pools.get(shard).getResource();
+    }
+
+    /**
+     * Returns a connection to the cluster node named by a redirection, which need not be
+     * in the slot map yet, such as the target of an {@code ASK} during a resharding.
+     *
+     * @param node the host and port of the node
+     * @return a pooled connection; closing it returns it to the pool
+     */
+    public Jedis getConnection(HostAndPort node) {
+        return this.getShardConnection(this.shardOf(new RedisEndpoint(node.getHost(), node.getPort())));
+    }
+
+    /**
+     * Returns the shards currently holding keys: the endpoints, or in cluster mode the
+     * masters of the slot map.
+     *
+     * @return the distinct shard indices
+     */
+    public int[] getShards() {
+
+        if (this.mode != RedisMode.CLUSTER) {
+            final int[] all = new int[this.pools.size()];
+            Arrays.setAll(all, i -> i);
+            return all;
+        }
+        return Arrays.stream(this.slotOwners).distinct().toArray();
+    }
+
+    /**
+     * Whether keys of different hash slots may be combined in one multi-key command.
+     *
+     * @return {@code false} in cluster mode
+     */
+    public boolean supportsMultiKeyCommands() {
+        return this.mode != RedisMode.CLUSTER;
+    }
+
+    /**
+     * Records a redirection answered by a cluster node: after a {@code MOVED} the slot is
+     * pointed at the node named by the redirection at once, and the full slot map is
+     * reread unless that happened very recently. An {@code ASK} leaves the slot map
+     * untouched, since the slot still belongs to its node until the migration completes;
+     * the caller resends that one command to the target after {@code ASKING}.
+     *
+     * @param redirection the {@code MOVED} or {@code ASK} error of a command
+     */
+    public void onRedirection(JedisRedirectionException redirection) {
+
+        if (this.mode != RedisMode.CLUSTER || redirection instanceof JedisAskDataException) {
+            return;
+        }
+        final HostAndPort target = redirection.getTargetNode();
+
+        if (redirection instanceof JedisMovedDataException && target != null
+                && redirection.getSlot() >= 0 && redirection.getSlot() < SLOTS) {
+            this.slotOwners[redirection.getSlot()] = this.shardOf(new RedisEndpoint(target.getHost(), target.getPort()));
+        }
+        this.refreshTopology();
+    }
+
+    /**
+     * Whether the last health probe reached every shard; see {@link #isHealthy(int)} for
+     * a single shard.
+     */
+    public boolean isHealthy() {
+        return this.lifecycle.isHealthy();
+    }
+
+    /**
+     * Whether the last health probe reached the given shard.
+     *
+     * @param shard a shard index returned by this manager
+     */
+    public boolean isHealthy(int shard) {
+        return !this.unreachableShards.contains(shard);
+    }
+
+    /**
+     * Registers a holder of connections borrowed for its whole lifetime, so that
+     * {@link #close()} can have them returned instead of waiting out the drain timeout.
+     *
+     * @param holder closes its connections, returning them to the pool
+     */
+    public void register(AutoCloseable holder) {
+        this.holders.add(holder);
+    }
+
+    /**
+     * Forgets a holder that closed itself.
+     *
+     * @param holder a holder passed to {@link #register(AutoCloseable)}
+     */
+    public void unregister(AutoCloseable holder) {
+        this.holders.remove(holder);
+    }
+
+    /**
+     * Closes the registered holders of long-lived connections, waits for the other
+     * borrowed connections to be returned, up to the drain timeout, and closes all pools.
+     */
+    @Override
+    public void close() {
+
+        for (AutoCloseable holder : this.holders) {
+
+            try {
+                holder.close();
+            } catch (Exception e) {
+                LOGGER.warn("Unable to close a holder of redis connections", e);
+            }
+        }
+        this.holders.clear();
+        this.lifecycle.close();
+    }
+
+    /**
+     * Rereads the slot map from the cluster; does nothing outside cluster mode.
+     */
+    public synchronized void refreshTopology() {
+
+        if (this.mode != RedisMode.CLUSTER || System.nanoTime() - this.lastRefreshNanos < MIN_REFRESH_INTERVAL_NANOS) {
+            return;
+        }
+        this.lastRefreshNanos = System.nanoTime();
+        final Set<Integer> candidates = new LinkedHashSet<>();
+        Arrays.stream(this.slotOwners).distinct().forEach(candidates::add);
+
+        for (int i = 0; i < this.pools.size(); i++) {
+            candidates.add(i);
+        }
+
+        for (int shard : candidates) {
+
+            try(Jedis jedis = this.getShardConnection(shard)) {
+                this.slotOwners = this.parseSlots(jedis.clusterSlots(), shard);
+                return;
+
+            } catch (Exception e) {
+                LOGGER.warn("Unable to read the cluster slot map from shard {}", shard, e);
+            }
+        }
+    }
+
+    /**
+     * Builds the slot table from a {@code CLUSTER SLOTS} reply of the given shard.
+     */
+    private int[] parseSlots(List<Object> reply, int queried) {
+        final int[] owners = this.slotOwners.clone();
+        final String queriedHost = this.endpoints.get(queried).getHost();
+
+        for (Object range : reply) {
+            final List<?> fields = (List<?>) range;
+            final int start = ((Long) fields.get(0)).intValue();
+            final int end = ((Long) fields.get(1)).intValue();
+            final List<?> master = (List<?>) fields.get(2);
+            final String host = new String((byte[]) master.get(0), StandardCharsets.UTF_8);
+            final int port = ((Long) master.get(1)).intValue();
+            final int shard = this.shardOf(new RedisEndpoint(host.isEmpty() ? queriedHost : host, port));
+            Arrays.fill(owners, start, end + 1, shard);
+        }
+        return owners;
+    }
+
+    private void warm() throws Exception {
+
+        for (JedisPool pool : this.pools) {
+            pool.preparePool();
+        }
+    }
+
+    /**
+     * Probes every shard, recording which ones are unreachable.
+     *
+     * @throws RedisException if any shard is unreachable
+     */
+    private void ping() {
+        final Set<Integer> unreachable = new LinkedHashSet<>();
+
+        for (int shard : this.getShards()) {
+
+            try(Jedis jedis = this.getShardConnection(shard)) {
+                jedis.ping();
+
+            } catch (Exception e) {
+                unreachable.add(shard);
+            }
+        }
+        this.unreachableShards = unreachable;
+
+        if (!unreachable.isEmpty()) {
+            throw new RedisException("Unable to reach redis shards " + unreachable);
+        }
+    }
+
+    /**
+     * Drops the idle connections of the unreachable shards, which are likely broken, and
+     * opens new ones. The pools of the healthy shards are left alone.
+     */
+    private void reconnect() throws Exception {
+        Exception failure = null;
+
+        if (this.mode == RedisMode.CLUSTER) {
+            this.refreshTopology();
+        }
+
+        for (int shard : this.unreachableShards) {
+            final JedisPool pool = this.pools.get(shard);
+            pool.clear();
+
+            try {
+                pool.preparePool();
+            } catch (Exception e) {
+                failure = e;
+            }
+        }
+
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    private int busyConnections() {
+        int busy = 0;
+
+        for (JedisPool pool : this.pools) {
+            busy += pool.getNumActive();
+        }
+        return busy;
+    }
+
+    private void closePools() {
+        this.pools.forEach(JedisPool::close);
+    }
+
+    /**
+     * Returns the shard of the server, creating its pool on first use.
+     */
+    private int shardOf(RedisEndpoint endpoint) {
+        final Integer shard = this.shards.get(endpoint);
+
+        if (shard != null) {
+            return shard;
+        }
+
+        synchronized (this.shards) {
+            final Integer existing = this.shards.get(endpoint);
+
+            if (existing != null) {
+                return existing;
+            }
+            final JedisPool pool = new JedisPool(
+                    this.poolConfig,
+                    endpoint.getHost(),
+                    endpoint.getPort(),
+                    (int) this.redisConfig.getTimeOut(),
+                    this.redisConfig.getCredentialConfig().getUserName(),
+                    this.redisConfig.getCredentialConfig().getPassword(),
+                    this.redisConfig.getUseSSL()
+            );
+
+            if (this.warmup && this.lifecycle != null) {
+                // A master discovered after startup; the initial ones are warmed by start().
+                try {
+                    pool.preparePool();
+                } catch (Exception e) {
+                    LOGGER.warn("Unable to warm up connections to {}", endpoint, e);
+                }
+            }
+            this.pools.add(pool);
+            this.endpoints.add(endpoint);
+            this.shards.put(endpoint, this.pools.size() - 1);
+            return this.pools.size() - 1;
+        }
     }
 }
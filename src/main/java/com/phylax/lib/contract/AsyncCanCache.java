@@ -0,0 +1,71 @@
+package com.phylax.lib.contract;
+
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * Non-blocking counterpart of the {@link CanCache} operations.
+ * <p>
+ * Every method returns a {@link CompletableFuture} that completes once the operation
+ * has been applied, or completes exceptionally with the failure of the underlying
+ * call, so that callers can tell when a write has landed and whether it failed.
+ * The default implementations run the blocking {@link CanCache} methods on
+ * {@link #asyncExecutor()}; implementations backed by a network client usually run
+ * them on virtual threads, which park instead of occupying a platform thread while
+ * waiting for a reply.
+ * </p>
+ *
+ * @param <K> the type of the key used to identify a persisted value
+ * @param <V> the type of the value being persisted
+ */
+public interface AsyncCanCache<K, V> extends CanCache<K, V> {
+
+    /**
+     * Returns the executor the asynchronous operations run on.
+     *
+     * @return the executor of this cache
+     */
+    Executor asyncExecutor();
+
+    /**
+     * Reads the value associated with the given key asynchronously.
+     *
+     * @param key the identifier of the value to read; must not be {@code null}
+     * @return a future completed with the value, or with {@link Optional#empty()} if no
+     *         value is associated with the key
+     */
+    default CompletableFuture<Optional<V>> readAsync(K key) {
+        return CompletableFuture.supplyAsync(() -> this.read(key), this.asyncExecutor());
+    }
+
+    /**
+     * Persists the given value under the specified key asynchronously.
+     *
+     * @param key   the identifier under which to persist the value; must not be {@code null}
+     * @param value the value to persist; must not be {@code null}
+     * @return a future completed once the value is persisted
+     */
+    default CompletableFuture<Void> writeAsync(K key, V value) {
+        return CompletableFuture.runAsync(() -> this.write(key, value), this.asyncExecutor());
+    }
+
+    /**
+     * Deletes the value associated with the given key asynchronously.
+     *
+     * @param key the identifier of the value to delete; must not be {@code null}
+     * @return a future completed once the value is deleted
+     */
+    default CompletableFuture<Void> deleteAsync(K key) {
+        return CompletableFuture.runAsync(() -> this.delete(key), this.asyncExecutor());
+    }
+
+    /**
+     * Removes all entries from the cache asynchronously.
+     *
+     * @return a future completed once the cache is empty
+     */
+    default CompletableFuture<Void> clearAsync() {
+        return CompletableFuture.runAsync(this::clear, this.asyncExecutor());
+    }
+}
@@ -0,0 +1,61 @@
+package com.phylax.lib.contract;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Converts keys or values to and from the bytes a cache tier stores.
+ * <p>
+ * Tiers that hold encoded entries, such as the remote caches and the off-heap and disk
+ * caches, take one codec for their keys and one for their values, so that each can use
+ * the cheapest representation: a plain {@code String} key needs no JSON quoting, and a
+ * binary format such as Smile produces smaller values that decode faster than JSON.
+ * Implementations must be thread-safe.
+ * </p>
+ * <p>
+ * Keys are only ever encoded, and must encode to the same bytes every time, since the
+ * bytes are what the tier looks entries up by.
+ * </p>
+ *
+ * @param <T> the type of the objects converted by this codec
+ */
+public interface CacheCodec<T> {
+
+    /**
+     * Encodes the given object.
+     *
+     * @param value the object to encode; must not be {@code null}
+     * @return the encoded bytes; never {@code null}
+     */
+    byte[] encode(T value);
+
+    /**
+     * Decodes an object from the given bytes.
+     *
+     * @param bytes bytes produced by {@link #encode(Object)}
+     * @return the decoded object
+     */
+    T decode(byte[] bytes);
+
+    /**
+     * Decodes an object from the remaining bytes of the given buffer, consuming them.
+     * <p>
+     * The default implementation copies the bytes unless the buffer is backed by an array
+     * holding exactly them; implementations that can read the buffer directly should
+     * override it.
+     * </p>
+     *
+     * @param buffer buffer whose remaining bytes were produced by {@link #encode(Object)}
+     * @return the decoded object
+     */
+    default T decode(ByteBuffer buffer) {
+
+        if (buffer.hasArray() && buffer.arrayOffset() == 0 && buffer.position() == 0
+                && buffer.remaining() == buffer.array().length) {
+            buffer.position(buffer.limit());
+            return this.decode(buffer.array());
+        }
+        final byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        return this.decode(bytes);
+    }
+}
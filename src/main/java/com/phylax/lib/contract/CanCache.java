@@ -1,5 +1,8 @@
 package com.phylax.lib.contract;
 
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Optional;
 
 /**
@@ -59,4 +62,58 @@ public interface CanCache<K, V> {
      * cautiously, especially in performance-sensitive contexts.</p>
      */
     void clear();
+
+    /**
+     * Reads the persisted values associated with the given keys.
+     * <p>
+     * The default implementation reads key by key. Implementations backed by a remote
+     * store should override it to fetch all keys in as few round trips as possible.
+     * </p>
+     *
+     * @param keys the identifiers of the values to read; must not be {@code null} or
+     *             contain {@code null}
+     * @return a map from every key that has a value to that value, in the iteration
+     *         order of {@code keys}; keys without a value are absent
+     */
+    default Map<K, V> readAll(Collection<? extends K> keys) {
+        final Map<K, V> values = new LinkedHashMap<>();
+
+        for (K key : keys) {
+            this.read(key).ifPresent(value -> values.put(key, value));
+        }
+        return values;
+    }
+
+    /**
+     * Persists all given values under their keys.
+     * <p>
+     * The default implementation writes entry by entry. The batch is not atomic:
+     * if it fails midway, some entries may have been written.
+     * </p>
+     *
+     * @param entries the values to persist by key; must not be {@code null} or contain
+     *                {@code null} keys or values
+     */
+    default void writeAll(Map<? extends K, ? extends V> entries) {
+
+        for (Map.Entry<? extends K, ? extends V> entry : entries.entrySet()) {
+            this.write(entry.getKey(), entry.getValue());
+        }
+    }
+
+    /**
+     * Deletes the values associated with the given keys.
+     * <p>
+     * The default implementation deletes key by key.
+     * </p>
+     *
+     * @param keys the identifiers of the values to delete; must not be {@code null} or
+     *             contain {@code null}
+     */
+    default void deleteAll(Collection<? extends K> keys) {
+
+        for (K key : keys) {
+            this.delete(key);
+        }
+    }
 }
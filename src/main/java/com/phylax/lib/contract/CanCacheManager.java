@@ -1,7 +1,14 @@
 package com.phylax.lib.contract;
 
-public interface CanCacheManager <T> {
+public interface CanCacheManager <T> extends AutoCloseable {
 
     T getConnection();
 
+    /**
+     * Releases the connections or storage held by the manager; does nothing by default.
+     */
+    @Override
+    default void close() {
+    }
+
 }
@@ -1,4 +1,25 @@
 package com.phylax.lib.contract;
 
+import java.util.Optional;
+import java.util.function.Function;
+
 public interface CanCacheService<K, V> extends CanCache<K, V>{
+
+    /**
+     * Reads the value associated with the given key, loading and caching it on a miss.
+     * <p>
+     * Concurrent misses for the same key are coalesced: only one caller invokes the
+     * loader, while the others wait for its result instead of hitting the backing store
+     * as well. A loaded value is written to every tier. A {@code null} result is returned
+     * as {@link Optional#empty()} and not cached.
+     * </p>
+     *
+     * @param key    the identifier of the value to read; must not be {@code null}
+     * @param loader computes the value from the backing store on a miss
+     * @return an {@link Optional} containing the cached or loaded value,
+     *         or {@link Optional#empty()} if the loader returned {@code null}
+     * @throws com.phylax.lib.exception.CacheLoadException if the loader failed; every
+     *         caller waiting on the same load receives it, and nothing is cached
+     */
+    Optional<V> read(K key, Function<? super K, ? extends V> loader);
 }
@@ -0,0 +1,45 @@
+package com.phylax.lib.contract;
+
+import java.util.function.Consumer;
+
+/**
+ * Broadcasts changes of cached keys between the nodes sharing a remote tier, so that
+ * every node can evict its local copy of an entry another node has changed.
+ * <p>
+ * Messages published by a bus are not delivered back to its own subscriber. Delivery is
+ * best effort; when a bus cannot guarantee that no message was lost, for example after
+ * reconnecting, it reports a clear so that subscribers drop everything they hold.
+ * </p>
+ *
+ * @param <K> the type of the key used to identify a persisted value
+ */
+public interface InvalidationBus<K> extends AutoCloseable {
+
+    /**
+     * Announces that the value of the key has changed or was deleted.
+     *
+     * @param key the identifier of the changed value; must not be {@code null}
+     */
+    void publish(K key);
+
+    /**
+     * Announces that all values were removed.
+     */
+    void publishClear();
+
+    /**
+     * Registers the callbacks invoked for changes announced by other nodes. A bus has
+     * at most one subscriber.
+     *
+     * @param onInvalidate invoked with the key of every value changed elsewhere
+     * @param onClear      invoked when all values were removed elsewhere, or when
+     *                     invalidations may have been missed
+     */
+    void subscribe(Consumer<? super K> onInvalidate, Runnable onClear);
+
+    /**
+     * Stops listening for invalidations.
+     */
+    @Override
+    void close();
+}
@@ -1,4 +1,19 @@
 package com.phylax.lib.contract;
 
+import java.time.Duration;
+
 public interface LocalCanCache<K, V> extends CanCache<K, V> {
+
+    /**
+     * Persists the given value under the specified key for a limited time.
+     * <p>
+     * Once the time to live has elapsed the entry is no longer returned by
+     * {@link #read(Object)}, even if it has not been physically removed yet.
+     * </p>
+     *
+     * @param key   the identifier under which to persist the value; must not be {@code null}
+     * @param value the value to persist; must not be {@code null}
+     * @param ttl   the time to live of the entry; must be positive
+     */
+    void write(K key, V value, Duration ttl);
 }
@@ -1,4 +1,16 @@
 package com.phylax.lib.contract;
 
+import java.time.Duration;
+
 public interface RemoteCanCache<K, V> extends CanCache<K, V> {
+
+    /**
+     * Persists the given value under the specified key with its own time to live instead
+     * of the default of the cache. Jitter configured for the cache still applies.
+     *
+     * @param key   the identifier under which to persist the value; must not be {@code null}
+     * @param value the value to persist; must not be {@code null}
+     * @param ttl   the time to live, or {@link Duration#ZERO} if the entry does not expire
+     */
+    void write(K key, V value, Duration ttl);
 }
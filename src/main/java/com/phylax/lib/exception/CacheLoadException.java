@@ -0,0 +1,9 @@
+package com.phylax.lib.exception;
+
+public class CacheLoadException extends RuntimeException {
+
+    public CacheLoadException(String message, Throwable cause) {
+        super(message, cause);
+    }
+
+}
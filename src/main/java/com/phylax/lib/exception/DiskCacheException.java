@@ -0,0 +1,13 @@
+package com.phylax.lib.exception;
+
+public class DiskCacheException extends RuntimeException {
+
+    public DiskCacheException(String message, Throwable cause) {
+        super(message, cause);
+    }
+
+    public DiskCacheException(String message) {
+        super(message);
+    }
+
+}
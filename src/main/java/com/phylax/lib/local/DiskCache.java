@@ -0,0 +1,122 @@
+package com.phylax.lib.local;
+
+import com.phylax.lib.collection.MappedFileStore;
+import com.phylax.lib.connector.DiskCacheConnectionManager;
+import com.phylax.lib.codec.JsonObjectMapperCodec;
+import com.phylax.lib.contract.CacheCodec;
+import com.phylax.lib.contract.LocalCanCache;
+import redis.clients.jedis.json.JsonObjectMapper;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Disk-backed implementation of the {@link LocalCanCache} interface backed by a {@link MappedFileStore}.
+ * <p>
+ * Keys and values are encoded with {@link CacheCodec}s, by default the same
+ * {@link JsonObjectMapper} encoding the remote tiers use, and appended to memory-mapped
+ * segment files. The segments are reopened when the application restarts, so the cache
+ * is warm from the first request instead of sending every initial read to the remote
+ * tier. It can be used on its own or as the second level of a {@link TieredLocalCache}
+ * below a heap cache.
+ * </p>
+ * <p>
+ * Entries that do not fit into a segment are silently not cached.
+ * </p>
+ *
+ * @param <K> the type of the key used to identify a persisted value
+ * @param <V> the type of the value being persisted
+ */
+public final class DiskCache<K, V> implements LocalCanCache<K, V> {
+
+    /**
+     * Segment store holding the encoded entries.
+     */
+    private final MappedFileStore mappedFileStore;
+
+    private final CacheCodec<K> keyCodec;
+
+    private final CacheCodec<V> valueCodec;
+
+    public DiskCache(DiskCacheConnectionManager diskCacheConnectionManager, JsonObjectMapper objectMapper, Class<V> type) {
+        this(diskCacheConnectionManager, new JsonObjectMapperCodec<>(objectMapper), new JsonObjectMapperCodec<>(objectMapper, type));
+    }
+
+    public DiskCache(DiskCacheConnectionManager diskCacheConnectionManager, CacheCodec<K> keyCodec, CacheCodec<V> valueCodec) {
+        this.mappedFileStore = diskCacheConnectionManager.getConnection();
+        this.keyCodec = keyCodec;
+        this.valueCodec = valueCodec;
+    }
+
+    /**
+     * Retrieves and decodes the value associated with the given key.
+     *
+     * @param key the identifier of the value to retrieve; must not be {@code null}
+     * @return an {@link Optional} containing the value if present and not expired,
+     *         or {@link Optional#empty()} otherwise
+     */
+    @Override
+    public Optional<V> read(K key) {
+        final byte[] value = this.mappedFileStore.get(this.encodeKey(key));
+        return (value != null)
+                ? Optional.ofNullable(this.valueCodec.decode(value))
+                : Optional.empty();
+    }
+
+    /**
+     * Encodes the value and appends it to disk under the specified key without expiry.
+     *
+     * @param key   the identifier under which to persist the value; must not be {@code null}
+     * @param value the value to persist; must not be {@code null}
+     */
+    @Override
+    public void write(K key, V value) {
+        this.mappedFileStore.put(this.encodeKey(key), this.encodeValue(value), 0L);
+    }
+
+    /**
+     * Encodes the value and appends it to disk under the specified key for a limited time.
+     * <p>
+     * The deadline is stored as wall-clock time, so it keeps counting while the
+     * application is down.
+     * </p>
+     *
+     * @param key   the identifier under which to persist the value; must not be {@code null}
+     * @param value the value to persist; must not be {@code null}
+     * @param ttl   the time to live of the entry; must be positive
+     */
+    @Override
+    public void write(K key, V value, Duration ttl) {
+
+        if (ttl.isZero() || ttl.isNegative()) {
+            throw new IllegalArgumentException("ttl must be positive");
+        }
+        this.mappedFileStore.put(this.encodeKey(key), this.encodeValue(value), Math.max(1L, ttl.toMillis()));
+    }
+
+    /**
+     * Removes the value associated with the specified key, also for future restarts.
+     *
+     * @param key the key of the entry to remove; must not be {@code null}
+     */
+    @Override
+    public void delete(K key) {
+        this.mappedFileStore.delete(this.encodeKey(key));
+    }
+
+    /**
+     * Removes all entries and deletes their segment files.
+     */
+    @Override
+    public void clear() {
+        this.mappedFileStore.clear();
+    }
+
+    private byte[] encodeKey(K key) {
+        return this.keyCodec.encode(key);
+    }
+
+    private byte[] encodeValue(V value) {
+        return this.valueCodec.encode(value);
+    }
+}
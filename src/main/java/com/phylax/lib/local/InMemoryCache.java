@@ -1,12 +1,18 @@
 package com.phylax.lib.local;
 
+import com.phylax.lib.contract.AsyncCanCache;
 import com.phylax.lib.contract.CanCache;
 import com.phylax.lib.collection.LRUCache;
 import com.phylax.lib.contract.LocalCanCache;
 import com.phylax.lib.connector.InMemoryCacheConnectionManager;
+import com.phylax.lib.stats.CacheOperation;
+import com.phylax.lib.stats.CacheStats;
+import com.phylax.lib.stats.StatsCounter;
 
+import java.time.Duration;
 import java.util.Optional;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
 
 /**
  * In-memory implementation of the {@link CanCache} interface backed by a
@@ -19,20 +25,63 @@ import java.util.concurrent.ConcurrentHashMap;
  * @param <K> the type of the key used to identify a persisted value
  * @param <V> the type of the value being persisted
  */
-public final class InMemoryCache<K, V> implements LocalCanCache<K, V> {
+public final class InMemoryCache<K, V> implements LocalCanCache<K, V>, AsyncCanCache<K, V> {
 
     /**
      * Internal cache for storing key-value pairs in memory.
      */
     private final LRUCache<K, V> lruCache;
 
+    /**
+     * Records hits, misses and latencies; disabled unless given to the constructor.
+     */
+    private final StatsCounter stats;
+
 
     public InMemoryCache(InMemoryCacheConnectionManager<K, V> inMemoryCacheConnectionManager) {
+        this(inMemoryCacheConnectionManager, StatsCounter.disabled());
+    }
+
+    /**
+     * Creates a cache recording its statistics into the given counter.
+     *
+     * @param inMemoryCacheConnectionManager provides the underlying {@link LRUCache}
+     * @param stats                          the counter, e.g. a {@link com.phylax.lib.stats.ConcurrentStatsCounter}
+     */
+    public InMemoryCache(InMemoryCacheConnectionManager<K, V> inMemoryCacheConnectionManager, StatsCounter stats) {
         this.lruCache = inMemoryCacheConnectionManager.getConnection();
+        this.stats = stats;
+    }
+
+    /**
+     * Returns the statistics recorded so far, with the evictions of the underlying
+     * {@link LRUCache}, which are counted even when statistics are disabled.
+     *
+     * @return an immutable snapshot
+     */
+    public CacheStats stats() {
+        return this.stats.snapshot().withEvictionCount(this.lruCache.evictionCount());
+    }
+
+    /**
+     * Returns an executor running tasks on the calling thread.
+     * <p>
+     * In-memory operations never block, so handing them to another thread would only
+     * add latency; the asynchronous methods therefore return already completed futures.
+     * </p>
+     *
+     * @return a direct executor
+     */
+    @Override
+    public Executor asyncExecutor() {
+        return Runnable::run;
     }
 
     /**
      * Retrieves the value associated with the given key from memory.
+     * <p>
+     * The access is recorded as a usage of the entry without blocking other readers.
+     * </p>
      *
      * @param key the identifier of the value to retrieve; must not be {@code null}
      * @return an {@link Optional} containing the value if present,
@@ -40,7 +89,16 @@ public final class InMemoryCache<K, V> implements LocalCanCache<K, V> {
      */
     @Override
     public Optional<V> read(K key) {
-        return Optional.ofNullable(this.lruCache.getOrDefault(key, null));
+        final long start = this.stats.startNanos();
+        final V value = this.lruCache.get(key);
+
+        if (value != null) {
+            this.stats.recordHits(1);
+        } else {
+            this.stats.recordMisses(1);
+        }
+        this.stats.recordLatency(CacheOperation.READ, start);
+        return Optional.ofNullable(value);
     }
 
     /**
@@ -54,7 +112,28 @@ public final class InMemoryCache<K, V> implements LocalCanCache<K, V> {
      */
     @Override
     public void write(K key, V value) {
+        final long start = this.stats.startNanos();
         this.lruCache.put(key, value);
+        this.stats.recordLatency(CacheOperation.WRITE, start);
+    }
+
+    /**
+     * Persists the given value in memory under the specified key for a limited time.
+     * <p>
+     * If the key already exists, its value and deadline will be overwritten. When the
+     * cache is configured to expire after access, every read extends the deadline by
+     * {@code ttl}.
+     * </p>
+     *
+     * @param key   the identifier under which to persist the value; must not be {@code null}
+     * @param value the value to persist; must not be {@code null}
+     * @param ttl   the time to live of the entry; must be positive
+     */
+    @Override
+    public void write(K key, V value, Duration ttl) {
+        final long start = this.stats.startNanos();
+        this.lruCache.put(key, value, ttl);
+        this.stats.recordLatency(CacheOperation.WRITE, start);
     }
 
     /**
@@ -68,7 +147,9 @@ public final class InMemoryCache<K, V> implements LocalCanCache<K, V> {
      */
     @Override
     public void delete(K key) {
+        final long start = this.stats.startNanos();
         this.lruCache.delete(key);
+        this.stats.recordLatency(CacheOperation.DELETE, start);
     }
 
     /**
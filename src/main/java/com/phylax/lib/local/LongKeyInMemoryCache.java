@@ -0,0 +1,115 @@
+package com.phylax.lib.local;
+
+import com.phylax.lib.collection.LongKeyLRUCache;
+import com.phylax.lib.connector.LongKeyCacheConnectionManager;
+import com.phylax.lib.contract.LocalCanCache;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * In-memory implementation of the {@link LocalCanCache} interface for numeric keys,
+ * backed by a {@link LongKeyLRUCache}.
+ * <p>
+ * The {@link LocalCanCache} methods accept boxed {@link Long} keys so that this cache can
+ * be used wherever any other local tier can, e.g. in a
+ * {@link com.phylax.lib.cache.SmartCache}. Hot paths that hold a primitive id should
+ * call {@link #get(long)}, {@link #put(long, Object)} and {@link #remove(long)} instead,
+ * which neither box the key nor wrap the value in an {@link Optional}.
+ * </p>
+ *
+ * @param <V> the type of the value being persisted
+ */
+public final class LongKeyInMemoryCache<V> implements LocalCanCache<Long, V> {
+
+    /**
+     * Primitive-keyed cache storing the entries.
+     */
+    private final LongKeyLRUCache<V> longKeyCache;
+
+    public LongKeyInMemoryCache(LongKeyCacheConnectionManager<V> longKeyCacheConnectionManager) {
+        this.longKeyCache = longKeyCacheConnectionManager.getConnection();
+    }
+
+    /**
+     * Retrieves the value associated with the given key without allocating.
+     *
+     * @param key the identifier of the value to retrieve
+     * @return the value, or {@code null} if no live value is mapped to the key
+     */
+    public V get(long key) {
+        return this.longKeyCache.get(key);
+    }
+
+    /**
+     * Persists the given value under the specified key without boxing it.
+     *
+     * @param key   the identifier under which to persist the value
+     * @param value the value to persist; must not be {@code null}
+     */
+    public void put(long key, V value) {
+        this.longKeyCache.put(key, value);
+    }
+
+    /**
+     * Removes the value associated with the specified key without boxing it.
+     *
+     * @param key the key of the entry to remove
+     */
+    public void remove(long key) {
+        this.longKeyCache.delete(key);
+    }
+
+    /**
+     * Retrieves the value associated with the given key from memory.
+     *
+     * @param key the identifier of the value to retrieve; must not be {@code null}
+     * @return an {@link Optional} containing the value if present,
+     *         or {@link Optional#empty()} if no value is mapped to the key
+     */
+    @Override
+    public Optional<V> read(Long key) {
+        return Optional.ofNullable(this.longKeyCache.get(key));
+    }
+
+    /**
+     * Persists the given value in memory under the specified key.
+     *
+     * @param key   the identifier under which to persist the value; must not be {@code null}
+     * @param value the value to persist; must not be {@code null}
+     */
+    @Override
+    public void write(Long key, V value) {
+        this.longKeyCache.put(key, value);
+    }
+
+    /**
+     * Persists the given value in memory under the specified key for a limited time.
+     *
+     * @param key   the identifier under which to persist the value; must not be {@code null}
+     * @param value the value to persist; must not be {@code null}
+     * @param ttl   the time to live of the entry; must be positive
+     */
+    @Override
+    public void write(Long key, V value, Duration ttl) {
+        this.longKeyCache.put(key, value, ttl);
+    }
+
+    /**
+     * Removes the value associated with the specified key from memory.
+     *
+     * @param key the key of the entry to remove; must not be {@code null}
+     */
+    @Override
+    public void delete(Long key) {
+        this.longKeyCache.delete(key);
+    }
+
+    /**
+     * Removes all entries from the cache.
+     */
+    @Override
+    public void clear() {
+        this.longKeyCache.clear();
+    }
+}
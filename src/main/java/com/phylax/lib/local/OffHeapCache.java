@@ -0,0 +1,116 @@
+package com.phylax.lib.local;
+
+import com.phylax.lib.collection.OffHeapStore;
+import com.phylax.lib.connector.OffHeapCacheConnectionManager;
+import com.phylax.lib.codec.JsonObjectMapperCodec;
+import com.phylax.lib.contract.CacheCodec;
+import com.phylax.lib.contract.LocalCanCache;
+import redis.clients.jedis.json.JsonObjectMapper;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Off-heap implementation of the {@link LocalCanCache} interface backed by an {@link OffHeapStore}.
+ * <p>
+ * Keys and values are encoded with {@link CacheCodec}s, by default the same
+ * {@link JsonObjectMapper} encoding the remote tiers use, and copied into native memory,
+ * so cached entries add no objects to the Java heap and no work for the garbage collector. Every read decodes a fresh copy of the value, which
+ * makes this tier a good fit for large working sets rather than the hottest few entries.
+ * </p>
+ * <p>
+ * Entries that do not fit into a slab page of the store are silently not cached.
+ * </p>
+ *
+ * @param <K> the type of the key used to identify a persisted value
+ * @param <V> the type of the value being persisted
+ */
+public final class OffHeapCache<K, V> implements LocalCanCache<K, V> {
+
+    /**
+     * Native store holding the encoded entries.
+     */
+    private final OffHeapStore offHeapStore;
+
+    private final CacheCodec<K> keyCodec;
+
+    private final CacheCodec<V> valueCodec;
+
+    public OffHeapCache(OffHeapCacheConnectionManager offHeapCacheConnectionManager, JsonObjectMapper objectMapper, Class<V> type) {
+        this(offHeapCacheConnectionManager, new JsonObjectMapperCodec<>(objectMapper), new JsonObjectMapperCodec<>(objectMapper, type));
+    }
+
+    public OffHeapCache(OffHeapCacheConnectionManager offHeapCacheConnectionManager, CacheCodec<K> keyCodec, CacheCodec<V> valueCodec) {
+        this.offHeapStore = offHeapCacheConnectionManager.getConnection();
+        this.keyCodec = keyCodec;
+        this.valueCodec = valueCodec;
+    }
+
+    /**
+     * Retrieves and decodes the value associated with the given key.
+     *
+     * @param key the identifier of the value to retrieve; must not be {@code null}
+     * @return an {@link Optional} containing the value if present and not expired,
+     *         or {@link Optional#empty()} otherwise
+     */
+    @Override
+    public Optional<V> read(K key) {
+        final byte[] value = this.offHeapStore.get(this.encodeKey(key));
+        return (value != null)
+                ? Optional.ofNullable(this.valueCodec.decode(value))
+                : Optional.empty();
+    }
+
+    /**
+     * Encodes the value and stores it off-heap under the specified key without expiry.
+     *
+     * @param key   the identifier under which to persist the value; must not be {@code null}
+     * @param value the value to persist; must not be {@code null}
+     */
+    @Override
+    public void write(K key, V value) {
+        this.offHeapStore.put(this.encodeKey(key), this.encodeValue(value));
+    }
+
+    /**
+     * Encodes the value and stores it off-heap under the specified key for a limited time.
+     *
+     * @param key   the identifier under which to persist the value; must not be {@code null}
+     * @param value the value to persist; must not be {@code null}
+     * @param ttl   the time to live of the entry; must be positive
+     */
+    @Override
+    public void write(K key, V value, Duration ttl) {
+
+        if (ttl.isZero() || ttl.isNegative()) {
+            throw new IllegalArgumentException("ttl must be positive");
+        }
+        this.offHeapStore.put(this.encodeKey(key), this.encodeValue(value), ttl.toNanos());
+    }
+
+    /**
+     * Removes the value associated with the specified key.
+     *
+     * @param key the key of the entry to remove; must not be {@code null}
+     */
+    @Override
+    public void delete(K key) {
+        this.offHeapStore.delete(this.encodeKey(key));
+    }
+
+    /**
+     * Removes all entries. The native memory stays reserved for new entries.
+     */
+    @Override
+    public void clear() {
+        this.offHeapStore.clear();
+    }
+
+    private byte[] encodeKey(K key) {
+        return this.keyCodec.encode(key);
+    }
+
+    private byte[] encodeValue(V value) {
+        return this.valueCodec.encode(value);
+    }
+}
@@ -0,0 +1,131 @@
+package com.phylax.lib.local;
+
+import com.phylax.lib.contract.LocalCanCache;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Two-level implementation of the {@link LocalCanCache} interface.
+ * <p>
+ * Reads are served from the first level, typically a small heap {@link InMemoryCache},
+ * and fall back to the second level, typically a large {@link DiskCache} or
+ * {@link OffHeapCache}; a hit on the second level is promoted into the first. Writes,
+ * deletes and clears are applied to both levels, so the second level always holds a
+ * superset of the first and survives what the first does not, such as heap eviction
+ * or a restart.
+ * </p>
+ * <p>
+ * Being a {@link LocalCanCache} itself, a tiered cache can be used as the local tier of a
+ * {@link com.phylax.lib.cache.SmartCache}, placing the second level between the heap and
+ * the remote tier.
+ * </p>
+ *
+ * @param <K> the type of the key used to identify a persisted value
+ * @param <V> the type of the value being persisted
+ */
+public final class TieredLocalCache<K, V> implements LocalCanCache<K, V> {
+
+    private final LocalCanCache<K, V> firstLevel;
+
+    private final LocalCanCache<K, V> secondLevel;
+
+    /**
+     * Time to live of entries promoted from the second level; zero promotes without expiry.
+     */
+    private final Duration promotionTtl;
+
+    public TieredLocalCache(LocalCanCache<K, V> firstLevel, LocalCanCache<K, V> secondLevel) {
+        this(firstLevel, secondLevel, Duration.ZERO);
+    }
+
+    /**
+     * Creates a tiered cache that bounds the lifetime of promoted entries.
+     * <p>
+     * The remaining time to live of a second-level entry is not known when it is promoted,
+     * so promoted entries are either kept without expiry or, with a positive
+     * {@code promotionTtl}, for at most that long in the first level.
+     * </p>
+     *
+     * @param firstLevel   the small, fast level consulted first
+     * @param secondLevel  the large level consulted on a first-level miss
+     * @param promotionTtl the time to live of promoted entries; {@link Duration#ZERO} for none
+     */
+    public TieredLocalCache(LocalCanCache<K, V> firstLevel, LocalCanCache<K, V> secondLevel, Duration promotionTtl) {
+        this.firstLevel = firstLevel;
+        this.secondLevel = secondLevel;
+        this.promotionTtl = promotionTtl;
+    }
+
+    /**
+     * Retrieves the value from the first level, or from the second level and promotes it.
+     *
+     * @param key the identifier of the value to retrieve; must not be {@code null}
+     * @return an {@link Optional} containing the value if present in either level,
+     *         or {@link Optional#empty()} otherwise
+     */
+    @Override
+    public Optional<V> read(K key) {
+        final Optional<V> value = this.firstLevel.read(key);
+
+        if (value.isPresent()) {
+            return value;
+        }
+        final Optional<V> promoted = this.secondLevel.read(key);
+
+        if (promoted.isPresent()) {
+
+            if (this.promotionTtl.isZero() || this.promotionTtl.isNegative()) {
+                this.firstLevel.write(key, promoted.get());
+            } else {
+                this.firstLevel.write(key, promoted.get(), this.promotionTtl);
+            }
+        }
+        return promoted;
+    }
+
+    /**
+     * Persists the given value in both levels under the specified key.
+     *
+     * @param key   the identifier under which to persist the value; must not be {@code null}
+     * @param value the value to persist; must not be {@code null}
+     */
+    @Override
+    public void write(K key, V value) {
+        this.secondLevel.write(key, value);
+        this.firstLevel.write(key, value);
+    }
+
+    /**
+     * Persists the given value in both levels under the specified key for a limited time.
+     *
+     * @param key   the identifier under which to persist the value; must not be {@code null}
+     * @param value the value to persist; must not be {@code null}
+     * @param ttl   the time to live of the entry; must be positive
+     */
+    @Override
+    public void write(K key, V value, Duration ttl) {
+        this.secondLevel.write(key, value, ttl);
+        this.firstLevel.write(key, value, ttl);
+    }
+
+    /**
+     * Removes the value associated with the specified key from both levels.
+     *
+     * @param key the key of the entry to remove; must not be {@code null}
+     */
+    @Override
+    public void delete(K key) {
+        this.firstLevel.delete(key);
+        this.secondLevel.delete(key);
+    }
+
+    /**
+     * Removes all entries from both levels.
+     */
+    @Override
+    public void clear() {
+        this.firstLevel.clear();
+        this.secondLevel.clear();
+    }
+}
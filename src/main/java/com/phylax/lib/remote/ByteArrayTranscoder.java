@@ -0,0 +1,52 @@
+package com.phylax.lib.remote;
+
+import net.rubyeye.xmemcached.transcoders.CachedData;
+import net.rubyeye.xmemcached.transcoders.CompressionMode;
+import net.rubyeye.xmemcached.transcoders.Transcoder;
+
+/**
+ * Stores values as the bytes given, with no flags, serialization or compression.
+ */
+final class ByteArrayTranscoder implements Transcoder<byte[]> {
+
+    static final ByteArrayTranscoder INSTANCE = new ByteArrayTranscoder();
+
+    private ByteArrayTranscoder() {
+    }
+
+    @Override
+    public CachedData encode(byte[] value) {
+        return new CachedData(0, value);
+    }
+
+    @Override
+    public byte[] decode(CachedData data) {
+        return data.getData();
+    }
+
+    @Override
+    public void setPrimitiveAsString(boolean primitiveAsString) {
+    }
+
+    @Override
+    public void setPackZeros(boolean packZeros) {
+    }
+
+    @Override
+    public void setCompressionThreshold(int compressionThreshold) {
+    }
+
+    @Override
+    public boolean isPrimitiveAsString() {
+        return false;
+    }
+
+    @Override
+    public boolean isPackZeros() {
+        return false;
+    }
+
+    @Override
+    public void setCompressionMode(CompressionMode compressionMode) {
+    }
+}
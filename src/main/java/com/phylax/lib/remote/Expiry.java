@@ -0,0 +1,81 @@
+package com.phylax.lib.remote;
+
+import com.phylax.lib.config.ExpiryConfig;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Draws the time to live of each write from an {@link ExpiryConfig}.
+ */
+final class Expiry {
+
+    /**
+     * Longest expiry memcached takes as relative; larger values are read as a Unix time.
+     */
+    private static final long MEMCACHED_MAX_RELATIVE_SECONDS = 60L * 60 * 24 * 30;
+
+    private final long ttlMillis;
+
+    private final double jitter;
+
+    Expiry(ExpiryConfig config) {
+        this.ttlMillis = config.getTtl().toMillis();
+        this.jitter = config.getJitter();
+    }
+
+    /**
+     * Returns the time to live of a write using the default time to live.
+     *
+     * @return milliseconds, or {@code 0} if the entry does not expire
+     */
+    long nextMillis() {
+        return this.jittered(this.ttlMillis);
+    }
+
+    /**
+     * Returns the time to live of a write with its own time to live.
+     *
+     * @param ttl the time to live, or {@link Duration#ZERO} if the entry does not expire
+     * @return milliseconds, or {@code 0} if the entry does not expire
+     */
+    long nextMillis(Duration ttl) {
+
+        if (ttl.isNegative()) {
+            throw new IllegalArgumentException("ttl must not be negative");
+        }
+        return this.jittered(ttl.toMillis());
+    }
+
+    /**
+     * Whether writes expire unless given their own time to live.
+     */
+    boolean expires() {
+        return this.ttlMillis > 0;
+    }
+
+    /**
+     * Converts a time to live to a memcached expiry: whole seconds, rounded up, and an
+     * absolute Unix time beyond the 30 days memcached accepts as relative.
+     *
+     * @param millis the time to live, or {@code 0} if the entry does not expire
+     * @return the expiry argument of a memcached storage command
+     */
+    static int toMemcachedExpiry(long millis) {
+
+        if (millis <= 0) {
+            return 0;
+        }
+        final long seconds = (millis + 999) / 1000;
+        return (int) ((seconds <= MEMCACHED_MAX_RELATIVE_SECONDS) ? seconds : System.currentTimeMillis() / 1000 + seconds);
+    }
+
+    private long jittered(long millis) {
+
+        if (millis <= 0 || this.jitter == 0.0) {
+            return Math.max(millis, 0);
+        }
+        final long spread = (long) (millis * this.jitter);
+        return Math.max(1, millis - ThreadLocalRandom.current().nextLong(spread + 1));
+    }
+}
@@ -1,77 +1,331 @@
 package com.phylax.lib.remote;
 
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
 import java.util.concurrent.TimeoutException;
 import net.rubyeye.xmemcached.MemcachedClient;
 import redis.clients.jedis.json.JsonObjectMapper;
 import net.rubyeye.xmemcached.exception.MemcachedException;
 
+import com.phylax.lib.codec.JsonObjectMapperCodec;
+import com.phylax.lib.config.ClearStrategy;
+import com.phylax.lib.config.ExpiryConfig;
+import com.phylax.lib.config.NamespaceConfig;
+import com.phylax.lib.contract.AsyncCanCache;
+import com.phylax.lib.contract.CacheCodec;
 import com.phylax.lib.contract.RemoteCanCache;
 import com.phylax.lib.exception.MemCacheException;
+import com.phylax.lib.connector.ConnectionLifecycle;
 import com.phylax.lib.connector.MemCacheConnectionManager;
+import com.phylax.lib.stats.CacheOperation;
+import com.phylax.lib.stats.CacheStats;
+import com.phylax.lib.stats.StatsCounter;
 
-public class MemCache<K, V> implements RemoteCanCache<K, V> {
+public class MemCache<K, V> implements RemoteCanCache<K, V>, AsyncCanCache<K, V> {
+
+    /**
+     * Marks keys whose encoding is not a valid memcached key and was replaced by its Base64.
+     */
+    private static final char BINARY_KEY_PREFIX = '~';
 
     private final MemcachedClient memcachedClient;
 
-    private final JsonObjectMapper objectMapper;
+    /**
+     * Registers every operation, so that closing the manager waits for it.
+     */
+    private final ConnectionLifecycle lifecycle;
+
+    private final CacheCodec<K> keyCodec;
+
+    private final CacheCodec<V> valueCodec;
+
+    private final Expiry expiry;
+
+    /**
+     * Prefix of the keys; {@code null} if the cache owns the whole server.
+     */
+    private final Namespace namespace;
 
-    private final Class<V> type;
+    /**
+     * Whether writes and deletes are sent without waiting for a reply.
+     */
+    private final boolean noReply;
 
-    private final int ttl;
+    private final Executor asyncExecutor;
 
+    private final StatsCounter stats;
+
+    /**
+     * @param ttl the time to live of the entries in seconds, or {@code 0} if they do not expire
+     */
     public MemCache(MemCacheConnectionManager memCacheConnectionManager, JsonObjectMapper objectMapper, Class<V> type, int ttl) {
-        this.memcachedClient = memCacheConnectionManager.getConnection();
-        this.objectMapper = objectMapper;
-        this.type = type;
-        this.ttl = ttl;
+        this(memCacheConnectionManager, new JsonObjectMapperCodec<>(objectMapper), new JsonObjectMapperCodec<>(objectMapper, type), ttl);
+    }
+
+    /**
+     * Creates a cache storing values as encoded by the value codec, without any further
+     * serialization by the client. Encoded keys that are not valid memcached keys, i.e.
+     * contain anything but printable ASCII, are sent as their Base64.
+     */
+    public MemCache(MemCacheConnectionManager memCacheConnectionManager, CacheCodec<K> keyCodec, CacheCodec<V> valueCodec, int ttl) {
+        this(builder(memCacheConnectionManager, keyCodec, valueCodec).expiry(new ExpiryConfig(Duration.ofSeconds(ttl))));
+    }
+
+    private MemCache(Builder<K, V> builder) {
+
+        if (builder.namespaceConfig != null && builder.namespaceConfig.getClearStrategy() != ClearStrategy.GENERATION) {
+            throw new IllegalArgumentException("Memcached namespaces can only be cleared by generation");
+        }
+        this.memcachedClient = builder.memCacheConnectionManager.getConnection();
+        this.lifecycle = builder.memCacheConnectionManager.getLifecycle();
+        this.keyCodec = builder.keyCodec;
+        this.valueCodec = builder.valueCodec;
+        this.expiry = new Expiry(builder.expiryConfig);
+        this.namespace = (builder.namespaceConfig != null) ? new Namespace(builder.namespaceConfig, this::readGeneration) : null;
+        this.noReply = builder.memCacheConnectionManager.isNoReply();
+        this.asyncExecutor = (builder.asyncExecutor != null) ? builder.asyncExecutor : Executors.newVirtualThreadPerTaskExecutor();
+        this.stats = builder.stats;
+    }
+
+    /**
+     * Returns a builder of a cache storing keys and values as encoded by the given codecs.
+     * Unless configured otherwise, its entries do not expire, it owns the whole server,
+     * runs asynchronous operations on virtual threads and records no statistics.
+     */
+    public static <K, V> Builder<K, V> builder(MemCacheConnectionManager memCacheConnectionManager, CacheCodec<K> keyCodec,
+                                               CacheCodec<V> valueCodec) {
+        return new Builder<>(memCacheConnectionManager, keyCodec, valueCodec);
+    }
+
+    public CacheStats stats() {
+        return this.stats.snapshot();
     }
 
     @Override
-    public Optional<V> read(K key) {
-        final String jsonKey = this.objectMapper.toJson(key);
+    public Executor asyncExecutor() {
+        return this.asyncExecutor;
+    }
 
-        try {
-            final String jsonValue = this.memcachedClient.get(jsonKey);
-            return (jsonValue != null)
-                    ? Optional.ofNullable(this.objectMapper.fromJson(jsonValue, this.type))
-                    : Optional.empty();
+    @Override
+    public Optional<V> read(K key) {
+        final String memcachedKey = this.encodeKey(key);
+        final long start = this.stats.startNanos();
+        final byte[] rawValue;
 
+        try (ConnectionLifecycle.Operation operation = this.lifecycle.begin()) {
+            rawValue = this.memcachedClient.get(memcachedKey, ByteArrayTranscoder.INSTANCE);
         } catch (TimeoutException | MemcachedException | InterruptedException e) {
+            this.stats.recordError(CacheOperation.READ);
             throw new MemCacheException("Unable to read from MemCached");
         }
+        this.stats.recordLatency(CacheOperation.READ, start);
+
+        if (rawValue == null) {
+            this.stats.recordMisses(1);
+            return Optional.empty();
+        }
+        this.stats.recordHits(1);
+        return Optional.ofNullable(this.valueCodec.decode(rawValue));
     }
 
     @Override
     public void write(K key, V value) {
-        final String jsonKey = this.objectMapper.toJson(key);
-        final String jsonValue = this.objectMapper.toJson(value);
+        this.write(key, value, this.expiry.nextMillis());
+    }
+
+    @Override
+    public void write(K key, V value, Duration ttl) {
+        this.write(key, value, this.expiry.nextMillis(ttl));
+    }
+
+    private void write(K key, V value, long ttlMillis) {
+        final String memcachedKey = this.encodeKey(key);
+        final byte[] rawValue = this.valueCodec.encode(value);
+        final int ttl = Expiry.toMemcachedExpiry(ttlMillis);
+        final long start = this.stats.startNanos();
 
-        try {
-            this.memcachedClient.set(jsonKey, ttl, jsonValue);
+        try (ConnectionLifecycle.Operation operation = this.lifecycle.begin()) {
+
+            if (this.noReply) {
+                this.memcachedClient.setWithNoReply(memcachedKey, ttl, rawValue, ByteArrayTranscoder.INSTANCE);
+            } else {
+                this.memcachedClient.set(memcachedKey, ttl, rawValue, ByteArrayTranscoder.INSTANCE);
+            }
         } catch (TimeoutException | InterruptedException | MemcachedException e) {
+            this.stats.recordError(CacheOperation.WRITE);
             throw new MemCacheException("Unable to write to MemCached");
         }
+        this.stats.recordLatency(CacheOperation.WRITE, start);
     }
 
     @Override
     public void delete(K key) {
-        final String jsonKey = this.objectMapper.toJson(key);
+        final String memcachedKey = this.encodeKey(key);
+        final long start = this.stats.startNanos();
+
+        try (ConnectionLifecycle.Operation operation = this.lifecycle.begin()) {
 
-        try {
-            this.memcachedClient.delete(jsonKey);
+            if (this.noReply) {
+                this.memcachedClient.deleteWithNoReply(memcachedKey);
+            } else {
+                this.memcachedClient.delete(memcachedKey);
+            }
         } catch (TimeoutException | InterruptedException | MemcachedException e) {
+            this.stats.recordError(CacheOperation.DELETE);
             throw new MemCacheException("Unable to delete from MemCached");
         }
+        this.stats.recordLatency(CacheOperation.DELETE, start);
+    }
+
+    @Override
+    public Map<K, V> readAll(Collection<? extends K> keys) {
+        final Map<K, V> values = new LinkedHashMap<>();
+
+        if (keys.isEmpty()) {
+            return values;
+        }
+        final Map<String, K> memcachedKeys = new LinkedHashMap<>();
+
+        for (K key : keys) {
+            memcachedKeys.put(this.encodeKey(key), key);
+        }
+        final long start = this.stats.startNanos();
+        final Map<String, byte[]> rawValues;
+
+        try (ConnectionLifecycle.Operation operation = this.lifecycle.begin()) {
+            rawValues = this.memcachedClient.get(memcachedKeys.keySet(), ByteArrayTranscoder.INSTANCE);
+        } catch (TimeoutException | MemcachedException | InterruptedException e) {
+            this.stats.recordError(CacheOperation.READ);
+            throw new MemCacheException("Unable to read batch from MemCached");
+        }
+        this.stats.recordLatency(CacheOperation.READ, start);
+
+        for (Map.Entry<String, K> memcachedKey : memcachedKeys.entrySet()) {
+            final byte[] rawValue = rawValues.get(memcachedKey.getKey());
+
+            if (rawValue != null) {
+                values.put(memcachedKey.getValue(), this.valueCodec.decode(rawValue));
+            }
+        }
+        this.stats.recordHits(values.size());
+        this.stats.recordMisses(memcachedKeys.size() - values.size());
+        return values;
     }
 
     @Override
     public void clear() {
 
-        try {
-            this.memcachedClient.flushAll();
+        try (ConnectionLifecycle.Operation operation = this.lifecycle.begin()) {
+
+            if (this.namespace == null) {
+                this.memcachedClient.flushAll();
+            } else {
+                this.namespace.advance(this.memcachedClient.incr(this.generationKey(), 1, System.currentTimeMillis()));
+            }
         } catch (TimeoutException | InterruptedException | MemcachedException e) {
             throw new RuntimeException(e);
         }
     }
+
+    /**
+     * Reads the generation of the namespace. A counter that is missing, e.g. evicted, is
+     * restarted from the current time rather than from a value old keys may still use.
+     */
+    private long readGeneration() {
+
+        try (ConnectionLifecycle.Operation operation = this.lifecycle.begin()) {
+            return this.memcachedClient.incr(this.generationKey(), 0, System.currentTimeMillis());
+        } catch (TimeoutException | InterruptedException | MemcachedException e) {
+            throw new MemCacheException("Unable to read namespace generation from MemCached");
+        }
+    }
+
+    private String generationKey() {
+        return new String(this.namespace.generationKey(), StandardCharsets.US_ASCII);
+    }
+
+    private String encodeKey(K key) {
+        final byte[] encoded = this.keyCodec.encode(key);
+        final byte[] rawKey = (this.namespace != null) ? this.namespace.apply(encoded) : encoded;
+        boolean printable = rawKey.length > 0 && rawKey[0] != BINARY_KEY_PREFIX;
+
+        for (int i = 0; printable && i < rawKey.length; i++) {
+            printable = rawKey[i] > ' ' && rawKey[i] < 0x7F;
+        }
+        return printable
+                ? new String(rawKey, StandardCharsets.US_ASCII)
+                : BINARY_KEY_PREFIX + Base64.getUrlEncoder().withoutPadding().encodeToString(rawKey);
+    }
+
+    /**
+     * Builder of a {@link MemCache}; every setting left out keeps the default described
+     * in {@link MemCache#builder(MemCacheConnectionManager, CacheCodec, CacheCodec)}.
+     */
+    public static final class Builder<K, V> {
+
+        private final MemCacheConnectionManager memCacheConnectionManager;
+
+        private final CacheCodec<K> keyCodec;
+
+        private final CacheCodec<V> valueCodec;
+
+        private ExpiryConfig expiryConfig = new ExpiryConfig();
+
+        private NamespaceConfig namespaceConfig;
+
+        private Executor asyncExecutor;
+
+        private StatsCounter stats = StatsCounter.disabled();
+
+        private Builder(MemCacheConnectionManager memCacheConnectionManager, CacheCodec<K> keyCodec, CacheCodec<V> valueCodec) {
+            this.memCacheConnectionManager = memCacheConnectionManager;
+            this.keyCodec = keyCodec;
+            this.valueCodec = valueCodec;
+        }
+
+        /**
+         * Expires writes after the jittered time to live of the expiry config, rounded up
+         * to whole seconds.
+         */
+        public Builder<K, V> expiry(ExpiryConfig expiryConfig) {
+            this.expiryConfig = expiryConfig;
+            return this;
+        }
+
+        /**
+         * Confines the cache to the keys of a namespace. {@link MemCache#clear()} then
+         * increments the generation of the namespace instead of flushing the servers shared
+         * with other caches; the old entries are left to expire or be evicted. The namespace
+         * must be cleared by {@link ClearStrategy#GENERATION}, since memcached cannot scan,
+         * or {@link #build()} throws an {@link IllegalArgumentException}.
+         */
+        public Builder<K, V> namespace(NamespaceConfig namespaceConfig) {
+            this.namespaceConfig = namespaceConfig;
+            return this;
+        }
+
+        public Builder<K, V> asyncExecutor(Executor asyncExecutor) {
+            this.asyncExecutor = asyncExecutor;
+            return this;
+        }
+
+        /**
+         * Records the hits, misses, latencies and errors of the cache into the given counter.
+         */
+        public Builder<K, V> stats(StatsCounter stats) {
+            this.stats = stats;
+            return this;
+        }
+
+        public MemCache<K, V> build() {
+            return new MemCache<>(this);
+        }
+    }
 }
@@ -0,0 +1,159 @@
+package com.phylax.lib.remote;
+
+import com.phylax.lib.config.ClearStrategy;
+import com.phylax.lib.config.NamespaceConfig;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.LongSupplier;
+
+/**
+ * Prefixes the keys of a cache with its namespace, and with the current generation of
+ * the namespace when it is cleared by {@link ClearStrategy#GENERATION}.
+ * <p>
+ * Keys look like {@code name:generation:key}, the generation written in base 36. The
+ * generation is stored on the server under {@code name:generation} so that all
+ * processes sharing the namespace agree on it; it is read again after the refresh
+ * interval, by one caller while the others keep using the previous one. If the counter
+ * is lost, e.g. evicted, the server is expected to start a new one from the current
+ * time, which acts as a clear rather than bringing old entries back.
+ * </p>
+ */
+final class Namespace {
+
+    private final byte[] name;
+
+    private final boolean generational;
+
+    private final long refreshNanos;
+
+    private final LongSupplier generationReader;
+
+    private final AtomicBoolean refreshing = new AtomicBoolean();
+
+    private volatile Prefix current;
+
+    private record Prefix(long generation, byte[] bytes, long readNanos) {
+    }
+
+    /**
+     * @param generationReader reads the generation from the server, creating it if absent;
+     *                         unused unless the strategy is {@link ClearStrategy#GENERATION}
+     */
+    Namespace(NamespaceConfig config, LongSupplier generationReader) {
+        this.name = (config.getName() + ":").getBytes(StandardCharsets.US_ASCII);
+        this.generational = config.getClearStrategy() == ClearStrategy.GENERATION;
+        this.refreshNanos = config.getGenerationRefresh().toNanos();
+        this.generationReader = generationReader;
+    }
+
+    /**
+     * Prefixes an encoded key.
+     */
+    byte[] apply(byte[] rawKey) {
+        final byte[] prefix = this.prefix().bytes();
+        final byte[] namespaced = new byte[prefix.length + rawKey.length];
+        System.arraycopy(prefix, 0, namespaced, 0, prefix.length);
+        System.arraycopy(rawKey, 0, namespaced, prefix.length, rawKey.length);
+        return namespaced;
+    }
+
+    boolean isGenerational() {
+        return this.generational;
+    }
+
+    /**
+     * Returns how long a generation is used before it is read again, which bounds how long
+     * other processes keep writing a generation after it was cleared.
+     */
+    long refreshNanos() {
+        return this.refreshNanos;
+    }
+
+    /**
+     * Returns the generation keys are currently written with.
+     */
+    long generation() {
+        return this.prefix().generation();
+    }
+
+    /**
+     * Switches to a generation just set on the server.
+     */
+    void advance(long generation) {
+        this.current = this.prefixOf(generation);
+    }
+
+    /**
+     * Returns the key under which the server stores the generation.
+     */
+    byte[] generationKey() {
+        return this.concat("generation");
+    }
+
+    /**
+     * Returns a {@code SCAN} pattern matching the keys of a generation, or every key of
+     * the namespace if it has no generations.
+     */
+    byte[] pattern(long generation) {
+        final byte[] prefix = this.generational ? this.concat(Long.toString(generation, 36) + ":") : this.name;
+        final ByteArrayOutputStream pattern = new ByteArrayOutputStream(prefix.length + 2);
+
+        for (byte b : prefix) {
+
+            if (b == '*' || b == '?' || b == '[' || b == ']' || b == '\\') {
+                pattern.write('\\');
+            }
+            pattern.write(b);
+        }
+        pattern.write('*');
+        return pattern.toByteArray();
+    }
+
+    private Prefix prefix() {
+        final Prefix prefix = this.current;
+
+        if (!this.generational) {
+            return (prefix != null) ? prefix : (this.current = new Prefix(0L, this.name, 0L));
+        }
+
+        if (prefix != null && System.nanoTime() - prefix.readNanos() < this.refreshNanos) {
+            return prefix;
+        }
+
+        if (prefix != null && !this.refreshing.compareAndSet(false, true)) {
+            return prefix;
+        }
+
+        try {
+            final Prefix read = this.prefixOf(this.generationReader.getAsLong());
+            this.current = read;
+            return read;
+
+        } catch (RuntimeException e) {
+
+            if (prefix == null) {
+                throw e;
+            }
+            return prefix;
+        } finally {
+
+            if (prefix != null) {
+                this.refreshing.set(false);
+            }
+        }
+    }
+
+    private Prefix prefixOf(long generation) {
+        return new Prefix(generation, this.concat(Long.toString(generation, 36) + ":"), System.nanoTime());
+    }
+
+    private byte[] concat(String suffix) {
+        final byte[] tail = suffix.getBytes(StandardCharsets.US_ASCII);
+        final byte[] bytes = new byte[this.name.length + tail.length];
+        System.arraycopy(this.name, 0, bytes, 0, this.name.length);
+        System.arraycopy(tail, 0, bytes, this.name.length, tail.length);
+        return bytes;
+    }
+}
@@ -1,73 +1,771 @@
 package com.phylax.lib.remote;
 
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
 import redis.clients.jedis.Jedis;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Response;
+import redis.clients.jedis.exceptions.JedisAskDataException;
+import redis.clients.jedis.exceptions.JedisRedirectionException;
 import redis.clients.jedis.json.JsonObjectMapper;
+import redis.clients.jedis.params.ScanParams;
+import redis.clients.jedis.params.SetParams;
+import redis.clients.jedis.resps.ScanResult;
 
+import com.phylax.lib.codec.JsonObjectMapperCodec;
+import com.phylax.lib.config.ClearStrategy;
+import com.phylax.lib.config.ExpiryConfig;
+import com.phylax.lib.config.NamespaceConfig;
+import com.phylax.lib.config.PipelineConfig;
+import com.phylax.lib.contract.AsyncCanCache;
+import com.phylax.lib.contract.CacheCodec;
 import com.phylax.lib.contract.RemoteCanCache;
 import com.phylax.lib.exception.RedisException;
 import com.phylax.lib.connector.RedisConnectionManager;
+import com.phylax.lib.stats.CacheOperation;
+import com.phylax.lib.stats.CacheStats;
+import com.phylax.lib.stats.StatsCounter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
-public final class RedisCache<K, V> implements RemoteCanCache<K, V> {
+public final class RedisCache<K, V> implements RemoteCanCache<K, V>, AsyncCanCache<K, V>, AutoCloseable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(RedisCache.class);
 
     private final RedisConnectionManager redisConnectionManager;
 
-    private final JsonObjectMapper objectMapper;
+    private final CacheCodec<K> keyCodec;
+
+    private final CacheCodec<V> valueCodec;
+
+    private final Executor asyncExecutor;
+
+    /**
+     * Carries single-key reads, writes and deletes; {@code null} if each borrows a pooled connection.
+     */
+    private final RedisPipeliner pipeliner;
+
+    private final Expiry expiry;
+
+    /**
+     * Prefix of the keys; {@code null} if the cache owns the whole database.
+     */
+    private final Namespace namespace;
+
+    private final int scanBatchSize;
 
-    private final Class<V> type;
+    private final StatsCounter stats;
 
     public RedisCache(RedisConnectionManager redisConnectionManager, JsonObjectMapper objectMapper, Class<V> type) {
-        this.redisConnectionManager = redisConnectionManager;
-        this.objectMapper = objectMapper;
-        this.type = type;
+        this(builder(redisConnectionManager, new JsonObjectMapperCodec<>(objectMapper), new JsonObjectMapperCodec<>(objectMapper, type)));
+    }
+
+    /**
+     * Creates a cache storing keys and values as encoded by the given codecs, using the
+     * binary Redis commands so that no intermediate {@code String} is built.
+     */
+    public RedisCache(RedisConnectionManager redisConnectionManager, CacheCodec<K> keyCodec, CacheCodec<V> valueCodec) {
+        this(builder(redisConnectionManager, keyCodec, valueCodec));
+    }
+
+    private RedisCache(Builder<K, V> builder) {
+        this.redisConnectionManager = builder.redisConnectionManager;
+        this.keyCodec = builder.keyCodec;
+        this.valueCodec = builder.valueCodec;
+        this.asyncExecutor = (builder.asyncExecutor != null) ? builder.asyncExecutor : Executors.newVirtualThreadPerTaskExecutor();
+        this.pipeliner = (builder.pipelineConfig != null) ? new RedisPipeliner(builder.redisConnectionManager, builder.pipelineConfig) : null;
+        this.expiry = new Expiry(builder.expiryConfig);
+        this.namespace = (builder.namespaceConfig != null) ? new Namespace(builder.namespaceConfig, this::readGeneration) : null;
+        this.scanBatchSize = (builder.namespaceConfig != null) ? Math.max(1, builder.namespaceConfig.getScanBatchSize()) : 0;
+        this.stats = builder.stats;
+    }
+
+    /**
+     * Returns a builder of a cache storing keys and values as encoded by the given codecs.
+     * Unless configured otherwise, the cache borrows a pooled connection for every command,
+     * its entries do not expire, it owns the whole database, runs asynchronous operations
+     * on virtual threads and records no statistics.
+     */
+    public static <K, V> Builder<K, V> builder(RedisConnectionManager redisConnectionManager, CacheCodec<K> keyCodec,
+                                               CacheCodec<V> valueCodec) {
+        return new Builder<>(redisConnectionManager, keyCodec, valueCodec);
+    }
+
+    public CacheStats stats() {
+        return this.stats.snapshot();
     }
 
     @Override
-    public Optional<V> read(K key) {
+    public Executor asyncExecutor() {
+        return this.asyncExecutor;
+    }
 
-        try(Jedis jedis = redisConnectionManager.getConnection()) {
-            final String jsonKey = objectMapper.toJson(key);
-            final String jsonValue = jedis.get(jsonKey);
-            return (jsonValue != null) ? Optional.ofNullable(objectMapper.fromJson(jsonValue, type)) : Optional.empty();
+    @Override
+    public CompletableFuture<Optional<V>> readAsync(K key) {
 
-        } catch (Exception e) {
-            throw new RedisException("Unable to read from redis");
+        if (this.pipeliner == null) {
+            return AsyncCanCache.super.readAsync(key);
+        }
+        final long start = this.stats.startNanos();
+        final byte[] rawKey = this.rawKey(key);
+        return this.timedAsync(CacheOperation.READ, start, this.pipeliner.submit(rawKey, pipeline -> pipeline.get(rawKey)))
+                .thenApply(this::decodeLookup);
+    }
+
+    @Override
+    public CompletableFuture<Void> writeAsync(K key, V value) {
+
+        if (this.pipeliner == null) {
+            return AsyncCanCache.super.writeAsync(key, value);
+        }
+        return this.submitWrite(key, value, this.expiry.nextMillis());
+    }
+
+    /**
+     * Persists the value asynchronously with its own time to live.
+     *
+     * @see #write(Object, Object, Duration)
+     */
+    public CompletableFuture<Void> writeAsync(K key, V value, Duration ttl) {
+
+        if (this.pipeliner == null) {
+            return CompletableFuture.runAsync(() -> this.write(key, value, ttl), this.asyncExecutor);
+        }
+        return this.submitWrite(key, value, this.expiry.nextMillis(ttl));
+    }
+
+    private CompletableFuture<Void> submitWrite(K key, V value, long ttlMillis) {
+        final long start = this.stats.startNanos();
+        final byte[] rawKey = this.rawKey(key);
+        final byte[] rawValue = valueCodec.encode(value);
+        return this.timedAsync(CacheOperation.WRITE, start, this.pipeliner.submit(rawKey, pipeline -> (ttlMillis > 0)
+                ? pipeline.set(rawKey, rawValue, SetParams.setParams().px(ttlMillis))
+                : pipeline.set(rawKey, rawValue))).thenApply(reply -> null);
+    }
+
+    @Override
+    public CompletableFuture<Void> deleteAsync(K key) {
+
+        if (this.pipeliner == null) {
+            return AsyncCanCache.super.deleteAsync(key);
+        }
+        final long start = this.stats.startNanos();
+        final byte[] rawKey = this.rawKey(key);
+        return this.timedAsync(CacheOperation.DELETE, start, this.pipeliner.submit(rawKey, pipeline -> pipeline.del(rawKey)))
+                .thenApply(reply -> null);
+    }
+
+    @Override
+    public Optional<V> read(K key) {
+
+        if (this.pipeliner != null) {
+            return this.await(this.readAsync(key), "Unable to read from redis");
         }
+        final byte[] rawKey = this.rawKey(key);
+        return this.decodeLookup(this.timed(CacheOperation.READ,
+                () -> this.execute(rawKey, jedis -> jedis.get(rawKey), "Unable to read from redis")));
     }
 
     @Override
     public void write(K key, V value) {
+        this.write(key, value, this.expiry.nextMillis());
+    }
 
-        try(Jedis jedis = redisConnectionManager.getConnection()) {
-            final String jsonKey = objectMapper.toJson(key);
-            final String jsonValue = objectMapper.toJson(value);
-            jedis.set(jsonKey, jsonValue);
+    @Override
+    public void write(K key, V value, Duration ttl) {
+        this.write(key, value, this.expiry.nextMillis(ttl));
+    }
 
-        } catch (Exception e) {
-            throw new RedisException("Unable to write to redis");
+    private void write(K key, V value, long ttlMillis) {
+
+        if (this.pipeliner != null) {
+            this.await(this.submitWrite(key, value, ttlMillis), "Unable to write to redis");
+            return;
         }
+        final byte[] rawKey = this.rawKey(key);
+        final byte[] rawValue = valueCodec.encode(value);
+        this.timed(CacheOperation.WRITE, () -> this.execute(rawKey, jedis -> (ttlMillis > 0)
+                ? jedis.set(rawKey, rawValue, SetParams.setParams().px(ttlMillis))
+                : jedis.set(rawKey, rawValue), "Unable to write to redis"));
     }
 
     @Override
     public void delete(K key) {
 
-        try(Jedis jedis = redisConnectionManager.getConnection()) {
-            final String jsonKey = objectMapper.toJson(key);
-            jedis.del(jsonKey);
+        if (this.pipeliner != null) {
+            this.await(this.deleteAsync(key), "Unable to delete from redis");
+            return;
+        }
+        final byte[] rawKey = this.rawKey(key);
+        this.timed(CacheOperation.DELETE, () -> this.execute(rawKey, jedis -> jedis.del(rawKey), "Unable to delete from redis"));
+    }
 
-        } catch (Exception e) {
-            throw new RedisException("Unable to delete from redis");
+    /**
+     * Reads the keys of each shard with one {@code MGET}, or one pipeline of {@code GET}s in
+     * cluster mode where keys of different slots cannot share a command; shards are read
+     * in parallel.
+     */
+    @Override
+    public Map<K, V> readAll(Collection<? extends K> keys) {
+        final Map<K, V> values = new LinkedHashMap<>();
+
+        if (keys.isEmpty()) {
+            return values;
         }
+        final List<K> keyList = new ArrayList<>(keys);
+        final byte[][] rawKeys = this.encodeKeys(keyList);
+        final byte[][] rawValues = new byte[rawKeys.length][];
+
+        this.timed(CacheOperation.READ, () -> this.forEachShard(rawKeys,
+                (shard, positions) -> this.readShard(shard, positions, rawKeys, rawValues), "Unable to read batch from redis"));
+
+        for (int i = 0; i < rawKeys.length; i++) {
+
+            if (rawValues[i] != null) {
+                values.put(keyList.get(i), valueCodec.decode(rawValues[i]));
+            }
+        }
+        this.stats.recordHits(values.size());
+        this.stats.recordMisses(rawKeys.length - values.size());
+        return values;
+    }
+
+    /**
+     * Writes the entries of each shard with one {@code MSET}, or one pipeline of
+     * {@code SET}s in cluster mode or when entries expire, each with its own jittered
+     * time to live; shards are written in parallel.
+     */
+    @Override
+    public void writeAll(Map<? extends K, ? extends V> entries) {
+
+        if (entries.isEmpty()) {
+            return;
+        }
+        final byte[][] rawKeys = new byte[entries.size()][];
+        final byte[][] rawValues = new byte[entries.size()][];
+        int i = 0;
+
+        for (Map.Entry<? extends K, ? extends V> entry : entries.entrySet()) {
+            rawKeys[i] = this.rawKey(entry.getKey());
+            rawValues[i++] = valueCodec.encode(entry.getValue());
+        }
+        this.timed(CacheOperation.WRITE, () -> this.forEachShard(rawKeys,
+                (shard, positions) -> this.writeShard(shard, positions, rawKeys, rawValues), "Unable to write batch to redis"));
     }
 
+    @Override
+    public void deleteAll(Collection<? extends K> keys) {
+
+        if (keys.isEmpty()) {
+            return;
+        }
+        final byte[][] rawKeys = this.encodeKeys(keys);
+        this.timed(CacheOperation.DELETE, () -> this.forEachShard(rawKeys,
+                (shard, positions) -> this.deleteShard(shard, positions, rawKeys), "Unable to delete batch from redis"));
+    }
+
+    /**
+     * Removes the entries of the namespace, or flushes the database on every shard if the
+     * cache has no namespace.
+     * <p>
+     * With {@link ClearStrategy#GENERATION} the generation is incremented, which makes the
+     * entries unreachable at once. The keys of the previous generation are unlinked in the
+     * background once twice the generation refresh interval has passed, so that keys other
+     * processes write with it before noticing the clear are removed as well. With
+     * {@link ClearStrategy#SCAN} the keys are unlinked in the background, in batches bounded
+     * by the scan batch size; use {@link #clearAsync()} to find out when they are gone.
+     * </p>
+     */
     @Override
     public void clear() {
 
-        try(Jedis jedis = redisConnectionManager.getConnection()) {
-            jedis.flushDB();
+        if (this.namespace == null) {
+            this.flushAll();
+        } else if (!this.namespace.isGenerational()) {
+            this.logCompletion(this.unlinkAsync(this.namespace.pattern(0L), this.asyncExecutor), "the namespace");
+        } else {
+            final byte[] generationKey = this.namespace.generationKey();
+            final long generation = this.execute(generationKey, jedis -> {
+                // Restarts a lost counter from the current time, not from 1, which old keys may still use.
+                jedis.set(generationKey, initialGeneration(), SetParams.setParams().nx());
+                return jedis.incr(generationKey);
+            }, "Unable to clear namespace from redis");
+            this.namespace.advance(generation);
+            // Other processes keep writing the previous generation until their next refresh.
+            final Executor delayed = CompletableFuture.delayedExecutor(2 * this.namespace.refreshNanos(),
+                    TimeUnit.NANOSECONDS, this.asyncExecutor);
+            this.logCompletion(this.unlinkAsync(this.namespace.pattern(generation - 1), delayed), "a cleared generation");
+        }
+    }
+
+    /**
+     * Removes the entries like {@link #clear()}.
+     *
+     * @return a future completed once the keys are unlinked with {@link ClearStrategy#SCAN},
+     *         or once the new generation is in use with {@link ClearStrategy#GENERATION}
+     */
+    @Override
+    public CompletableFuture<Void> clearAsync() {
+
+        if (this.namespace != null && !this.namespace.isGenerational()) {
+            return this.unlinkAsync(this.namespace.pattern(0L), this.asyncExecutor);
+        }
+        return AsyncCanCache.super.clearAsync();
+    }
+
+    private void flushAll() {
+
+        for (int shard : redisConnectionManager.getShards()) {
+
+            try(Jedis jedis = redisConnectionManager.getShardConnection(shard)) {
+                jedis.flushDB();
+
+            } catch (Exception e) {
+                throw new RedisException("Unable to flush all data from redis");
+            }
+        }
+    }
+
+    /**
+     * Fails pipelined commands not yet sent and returns the shared connections to the pool.
+     */
+    @Override
+    public void close() {
+
+        if (this.pipeliner != null) {
+            this.pipeliner.close();
+        }
+    }
+
+    /**
+     * Runs a single-key command on the server owning the key, once more if a cluster node
+     * redirects it: on the new owner after a {@code MOVED}, or on the node importing the
+     * slot, preceded by {@code ASKING}, after an {@code ASK}.
+     */
+    private <T> T execute(byte[] rawKey, Function<Jedis, T> command, String message) {
+
+        for (int attempt = 0; ; attempt++) {
+
+            try(Jedis jedis = redisConnectionManager.getConnection(rawKey)) {
+                return command.apply(jedis);
+
+            } catch (JedisAskDataException e) {
+                return this.executeAsking(e, command, message);
+
+            } catch (JedisRedirectionException e) {
+
+                if (attempt > 0) {
+                    throw new RedisException(message);
+                }
+                redisConnectionManager.onRedirection(e);
+
+            } catch (Exception e) {
+                throw new RedisException(message);
+            }
+        }
+    }
+
+    /**
+     * Sends a command answered by {@code ASK} to the node named by the redirection.
+     */
+    private <T> T executeAsking(JedisAskDataException ask, Function<Jedis, T> command, String message) {
+
+        try(Jedis jedis = redisConnectionManager.getConnection(ask.getTargetNode())) {
+            jedis.asking();
+            return command.apply(jedis);
 
         } catch (Exception e) {
-            throw new RedisException("Unable to flush all data from redis");
+            throw new RedisException(message);
+        }
+    }
+
+    private Optional<V> decodeLookup(byte[] rawValue) {
+
+        if (rawValue == null) {
+            this.stats.recordMisses(1);
+            return Optional.empty();
+        }
+        this.stats.recordHits(1);
+        return Optional.ofNullable(valueCodec.decode(rawValue));
+    }
+
+    /**
+     * Runs a blocking operation, recording its latency or its failure.
+     */
+    private <T> T timed(CacheOperation operation, Supplier<T> action) {
+        final long start = this.stats.startNanos();
+        final T result;
+
+        try {
+            result = action.get();
+        } catch (RuntimeException e) {
+            this.stats.recordError(operation);
+            throw e;
+        }
+        this.stats.recordLatency(operation, start);
+        return result;
+    }
+
+    private void timed(CacheOperation operation, Runnable action) {
+        this.timed(operation, () -> {
+            action.run();
+            return null;
+        });
+    }
+
+    /**
+     * Records the latency or the failure of a pipelined operation once it completes.
+     */
+    private <T> CompletableFuture<T> timedAsync(CacheOperation operation, long start, CompletableFuture<T> reply) {
+
+        if (this.stats == StatsCounter.disabled()) {
+            return reply;
+        }
+        return reply.whenComplete((result, failure) -> {
+
+            if (failure != null) {
+                this.stats.recordError(operation);
+            } else {
+                this.stats.recordLatency(operation, start);
+            }
+        });
+    }
+
+    private byte[] rawKey(K key) {
+        final byte[] rawKey = keyCodec.encode(key);
+        return (this.namespace != null) ? this.namespace.apply(rawKey) : rawKey;
+    }
+
+    private long readGeneration() {
+        final byte[] generationKey = this.namespace.generationKey();
+        final byte[] generation = this.execute(generationKey, jedis -> {
+            final byte[] current = jedis.get(generationKey);
+
+            if (current != null) {
+                return current;
+            }
+            jedis.set(generationKey, initialGeneration(), SetParams.setParams().nx());
+            return jedis.get(generationKey);
+        }, "Unable to read namespace generation from redis");
+        return Long.parseLong(new String(generation, StandardCharsets.US_ASCII));
+    }
+
+    private static byte[] initialGeneration() {
+        return Long.toString(System.currentTimeMillis()).getBytes(StandardCharsets.US_ASCII);
+    }
+
+    private CompletableFuture<Void> unlinkAsync(byte[] pattern, Executor executor) {
+        return CompletableFuture.runAsync(() -> this.unlinkAll(pattern), executor);
+    }
+
+    private void logCompletion(CompletableFuture<Void> unlink, String target) {
+        unlink.whenComplete((result, failure) -> {
+
+            if (failure != null) {
+                LOGGER.warn("Unable to unlink the keys of {}", target, failure);
+            } else {
+                LOGGER.debug("Unlinked the keys of {}", target);
+            }
+        });
+    }
+
+    /**
+     * Unlinks the keys matching the pattern on every shard, one {@code SCAN} batch at a time.
+     */
+    private void unlinkAll(byte[] pattern) {
+        final ScanParams params = new ScanParams().match(pattern).count(this.scanBatchSize);
+
+        for (int shard : redisConnectionManager.getShards()) {
+
+            try(Jedis jedis = redisConnectionManager.getShardConnection(shard)) {
+                ScanResult<byte[]> batch = jedis.scan(ScanParams.SCAN_POINTER_START_BINARY, params);
+
+                while (true) {
+                    final List<byte[]> keys = batch.getResult();
+
+                    if (!keys.isEmpty() && redisConnectionManager.supportsMultiKeyCommands()) {
+                        jedis.unlink(keys.toArray(byte[][]::new));
+                    } else if (!keys.isEmpty()) {
+                        // Keys of different slots cannot share an UNLINK in cluster mode.
+                        final Pipeline pipeline = jedis.pipelined();
+                        keys.forEach(pipeline::unlink);
+                        pipeline.sync();
+                    }
+
+                    if (batch.isCompleteIteration()) {
+                        break;
+                    }
+                    batch = jedis.scan(batch.getCursorAsBytes(), params);
+                }
+
+            } catch (Exception e) {
+                throw new RedisException("Unable to clear namespace from redis");
+            }
+        }
+    }
+
+    private byte[][] encodeKeys(Collection<? extends K> keys) {
+        final byte[][] rawKeys = new byte[keys.size()][];
+        int i = 0;
+
+        for (K key : keys) {
+            rawKeys[i++] = this.rawKey(key);
+        }
+        return rawKeys;
+    }
+
+    /**
+     * Groups the keys by shard and runs the batch of each shard, in parallel when there is
+     * more than one.
+     *
+     * @param batch receives a shard and the positions of its keys in {@code rawKeys}
+     */
+    private void forEachShard(byte[][] rawKeys, BiConsumer<Integer, int[]> batch, String message) {
+        final Map<Integer, List<Integer>> partitions = new LinkedHashMap<>();
+
+        for (int i = 0; i < rawKeys.length; i++) {
+            partitions.computeIfAbsent(redisConnectionManager.getShard(rawKeys[i]), shard -> new ArrayList<>()).add(i);
+        }
+        final List<CompletableFuture<Void>> pending = new ArrayList<>(partitions.size());
+
+        for (Map.Entry<Integer, List<Integer>> partition : partitions.entrySet()) {
+            final int[] positions = partition.getValue().stream().mapToInt(Integer::intValue).toArray();
+
+            if (partitions.size() == 1) {
+                this.runBatch(() -> batch.accept(partition.getKey(), positions), message);
+            } else {
+                pending.add(CompletableFuture.runAsync(() -> this.runBatch(() -> batch.accept(partition.getKey(), positions), message),
+                        this.asyncExecutor));
+            }
+        }
+        this.await(CompletableFuture.allOf(pending.toArray(CompletableFuture[]::new)), message);
+    }
+
+    private void runBatch(Runnable batch, String message) {
+
+        try {
+            batch.run();
+        } catch (RedisException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RedisException(message);
+        }
+    }
+
+    private void readShard(int shard, int[] positions, byte[][] rawKeys, byte[][] rawValues) {
+        final List<Integer> redirected = new ArrayList<>();
+
+        try(Jedis jedis = redisConnectionManager.getShardConnection(shard)) {
+
+            if (redisConnectionManager.supportsMultiKeyCommands()) {
+                final List<byte[]> replies = jedis.mget(select(rawKeys, positions));
+
+                for (int i = 0; i < positions.length; i++) {
+                    rawValues[positions[i]] = replies.get(i);
+                }
+            } else {
+                final Pipeline pipeline = jedis.pipelined();
+                final List<Response<byte[]>> replies = new ArrayList<>(positions.length);
+
+                for (int position : positions) {
+                    replies.add(pipeline.get(rawKeys[position]));
+                }
+                pipeline.sync();
+
+                for (int i = 0; i < positions.length; i++) {
+
+                    try {
+                        rawValues[positions[i]] = replies.get(i).get();
+                    } catch (JedisRedirectionException e) {
+                        redisConnectionManager.onRedirection(e);
+                        redirected.add(positions[i]);
+                    }
+                }
+            }
+        }
+
+        for (int position : redirected) {
+            final byte[] rawKey = rawKeys[position];
+            rawValues[position] = this.execute(rawKey, jedis -> jedis.get(rawKey), "Unable to read batch from redis");
+        }
+    }
+
+    private void writeShard(int shard, int[] positions, byte[][] rawKeys, byte[][] rawValues) {
+        final List<Integer> redirected = new ArrayList<>();
+
+        try(Jedis jedis = redisConnectionManager.getShardConnection(shard)) {
+
+            if (redisConnectionManager.supportsMultiKeyCommands() && !this.expiry.expires()) {
+                final byte[][] keysValues = new byte[positions.length * 2][];
+
+                for (int i = 0; i < positions.length; i++) {
+                    keysValues[2 * i] = rawKeys[positions[i]];
+                    keysValues[2 * i + 1] = rawValues[positions[i]];
+                }
+                jedis.mset(keysValues);
+            } else {
+                final Pipeline pipeline = jedis.pipelined();
+                final List<Response<String>> replies = new ArrayList<>(positions.length);
+
+                for (int position : positions) {
+                    final long ttlMillis = this.expiry.nextMillis();
+                    replies.add((ttlMillis > 0)
+                            ? pipeline.set(rawKeys[position], rawValues[position], SetParams.setParams().px(ttlMillis))
+                            : pipeline.set(rawKeys[position], rawValues[position]));
+                }
+                pipeline.sync();
+                this.collectRedirected(replies, positions, redirected);
+            }
+        }
+
+        for (int position : redirected) {
+            final long ttlMillis = this.expiry.nextMillis();
+            this.execute(rawKeys[position], jedis -> (ttlMillis > 0)
+                    ? jedis.set(rawKeys[position], rawValues[position], SetParams.setParams().px(ttlMillis))
+                    : jedis.set(rawKeys[position], rawValues[position]), "Unable to write batch to redis");
+        }
+    }
+
+    private void deleteShard(int shard, int[] positions, byte[][] rawKeys) {
+        final List<Integer> redirected = new ArrayList<>();
+
+        try(Jedis jedis = redisConnectionManager.getShardConnection(shard)) {
+            final Pipeline pipeline = jedis.pipelined();
+            final List<Response<Long>> replies = new ArrayList<>(positions.length);
+
+            for (int position : positions) {
+                replies.add(pipeline.del(rawKeys[position]));
+            }
+            pipeline.sync();
+            this.collectRedirected(replies, positions, redirected);
+        }
+
+        for (int position : redirected) {
+            this.execute(rawKeys[position], jedis -> jedis.del(rawKeys[position]), "Unable to delete batch from redis");
+        }
+    }
+
+    private void collectRedirected(List<? extends Response<?>> replies, int[] positions, List<Integer> redirected) {
+
+        for (int i = 0; i < positions.length; i++) {
+
+            try {
+                replies.get(i).get();
+            } catch (JedisRedirectionException e) {
+                redisConnectionManager.onRedirection(e);
+                redirected.add(positions[i]);
+            }
+        }
+    }
+
+    private static byte[][] select(byte[][] rawKeys, int[] positions) {
+        final byte[][] selected = new byte[positions.length][];
+
+        for (int i = 0; i < positions.length; i++) {
+            selected[i] = rawKeys[positions[i]];
+        }
+        return selected;
+    }
+
+    private <T> T await(CompletableFuture<T> reply, String message) {
+
+        try {
+            return reply.join();
+        } catch (CompletionException e) {
+
+            if (e.getCause() instanceof RedisException redisException) {
+                throw redisException;
+            }
+            throw new RedisException(message);
+        }
+    }
+
+    /**
+     * Builder of a {@link RedisCache}; every setting left out keeps the default described
+     * in {@link RedisCache#builder(RedisConnectionManager, CacheCodec, CacheCodec)}.
+     */
+    public static final class Builder<K, V> {
+
+        private final RedisConnectionManager redisConnectionManager;
+
+        private final CacheCodec<K> keyCodec;
+
+        private final CacheCodec<V> valueCodec;
+
+        private PipelineConfig pipelineConfig;
+
+        private ExpiryConfig expiryConfig = new ExpiryConfig();
+
+        private NamespaceConfig namespaceConfig;
+
+        private Executor asyncExecutor;
+
+        private StatsCounter stats = StatsCounter.disabled();
+
+        private Builder(RedisConnectionManager redisConnectionManager, CacheCodec<K> keyCodec, CacheCodec<V> valueCodec) {
+            this.redisConnectionManager = redisConnectionManager;
+            this.keyCodec = keyCodec;
+            this.valueCodec = valueCodec;
+        }
+
+        /**
+         * Pipelines concurrent single-key reads, writes and deletes over a few shared
+         * connections instead of borrowing a pooled connection for each of them. Batch
+         * operations and {@link RedisCache#clear()} keep using the pool.
+         */
+        public Builder<K, V> pipeline(PipelineConfig pipelineConfig) {
+            this.pipelineConfig = pipelineConfig;
+            return this;
+        }
+
+        /**
+         * Expires writes after the time to live of the expiry config, sent as {@code SET ... PX}.
+         * Batch writes then use pipelined {@code SET}s instead of {@code MSET}, which cannot
+         * set an expiry.
+         */
+        public Builder<K, V> expiry(ExpiryConfig expiryConfig) {
+            this.expiryConfig = expiryConfig;
+            return this;
+        }
+
+        /**
+         * Confines the cache to the keys of a namespace, so that {@link RedisCache#clear()}
+         * only removes those instead of flushing the database shared with other caches.
+         */
+        public Builder<K, V> namespace(NamespaceConfig namespaceConfig) {
+            this.namespaceConfig = namespaceConfig;
+            return this;
+        }
+
+        public Builder<K, V> asyncExecutor(Executor asyncExecutor) {
+            this.asyncExecutor = asyncExecutor;
+            return this;
+        }
+
+        /**
+         * Records the hits, misses, latencies and errors of the cache into the given counter.
+         */
+        public Builder<K, V> stats(StatsCounter stats) {
+            this.stats = stats;
+            return this;
+        }
+
+        public RedisCache<K, V> build() {
+            return new RedisCache<>(this);
         }
     }
 }
@@ -0,0 +1,185 @@
+package com.phylax.lib.remote;
+
+import com.phylax.lib.connector.RedisConnectionManager;
+import com.phylax.lib.contract.InvalidationBus;
+import com.phylax.lib.exception.RedisException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPubSub;
+import redis.clients.jedis.json.JsonObjectMapper;
+
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * {@link InvalidationBus} over a Redis pub/sub channel.
+ * <p>
+ * Every message carries the id of the publishing bus, so a node ignores its own
+ * invalidations. The subscription runs on a dedicated daemon thread holding one
+ * connection of the pool; if it drops, it is re-established with exponential backoff
+ * and the subscriber is told to clear, since messages published in between are lost.
+ * The backoff only starts over once the server has confirmed a subscription, so a
+ * {@code SUBSCRIBE} that is rejected keeps backing off.
+ * </p>
+ */
+public final class RedisInvalidationBus<K> implements InvalidationBus<K> {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(RedisInvalidationBus.class);
+
+    private static final char INVALIDATE = 'I';
+
+    private static final char CLEAR = 'C';
+
+    private static final long INITIAL_BACKOFF_MILLIS = 100L;
+
+    private static final long MAX_BACKOFF_MILLIS = 30_000L;
+
+    private final RedisConnectionManager redisConnectionManager;
+
+    private final JsonObjectMapper objectMapper;
+
+    private final Class<K> keyType;
+
+    private final String channel;
+
+    private final String nodeId = UUID.randomUUID().toString();
+
+    private volatile JedisPubSub pubSub;
+
+    private volatile Thread subscriber;
+
+    private volatile boolean closed;
+
+    public RedisInvalidationBus(RedisConnectionManager redisConnectionManager, JsonObjectMapper objectMapper,
+                                Class<K> keyType, String channel) {
+        this.redisConnectionManager = redisConnectionManager;
+        this.objectMapper = objectMapper;
+        this.keyType = keyType;
+        this.channel = channel;
+    }
+
+    @Override
+    public void publish(K key) {
+        this.send(this.nodeId + INVALIDATE + this.objectMapper.toJson(key));
+    }
+
+    @Override
+    public void publishClear() {
+        this.send(this.nodeId + CLEAR);
+    }
+
+    @Override
+    public synchronized void subscribe(Consumer<? super K> onInvalidate, Runnable onClear) {
+
+        if (this.subscriber != null) {
+            throw new IllegalStateException("Invalidation bus already has a subscriber");
+        }
+        this.subscriber = new Thread(() -> this.listen(onInvalidate, onClear), "redis-invalidation-" + this.channel);
+        this.subscriber.setDaemon(true);
+        this.redisConnectionManager.register(this);
+        this.subscriber.start();
+    }
+
+    @Override
+    public void close() {
+        this.closed = true;
+        this.redisConnectionManager.unregister(this);
+        final JedisPubSub current = this.pubSub;
+
+        if (current != null && current.isSubscribed()) {
+            current.unsubscribe();
+        }
+        final Thread thread = this.subscriber;
+
+        if (thread != null) {
+            thread.interrupt();
+        }
+    }
+
+    private void send(String message) {
+
+        try(Jedis jedis = redisConnectionManager.getConnection()) {
+            jedis.publish(channel, message);
+
+        } catch (Exception e) {
+            throw new RedisException("Unable to publish invalidation to redis");
+        }
+    }
+
+    /**
+     * Keeps a subscription open until the bus is closed, reconnecting after failures.
+     */
+    private void listen(Consumer<? super K> onInvalidate, Runnable onClear) {
+        long backoffMillis = INITIAL_BACKOFF_MILLIS;
+        boolean reconnecting = false;
+
+        while (!this.closed) {
+            final boolean resubscribed = reconnecting;
+            final AtomicBoolean confirmed = new AtomicBoolean();
+            this.pubSub = new JedisPubSub() {
+
+                @Override
+                public void onSubscribe(String channel, int subscribedChannels) {
+                    confirmed.set(true);
+
+                    if (resubscribed) {
+                        onClear.run();
+                    }
+                }
+
+                @Override
+                public void onMessage(String channel, String message) {
+                    RedisInvalidationBus.this.dispatch(message, onInvalidate, onClear);
+                }
+            };
+
+            Exception failure = null;
+
+            try(Jedis jedis = redisConnectionManager.getConnection()) {
+                jedis.subscribe(this.pubSub, this.channel);
+
+            } catch (Exception e) {
+                failure = e;
+            }
+
+            if (this.closed) {
+                return;
+            }
+
+            if (confirmed.get()) {
+                backoffMillis = INITIAL_BACKOFF_MILLIS;
+            }
+            LOGGER.warn("Invalidation subscription to {} lost, retrying in {} ms", this.channel, backoffMillis, failure);
+
+            try {
+                Thread.sleep(backoffMillis);
+            } catch (InterruptedException interrupted) {
+                return;
+            }
+            backoffMillis = Math.min(backoffMillis * 2, MAX_BACKOFF_MILLIS);
+            reconnecting = true;
+        }
+    }
+
+    private void dispatch(String message, Consumer<? super K> onInvalidate, Runnable onClear) {
+        final int idLength = this.nodeId.length();
+
+        if (message.length() <= idLength || message.startsWith(this.nodeId)) {
+            return;
+        }
+
+        try {
+            final char type = message.charAt(idLength);
+
+            if (type == CLEAR) {
+                onClear.run();
+            } else if (type == INVALIDATE) {
+                onInvalidate.accept(this.objectMapper.fromJson(message.substring(idLength + 1), this.keyType));
+            }
+        } catch (RuntimeException e) {
+            LOGGER.warn("Dropping invalidation that could not be applied: {}", message, e);
+        }
+    }
+}
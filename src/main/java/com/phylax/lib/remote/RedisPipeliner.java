@@ -0,0 +1,273 @@
+package com.phylax.lib.remote;
+
+import com.phylax.lib.config.PipelineConfig;
+import com.phylax.lib.connector.RedisConnectionManager;
+import com.phylax.lib.exception.RedisException;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Response;
+import redis.clients.jedis.exceptions.JedisAskDataException;
+import redis.clients.jedis.exceptions.JedisRedirectionException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+
+/**
+ * Sends commands submitted by many threads as pipelines over a few shared connections.
+ * <p>
+ * Every connection is served by one thread that takes the commands queued for it, sends
+ * them as a single pipeline and completes each caller's future with its own reply.
+ * Commands queued while a pipeline is in flight go out together in the next one, so the
+ * round trip is shared by all of them. Commands are routed by key, first to the shard
+ * owning the key and then to one of its connections, which keeps the commands for one
+ * key in submission order. A command moved by a cluster node is sent once more after
+ * the slot map has been updated; a command answered by {@code ASK} is sent once more to
+ * the node importing its slot, preceded by {@code ASKING}.
+ * </p>
+ */
+final class RedisPipeliner implements AutoCloseable {
+
+    private final RedisConnectionManager redisConnectionManager;
+
+    private final int maxBatchSize;
+
+    private final long lingerNanos;
+
+    private final int connectionsPerShard;
+
+    /**
+     * Lanes of every shard a command was sent to, created on first use.
+     */
+    private final ConcurrentHashMap<Integer, Lane[]> lanes = new ConcurrentHashMap<>();
+
+    private volatile boolean closed;
+
+    RedisPipeliner(RedisConnectionManager redisConnectionManager, PipelineConfig pipelineConfig) {
+        this.redisConnectionManager = redisConnectionManager;
+        this.maxBatchSize = Math.max(1, pipelineConfig.getMaxBatchSize());
+        this.lingerNanos = Math.max(0L, pipelineConfig.getLingerTime().toNanos());
+        this.connectionsPerShard = Math.max(1, pipelineConfig.getConnections());
+        redisConnectionManager.register(this);
+    }
+
+    /**
+     * Queues a command on the connection serving the given key.
+     *
+     * @param key     the key the command operates on, used for routing
+     * @param command adds the command to a pipeline and returns its pending reply
+     * @return a future completed with the reply of the command
+     */
+    <T> CompletableFuture<T> submit(byte[] key, Function<Pipeline, Response<T>> command) {
+        final Command<T> pending = new Command<>(key, command);
+        this.enqueue(pending);
+        return pending.future;
+    }
+
+    private void enqueue(Command<?> command) {
+
+        if (this.closed) {
+            command.future.completeExceptionally(new RedisException("Redis pipeline is closed"));
+            return;
+        }
+        final int shard = this.redisConnectionManager.getShard(command.key);
+        final Lane[] shardLanes = this.lanes.computeIfAbsent(shard, this::createLanes);
+        final Lane lane = shardLanes[Math.floorMod(Arrays.hashCode(command.key), shardLanes.length)];
+        lane.queue.add(command);
+
+        if (this.closed && lane.queue.remove(command)) {
+            // Lost a race with close(); the lane may already have drained its queue.
+            command.future.completeExceptionally(new RedisException("Redis pipeline is closed"));
+        }
+    }
+
+    private Lane[] createLanes(int shard) {
+        final Lane[] shardLanes = new Lane[this.connectionsPerShard];
+
+        for (int i = 0; i < shardLanes.length; i++) {
+            shardLanes[i] = new Lane(shard, i);
+        }
+        return shardLanes;
+    }
+
+    /**
+     * Fails the commands still queued and returns the connections to the pool.
+     */
+    @Override
+    public void close() {
+        this.closed = true;
+        this.redisConnectionManager.unregister(this);
+        final List<Lane> all = new ArrayList<>();
+        this.lanes.values().forEach(shardLanes -> all.addAll(Arrays.asList(shardLanes)));
+
+        for (Lane lane : all) {
+            lane.thread.interrupt();
+        }
+
+        for (Lane lane : all) {
+
+            try {
+                lane.thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * A shared connection and the thread sending the commands queued for it.
+     */
+    private final class Lane {
+
+        private final LinkedBlockingQueue<Command<?>> queue = new LinkedBlockingQueue<>();
+
+        private final int shard;
+
+        private final Thread thread;
+
+        private Jedis connection;
+
+        private Lane(int shard, int index) {
+            this.shard = shard;
+            this.thread = new Thread(this::run, "redis-pipeline-" + shard + "-" + index);
+            this.thread.setDaemon(true);
+            this.thread.start();
+        }
+
+        private void run() {
+            final List<Command<?>> batch = new ArrayList<>(maxBatchSize);
+
+            try {
+
+                while (!closed) {
+                    batch.add(this.queue.take());
+
+                    if (lingerNanos > 0L) {
+                        LockSupport.parkNanos(lingerNanos);
+                    }
+                    this.queue.drainTo(batch, maxBatchSize - 1);
+                    this.send(batch);
+                    batch.clear();
+                }
+            } catch (InterruptedException e) {
+                // Closed.
+            } finally {
+                this.queue.drainTo(batch);
+                final RedisException failure = new RedisException("Redis pipeline is closed");
+                batch.forEach(command -> command.future.completeExceptionally(failure));
+
+                if (this.connection != null) {
+                    this.connection.close();
+                }
+            }
+        }
+
+        private void send(List<Command<?>> batch) {
+
+            try {
+
+                if (this.connection == null) {
+                    this.connection = redisConnectionManager.getShardConnection(this.shard);
+                }
+                final Pipeline pipeline = this.connection.pipelined();
+
+                for (Command<?> command : batch) {
+                    command.send(pipeline);
+                }
+                pipeline.sync();
+
+            } catch (Exception e) {
+                final RedisException failure = new RedisException("Unable to send pipeline to redis");
+                batch.forEach(command -> command.future.completeExceptionally(failure));
+
+                if (this.connection != null) {
+                    // The connection is in an unknown state; let the pool discard it.
+                    this.connection.close();
+                    this.connection = null;
+                }
+                return;
+            }
+
+            for (Command<?> command : batch) {
+
+                try {
+                    command.complete();
+                } catch (JedisAskDataException e) {
+                    this.sendAsking(command, e);
+                } catch (JedisRedirectionException e) {
+                    redisConnectionManager.onRedirection(e);
+                    command.redirected = true;
+                    enqueue(command);
+                }
+            }
+        }
+
+        /**
+         * Resends a command to the node importing its slot, on a connection of its own so
+         * that {@code ASKING} only applies to that command.
+         */
+        private void sendAsking(Command<?> command, JedisAskDataException ask) {
+            command.redirected = true;
+
+            try(Jedis jedis = redisConnectionManager.getConnection(ask.getTargetNode())) {
+                jedis.asking();
+                final Pipeline pipeline = jedis.pipelined();
+                command.send(pipeline);
+                pipeline.sync();
+
+            } catch (Exception e) {
+                command.future.completeExceptionally(new RedisException("Unable to send redirected command to redis"));
+                return;
+            }
+            command.complete();
+        }
+    }
+
+    private static final class Command<T> {
+
+        private final byte[] key;
+
+        private final Function<Pipeline, Response<T>> operation;
+
+        private final CompletableFuture<T> future = new CompletableFuture<>();
+
+        private Response<T> response;
+
+        private boolean redirected;
+
+        private Command(byte[] key, Function<Pipeline, Response<T>> operation) {
+            this.key = key;
+            this.operation = operation;
+        }
+
+        private void send(Pipeline pipeline) {
+            this.response = this.operation.apply(pipeline);
+        }
+
+        /**
+         * Completes the future with the reply.
+         *
+         * @throws JedisRedirectionException if the command was redirected for the first time
+         */
+        private void complete() {
+
+            try {
+                this.future.complete(this.response.get());
+            } catch (JedisRedirectionException e) {
+
+                if (this.redirected) {
+                    this.future.completeExceptionally(new RedisException("Redis command failed"));
+                } else {
+                    throw e;
+                }
+            } catch (RuntimeException e) {
+                this.future.completeExceptionally(new RedisException("Redis command failed"));
+            }
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.phylax.lib.stats;
+
+/**
+ * Operations whose latency and failures are recorded per cache tier.
+ */
+public enum CacheOperation {
+
+    /**
+     * A lookup of one key or a batch of keys.
+     */
+    READ,
+
+    /**
+     * A write of one entry or a batch of entries.
+     */
+    WRITE,
+
+    /**
+     * A delete of one key or a batch of keys.
+     */
+    DELETE,
+
+    /**
+     * A call of the loader supplied to a read-through lookup.
+     */
+    LOAD
+}
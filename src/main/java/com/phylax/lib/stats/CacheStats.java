@@ -0,0 +1,143 @@
+package com.phylax.lib.stats;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Immutable snapshot of the statistics of a cache tier.
+ * <p>
+ * Hits and misses count keys, so a batch read of ten keys counts ten lookups, while
+ * latencies and errors count calls: the batch read is one {@link CacheOperation#READ}
+ * sample. Loads are the latency samples of {@link CacheOperation#LOAD}.
+ * </p>
+ */
+public final class CacheStats {
+
+    static final CacheStats EMPTY = new CacheStats(0L, 0L, 0L, new EnumMap<>(CacheOperation.class),
+            new EnumMap<>(CacheOperation.class));
+
+    private final long hitCount;
+
+    private final long missCount;
+
+    private final long evictionCount;
+
+    private final Map<CacheOperation, LatencySnapshot> latencies;
+
+    private final Map<CacheOperation, Long> errorCounts;
+
+    CacheStats(long hitCount, long missCount, long evictionCount, Map<CacheOperation, LatencySnapshot> latencies,
+               Map<CacheOperation, Long> errorCounts) {
+        this.hitCount = hitCount;
+        this.missCount = missCount;
+        this.evictionCount = evictionCount;
+        this.latencies = latencies;
+        this.errorCounts = errorCounts;
+    }
+
+    /**
+     * Returns the number of lookups that found a value.
+     *
+     * @return the hit count
+     */
+    public long getHitCount() {
+        return hitCount;
+    }
+
+    /**
+     * Returns the number of lookups that found no value.
+     *
+     * @return the miss count
+     */
+    public long getMissCount() {
+        return missCount;
+    }
+
+    /**
+     * Returns the number of lookups.
+     *
+     * @return hits plus misses
+     */
+    public long getRequestCount() {
+        return hitCount + missCount;
+    }
+
+    /**
+     * Returns the fraction of lookups that found a value.
+     *
+     * @return the hit rate, or {@code 1.0} if there was no lookup
+     */
+    public double getHitRate() {
+        final long requests = getRequestCount();
+        return (requests == 0L) ? 1.0 : (double) hitCount / requests;
+    }
+
+    /**
+     * Returns the number of loader calls.
+     *
+     * @return the load count
+     */
+    public long getLoadCount() {
+        return getLatency(CacheOperation.LOAD).getCount() + getErrorCount(CacheOperation.LOAD);
+    }
+
+    /**
+     * Returns the number of entries removed to stay within the capacity of the tier.
+     *
+     * @return the eviction count, or {@code 0} for tiers that do not report evictions
+     */
+    public long getEvictionCount() {
+        return evictionCount;
+    }
+
+    /**
+     * Returns the number of failed calls of all operations.
+     *
+     * @return the error count
+     */
+    public long getErrorCount() {
+        long errors = 0L;
+
+        for (long count : errorCounts.values()) {
+            errors += count;
+        }
+        return errors;
+    }
+
+    /**
+     * Returns the number of failed calls of an operation.
+     *
+     * @param operation the operation
+     * @return the error count
+     */
+    public long getErrorCount(CacheOperation operation) {
+        return errorCounts.getOrDefault(operation, 0L);
+    }
+
+    /**
+     * Returns the latencies of the successful calls of an operation.
+     *
+     * @param operation the operation
+     * @return the latency snapshot, empty if none was recorded
+     */
+    public LatencySnapshot getLatency(CacheOperation operation) {
+        return latencies.getOrDefault(operation, LatencySnapshot.EMPTY);
+    }
+
+    /**
+     * Returns a copy of this snapshot with the given eviction count, for tiers whose
+     * evictions are counted by their storage rather than by the {@link StatsCounter}.
+     *
+     * @param evictionCount the eviction count
+     * @return the new snapshot
+     */
+    public CacheStats withEvictionCount(long evictionCount) {
+        return new CacheStats(hitCount, missCount, evictionCount, latencies, errorCounts);
+    }
+
+    @Override
+    public String toString() {
+        return "CacheStats{hits=" + hitCount + ", misses=" + missCount + ", hitRate=" + getHitRate()
+                + ", evictions=" + evictionCount + ", errors=" + errorCounts + ", latencies=" + latencies + "}";
+    }
+}
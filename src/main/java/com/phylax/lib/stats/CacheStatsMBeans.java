@@ -0,0 +1,166 @@
+package com.phylax.lib.stats;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.InstanceNotFoundException;
+import javax.management.MBeanRegistrationException;
+import javax.management.MalformedObjectNameException;
+import javax.management.NotCompliantMBeanException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.function.Supplier;
+
+/**
+ * Registers the statistics of cache tiers with the platform MBean server.
+ * <p>
+ * Each tier appears as {@code com.phylax.lib:type=CacheStats,name=<name>}, e.g. with the
+ * names {@code local}, {@code redis} and {@code smart} for the tiers of one cache.
+ * </p>
+ */
+public final class CacheStatsMBeans {
+
+    private static final String DOMAIN = "com.phylax.lib";
+
+    private CacheStatsMBeans() {
+    }
+
+    /**
+     * Registers the statistics of a tier.
+     *
+     * @param name  the name of the tier, unique within the JVM
+     * @param stats returns a snapshot of the statistics, e.g. {@code cache::stats}
+     * @return the name under which the MBean was registered
+     * @throws IllegalStateException if the name is invalid or already registered
+     */
+    public static ObjectName register(String name, Supplier<CacheStats> stats) {
+
+        try {
+            final ObjectName objectName = new ObjectName(DOMAIN + ":type=CacheStats,name=" + ObjectName.quote(name));
+            ManagementFactory.getPlatformMBeanServer().registerMBean(new View(stats), objectName);
+            return objectName;
+
+        } catch (MalformedObjectNameException | InstanceAlreadyExistsException | MBeanRegistrationException
+                 | NotCompliantMBeanException e) {
+            throw new IllegalStateException("Unable to register cache statistics " + name, e);
+        }
+    }
+
+    /**
+     * Unregisters statistics registered by {@link #register(String, Supplier)}; does nothing
+     * if they are not registered.
+     *
+     * @param objectName the name returned by {@link #register(String, Supplier)}
+     */
+    public static void unregister(ObjectName objectName) {
+
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+        } catch (InstanceNotFoundException e) {
+            // Already unregistered.
+        } catch (MBeanRegistrationException e) {
+            throw new IllegalStateException("Unable to unregister cache statistics " + objectName, e);
+        }
+    }
+
+    private static final class View implements CacheStatsMXBean {
+
+        private final Supplier<CacheStats> stats;
+
+        private View(Supplier<CacheStats> stats) {
+            this.stats = stats;
+        }
+
+        @Override
+        public long getHitCount() {
+            return this.stats.get().getHitCount();
+        }
+
+        @Override
+        public long getMissCount() {
+            return this.stats.get().getMissCount();
+        }
+
+        @Override
+        public double getHitRate() {
+            return this.stats.get().getHitRate();
+        }
+
+        @Override
+        public long getLoadCount() {
+            return this.stats.get().getLoadCount();
+        }
+
+        @Override
+        public long getEvictionCount() {
+            return this.stats.get().getEvictionCount();
+        }
+
+        @Override
+        public long getErrorCount() {
+            return this.stats.get().getErrorCount();
+        }
+
+        @Override
+        public long getReadCount() {
+            return this.latency(CacheOperation.READ).getCount();
+        }
+
+        @Override
+        public double getReadMeanNanos() {
+            return this.latency(CacheOperation.READ).getMeanNanos();
+        }
+
+        @Override
+        public long getReadP50Nanos() {
+            return this.latency(CacheOperation.READ).getP50Nanos();
+        }
+
+        @Override
+        public long getReadP99Nanos() {
+            return this.latency(CacheOperation.READ).getP99Nanos();
+        }
+
+        @Override
+        public long getReadP999Nanos() {
+            return this.latency(CacheOperation.READ).getP999Nanos();
+        }
+
+        @Override
+        public long getWriteCount() {
+            return this.latency(CacheOperation.WRITE).getCount();
+        }
+
+        @Override
+        public double getWriteMeanNanos() {
+            return this.latency(CacheOperation.WRITE).getMeanNanos();
+        }
+
+        @Override
+        public long getWriteP50Nanos() {
+            return this.latency(CacheOperation.WRITE).getP50Nanos();
+        }
+
+        @Override
+        public long getWriteP99Nanos() {
+            return this.latency(CacheOperation.WRITE).getP99Nanos();
+        }
+
+        @Override
+        public long getWriteP999Nanos() {
+            return this.latency(CacheOperation.WRITE).getP999Nanos();
+        }
+
+        @Override
+        public long getLoadP50Nanos() {
+            return this.latency(CacheOperation.LOAD).getP50Nanos();
+        }
+
+        @Override
+        public long getLoadP99Nanos() {
+            return this.latency(CacheOperation.LOAD).getP99Nanos();
+        }
+
+        private LatencySnapshot latency(CacheOperation operation) {
+            return this.stats.get().getLatency(operation);
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.phylax.lib.stats;
+
+/**
+ * JMX view of the statistics of a cache tier, registered by {@link CacheStatsMBeans}.
+ * Every attribute reads a fresh {@link CacheStats} snapshot.
+ */
+public interface CacheStatsMXBean {
+
+    long getHitCount();
+
+    long getMissCount();
+
+    double getHitRate();
+
+    long getLoadCount();
+
+    long getEvictionCount();
+
+    long getErrorCount();
+
+    long getReadCount();
+
+    double getReadMeanNanos();
+
+    long getReadP50Nanos();
+
+    long getReadP99Nanos();
+
+    long getReadP999Nanos();
+
+    long getWriteCount();
+
+    double getWriteMeanNanos();
+
+    long getWriteP50Nanos();
+
+    long getWriteP99Nanos();
+
+    long getWriteP999Nanos();
+
+    long getLoadP50Nanos();
+
+    long getLoadP99Nanos();
+}
@@ -0,0 +1,72 @@
+package com.phylax.lib.stats;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Thread-safe {@link StatsCounter} built on striped counters.
+ * <p>
+ * Every count is a {@link LongAdder} and every latency goes to a
+ * {@link LatencyHistogram}, so recording never takes a lock and concurrent threads
+ * rarely write to the same memory word. A counter may be shared by several caches to
+ * aggregate their statistics.
+ * </p>
+ */
+public final class ConcurrentStatsCounter implements StatsCounter {
+
+    private static final CacheOperation[] OPERATIONS = CacheOperation.values();
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    private final LatencyHistogram[] latencies = new LatencyHistogram[OPERATIONS.length];
+
+    private final LongAdder[] errors = new LongAdder[OPERATIONS.length];
+
+    public ConcurrentStatsCounter() {
+
+        for (int i = 0; i < OPERATIONS.length; i++) {
+            this.latencies[i] = new LatencyHistogram();
+            this.errors[i] = new LongAdder();
+        }
+    }
+
+    @Override
+    public long startNanos() {
+        return System.nanoTime();
+    }
+
+    @Override
+    public void recordLatency(CacheOperation operation, long startNanos) {
+        this.latencies[operation.ordinal()].record(System.nanoTime() - startNanos);
+    }
+
+    @Override
+    public void recordHits(int count) {
+        this.hits.add(count);
+    }
+
+    @Override
+    public void recordMisses(int count) {
+        this.misses.add(count);
+    }
+
+    @Override
+    public void recordError(CacheOperation operation) {
+        this.errors[operation.ordinal()].increment();
+    }
+
+    @Override
+    public CacheStats snapshot() {
+        final Map<CacheOperation, LatencySnapshot> latencySnapshots = new EnumMap<>(CacheOperation.class);
+        final Map<CacheOperation, Long> errorCounts = new EnumMap<>(CacheOperation.class);
+
+        for (CacheOperation operation : OPERATIONS) {
+            latencySnapshots.put(operation, this.latencies[operation.ordinal()].snapshot());
+            errorCounts.put(operation, this.errors[operation.ordinal()].sum());
+        }
+        return new CacheStats(this.hits.sum(), this.misses.sum(), 0L, latencySnapshots, errorCounts);
+    }
+}
@@ -0,0 +1,35 @@
+package com.phylax.lib.stats;
+
+/**
+ * {@link StatsCounter} recording nothing.
+ */
+enum DisabledStatsCounter implements StatsCounter {
+
+    INSTANCE;
+
+    @Override
+    public long startNanos() {
+        return 0L;
+    }
+
+    @Override
+    public void recordLatency(CacheOperation operation, long startNanos) {
+    }
+
+    @Override
+    public void recordHits(int count) {
+    }
+
+    @Override
+    public void recordMisses(int count) {
+    }
+
+    @Override
+    public void recordError(CacheOperation operation) {
+    }
+
+    @Override
+    public CacheStats snapshot() {
+        return CacheStats.EMPTY;
+    }
+}
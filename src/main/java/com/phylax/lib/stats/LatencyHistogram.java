@@ -0,0 +1,99 @@
+package com.phylax.lib.stats;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free histogram of latencies in nanoseconds.
+ * <p>
+ * Values are counted in log-linear buckets: every power of two is split into eight
+ * buckets of equal width, so that a percentile read back from the histogram is within
+ * 12.5% of the recorded value, from a nanosecond up to about 18 minutes. Each bucket is
+ * a {@link LongAdder}, which spreads concurrent increments over striped cells instead
+ * of contending on a single word; recording is one array index computation and one
+ * increment.
+ * </p>
+ */
+public final class LatencyHistogram {
+
+    /** Buckets per power of two, as a power of two. */
+    private static final int SUB_BUCKET_BITS = 3;
+
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    /** Largest power of two told apart; longer latencies share the last bucket. */
+    private static final int MAX_EXPONENT = 40;
+
+    static final int BUCKETS = ((MAX_EXPONENT - SUB_BUCKET_BITS + 1) << SUB_BUCKET_BITS) + SUB_BUCKETS;
+
+    private final LongAdder[] buckets = new LongAdder[BUCKETS];
+
+    private final LongAdder totalNanos = new LongAdder();
+
+    private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0L);
+
+    public LatencyHistogram() {
+
+        for (int i = 0; i < BUCKETS; i++) {
+            this.buckets[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Records a latency.
+     *
+     * @param nanos the latency in nanoseconds; negative values are recorded as 0
+     */
+    public void record(long nanos) {
+        final long value = Math.max(0L, nanos);
+        this.buckets[bucketOf(value)].increment();
+        this.totalNanos.add(value);
+        this.maxNanos.accumulate(value);
+    }
+
+    /**
+     * Returns the latencies recorded so far. Latencies recorded concurrently may or may
+     * not be included.
+     *
+     * @return an immutable snapshot
+     */
+    public LatencySnapshot snapshot() {
+        final long[] counts = new long[BUCKETS];
+
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = this.buckets[i].sum();
+        }
+        return new LatencySnapshot(counts, this.totalNanos.sum(), this.maxNanos.get());
+    }
+
+    static int bucketOf(long value) {
+
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        final int exponent = 63 - Long.numberOfLeadingZeros(value);
+
+        if (exponent > MAX_EXPONENT) {
+            return BUCKETS - 1;
+        }
+        return ((exponent - SUB_BUCKET_BITS + 1) << SUB_BUCKET_BITS)
+                | (int) ((value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1));
+    }
+
+    /**
+     * Returns the largest value counted in the bucket.
+     */
+    static long upperBoundOf(int bucket) {
+
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+
+        if (bucket == BUCKETS - 1) {
+            return Long.MAX_VALUE;
+        }
+        final int next = bucket + 1;
+        final int exponent = (next >>> SUB_BUCKET_BITS) + SUB_BUCKET_BITS - 1;
+        return ((long) (SUB_BUCKETS + (next & (SUB_BUCKETS - 1))) << (exponent - SUB_BUCKET_BITS)) - 1;
+    }
+}
@@ -0,0 +1,114 @@
+package com.phylax.lib.stats;
+
+/**
+ * Immutable copy of a {@link LatencyHistogram}.
+ */
+public final class LatencySnapshot {
+
+    static final LatencySnapshot EMPTY = new LatencySnapshot(new long[LatencyHistogram.BUCKETS], 0L, 0L);
+
+    private final long[] counts;
+
+    private final long count;
+
+    private final long totalNanos;
+
+    private final long maxNanos;
+
+    LatencySnapshot(long[] counts, long totalNanos, long maxNanos) {
+        long count = 0L;
+
+        for (long bucket : counts) {
+            count += bucket;
+        }
+        this.counts = counts;
+        this.count = count;
+        this.totalNanos = totalNanos;
+        this.maxNanos = maxNanos;
+    }
+
+    /**
+     * Returns the number of recorded latencies.
+     *
+     * @return the count
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Returns the mean latency.
+     *
+     * @return nanoseconds, or {@code 0} if nothing was recorded
+     */
+    public double getMeanNanos() {
+        return (count == 0L) ? 0.0 : (double) totalNanos / count;
+    }
+
+    /**
+     * Returns the largest recorded latency.
+     *
+     * @return nanoseconds, or {@code 0} if nothing was recorded
+     */
+    public long getMaxNanos() {
+        return maxNanos;
+    }
+
+    /**
+     * Returns the latency below which the given fraction of the recorded latencies fall,
+     * within the 12.5% precision of the histogram.
+     *
+     * @param quantile the fraction, in {@code [0, 1]}
+     * @return nanoseconds, or {@code 0} if nothing was recorded
+     */
+    public long getPercentileNanos(double quantile) {
+
+        if (count == 0L) {
+            return 0L;
+        }
+        final long rank = Math.max(1L, (long) Math.ceil(Math.min(1.0, Math.max(0.0, quantile)) * count));
+        long seen = 0L;
+
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+
+            if (seen >= rank) {
+                return Math.min(LatencyHistogram.upperBoundOf(i), maxNanos);
+            }
+        }
+        return maxNanos;
+    }
+
+    /**
+     * Returns the median latency.
+     *
+     * @return nanoseconds
+     */
+    public long getP50Nanos() {
+        return getPercentileNanos(0.50);
+    }
+
+    /**
+     * Returns the 99th percentile latency.
+     *
+     * @return nanoseconds
+     */
+    public long getP99Nanos() {
+        return getPercentileNanos(0.99);
+    }
+
+    /**
+     * Returns the 99.9th percentile latency.
+     *
+     * @return nanoseconds
+     */
+    public long getP999Nanos() {
+        return getPercentileNanos(0.999);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("LatencySnapshot{count=%d, mean=%.0fns, p50=%dns, p99=%dns, p999=%dns, max=%dns}",
+                count, getMeanNanos(), getP50Nanos(), getP99Nanos(), getP999Nanos(), maxNanos);
+    }
+}
@@ -0,0 +1,66 @@
+package com.phylax.lib.stats;
+
+/**
+ * Records the hits, misses, latencies and errors of a cache tier.
+ * <p>
+ * Implementations must be thread-safe and cheap enough to be called on every
+ * operation. A tier times an operation by taking {@link #startNanos()} before it and
+ * passing the result to {@link #recordLatency(CacheOperation, long)} after it, so that
+ * the {@linkplain #disabled() disabled} counter does not even read the clock.
+ * </p>
+ */
+public interface StatsCounter {
+
+    /**
+     * Returns a counter that records nothing and whose snapshot is always empty.
+     *
+     * @return the shared disabled counter
+     */
+    static StatsCounter disabled() {
+        return DisabledStatsCounter.INSTANCE;
+    }
+
+    /**
+     * Returns the start time of an operation, to be passed to
+     * {@link #recordLatency(CacheOperation, long)}.
+     *
+     * @return {@link System#nanoTime()}, or {@code 0} if latencies are not recorded
+     */
+    long startNanos();
+
+    /**
+     * Records that an operation started at {@code startNanos} completed.
+     *
+     * @param operation  the operation
+     * @param startNanos the value returned by {@link #startNanos()} before the operation
+     */
+    void recordLatency(CacheOperation operation, long startNanos);
+
+    /**
+     * Records lookups that found a value.
+     *
+     * @param count the number of keys found
+     */
+    void recordHits(int count);
+
+    /**
+     * Records lookups that found no value.
+     *
+     * @param count the number of keys not found
+     */
+    void recordMisses(int count);
+
+    /**
+     * Records that an operation failed.
+     *
+     * @param operation the operation
+     */
+    void recordError(CacheOperation operation);
+
+    /**
+     * Returns the counts recorded so far.
+     *
+     * @return an immutable snapshot
+     */
+    CacheStats snapshot();
+}
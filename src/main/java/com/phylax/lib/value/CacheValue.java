@@ -7,6 +7,8 @@ import com.phylax.lib.contract.Cacheable;
  * <p>
  * This class is useful in scenarios such as generic caching, where the stored values
  * may be of different types but need to be retrieved with type validation at runtime.
+ * {@link EncodedCacheValue} holds a value in encoded form instead and decodes it on
+ * first retrieval.
  * </p>
  *
  * <h3>Example Usage:</h3>
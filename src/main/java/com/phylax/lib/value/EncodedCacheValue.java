@@ -0,0 +1,144 @@
+package com.phylax.lib.value;
+
+import com.phylax.lib.contract.CacheCodec;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * A {@link CacheValue} that holds the encoded bytes of a value and decodes them only when
+ * the value is requested.
+ * <p>
+ * Reading a value from a remote tier and copying it into the local tier then costs no
+ * decoding at all, and the local tier holds the compact encoding rather than the object
+ * graph. The first call to {@link #as(Class)} decodes the bytes with the codec for the
+ * requested type; the result is kept, so later calls for the same type return the same
+ * instance. Requesting a second type decodes the bytes again for that type.
+ * </p>
+ *
+ * <h3>Example Usage:</h3>
+ * <pre>{@code
+ * CacheValue cacheValue = new EncodedCacheValue(bytes, JsonCodec::new);
+ *
+ * // Decodes the bytes as a Policy and keeps the result
+ * Policy policy = cacheValue.as(Policy.class);
+ *
+ * // Returns the same instance without decoding again
+ * Policy same = cacheValue.as(Policy.class);
+ * }</pre>
+ */
+public final class EncodedCacheValue extends CacheValue {
+
+    /**
+     * The encoded value; never modified.
+     */
+    private final byte[] bytes;
+
+    /**
+     * Supplies the codec decoding the bytes into a given type.
+     */
+    private final Function<Class<?>, ? extends CacheCodec<?>> codecs;
+
+    /**
+     * The value decoded for the first requested type.
+     * <p>
+     * Almost every value is only ever read as one type, which this field serves without
+     * a map lookup.
+     * </p>
+     */
+    private volatile Decoded first;
+
+    /**
+     * Values decoded for further types; created on first use.
+     */
+    private volatile Map<Class<?>, Object> others;
+
+    /**
+     * Constructs a new {@code EncodedCacheValue} around the given bytes.
+     *
+     * @param bytes  the encoded value; must not be modified afterwards
+     * @param codecs returns the codec decoding the bytes into the given type
+     */
+    public EncodedCacheValue(byte[] bytes, Function<Class<?>, ? extends CacheCodec<?>> codecs) {
+        super(null);
+        this.bytes = bytes;
+        this.codecs = codecs;
+    }
+
+    /**
+     * Decodes the value as the specified type, or returns the instance decoded for that
+     * type by an earlier call.
+     * <p>
+     * Concurrent first calls for one type may each decode the bytes; all of them
+     * return the instance kept by the first to finish.
+     * </p>
+     *
+     * @param <T>  the target type to decode to
+     * @param type the {@link Class} object representing the expected type
+     * @return the decoded value
+     * @throws ClassCastException if the codec for {@code type} produces another type
+     */
+    @Override
+    public <T> T as(Class<T> type) {
+        final Decoded decoded = this.first;
+
+        if (decoded != null && decoded.type() == type) {
+            return type.cast(decoded.value());
+        }
+
+        if (decoded == null) {
+            final Object value = this.decode(type);
+
+            synchronized (this) {
+
+                if (this.first == null) {
+                    this.first = new Decoded(type, value);
+                    return type.cast(value);
+                }
+            }
+            return this.as(type);
+        }
+        Map<Class<?>, Object> values = this.others;
+
+        if (values == null) {
+
+            synchronized (this) {
+
+                if (this.others == null) {
+                    this.others = new ConcurrentHashMap<>();
+                }
+                values = this.others;
+            }
+        }
+        return type.cast(values.computeIfAbsent(type, this::decode));
+    }
+
+    /**
+     * Returns the encoded value.
+     *
+     * @return the bytes this value was created with; must not be modified
+     */
+    public byte[] bytes() {
+        return this.bytes;
+    }
+
+    /**
+     * Returns the size of the encoded value.
+     *
+     * @return the number of encoded bytes
+     */
+    public int size() {
+        return this.bytes.length;
+    }
+
+    private Object decode(Class<?> type) {
+        return this.codecs.apply(type).decode(this.bytes);
+    }
+
+    /**
+     * A value decoded for a type.
+     */
+    private record Decoded(Class<?> type, Object value) {
+    }
+}